@@ -0,0 +1,710 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmark;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import me.lucko.luckperms.common.actionlog.LogDispatcher;
+import me.lucko.luckperms.common.api.LuckPermsApiProvider;
+import me.lucko.luckperms.common.cacheddata.CacheMetadata;
+import me.lucko.luckperms.common.calculator.CalculatorFactory;
+import me.lucko.luckperms.common.calculator.PermissionCalculator;
+import me.lucko.luckperms.common.calculator.processor.DirectProcessor;
+import me.lucko.luckperms.common.calculator.processor.PermissionProcessor;
+import me.lucko.luckperms.common.calculator.processor.RegexProcessor;
+import me.lucko.luckperms.common.calculator.processor.SpongeWildcardProcessor;
+import me.lucko.luckperms.common.calculator.processor.WildcardProcessor;
+import me.lucko.luckperms.common.calculator.processor.WildcardTrieProcessor;
+import me.lucko.luckperms.common.command.CommandManager;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.config.LuckPermsConfiguration;
+import me.lucko.luckperms.common.config.generic.adapter.ConfigurationAdapter;
+import me.lucko.luckperms.common.config.generic.key.ConfigKey;
+import me.lucko.luckperms.common.context.manager.ContextManager;
+import me.lucko.luckperms.common.dependencies.DependencyManager;
+import me.lucko.luckperms.common.dependencies.DependencyManagerImpl;
+import me.lucko.luckperms.common.event.EventDispatcher;
+import me.lucko.luckperms.common.extension.SimpleExtensionManager;
+import me.lucko.luckperms.common.http.BytebinClient;
+import me.lucko.luckperms.common.http.BytesocksClient;
+import me.lucko.luckperms.common.inheritance.InheritanceGraphFactory;
+import me.lucko.luckperms.common.inheritance.InheritanceIndex;
+import me.lucko.luckperms.common.locale.TranslationManager;
+import me.lucko.luckperms.common.locale.TranslationRepository;
+import me.lucko.luckperms.common.messaging.InternalMessagingService;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.TemporaryNodeExpiryQueue;
+import me.lucko.luckperms.common.model.Track;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.model.manager.group.GroupManager;
+import me.lucko.luckperms.common.model.manager.group.StandardGroupManager;
+import me.lucko.luckperms.common.model.manager.track.StandardTrackManager;
+import me.lucko.luckperms.common.model.manager.track.TrackManager;
+import me.lucko.luckperms.common.model.manager.user.StandardUserManager;
+import me.lucko.luckperms.common.model.manager.user.UserManager;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.plugin.bootstrap.LuckPermsBootstrap;
+import me.lucko.luckperms.common.plugin.classpath.ClassPathAppender;
+import me.lucko.luckperms.common.plugin.logging.JavaPluginLogger;
+import me.lucko.luckperms.common.plugin.logging.PluginLogger;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerTask;
+import me.lucko.luckperms.common.plugin.util.AbstractConnectionListener;
+import me.lucko.luckperms.common.plugin.util.HealthCheckResult;
+import me.lucko.luckperms.common.query.QueryOptionsImpl;
+import me.lucko.luckperms.common.sender.DummyConsoleSender;
+import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.storage.Storage;
+import me.lucko.luckperms.common.storage.implementation.file.SeparatedConfigurateStorage;
+import me.lucko.luckperms.common.storage.implementation.file.loader.JsonLoader;
+import me.lucko.luckperms.common.storage.implementation.file.watcher.FileWatcher;
+import me.lucko.luckperms.common.tasks.SyncTask;
+import me.lucko.luckperms.common.treeview.PermissionRegistry;
+import me.lucko.luckperms.common.verbose.VerboseHandler;
+import me.lucko.luckperms.common.webeditor.store.WebEditorStore;
+import net.kyori.adventure.text.Component;
+import net.luckperms.api.platform.Health;
+import net.luckperms.api.platform.Platform;
+import net.luckperms.api.query.QueryOptions;
+import okhttp3.OkHttpClient;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * A minimal {@link LuckPermsPlugin} for use in benchmarks.
+ *
+ * <p>The services used on the measured paths (configuration, group manager, calculator
+ * factory, verbose handler and permission registry) are created up front, so calls to them
+ * are plain method calls. The configuration returns the default value for every key,
+ * unless overridden.</p>
+ *
+ * <p>The scheduler runs async and sync tasks immediately and never runs delayed or
+ * repeating tasks, so the background ticks of the services don't interfere with the
+ * measurements. Services which aren't used by the benchmarks are real instances as well,
+ * but are only created when first requested. Storage is backed by json files in a
+ * temporary directory.</p>
+ */
+public final class BenchmarkPlugin implements LuckPermsPlugin {
+
+    public static LuckPermsPlugin create() {
+        return create(Collections.emptyMap());
+    }
+
+    /**
+     * Creates a new plugin instance.
+     *
+     * @param config configuration values to use instead of the defaults
+     * @return the plugin
+     */
+    public static LuckPermsPlugin create(Map<ConfigKey<?>, ?> config) {
+        return new BenchmarkPlugin(config);
+    }
+
+    private final BenchmarkBootstrap bootstrap;
+    private final LuckPermsConfiguration configuration;
+    private final StandardUserManager userManager;
+    private final StandardGroupManager groupManager;
+    private final StandardTrackManager trackManager;
+    private final InheritanceGraphFactory inheritanceGraphFactory;
+    private final CalculatorFactory calculatorFactory;
+    private final VerboseHandler verboseHandler;
+    private final PermissionRegistry permissionRegistry;
+    private final EventDispatcher eventDispatcher;
+    private final ContextManager<?, ?> contextManager;
+    private final LogDispatcher logDispatcher;
+    private final Sender consoleSender;
+    private final SyncTask.Buffer syncTaskBuffer;
+    private final TemporaryNodeExpiryQueue temporaryNodeExpiryQueue;
+    private final InheritanceIndex inheritanceIndex;
+    private final AbstractConnectionListener connectionListener;
+    private InternalMessagingService messagingService = null;
+
+    // services which are only created if requested
+    private final Supplier<Storage> storage;
+    private final Supplier<LuckPermsApiProvider> apiProvider;
+    private final Supplier<SimpleExtensionManager> extensionManager;
+    private final Supplier<CommandManager> commandManager;
+    private final Supplier<TranslationManager> translationManager;
+    private final Supplier<TranslationRepository> translationRepository;
+    private final Supplier<DependencyManager> dependencyManager;
+    private final Supplier<OkHttpClient> httpClient;
+    private final Supplier<BytebinClient> bytebin;
+    private final Supplier<BytesocksClient> bytesocks;
+    private final Supplier<WebEditorStore> webEditorStore;
+
+    private BenchmarkPlugin(Map<ConfigKey<?>, ?> config) {
+        this.bootstrap = new BenchmarkBootstrap();
+        this.configuration = new BenchmarkConfiguration(this, config);
+        this.userManager = new StandardUserManager(this);
+        this.groupManager = new StandardGroupManager(this);
+        this.trackManager = new StandardTrackManager(this);
+        this.inheritanceGraphFactory = new InheritanceGraphFactory(this);
+        this.calculatorFactory = new SimpleCalculatorFactory(this);
+        this.verboseHandler = new VerboseHandler(this.bootstrap.getScheduler());
+        this.permissionRegistry = new NoopPermissionRegistry(this.bootstrap.getScheduler());
+        this.eventDispatcher = mock(EventDispatcher.class, withSettings().stubOnly());
+        this.contextManager = mock(ContextManager.class, withSettings().stubOnly());
+        when(this.contextManager.getStaticQueryOptions()).thenReturn(QueryOptionsImpl.DEFAULT_CONTEXTUAL);
+        this.logDispatcher = new LogDispatcher(this);
+        this.consoleSender = new BenchmarkConsoleSender(this);
+        this.syncTaskBuffer = new SyncTask.Buffer(this);
+        this.temporaryNodeExpiryQueue = new TemporaryNodeExpiryQueue();
+        this.inheritanceIndex = new InheritanceIndex(this);
+        this.connectionListener = new AbstractConnectionListener(this) {};
+
+        this.storage = Suppliers.memoize(() -> {
+            Storage storage = new Storage(this, new SeparatedConfigurateStorage(this, "JSON", new JsonLoader(), ".json", "json-storage"));
+            storage.init();
+            return storage;
+        });
+        this.apiProvider = Suppliers.memoize(() -> new LuckPermsApiProvider(this));
+        this.extensionManager = Suppliers.memoize(() -> new SimpleExtensionManager(this));
+        this.commandManager = Suppliers.memoize(() -> new CommandManager(this));
+        this.translationManager = Suppliers.memoize(() -> new TranslationManager(this));
+        this.translationRepository = Suppliers.memoize(() -> new TranslationRepository(this));
+        this.dependencyManager = Suppliers.memoize(() -> new DependencyManagerImpl(this));
+        this.httpClient = Suppliers.memoize(() -> new OkHttpClient.Builder()
+                .callTimeout(15, TimeUnit.SECONDS)
+                .build()
+        );
+        this.bytebin = Suppliers.memoize(() -> new BytebinClient(
+                this.httpClient.get(),
+                this.configuration.get(ConfigKeys.BYTEBIN_URL),
+                "luckperms"
+        ));
+        this.bytesocks = Suppliers.memoize(() -> new BytesocksClient(
+                this.httpClient.get(),
+                this.configuration.get(ConfigKeys.BYTESOCKS_HOST),
+                this.configuration.get(ConfigKeys.BYTESOCKS_USE_TLS),
+                "luckperms/editor"
+        ));
+        this.webEditorStore = Suppliers.memoize(() -> new WebEditorStore(this));
+    }
+
+    @Override
+    public LuckPermsConfiguration getConfiguration() {
+        return this.configuration;
+    }
+
+    @Override
+    public GroupManager<? extends Group> getGroupManager() {
+        return this.groupManager;
+    }
+
+    @Override
+    public InheritanceGraphFactory getInheritanceGraphFactory() {
+        return this.inheritanceGraphFactory;
+    }
+
+    @Override
+    public CalculatorFactory getCalculatorFactory() {
+        return this.calculatorFactory;
+    }
+
+    @Override
+    public VerboseHandler getVerboseHandler() {
+        return this.verboseHandler;
+    }
+
+    @Override
+    public PermissionRegistry getPermissionRegistry() {
+        return this.permissionRegistry;
+    }
+
+    @Override
+    public EventDispatcher getEventDispatcher() {
+        return this.eventDispatcher;
+    }
+
+    @Override
+    public ContextManager<?, ?> getContextManager() {
+        return this.contextManager;
+    }
+
+    @Override
+    public LuckPermsBootstrap getBootstrap() {
+        return this.bootstrap;
+    }
+
+    @Override
+    public UserManager<? extends User> getUserManager() {
+        return this.userManager;
+    }
+
+    @Override
+    public TrackManager<? extends Track> getTrackManager() {
+        return this.trackManager;
+    }
+
+    @Override
+    public Storage getStorage() {
+        return this.storage.get();
+    }
+
+    @Override
+    public Optional<InternalMessagingService> getMessagingService() {
+        return Optional.ofNullable(this.messagingService);
+    }
+
+    @Override
+    public void setMessagingService(InternalMessagingService service) {
+        if (this.messagingService == null) {
+            this.messagingService = service;
+        }
+    }
+
+    @Override
+    public PluginLogger getLogger() {
+        return this.bootstrap.getPluginLogger();
+    }
+
+    @Override
+    public LuckPermsApiProvider getApiProvider() {
+        return this.apiProvider.get();
+    }
+
+    @Override
+    public SimpleExtensionManager getExtensionManager() {
+        return this.extensionManager.get();
+    }
+
+    @Override
+    public CommandManager getCommandManager() {
+        return this.commandManager.get();
+    }
+
+    @Override
+    public AbstractConnectionListener getConnectionListener() {
+        return this.connectionListener;
+    }
+
+    @Override
+    public TranslationManager getTranslationManager() {
+        return this.translationManager.get();
+    }
+
+    @Override
+    public TranslationRepository getTranslationRepository() {
+        return this.translationRepository.get();
+    }
+
+    @Override
+    public DependencyManager getDependencyManager() {
+        return this.dependencyManager.get();
+    }
+
+    @Override
+    public LogDispatcher getLogDispatcher() {
+        return this.logDispatcher;
+    }
+
+    @Override
+    public Optional<FileWatcher> getFileWatcher() {
+        return Optional.empty();
+    }
+
+    @Override
+    public BytebinClient getBytebin() {
+        return this.bytebin.get();
+    }
+
+    @Override
+    public BytesocksClient getBytesocks() {
+        return this.bytesocks.get();
+    }
+
+    @Override
+    public WebEditorStore getWebEditorStore() {
+        return this.webEditorStore.get();
+    }
+
+    @Override
+    public Health runHealthCheck() {
+        return HealthCheckResult.healthy(Collections.emptyMap());
+    }
+
+    @Override
+    public Optional<QueryOptions> getQueryOptionsForUser(User user) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<UUID> lookupUniqueId(String username) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<String> lookupUsername(UUID uniqueId) {
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean testUsernameValidity(String username) {
+        return true;
+    }
+
+    @Override
+    public Stream<Sender> getOnlineSenders() {
+        return Stream.of(this.consoleSender);
+    }
+
+    @Override
+    public Sender getConsoleSender() {
+        return this.consoleSender;
+    }
+
+    @Override
+    public SyncTask.Buffer getSyncTaskBuffer() {
+        return this.syncTaskBuffer;
+    }
+
+    @Override
+    public TemporaryNodeExpiryQueue getTemporaryNodeExpiryQueue() {
+        return this.temporaryNodeExpiryQueue;
+    }
+
+    @Override
+    public InheritanceIndex getInheritanceIndex() {
+        return this.inheritanceIndex;
+    }
+
+    /**
+     * A {@link LuckPermsBootstrap} for a standalone platform with no players online.
+     *
+     * <p>Data is stored in a temporary directory, which is created when first requested.</p>
+     */
+    private static final class BenchmarkBootstrap implements LuckPermsBootstrap {
+        private final PluginLogger logger = new JavaPluginLogger(Logger.getLogger("LuckPerms"));
+        private final SchedulerAdapter scheduler = new BenchmarkScheduler();
+        private final Instant startupTime = Instant.now();
+        private final Supplier<Path> dataDirectory = Suppliers.memoize(() -> {
+            try {
+                return Files.createTempDirectory("luckperms-benchmark");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        @Override
+        public PluginLogger getPluginLogger() {
+            return this.logger;
+        }
+
+        @Override
+        public SchedulerAdapter getScheduler() {
+            return this.scheduler;
+        }
+
+        @Override
+        public ClassPathAppender getClassPathAppender() {
+            // all dependencies are already on the benchmark classpath
+            return file -> {};
+        }
+
+        @Override
+        public CountDownLatch getLoadLatch() {
+            return new CountDownLatch(0);
+        }
+
+        @Override
+        public CountDownLatch getEnableLatch() {
+            return new CountDownLatch(0);
+        }
+
+        @Override
+        public String getVersion() {
+            return "benchmark";
+        }
+
+        @Override
+        public Instant getStartupTime() {
+            return this.startupTime;
+        }
+
+        @Override
+        public Platform.Type getType() {
+            return Platform.Type.STANDALONE;
+        }
+
+        @Override
+        public String getServerBrand() {
+            return "benchmark";
+        }
+
+        @Override
+        public String getServerVersion() {
+            return System.getProperty("java.version");
+        }
+
+        @Override
+        public Path getDataDirectory() {
+            return this.dataDirectory.get();
+        }
+
+        @Override
+        public Optional<?> getPlayer(UUID uniqueId) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<UUID> lookupUniqueId(String username) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<String> lookupUsername(UUID uniqueId) {
+            return Optional.empty();
+        }
+
+        @Override
+        public int getPlayerCount() {
+            return 0;
+        }
+
+        @Override
+        public Collection<String> getPlayerList() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Collection<UUID> getOnlinePlayers() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isPlayerOnline(UUID uniqueId) {
+            return false;
+        }
+    }
+
+    /**
+     * A {@link SchedulerAdapter} which runs tasks immediately on the calling thread.
+     *
+     * <p>Delayed and repeating tasks are never run.</p>
+     */
+    private static final class BenchmarkScheduler implements SchedulerAdapter {
+        private static final Executor DIRECT = Runnable::run;
+        private static final SchedulerTask NOOP_TASK = () -> {};
+
+        @Override
+        public Executor async() {
+            return DIRECT;
+        }
+
+        @Override
+        public Executor sync() {
+            return DIRECT;
+        }
+
+        @Override
+        public SchedulerTask asyncLater(Runnable task, long delay, TimeUnit unit) {
+            return NOOP_TASK;
+        }
+
+        @Override
+        public SchedulerTask asyncRepeating(Runnable task, long interval, TimeUnit unit) {
+            return NOOP_TASK;
+        }
+
+        @Override
+        public void shutdownScheduler() {
+
+        }
+
+        @Override
+        public void shutdownExecutor() {
+
+        }
+    }
+
+    /**
+     * A console {@link Sender} which discards messages.
+     */
+    private static final class BenchmarkConsoleSender extends DummyConsoleSender {
+        BenchmarkConsoleSender(LuckPermsPlugin plugin) {
+            super(plugin);
+        }
+
+        @Override
+        public void sendMessage(Component message) {
+
+        }
+    }
+
+    /**
+     * A {@link LuckPermsConfiguration} which returns the default value for every key,
+     * unless overridden.
+     */
+    private static final class BenchmarkConfiguration extends LuckPermsConfiguration {
+        private final ConfigurationAdapter adapter;
+        private final Map<ConfigKey<?>, Optional<?>> values = new ConcurrentHashMap<>();
+
+        BenchmarkConfiguration(LuckPermsPlugin plugin, Map<ConfigKey<?>, ?> overrides) {
+            this(plugin, new DefaultsConfigurationAdapter(plugin), overrides);
+        }
+
+        private BenchmarkConfiguration(LuckPermsPlugin plugin, ConfigurationAdapter adapter, Map<ConfigKey<?>, ?> overrides) {
+            super(plugin, adapter);
+            this.adapter = adapter;
+
+            // the platform type isn't known, so assume the sponge processor isn't wanted
+            this.values.put(ConfigKeys.APPLYING_WILDCARDS_SPONGE, Optional.of(false));
+            overrides.forEach((key, value) -> this.values.put(key, Optional.ofNullable(value)));
+        }
+
+        @Override
+        protected void load(boolean initial) {
+            // values are computed lazily instead, as some keys can't be computed without a platform
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T get(ConfigKey<T> key) {
+            return (T) this.values.computeIfAbsent(key, k -> Optional.ofNullable(k.get(this.adapter))).orElse(null);
+        }
+    }
+
+    /**
+     * A {@link PermissionRegistry} which ignores offered permissions.
+     *
+     * <p>The registry is never ticked, so queued permissions would otherwise accumulate
+     * for the lifetime of the benchmark.</p>
+     */
+    private static final class NoopPermissionRegistry extends PermissionRegistry {
+        NoopPermissionRegistry(SchedulerAdapter scheduler) {
+            super(scheduler);
+        }
+
+        @Override
+        public void offer(String permission) {
+
+        }
+    }
+
+    /**
+     * A {@link CalculatorFactory} which selects processors according to the configuration,
+     * in the same way as the platform implementations.
+     */
+    private static final class SimpleCalculatorFactory implements CalculatorFactory {
+        private final LuckPermsPlugin plugin;
+
+        SimpleCalculatorFactory(LuckPermsPlugin plugin) {
+            this.plugin = plugin;
+        }
+
+        @Override
+        public PermissionCalculator build(QueryOptions queryOptions, CacheMetadata metadata) {
+            List<PermissionProcessor> processors = new ArrayList<>(4);
+
+            processors.add(new DirectProcessor());
+
+            if (this.plugin.getConfiguration().get(ConfigKeys.APPLYING_REGEX)) {
+                processors.add(new RegexProcessor(this.plugin.getConfiguration().get(ConfigKeys.APPLYING_REGEX_AUTOMATON)));
+            }
+
+            if (this.plugin.getConfiguration().get(ConfigKeys.APPLYING_WILDCARDS)) {
+                if (this.plugin.getConfiguration().get(ConfigKeys.APPLYING_WILDCARDS_TRIE)) {
+                    processors.add(new WildcardTrieProcessor());
+                } else {
+                    processors.add(new WildcardProcessor());
+                }
+            }
+
+            if (this.plugin.getConfiguration().get(ConfigKeys.APPLYING_WILDCARDS_SPONGE)) {
+                processors.add(new SpongeWildcardProcessor());
+            }
+
+            return new PermissionCalculator(this.plugin, metadata, processors, this.plugin.getConfiguration().get(ConfigKeys.PERMISSION_LOOKUP_CACHE_SIZE));
+        }
+    }
+
+    /**
+     * A {@link ConfigurationAdapter} which returns the default value for every key.
+     */
+    private static final class DefaultsConfigurationAdapter implements ConfigurationAdapter {
+        private final LuckPermsPlugin plugin;
+
+        DefaultsConfigurationAdapter(LuckPermsPlugin plugin) {
+            this.plugin = plugin;
+        }
+
+        @Override
+        public LuckPermsPlugin getPlugin() {
+            return this.plugin;
+        }
+
+        @Override
+        public void reload() {
+
+        }
+
+        @Override
+        public String getString(String path, String def) {
+            return def;
+        }
+
+        @Override
+        public int getInteger(String path, int def) {
+            return def;
+        }
+
+        @Override
+        public boolean getBoolean(String path, boolean def) {
+            return def;
+        }
+
+        @Override
+        public List<String> getStringList(String path, List<String> def) {
+            return def;
+        }
+
+        @Override
+        public Map<String, String> getStringMap(String path, Map<String, String> def) {
+            return def;
+        }
+    }
+}
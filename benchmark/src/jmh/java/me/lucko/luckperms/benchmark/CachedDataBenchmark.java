@@ -0,0 +1,127 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmark;
+
+import com.google.common.collect.ImmutableMap;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.node.types.Inheritance;
+import me.lucko.luckperms.common.node.types.Meta;
+import me.lucko.luckperms.common.node.types.Permission;
+import me.lucko.luckperms.common.node.types.Prefix;
+import me.lucko.luckperms.common.node.types.Weight;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.query.QueryOptionsImpl;
+import net.luckperms.api.cacheddata.CachedMetaData;
+import net.luckperms.api.cacheddata.CachedPermissionData;
+import net.luckperms.api.query.QueryOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks calculating permission and meta data for a holder over a synthetic
+ * group hierarchy.
+ *
+ * <p>The hierarchy has {@code depth} levels of {@code width} groups, where every
+ * group inherits every group in the level below it.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CachedDataBenchmark {
+
+    @Param({"2", "5", "10"})
+    public int depth;
+
+    @Param({"1", "4"})
+    public int width;
+
+    @Param({"50"})
+    public int permissionsPerGroup;
+
+    @Param({"false", "true"})
+    public boolean compileWildcards;
+
+    private Group holder;
+    private QueryOptions queryOptions;
+
+    @Setup
+    public void setup() {
+        LuckPermsPlugin plugin = BenchmarkPlugin.create(ImmutableMap.of(ConfigKeys.APPLYING_WILDCARDS_TRIE, this.compileWildcards));
+
+        Group[] below = new Group[0];
+        for (int level = this.depth; level >= 1; level--) {
+            Group[] groups = new Group[this.width];
+            for (int i = 0; i < this.width; i++) {
+                Group group = plugin.getGroupManager().getOrMake("level" + level + "-" + i);
+                populate(group, level, below);
+                groups[i] = group;
+            }
+            below = groups;
+        }
+
+        this.holder = plugin.getGroupManager().getOrMake("holder");
+        populate(this.holder, 0, below);
+
+        this.queryOptions = QueryOptionsImpl.DEFAULT_CONTEXTUAL;
+    }
+
+    private void populate(Group group, int level, Group[] parents) {
+        for (Group parent : parents) {
+            group.normalData().add(Inheritance.builder(parent.getName()).build());
+        }
+        for (int i = 0; i < this.permissionsPerGroup; i++) {
+            group.normalData().add(Permission.builder().permission("plugin" + i + ".level" + level + ".use").build());
+        }
+        group.normalData().add(Weight.builder(level).build());
+        group.normalData().add(Prefix.builder("[" + group.getName() + "]", level).build());
+        group.normalData().add(Meta.builder("level", Integer.toString(level)).build());
+    }
+
+    @Benchmark
+    public CachedPermissionData calculatePermissions() {
+        return this.holder.getCachedData().permissionData().calculate(this.queryOptions);
+    }
+
+    @Benchmark
+    public CachedMetaData calculateMeta() {
+        return this.holder.getCachedData().metaData().calculate(this.queryOptions);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmark;
+
+import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
+import net.luckperms.api.context.ContextSatisfyMode;
+import net.luckperms.api.context.ImmutableContextSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link ImmutableContextSetImpl#isSatisfiedBy} checks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContextSetBenchmark {
+
+    @Param({"AT_LEAST_ONE_VALUE_PER_KEY", "ALL_VALUES_PER_KEY"})
+    public ContextSatisfyMode mode;
+
+    @Param({"1", "4"})
+    public int nodeContexts;
+
+    @Param({"8"})
+    public int playerContexts;
+
+    private ImmutableContextSet nodeContext;
+    private ImmutableContextSet satisfiedBy;
+    private ImmutableContextSet notSatisfiedBy;
+
+    @Setup
+    public void setup() {
+        this.satisfiedBy = playerContext("survival");
+        this.notSatisfiedBy = playerContext("creative");
+
+        ImmutableContextSet.Builder node = new ImmutableContextSetImpl.BuilderImpl();
+        node.add("server", "survival");
+        for (int i = 1; i < this.nodeContexts; i++) {
+            node.add("key" + i, "value" + i);
+        }
+        this.nodeContext = node.build();
+    }
+
+    private ImmutableContextSet playerContext(String server) {
+        ImmutableContextSet.Builder builder = new ImmutableContextSetImpl.BuilderImpl();
+        for (int i = 0; i < this.playerContexts; i++) {
+            builder.add("key" + i, "value" + i);
+        }
+        builder.add("server", server);
+        builder.add("world", "world_nether");
+        return builder.build();
+    }
+
+    @Benchmark
+    public boolean satisfied() {
+        return this.nodeContext.isSatisfiedBy(this.satisfiedBy, this.mode);
+    }
+
+    @Benchmark
+    public boolean notSatisfied() {
+        return this.nodeContext.isSatisfiedBy(this.notSatisfiedBy, this.mode);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmark;
+
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.nodemap.NodeMapMutable;
+import me.lucko.luckperms.common.node.types.Permission;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.util.Difference;
+import net.luckperms.api.model.data.DataType;
+import net.luckperms.api.node.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks adding and removing nodes from a {@link NodeMapMutable}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NodeMapBenchmark {
+    private static final int NODES = 1024;
+
+    @Param({"100", "10000"})
+    public int existingNodes;
+
+    private NodeMapMutable map;
+    private Node[] nodes;
+    private int index;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        LuckPermsPlugin plugin = BenchmarkPlugin.create();
+        Group holder = new Group("benchmark", plugin);
+
+        this.map = new NodeMapMutable(holder, DataType.NORMAL);
+        for (int i = 0; i < this.existingNodes; i++) {
+            this.map.add(Permission.builder().permission("existing.node" + i).build());
+        }
+
+        this.nodes = new Node[NODES];
+        for (int i = 0; i < NODES; i++) {
+            this.nodes[i] = Permission.builder().permission("benchmark.node" + i).build();
+        }
+    }
+
+    @Benchmark
+    public Difference<Node> addThenRemove() {
+        this.index = (this.index + 1) & (NODES - 1);
+        Node node = this.nodes[this.index];
+
+        Difference<Node> result = this.map.add(node);
+        result.mergeFrom(this.map.remove(node));
+        return result;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmark;
+
+import com.google.common.collect.ImmutableList;
+import me.lucko.luckperms.common.cacheddata.result.TristateResult;
+import me.lucko.luckperms.common.calculator.PermissionCalculator;
+import me.lucko.luckperms.common.calculator.processor.DirectProcessor;
+import me.lucko.luckperms.common.calculator.processor.RegexProcessor;
+import me.lucko.luckperms.common.calculator.processor.WildcardProcessor;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.verbose.event.CheckOrigin;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link PermissionCalculator#checkPermission(String, CheckOrigin)}.
+ *
+ * <p>"hit" checks are answered by the lookup cache, "miss" checks compute the
+ * result using the processors (as happens on a lookup cache miss).</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionCalculatorBenchmark {
+    private static final int QUERIES = 1024;
+
+    @Param({"1000", "10000"})
+    public int permissions;
+
+    @Param({"-1", "256"})
+    public int lookupCacheSize;
+
+    private PermissionCalculator calculator;
+    private String[] queries;
+    private String[] uppercaseQueries;
+    private int index;
+
+    @Setup
+    public void setup() {
+        LuckPermsPlugin plugin = BenchmarkPlugin.create();
+        int plugins = this.permissions / 10;
+
+        this.calculator = new PermissionCalculator(plugin, SyntheticPermissions.METADATA, ImmutableList.of(
+                new DirectProcessor(),
+                new RegexProcessor(),
+                new WildcardProcessor()
+        ), this.lookupCacheSize);
+        this.calculator.setSourcePermissions(SyntheticPermissions.sourceMap(plugins, 10, 10));
+
+        this.queries = SyntheticPermissions.queries(plugins, 10, QUERIES);
+        this.uppercaseQueries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            this.uppercaseQueries[i] = this.queries[i].toUpperCase(Locale.ROOT);
+        }
+
+        // populate the lookup cache
+        for (String query : this.queries) {
+            this.calculator.checkPermission(query, CheckOrigin.INTERNAL);
+        }
+    }
+
+    private int next() {
+        return this.index = (this.index + 1) & (QUERIES - 1);
+    }
+
+    @Benchmark
+    public TristateResult checkHit() {
+        return this.calculator.checkPermission(this.queries[next()], CheckOrigin.INTERNAL);
+    }
+
+    @Benchmark
+    public TristateResult checkHitNonCanonical() {
+        return this.calculator.checkPermission(this.uppercaseQueries[next()], CheckOrigin.INTERNAL);
+    }
+
+    @Benchmark
+    public TristateResult checkMiss() {
+        return this.calculator.apply(this.queries[next()]);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmark;
+
+import me.lucko.luckperms.common.cacheddata.result.TristateResult;
+import me.lucko.luckperms.common.calculator.processor.DirectProcessor;
+import me.lucko.luckperms.common.calculator.processor.PermissionProcessor;
+import me.lucko.luckperms.common.calculator.processor.RegexProcessor;
+import me.lucko.luckperms.common.calculator.processor.SpongeWildcardProcessor;
+import me.lucko.luckperms.common.calculator.processor.WildcardProcessor;
+import me.lucko.luckperms.common.calculator.processor.WildcardTrieProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks each {@link PermissionProcessor} implementation in isolation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionProcessorBenchmark {
+    private static final int QUERIES = 1024;
+
+    @Param({"direct", "regex", "regex-automaton", "wildcard", "wildcard-trie", "sponge-wildcard"})
+    public String processor;
+
+    @Param({"1000", "10000"})
+    public int permissions;
+
+    @Param({"10"})
+    public int regexes;
+
+    private PermissionProcessor instance;
+    private String[] queries;
+    private int index;
+
+    @Setup
+    public void setup() {
+        this.instance = createProcessor(this.processor);
+
+        int plugins = this.permissions / 10;
+        this.instance.setSource(SyntheticPermissions.sourceMap(plugins, 10, this.regexes));
+        this.instance.refresh();
+
+        this.queries = SyntheticPermissions.queries(plugins, 10, QUERIES);
+    }
+
+    private static PermissionProcessor createProcessor(String name) {
+        switch (name) {
+            case "direct":
+                return new DirectProcessor();
+            case "regex":
+                return new RegexProcessor();
+            case "regex-automaton":
+                return new RegexProcessor(true);
+            case "wildcard":
+                return new WildcardProcessor();
+            case "wildcard-trie":
+                return new WildcardTrieProcessor();
+            case "sponge-wildcard":
+                return new SpongeWildcardProcessor();
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+
+    @Benchmark
+    public TristateResult hasPermission() {
+        this.index = (this.index + 1) & (QUERIES - 1);
+        return this.instance.hasPermission(TristateResult.UNDEFINED, this.queries[this.index]);
+    }
+
+    @Benchmark
+    public void refresh() {
+        this.instance.refresh();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmark;
+
+import me.lucko.luckperms.common.cacheddata.CacheMetadata;
+import me.lucko.luckperms.common.model.HolderType;
+import me.lucko.luckperms.common.node.factory.NodeBuilders;
+import me.lucko.luckperms.common.query.QueryOptionsImpl;
+import me.lucko.luckperms.common.verbose.VerboseCheckTarget;
+import net.luckperms.api.node.Node;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Generates synthetic permission data for benchmarks.
+ */
+public final class SyntheticPermissions {
+    private SyntheticPermissions() {}
+
+    public static final CacheMetadata METADATA = new CacheMetadata(
+            HolderType.GROUP,
+            VerboseCheckTarget.of(VerboseCheckTarget.GROUP_TYPE, "benchmark"),
+            QueryOptionsImpl.DEFAULT_CONTEXTUAL
+    );
+
+    /**
+     * Generates a lowercase permission source map, in the form used by permission calculators.
+     *
+     * <p>The map contains {@code plugins * features} direct permissions, a wildcard for
+     * each plugin, and {@code regexes} regex permissions.</p>
+     *
+     * @param plugins the number of plugins
+     * @param features the number of features per plugin
+     * @param regexes the number of regex permissions
+     * @return the source map
+     */
+    public static Map<String, Node> sourceMap(int plugins, int features, int regexes) {
+        Map<String, Node> map = new ConcurrentHashMap<>();
+        for (Map.Entry<String, Boolean> e : permissions(plugins, features, regexes).entrySet()) {
+            map.put(e.getKey(), NodeBuilders.determineMostApplicable(e.getKey()).value(e.getValue()).build());
+        }
+        return map;
+    }
+
+    public static Map<String, Boolean> permissions(int plugins, int features, int regexes) {
+        Map<String, Boolean> permissions = new LinkedHashMap<>();
+        for (int i = 0; i < plugins; i++) {
+            for (int j = 0; j < features; j++) {
+                permissions.put(permission(i, j), (i + j) % 5 != 0);
+            }
+            if (i % 4 == 0) {
+                permissions.put("plugin" + i + ".*", true);
+            }
+        }
+        for (int i = 0; i < regexes; i++) {
+            permissions.put("r=plugin" + i + "\\.(feature|command)\\d+\\.admin", i % 2 == 0);
+        }
+        return permissions;
+    }
+
+    public static String permission(int plugin, int feature) {
+        return "plugin" + plugin + ".feature" + feature + ".use";
+    }
+
+    /**
+     * Generates a set of permissions to check, roughly half of which are set in the
+     * {@link #sourceMap(int, int, int) source map} directly.
+     *
+     * @param plugins the number of plugins
+     * @param features the number of features per plugin
+     * @param count the number of permissions to generate
+     * @return the permissions
+     */
+    public static String[] queries(int plugins, int features, int count) {
+        Random random = new Random(0);
+        String[] queries = new String[count];
+        for (int i = 0; i < count; i++) {
+            int plugin = random.nextInt(plugins * 2);
+            int feature = random.nextInt(features * 2);
+            switch (random.nextInt(3)) {
+                case 0:
+                    queries[i] = permission(plugin, feature);
+                    break;
+                case 1:
+                    queries[i] = "plugin" + plugin + ".feature" + feature + ".admin";
+                    break;
+                default:
+                    queries[i] = "plugin" + plugin + ".command" + feature + ".admin";
+                    break;
+            }
+        }
+        return queries;
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.actionlog;
+
+import net.luckperms.api.actionlog.Action;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * A filter for entries in the action log.
+ *
+ * <p>Storage implementations translate filters into queries, so only matching
+ * entries need to be read. {@link #test(Action)} can be used to apply the
+ * filter in memory instead.</p>
+ */
+public final class LogFilter implements Predicate<Action> {
+    private static final LogFilter ALL = new LogFilter(null, null, null, null, null, null, null);
+
+    public static LogFilter all() {
+        return ALL;
+    }
+
+    public static LogFilter source(UUID uniqueId) {
+        return new LogFilter(uniqueId, null, null, null, null, null, null);
+    }
+
+    public static LogFilter user(UUID uniqueId) {
+        return new LogFilter(null, Action.Target.Type.USER, uniqueId, null, null, null, null);
+    }
+
+    public static LogFilter group(String name) {
+        return new LogFilter(null, Action.Target.Type.GROUP, null, name, null, null, null);
+    }
+
+    public static LogFilter track(String name) {
+        return new LogFilter(null, Action.Target.Type.TRACK, null, name, null, null, null);
+    }
+
+    public static LogFilter search(String query) {
+        return new LogFilter(null, null, null, null, query.toLowerCase(Locale.ROOT), null, null);
+    }
+
+    private final @Nullable UUID sourceUniqueId;
+    private final Action.Target.@Nullable Type targetType;
+    private final @Nullable UUID targetUniqueId;
+    private final @Nullable String targetName;
+    private final @Nullable String search;
+    private final @Nullable Instant after;
+    private final @Nullable Instant before;
+
+    private LogFilter(@Nullable UUID sourceUniqueId, Action.Target.@Nullable Type targetType, @Nullable UUID targetUniqueId, @Nullable String targetName, @Nullable String search, @Nullable Instant after, @Nullable Instant before) {
+        this.sourceUniqueId = sourceUniqueId;
+        this.targetType = targetType;
+        this.targetUniqueId = targetUniqueId;
+        this.targetName = targetName;
+        this.search = search;
+        this.after = after;
+        this.before = before;
+    }
+
+    /**
+     * Returns a copy of this filter which only matches entries with a timestamp
+     * in the given range.
+     *
+     * @param after the earliest timestamp (inclusive), or null
+     * @param before the latest timestamp (exclusive), or null
+     * @return the new filter
+     */
+    public LogFilter withTimeRange(@Nullable Instant after, @Nullable Instant before) {
+        return new LogFilter(this.sourceUniqueId, this.targetType, this.targetUniqueId, this.targetName, this.search, after, before);
+    }
+
+    public @Nullable UUID getSourceUniqueId() {
+        return this.sourceUniqueId;
+    }
+
+    public Action.Target.@Nullable Type getTargetType() {
+        return this.targetType;
+    }
+
+    public @Nullable UUID getTargetUniqueId() {
+        return this.targetUniqueId;
+    }
+
+    public @Nullable String getTargetName() {
+        return this.targetName;
+    }
+
+    /**
+     * Gets the (lowercase) string which entries must contain in their source name,
+     * target name or description.
+     *
+     * @return the search query
+     */
+    public @Nullable String getSearch() {
+        return this.search;
+    }
+
+    public @Nullable Instant getAfter() {
+        return this.after;
+    }
+
+    public @Nullable Instant getBefore() {
+        return this.before;
+    }
+
+    @Override
+    public boolean test(Action action) {
+        if (this.sourceUniqueId != null && !this.sourceUniqueId.equals(action.getSource().getUniqueId())) {
+            return false;
+        }
+        if (this.targetType != null && this.targetType != action.getTarget().getType()) {
+            return false;
+        }
+        if (this.targetUniqueId != null && !this.targetUniqueId.equals(action.getTarget().getUniqueId().orElse(null))) {
+            return false;
+        }
+        if (this.targetName != null && !this.targetName.equals(action.getTarget().getName())) {
+            return false;
+        }
+        if (this.search != null && !(
+                action.getSource().getName().toLowerCase(Locale.ROOT).contains(this.search) ||
+                action.getTarget().getName().toLowerCase(Locale.ROOT).contains(this.search) ||
+                action.getDescription().toLowerCase(Locale.ROOT).contains(this.search))) {
+            return false;
+        }
+        if (this.after != null && action.getTimestamp().isBefore(this.after)) {
+            return false;
+        }
+        return this.before == null || action.getTimestamp().isBefore(this.before);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof LogFilter)) return false;
+        LogFilter other = (LogFilter) o;
+        return Objects.equals(this.sourceUniqueId, other.sourceUniqueId) &&
+                this.targetType == other.targetType &&
+                Objects.equals(this.targetUniqueId, other.targetUniqueId) &&
+                Objects.equals(this.targetName, other.targetName) &&
+                Objects.equals(this.search, other.search) &&
+                Objects.equals(this.after, other.after) &&
+                Objects.equals(this.before, other.before);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.sourceUniqueId, this.targetType, this.targetUniqueId, this.targetName, this.search, this.after, this.before);
+    }
+
+    @Override
+    public String toString() {
+        return "LogFilter(" +
+                "sourceUniqueId=" + this.sourceUniqueId + ", " +
+                "targetType=" + this.targetType + ", " +
+                "targetUniqueId=" + this.targetUniqueId + ", " +
+                "targetName=" + this.targetName + ", " +
+                "search=" + this.search + ", " +
+                "after=" + this.after + ", " +
+                "before=" + this.before + ")";
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.common.actionlog;
+
+import com.google.common.collect.ImmutableList;
+import me.lucko.luckperms.common.util.Paginated;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single page of entries from the action log.
+ *
+ * <p>Pages are numbered from 1 (the most recent entries), and entries are
+ * numbered from 1 (the most recent entry). The entries on each page are held
+ * in chronological order.</p>
+ */
+public final class LogPage {
+
+    /**
+     * The page number of the most recent entries
+     */
+    public static final int LATEST = 1;
+
+    /**
+     * The total number of entries when it has not been counted
+     */
+    public static final int UNKNOWN_TOTAL = -1;
+
+    /**
+     * Gets the number of (more recent) entries before the given page.
+     *
+     * @param pageNumber the page number
+     * @param pageSize the page size
+     * @return the offset
+     */
+    public static int offset(int pageNumber, int pageSize) {
+        return (pageNumber - 1) * pageSize;
+    }
+
+    /**
+     * Creates a page from the full (chronologically sorted) list of matching entries.
+     *
+     * @param entries all matching entries
+     * @param pageNumber the requested page number
+     * @param pageSize the page size
+     * @return the page
+     */
+    public static LogPage of(List<LoggedAction> entries, int pageNumber, int pageSize) {
+        int total = entries.size();
+        int offset = offset(pageNumber, pageSize);
+        List<LoggedAction> content = offset < 0 || offset >= total
+                ? ImmutableList.of()
+                : entries.subList(Math.max(0, total - offset - pageSize), total - offset);
+
+        return new LogPage(content, pageNumber, pageSize, total, null);
+    }
+
+    private static int maxPages(int pageSize, int totalEntries) {
+        return (totalEntries + pageSize - 1) / pageSize;
+    }
+
+    private final List<LoggedAction> content;
+    private final int pageNumber;
+    private final int pageSize;
+    private final int totalEntries;
+    private final @Nullable Cursor next;
+
+    public LogPage(List<LoggedAction> content, int pageNumber, int pageSize, int totalEntries, @Nullable Cursor next) {
+        this.content = ImmutableList.copyOf(content);
+        this.pageNumber = pageNumber;
+        this.pageSize = pageSize;
+        this.totalEntries = totalEntries;
+        this.next = next;
+    }
+
+    /**
+     * Gets the entries on this page, in chronological order.
+     *
+     * @return the entries
+     */
+    public List<LoggedAction> getContent() {
+        return this.content;
+    }
+
+    /**
+     * Gets the entries on this page, along with their position in the log.
+     *
+     * @return the entries
+     */
+    public List<Paginated.Entry<LoggedAction>> getEntries() {
+        List<Paginated.Entry<LoggedAction>> entries = new ArrayList<>(this.content.size());
+        int position = offset(this.pageNumber, this.pageSize) + this.content.size();
+        for (LoggedAction action : this.content) {
+            entries.add(new Paginated.Entry<>(position--, action));
+        }
+        return entries;
+    }
+
+    public int getPageNumber() {
+        return this.pageNumber;
+    }
+
+    public int getPageSize() {
+        return this.pageSize;
+    }
+
+    /**
+     * Gets the total number of matching entries, or {@link #UNKNOWN_TOTAL} if they were not counted.
+     *
+     * @return the total number of entries
+     */
+    public int getTotalEntries() {
+        return this.totalEntries;
+    }
+
+    public boolean isTotalKnown() {
+        return this.totalEntries != UNKNOWN_TOTAL;
+    }
+
+    /**
+     * Gets the number of pages, or {@link #UNKNOWN_TOTAL} if the entries were not counted.
+     *
+     * @return the number of pages
+     */
+    public int getMaxPages() {
+        return isTotalKnown() ? maxPages(this.pageSize, this.totalEntries) : UNKNOWN_TOTAL;
+    }
+
+    /**
+     * Gets a cursor which can be used to read the page after this one, if the
+     * storage implementation supports it.
+     *
+     * @return the cursor, or null
+     */
+    public @Nullable Cursor getNext() {
+        return this.next;
+    }
+
+    /**
+     * The position of the oldest entry on a page, which the following page
+     * (of older entries) can be read on from.
+     */
+    public static final class Cursor {
+        private final long time;
+        private final long id;
+
+        public Cursor(long time, long id) {
+            this.time = time;
+            this.id = id;
+        }
+
+        public long getTime() {
+            return this.time;
+        }
+
+        public long getId() {
+            return this.id;
+        }
+    }
+}
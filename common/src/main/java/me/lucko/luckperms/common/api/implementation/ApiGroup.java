@@ -32,6 +32,7 @@ import net.luckperms.api.query.QueryOptions;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.util.Collections;
 import java.util.Objects;
 import java.util.OptionalInt;
 
@@ -81,10 +82,9 @@ public class ApiGroup extends ApiPermissionHolder implements net.luckperms.api.m
 
     @Override
     protected void onNodeChange() {
-        // invalidate caches - they have potentially been affected by
-        // this change.
-        this.handle.getPlugin().getGroupManager().invalidateAllGroupCaches();
-        this.handle.getPlugin().getUserManager().invalidateAllUserCaches();
+        // invalidate the caches of holders which inherit from this group -
+        // they have potentially been affected by this change.
+        this.handle.getPlugin().getInheritanceIndex().invalidateDependants(Collections.singleton(this.handle.getName()));
     }
 
     @Override
@@ -25,7 +25,11 @@
 
 package me.lucko.luckperms.common.backup;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import me.lucko.luckperms.common.http.AbstractHttpClient;
 import me.lucko.luckperms.common.http.UnsuccessfulRequestException;
 import me.lucko.luckperms.common.locale.Message;
@@ -37,7 +41,6 @@ import me.lucko.luckperms.common.node.utils.NodeJsonSerializer;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.sender.Sender;
 import me.lucko.luckperms.common.storage.Storage;
-import me.lucko.luckperms.common.util.CompletableFutures;
 import me.lucko.luckperms.common.util.gson.GsonProvider;
 import me.lucko.luckperms.common.util.gson.JArray;
 import me.lucko.luckperms.common.util.gson.JObject;
@@ -52,32 +55,42 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.zip.GZIPOutputStream;
 
 /**
  * Handles export operations
+ *
+ * <p>Data is written to the output as it is gathered, so the whole export
+ * never needs to be held in memory at once.</p>
  */
 public abstract class Exporter implements Runnable {
     private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss z");
 
+    /** The number of users to load from storage at a time */
+    private static final int USER_CHUNK_SIZE = 100;
+
+    /** The number of chunks of users which can be loaded concurrently */
+    private static final int USER_LOAD_THREADS = 16;
+
+    /** The number of loaded chunks which can be waiting to be written */
+    private static final int MAX_PENDING_CHUNKS = USER_LOAD_THREADS * 2;
+
     protected final LuckPermsPlugin plugin;
     private final Sender executor;
     private final boolean includeUsers;
@@ -97,127 +110,160 @@ public abstract class Exporter implements Runnable {
 
     @Override
     public void run() {
-        JsonObject json = new JsonObject();
-        json.add("metadata", new JObject()
-                .add("generatedBy", this.executor.getNameWithLocation())
-                .add("generatedAt", DATE_FORMAT.format(new Date(System.currentTimeMillis())))
-                .toJson());
-
-        if (this.includeGroups) {
-            this.log.log("Gathering group data...");
-            json.add("groups", exportGroups());
-
-            this.log.log("Gathering track data...");
-            json.add("tracks", exportTracks());
-        }
+        try (JsonWriter writer = GsonProvider.normal().newJsonWriter(openWriter())) {
+            writer.beginObject();
+
+            writer.name("metadata");
+            GsonProvider.normal().toJson(new JObject()
+                    .add("generatedBy", this.executor.getNameWithLocation())
+                    .add("generatedAt", DATE_FORMAT.format(new Date(System.currentTimeMillis())))
+                    .toJson(), writer);
+
+            if (this.includeGroups) {
+                this.log.log("Gathering group data...");
+                writer.name("groups");
+                exportGroups(writer);
+
+                this.log.log("Gathering track data...");
+                writer.name("tracks");
+                exportTracks(writer);
+            }
+
+            if (this.includeUsers) {
+                this.log.log("Gathering user data...");
+                writer.name("users");
+                exportUsers(writer);
+            }
 
-        if (this.includeUsers) {
-            this.log.log("Gathering user data...");
-            json.add("users", exportUsers());
+            writer.endObject();
+        } catch (IOException | RuntimeException e) {
+            this.plugin.getLogger().severe("Error whilst writing export data", e);
+            return;
         }
 
-        processOutput(json);
+        onComplete();
     }
 
-    protected abstract void processOutput(JsonObject json);
+    /**
+     * Opens the writer which the exported data should be written to.
+     *
+     * @return the writer
+     * @throws IOException if an error occurs
+     */
+    protected abstract Writer openWriter() throws IOException;
+
+    /**
+     * Called once all data has been written and the writer has been closed.
+     */
+    protected abstract void onComplete();
 
-    private JsonObject exportGroups() {
-        JsonObject out = new JsonObject();
+    private void exportGroups(JsonWriter writer) throws IOException {
         List<Group> groups = this.plugin.getGroupManager().getAll().values().stream()
                 .sorted(Comparator.<Group>comparingInt(o -> o.getWeight().orElse(0)).reversed()
                         .thenComparing(Group::getName)
                 )
                 .collect(Collectors.toList());
 
+        writer.beginObject();
         for (Group group : groups) {
-            out.add(group.getName(), new JObject()
+            writer.name(group.getName());
+            GsonProvider.normal().toJson(new JObject()
                     .add("nodes", NodeJsonSerializer.serializeNodes(group.normalData().asSet()))
-                    .toJson());
+                    .toJson(), writer);
         }
-        return out;
+        writer.endObject();
     }
 
-    private JsonObject exportTracks() {
-        JsonObject out = new JsonObject();
+    private void exportTracks(JsonWriter writer) throws IOException {
         Collection<Track> tracks = this.plugin.getTrackManager().getAll().values().stream()
                 .sorted(Comparator.comparing(Track::getName))
                 .collect(Collectors.toList());
 
+        writer.beginObject();
         for (Track track : tracks) {
-            out.add(track.getName(), new JObject()
+            writer.name(track.getName());
+            GsonProvider.normal().toJson(new JObject()
                     .add("groups", new JArray().consume(arr -> track.getGroups().forEach(arr::add)))
-                    .toJson());
+                    .toJson(), writer);
         }
-        return out;
+        writer.endObject();
     }
 
-    private JsonObject exportUsers() {
-        // Users are migrated in separate threads.
-        // This is because there are likely to be a lot of them, and because we can.
-        // It's a big speed improvement, since the database/files are split up and can handle concurrent reads.
+    private void exportUsers(JsonWriter writer) throws IOException {
+        // Users are loaded from storage in chunks, and a number of chunks are loaded concurrently.
+        // The chunks are written in order as soon as they are ready, so only a bounded number of
+        // users are held in memory at once.
 
         this.log.log("Finding a list of unique users to export.");
 
         // Find all of the unique users we need to export
         Storage ds = this.plugin.getStorage();
-        Set<UUID> users = ds.getUniqueUsers().join();
+        List<UUID> users = new ArrayList<>(ds.getUniqueUsers().join());
+        users.sort(null);
         this.log.log("Found " + users.size() + " unique users to export.");
 
         // create a threadpool to process the users concurrently
-        ExecutorService executor = Executors.newFixedThreadPool(32);
-
-        // A set of futures, which are really just the processes we need to wait for.
-        Set<CompletableFuture<Void>> futures = new HashSet<>();
-
-        AtomicInteger userCount = new AtomicInteger(0);
-        Map<UUID, JsonObject> out = Collections.synchronizedMap(new TreeMap<>());
-
-        // iterate through each user.
-        for (UUID uuid : users) {
-            // register a task for the user, and schedule it's execution with the pool
-            futures.add(CompletableFuture.runAsync(() -> {
-                User user = this.plugin.getStorage().loadUser(uuid, null).join();
-                out.put(user.getUniqueId(), new JObject()
-                        .consume(obj -> {
-                            user.getUsername().ifPresent(username -> obj.add("username", username));
-                            if (!user.getPrimaryGroup().getStoredValue().orElse(GroupManager.DEFAULT_GROUP_NAME).equalsIgnoreCase(GroupManager.DEFAULT_GROUP_NAME)) {
-                                obj.add("primaryGroup", user.getPrimaryGroup().getStoredValue().get());
-                            }
-                        })
-                        .add("nodes", NodeJsonSerializer.serializeNodes(user.normalData().asSet()))
-                        .toJson());
-                this.plugin.getUserManager().getHouseKeeper().cleanup(user.getUniqueId());
-                userCount.incrementAndGet();
-            }, executor));
+        ExecutorService executor = Executors.newFixedThreadPool(USER_LOAD_THREADS, new ThreadFactoryBuilder().setNameFormat("luckperms-exporter-%d").build());
+
+        Deque<CompletableFuture<List<Map.Entry<UUID, JsonObject>>>> pending = new ArrayDeque<>();
+        int userCount = 0;
+        long lastProgress = System.currentTimeMillis();
+
+        writer.beginObject();
+        try {
+            for (List<UUID> chunk : Lists.partition(users, USER_CHUNK_SIZE)) {
+                pending.add(CompletableFuture.supplyAsync(() -> exportUserChunk(chunk), executor));
+
+                if (pending.size() >= MAX_PENDING_CHUNKS) {
+                    userCount += writeUserChunk(writer, pending.poll());
+                }
+
+                if (System.currentTimeMillis() - lastProgress > TimeUnit.SECONDS.toMillis(5)) {
+                    this.log.logProgress("Exported " + userCount + " users so far.");
+                    lastProgress = System.currentTimeMillis();
+                }
+            }
+
+            while (!pending.isEmpty()) {
+                writeUserChunk(writer, pending.poll());
+            }
+        } finally {
+            executor.shutdown();
         }
+        writer.endObject();
+    }
 
-        // all of the threads have been scheduled now and are running. we just need to wait for them all to complete
-        CompletableFuture<Void> overallFuture = CompletableFutures.allOf(futures);
+    private List<Map.Entry<UUID, JsonObject>> exportUserChunk(List<UUID> uniqueIds) {
+        Map<UUID, User> loaded = this.plugin.getStorage().loadUsers(new HashSet<>(uniqueIds)).join();
 
-        while (true) {
-            try {
-                overallFuture.get(5, TimeUnit.SECONDS);
-            } catch (InterruptedException | ExecutionException e) {
-                // abnormal error - just break
-                e.printStackTrace();
-                break;
-            } catch (TimeoutException e) {
-                // still executing - send a progress report and continue waiting
-                this.log.logProgress("Exported " + userCount.get() + " users so far.");
+        List<Map.Entry<UUID, JsonObject>> out = new ArrayList<>(uniqueIds.size());
+        for (UUID uniqueId : uniqueIds) {
+            User user = loaded.get(uniqueId);
+            if (user == null) {
                 continue;
             }
 
-            // process is complete
-            break;
+            out.add(Maps.immutableEntry(uniqueId, new JObject()
+                    .consume(obj -> {
+                        user.getUsername().ifPresent(username -> obj.add("username", username));
+                        if (!user.getPrimaryGroup().getStoredValue().orElse(GroupManager.DEFAULT_GROUP_NAME).equalsIgnoreCase(GroupManager.DEFAULT_GROUP_NAME)) {
+                            obj.add("primaryGroup", user.getPrimaryGroup().getStoredValue().get());
+                        }
+                    })
+                    .add("nodes", NodeJsonSerializer.serializeNodes(user.normalData().asSet()))
+                    .toJson()));
+            this.plugin.getUserManager().getHouseKeeper().cleanup(uniqueId);
         }
+        return out;
+    }
 
-        executor.shutdown();
-
-        JsonObject outJson = new JsonObject();
-        for (Map.Entry<UUID, JsonObject> entry : out.entrySet()) {
-            outJson.add(entry.getKey().toString(), entry.getValue());
+    private static int writeUserChunk(JsonWriter writer, CompletableFuture<List<Map.Entry<UUID, JsonObject>>> chunk) throws IOException {
+        List<Map.Entry<UUID, JsonObject>> users = chunk.join();
+        for (Map.Entry<UUID, JsonObject> user : users) {
+            writer.name(user.getKey().toString());
+            GsonProvider.normal().toJson(user.getValue(), writer);
         }
-        return outJson;
+        return users.size();
     }
 
     public static final class SaveFile extends Exporter {
@@ -229,21 +275,19 @@ public abstract class Exporter implements Runnable {
         }
 
         @Override
-        protected void processOutput(JsonObject json) {
-            this.log.log("Finished gathering data, writing file...");
-
-            try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(this.filePath)), StandardCharsets.UTF_8))) {
-                GsonProvider.normal().toJson(json, out);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+        protected Writer openWriter() throws IOException {
+            return new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(this.filePath)), StandardCharsets.UTF_8));
+        }
 
+        @Override
+        protected void onComplete() {
             this.log.getListeners().forEach(l -> Message.EXPORT_FILE_SUCCESS.send(l, this.filePath.toFile().getAbsolutePath()));
         }
     }
 
     public static final class WebUpload extends Exporter {
         private final String label;
+        private final ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
 
         public WebUpload(LuckPermsPlugin plugin, Sender executor, boolean includeUsers, boolean includeGroups, String label) {
             super(plugin, executor, includeUsers, includeGroups);
@@ -251,18 +295,16 @@ public abstract class Exporter implements Runnable {
         }
 
         @Override
-        protected void processOutput(JsonObject json) {
-            this.log.log("Finished gathering data, uploading data...");
+        protected Writer openWriter() throws IOException {
+            return new OutputStreamWriter(new GZIPOutputStream(this.bytesOut), StandardCharsets.UTF_8);
+        }
 
-            ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
-            try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(bytesOut), StandardCharsets.UTF_8)) {
-                GsonProvider.normal().toJson(json, writer);
-            } catch (IOException e) {
-                this.plugin.getLogger().severe("Error compressing data", e);
-            }
+        @Override
+        protected void onComplete() {
+            this.log.log("Finished gathering data, uploading data...");
 
             try {
-                String pasteId = this.plugin.getBytebin().postContent(bytesOut.toByteArray(), AbstractHttpClient.JSON_TYPE).key();
+                String pasteId = this.plugin.getBytebin().postContent(this.bytesOut.toByteArray(), AbstractHttpClient.JSON_TYPE).key();
                 this.log.getListeners().forEach(l -> Message.EXPORT_WEB_SUCCESS.send(l, pasteId, this.label));
             } catch (UnsuccessfulRequestException e) {
                 this.log.getListeners().forEach(l -> Message.HTTP_REQUEST_FAILURE.send(l, e.getResponse().code(), e.getResponse().message()));
@@ -28,8 +28,9 @@ package me.lucko.luckperms.common.backup;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import me.lucko.luckperms.common.locale.Message;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.HolderType;
@@ -38,40 +39,78 @@ import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.node.utils.NodeJsonSerializer;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.sender.Sender;
-import me.lucko.luckperms.common.util.CompletableFutures;
+import me.lucko.luckperms.common.util.Throwing;
 import me.lucko.luckperms.common.util.Uuids;
+import me.lucko.luckperms.common.util.gson.GsonProvider;
 import net.luckperms.api.event.cause.CreationCause;
 import net.luckperms.api.model.data.DataType;
 import net.luckperms.api.node.Node;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Handles import operations
+ *
+ * <p>Data is read from the input as a stream, and entries are imported in batches as they
+ * are read, so the whole import never needs to be held in memory at once.</p>
+ *
+ * <p>The input is read through once before anything is imported, so that a truncated
+ * or malformed input is rejected instead of being partially applied.</p>
  */
 public class Importer implements Runnable {
 
+    /** The number of entries to import in each batch */
+    private static final int BATCH_SIZE = 100;
+
+    /** The number of batches which can be imported concurrently */
+    private static final int THREADS = 16;
+
+    /** The number of batches which can be waiting to be imported */
+    private static final int MAX_PENDING_BATCHES = THREADS * 2;
+
     private final LuckPermsPlugin plugin;
     private final Set<Sender> notify;
-    private final JsonObject data;
+    private final Callable<Reader> source;
     private final boolean merge;
 
+    private final Semaphore pendingBatches = new Semaphore(MAX_PENDING_BATCHES);
+    private final AtomicInteger processedCount = new AtomicInteger(0);
+    private ExecutorService executor;
+    private List<Throwing.Runnable> batch = new ArrayList<>(BATCH_SIZE);
+    private int total = 0;
+    private boolean webEditorData = false;
+
+    public Importer(LuckPermsPlugin plugin, Sender executor, Path file, boolean merge) {
+        this(plugin, executor, () -> new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8)), merge);
+    }
+
     public Importer(LuckPermsPlugin plugin, Sender executor, JsonObject data, boolean merge) {
+        // data downloaded from bytebin is already held in memory, just read it back through the same parser
+        this(plugin, executor, () -> new StringReader(GsonProvider.normal().toJson(data)), merge);
+    }
+
+    Importer(LuckPermsPlugin plugin, Sender executor, Callable<Reader> source, boolean merge) {
         this.plugin = plugin;
 
         if (executor.isConsole()) {
@@ -79,22 +118,10 @@ public class Importer implements Runnable {
         } else {
             this.notify = ImmutableSet.of(executor, plugin.getConsoleSender());
         }
-        this.data = data;
+        this.source = source;
         this.merge = merge;
     }
 
-    private static final class UserData {
-        private final String username;
-        private final String primaryGroup;
-        private final Set<Node> nodes;
-
-        UserData(String username, String primaryGroup, Set<Node> nodes) {
-            this.username = username;
-            this.primaryGroup = primaryGroup;
-            this.nodes = nodes;
-        }
-    }
-
     private void processGroup(String groupName, Set<Node> nodes) {
         Group group = this.plugin.getStorage().createAndLoadGroup(groupName, CreationCause.INTERNAL).join();
         if (this.merge) {
@@ -102,7 +129,7 @@ public class Importer implements Runnable {
         } else {
             group.setNodes(DataType.NORMAL, nodes, false);
         }
-        this.plugin.getStorage().saveGroup(group);
+        this.plugin.getStorage().saveGroup(group).join();
     }
 
     private void processTrack(String trackName, List<String> groups) {
@@ -111,91 +138,151 @@ public class Importer implements Runnable {
         this.plugin.getStorage().saveTrack(track).join();
     }
 
-    private void processUser(UUID uuid, UserData userData) {
-        User user = this.plugin.getStorage().loadUser(uuid, userData.username).join();
-        if (userData.primaryGroup != null) {
-            user.getPrimaryGroup().setStoredValue(userData.primaryGroup);
+    private void processUser(UUID uuid, String username, String primaryGroup, Set<Node> nodes) {
+        User user = this.plugin.getStorage().loadUser(uuid, username).join();
+        if (primaryGroup != null) {
+            user.getPrimaryGroup().setStoredValue(primaryGroup);
         }
         if (this.merge) {
-            user.mergeNodes(DataType.NORMAL, userData.nodes);
+            user.mergeNodes(DataType.NORMAL, nodes);
         } else {
-            user.setNodes(DataType.NORMAL, userData.nodes, false);
+            user.setNodes(DataType.NORMAL, nodes, false);
         }
         this.plugin.getStorage().saveUser(user).join();
         this.plugin.getUserManager().getHouseKeeper().cleanup(user.getUniqueId());
     }
 
-    private Set<Map.Entry<String, JsonElement>> getDataSection(String id) {
-        if (this.data.has(id)) {
-            return this.data.get(id).getAsJsonObject().entrySet();
-        } else {
-            return Collections.emptySet();
-        }
+    private static List<String> readTrackGroups(JsonObject jsonData) {
+        JsonArray trackGroups = jsonData.get("groups").getAsJsonArray();
+        List<String> trackGroupsList = new ArrayList<>();
+        trackGroups.forEach(g -> trackGroupsList.add(g.getAsString()));
+        return trackGroupsList;
     }
 
-    private void parseExportData(Map<String, Set<Node>> groups, Map<String, List<String>> tracks, Map<UUID, UserData> users) {
-        for (Map.Entry<String, JsonElement> group : getDataSection("groups")) {
-            groups.put(group.getKey(), NodeJsonSerializer.deserializeNodes(group.getValue().getAsJsonObject().get("nodes").getAsJsonArray()));
-        }
-        for (Map.Entry<String, JsonElement> track : getDataSection("tracks")) {
-            JsonArray trackGroups = track.getValue().getAsJsonObject().get("groups").getAsJsonArray();
-            List<String> trackGroupsList = new ArrayList<>();
-            trackGroups.forEach(g -> trackGroupsList.add(g.getAsString()));
-            tracks.put(track.getKey(), trackGroupsList);
+    private void readData(JsonReader reader, Consumer<Throwing.Runnable> sink) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String section = reader.nextName();
+            switch (section) {
+                case "groups":
+                    readEntries(reader, (name, jsonData) -> {
+                        Set<Node> nodes = NodeJsonSerializer.deserializeNodes(jsonData.get("nodes").getAsJsonArray());
+                        sink.accept(() -> processGroup(name, nodes));
+                    });
+                    break;
+                case "tracks":
+                    if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                        // web editor format
+                        readElements(reader, jsonData -> {
+                            String name = jsonData.get("id").getAsString();
+                            List<String> groups = readTrackGroups(jsonData);
+                            sink.accept(() -> processTrack(name, groups));
+                        });
+                    } else {
+                        readEntries(reader, (name, jsonData) -> {
+                            List<String> groups = readTrackGroups(jsonData);
+                            sink.accept(() -> processTrack(name, groups));
+                        });
+                    }
+                    break;
+                case "users":
+                    readEntries(reader, (key, jsonData) -> {
+                        UUID uuid = UUID.fromString(key);
+                        String username = jsonData.has("username") ? jsonData.get("username").getAsString() : null;
+                        String primaryGroup = jsonData.has("primaryGroup") ? jsonData.get("primaryGroup").getAsString() : null;
+                        Set<Node> nodes = NodeJsonSerializer.deserializeNodes(jsonData.get("nodes").getAsJsonArray());
+                        sink.accept(() -> processUser(uuid, username, primaryGroup, nodes));
+                    });
+                    break;
+                case "permissionHolders":
+                    if (!this.webEditorData) {
+                        this.webEditorData = true;
+                        this.notify.forEach(s -> Message.IMPORT_INFO.send(s, "The data appears to be from a web editor upload - attempting to recover from it"));
+                    }
+                    readElements(reader, jsonData -> sink.accept(readWebEditorHolder(jsonData)));
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
         }
-        for (Map.Entry<String, JsonElement> user : getDataSection("users")) {
-            JsonObject jsonData = user.getValue().getAsJsonObject();
+        reader.endObject();
+    }
 
-            UUID uuid = UUID.fromString(user.getKey());
-            String username = null;
-            String primaryGroup = null;
-            Set<Node> nodes = NodeJsonSerializer.deserializeNodes(jsonData.get("nodes").getAsJsonArray());
+    private Throwing.Runnable readWebEditorHolder(JsonObject jsonData) {
+        HolderType type = HolderType.valueOf(jsonData.get("type").getAsString().toUpperCase(Locale.ROOT));
+        String id = jsonData.get("id").getAsString();
+        Set<Node> nodes = NodeJsonSerializer.deserializeNodes(jsonData.get("nodes").getAsJsonArray());
 
-            if (jsonData.has("username")) {
-                username = jsonData.get("username").getAsString();
-            }
-            if (jsonData.has("primaryGroup")) {
-                primaryGroup = jsonData.get("primaryGroup").getAsString();
-            }
+        if (type == HolderType.GROUP) {
+            return () -> processGroup(id, nodes);
+        } else {
+            UUID uuid = UUID.fromString(id);
+            String displayName = jsonData.get("displayName").getAsString();
+            String username = Uuids.PREDICATE.test(displayName) ? null : displayName;
+            return () -> processUser(uuid, username, null, nodes);
+        }
+    }
 
-            users.put(uuid, new UserData(username, primaryGroup, nodes));
+    private static void readEntries(JsonReader reader, BiConsumer<String, JsonObject> consumer) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            consumer.accept(key, GsonProvider.normal().fromJson(reader, JsonObject.class));
         }
+        reader.endObject();
     }
 
-    private void parseWebEditorData(Map<String, Set<Node>> groups, Map<String, List<String>> tracks, Map<UUID, UserData> users) {
-        JsonArray holdersArray = this.data.get("permissionHolders").getAsJsonArray();
-        for (JsonElement holderElement : holdersArray) {
-            JsonObject jsonData = holderElement.getAsJsonObject();
+    private static void readElements(JsonReader reader, Consumer<JsonObject> consumer) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            consumer.accept(GsonProvider.normal().fromJson(reader, JsonObject.class));
+        }
+        reader.endArray();
+    }
 
-            HolderType type = HolderType.valueOf(jsonData.get("type").getAsString().toUpperCase(Locale.ROOT));
-            String id = jsonData.get("id").getAsString();
+    private void submit(Throwing.Runnable operation) {
+        this.batch.add(operation);
+        if (this.batch.size() >= BATCH_SIZE) {
+            flushBatch();
+        }
+    }
 
-            if (type == HolderType.GROUP) {
-                groups.put(id, NodeJsonSerializer.deserializeNodes(jsonData.get("nodes").getAsJsonArray()));
-            } else {
-                UUID uuid = UUID.fromString(id);
-                String username = null;
+    private void flushBatch() {
+        if (this.batch.isEmpty()) {
+            return;
+        }
 
-                String displayName = jsonData.get("displayName").getAsString();
-                if (!Uuids.PREDICATE.test(displayName)) {
-                    username = displayName;
-                }
+        List<Throwing.Runnable> operations = this.batch;
+        this.batch = new ArrayList<>(BATCH_SIZE);
 
-                Set<Node> nodes = NodeJsonSerializer.deserializeNodes(jsonData.get("nodes").getAsJsonArray());
-                users.put(uuid, new UserData(username, null, nodes));
-            }
+        // wait for space in the queue, so we don't read further ahead than we can import
+        while (!tryAcquire(1)) {
+            this.notify.forEach(s -> Message.IMPORT_INFO.send(s, "Imported " + this.processedCount.get() + " entries so far, still reading data"));
         }
 
-        JsonArray tracksArray = this.data.get("tracks").getAsJsonArray();
-        for (JsonElement trackElement : tracksArray) {
-            JsonObject jsonData = trackElement.getAsJsonObject();
-
-            String name = jsonData.get("id").getAsString();
-            JsonArray trackGroups = jsonData.get("groups").getAsJsonArray();
+        this.executor.execute(() -> {
+            try {
+                for (Throwing.Runnable operation : operations) {
+                    try {
+                        operation.run();
+                    } catch (Exception e) {
+                        this.plugin.getLogger().warn("Error whilst importing data", e);
+                    }
+                    this.processedCount.incrementAndGet();
+                }
+            } finally {
+                this.pendingBatches.release();
+            }
+        });
+    }
 
-            List<String> trackGroupsList = new ArrayList<>();
-            trackGroups.forEach(g -> trackGroupsList.add(g.getAsString()));
-            tracks.put(name, trackGroupsList);
+    private boolean tryAcquire(int permits) {
+        try {
+            return this.pendingBatches.tryAcquire(permits, 2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
         }
     }
 
@@ -204,84 +291,56 @@ public class Importer implements Runnable {
         long startTime = System.currentTimeMillis();
         this.notify.forEach(Message.IMPORT_START::send);
 
-        // start an update task in the background - we'll #join this later
-        CompletableFuture<Void> updateTask = CompletableFuture.runAsync(() -> this.plugin.getSyncTaskBuffer().requestDirectly());
-
-        this.notify.forEach(s -> Message.IMPORT_INFO.send(s, "Reading data..."));
-
-        Map<String, Set<Node>> groups = new HashMap<>();
-        Map<String, List<String>> tracks = new HashMap<>();
-        Map<UUID, UserData> users = new HashMap<>();
-
-        if (this.data.has("knownPermissions")) {
-            this.notify.forEach(s -> Message.IMPORT_INFO.send(s, "The data appears to be from a web editor upload - attempting to recover from it"));
-            parseWebEditorData(groups, tracks, users);
-        } else {
-            parseExportData(groups, tracks, users);
-        }
-
         this.notify.forEach(s -> Message.IMPORT_INFO.send(s, "Waiting for initial update task to complete..."));
-
-        // join the update task future before scheduling command executions
-        updateTask.join();
+        this.plugin.getSyncTaskBuffer().requestDirectly();
+
+        // read through all of the data first, so nothing is applied if it can't all be read
+        this.notify.forEach(s -> Message.IMPORT_INFO.send(s, "Validating data..."));
+        try (JsonReader reader = GsonProvider.normal().newJsonReader(this.source.call())) {
+            readData(reader, operation -> this.total++);
+        } catch (Exception e) {
+            this.plugin.getLogger().warn("Error whilst reading import data", e);
+            this.notify.forEach(Message.IMPORT_FILE_READ_FAILURE::send);
+            this.notify.forEach(s -> Message.IMPORT_INFO.send(s, "The import has been cancelled - no data has been changed"));
+            return;
+        }
 
         this.notify.forEach(s -> Message.IMPORT_INFO.send(s, "Setting up data processor..."));
 
         // create a threadpool for the processing
-        ExecutorService executor = Executors.newFixedThreadPool(16, new ThreadFactoryBuilder().setNameFormat("luckperms-importer-%d").build());
-
-        // A set of futures, which are really just the processes we need to wait for.
-        Set<CompletableFuture<Void>> futures = new HashSet<>();
+        this.executor = Executors.newFixedThreadPool(THREADS, new ThreadFactoryBuilder().setNameFormat("luckperms-importer-%d").build());
 
-        int total = 0;
-        AtomicInteger processedCount = new AtomicInteger(0);
+        this.notify.forEach(s -> Message.IMPORT_INFO.send(s, "Reading data..."));
 
-        for (Map.Entry<String, Set<Node>> group : groups.entrySet()) {
-            futures.add(CompletableFuture.completedFuture(group).thenAcceptAsync(ent -> {
-                processGroup(ent.getKey(), ent.getValue());
-                processedCount.incrementAndGet();
-            }, executor));
-            total++;
-        }
-        for (Map.Entry<String, List<String>> track : tracks.entrySet()) {
-            futures.add(CompletableFuture.completedFuture(track).thenAcceptAsync(ent -> {
-                processTrack(ent.getKey(), ent.getValue());
-                processedCount.incrementAndGet();
-            }, executor));
-            total++;
-        }
-        for (Map.Entry<UUID, UserData> user : users.entrySet()) {
-            futures.add(CompletableFuture.completedFuture(user).thenAcceptAsync(ent -> {
-                processUser(ent.getKey(), ent.getValue());
-                processedCount.incrementAndGet();
-            }, executor));
-            total++;
+        boolean failed = false;
+        try (JsonReader reader = GsonProvider.normal().newJsonReader(this.source.call())) {
+            readData(reader, this::submit);
+            flushBatch();
+        } catch (Exception e) {
+            // the data changed since it was validated - stop scheduling any more entries
+            this.plugin.getLogger().warn("Error whilst reading import data", e);
+            this.notify.forEach(Message.IMPORT_FILE_READ_FAILURE::send);
+            failed = true;
         }
 
-        // all of the threads have been scheduled now and are running. we just need to wait for them all to complete
-        CompletableFuture<Void> overallFuture = CompletableFutures.allOf(futures);
+        if (failed) {
+            this.notify.forEach(s -> Message.IMPORT_INFO.send(s, "The import has been cancelled - now waiting for the entries which were already scheduled to complete."));
+        } else {
+            this.notify.forEach(s -> Message.IMPORT_INFO.send(s, "All data entries have been read and scheduled for import - now waiting for the execution to complete."));
+        }
 
-        this.notify.forEach(s -> Message.IMPORT_INFO.send(s, "All data entries have been processed and scheduled for import - now waiting for the execution to complete."));
+        // once every permit can be acquired, all batches have completed
+        while (!tryAcquire(MAX_PENDING_BATCHES)) {
+            sendProgress(this.processedCount.get(), this.total);
+        }
 
-        while (true) {
-            try {
-                overallFuture.get(2, TimeUnit.SECONDS);
-            } catch (InterruptedException | ExecutionException e) {
-                // abnormal error - just break
-                e.printStackTrace();
-                break;
-            } catch (TimeoutException e) {
-                // still executing - send a progress report and continue waiting
-                sendProgress(processedCount.get(), total);
-                continue;
-            }
+        this.executor.shutdown();
 
-            // process is complete
-            break;
+        if (failed) {
+            this.notify.forEach(s -> Message.IMPORT_INFO.send(s, "The import did not complete - only " + this.processedCount.get() + " of " + this.total + " entries were imported"));
+            return;
         }
 
-        executor.shutdown();
-
         long endTime = System.currentTimeMillis();
         double seconds = (endTime - startTime) / 1000.0;
 
@@ -289,7 +348,7 @@ public class Importer implements Runnable {
     }
 
     private void sendProgress(int processedCount, int total) {
-        int percent = processedCount * 100 / total;
+        int percent = total == 0 ? 100 : processedCount * 100 / total;
         this.notify.forEach(s -> Message.IMPORT_PROGRESS.send(s, percent, processedCount, total));
     }
 
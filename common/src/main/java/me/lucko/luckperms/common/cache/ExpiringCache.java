@@ -25,9 +25,14 @@
 
 package me.lucko.luckperms.common.cache;
 
+import me.lucko.luckperms.common.plugin.logging.PluginLogger;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 
 /**
@@ -36,18 +41,36 @@ import java.util.function.Supplier;
  * <p>The delegate supplier is only called on executions of {@link #get()} if the
  * result isn't already calculated.</p>
  *
+ * <p>If a refresh executor is provided, expired values continue to be served while
+ * a replacement is calculated using the executor. Values are only calculated inline
+ * when the cache is first accessed, or after it has been {@link #invalidate() invalidated}.
+ * If a refresh fails, the error is logged and the stale value is served for another
+ * period before the refresh is retried. If the executor rejects a refresh, the value is
+ * calculated inline.</p>
+ *
  * @param <T> the supplied type
  */
 public abstract class ExpiringCache<T> implements Supplier<T> {
     private final long durationNanos;
+    private final @Nullable Executor refreshExecutor;
+    private final @Nullable PluginLogger logger;
 
     private volatile T value;
 
     // when to expire. 0 means "not yet initialized".
     private volatile long expirationNanos;
 
+    // if an asynchronous refresh is in progress
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
     protected ExpiringCache(long duration, TimeUnit unit) {
+        this(duration, unit, null, null);
+    }
+
+    protected ExpiringCache(long duration, TimeUnit unit, @Nullable Executor refreshExecutor, @Nullable PluginLogger logger) {
         this.durationNanos = unit.toNanos(duration);
+        this.refreshExecutor = refreshExecutor;
+        this.logger = logger;
     }
 
     protected abstract @NonNull T supply();
@@ -58,26 +81,73 @@ public abstract class ExpiringCache<T> implements Supplier<T> {
         long now = System.nanoTime();
 
         if (nanos == 0 || now - nanos >= 0) {
+            if (nanos != 0 && this.refreshExecutor != null) {
+                // serve the stale value until the refresh completes
+                if (!this.refreshing.compareAndSet(false, true)) {
+                    return this.value;
+                }
+                try {
+                    this.refreshExecutor.execute(() -> refresh(nanos));
+                    return this.value;
+                } catch (RejectedExecutionException e) {
+                    // the executor won't run the refresh (e.g. it has been shut down),
+                    // so compute the value inline instead
+                    this.refreshing.set(false);
+                }
+            }
+
             synchronized (this) {
                 if (nanos == this.expirationNanos) { // recheck for lost race
                     // compute the value using the delegate
-                    T t = supply();
-                    this.value = t;
-
-                    // reset expiration timer
-                    nanos = now + this.durationNanos;
-                    // In the very unlikely event that nanos is 0, set it to 1;
-                    // no one will notice 1 ns of tardiness.
-                    this.expirationNanos = nanos == 0 ? 1 : nanos;
-                    return t;
+                    update(supply(), now);
+                    return this.value;
                 }
             }
         }
         return this.value;
     }
 
+    private void refresh(long nanos) {
+        try {
+            T t = supply();
+            synchronized (this) {
+                // don't overwrite the value if the cache was invalidated in the meantime
+                if (nanos == this.expirationNanos) {
+                    update(t, System.nanoTime());
+                }
+            }
+        } catch (Exception e) {
+            if (this.logger != null) {
+                this.logger.warn("Exception occurred whilst refreshing a cached value, the previous value will continue to be used", e);
+            }
+            synchronized (this) {
+                // keep serving the stale value for another period, instead of retrying straight away
+                if (nanos == this.expirationNanos) {
+                    resetExpiration(System.nanoTime());
+                }
+            }
+        } finally {
+            this.refreshing.set(false);
+        }
+    }
+
+    private void update(T t, long now) {
+        // keep the existing instance if the value hasn't changed, so it remains
+        // identity-equal for anything keyed on it
+        if (!t.equals(this.value)) {
+            this.value = t;
+        }
+        resetExpiration(now);
+    }
+
+    private void resetExpiration(long now) {
+        long nanos = now + this.durationNanos;
+        // In the very unlikely event that nanos is 0, set it to 1;
+        // no one will notice 1 ns of tardiness.
+        this.expirationNanos = nanos == 0 ? 1 : nanos;
+    }
+
     public void invalidate() {
         this.expirationNanos = 0;
     }
 }
-
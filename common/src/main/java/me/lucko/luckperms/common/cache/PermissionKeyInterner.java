@@ -0,0 +1,129 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.cache;
+
+import java.util.Locale;
+
+/**
+ * Maps permission strings, in any casing, to a shared canonical lowercase instance.
+ *
+ * <p>The interner is backed by a fixed size table, so memory usage is bounded. When
+ * two keys collide, the older one is replaced - this means the interner is lossy,
+ * but frequently used keys will remain resident.</p>
+ *
+ * <p>The hash used to index the table is equal to the {@link String#hashCode()} of
+ * the lowercase key, which is cached by the canonical instance. For ASCII input, a
+ * hit can therefore be resolved without allocating.</p>
+ */
+public final class PermissionKeyInterner {
+    private PermissionKeyInterner() {}
+
+    private static final int SIZE = 1 << 14;
+    private static final int MASK = SIZE - 1;
+
+    private static final String[] TABLE = new String[SIZE];
+
+    /**
+     * Gets the canonical lowercase instance of the given permission.
+     *
+     * @param permission the permission
+     * @return the canonical instance
+     */
+    public static String intern(String permission) {
+        int length = permission.length();
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            char c = permission.charAt(i);
+            if (c >= 0x80) {
+                // lowercase conversion of non-ascii characters is not always
+                // char-by-char, so just let String handle it.
+                return internLowerCase(permission.toLowerCase(Locale.ROOT));
+            }
+            hash = 31 * hash + toLowerCase(c);
+        }
+
+        int index = spread(hash);
+        String existing = TABLE[index];
+        if (existing != null && existing.hashCode() == hash && equalsLowerCase(existing, permission)) {
+            return existing;
+        }
+        existing = TABLE[index ^ 1];
+        if (existing != null && existing.hashCode() == hash && equalsLowerCase(existing, permission)) {
+            return existing;
+        }
+
+        // returns the same instance if the permission is already lowercase
+        String canonical = permission.toLowerCase(Locale.ROOT);
+        insert(index, canonical);
+        return canonical;
+    }
+
+    private static String internLowerCase(String lowerCase) {
+        int hash = lowerCase.hashCode();
+        int index = spread(hash);
+        String existing = TABLE[index];
+        if (existing != null && existing.hashCode() == hash && existing.equals(lowerCase)) {
+            return existing;
+        }
+        existing = TABLE[index ^ 1];
+        if (existing != null && existing.hashCode() == hash && existing.equals(lowerCase)) {
+            return existing;
+        }
+
+        insert(index, lowerCase);
+        return lowerCase;
+    }
+
+    private static void insert(int index, String canonical) {
+        // prefer an empty slot in the pair, otherwise replace the primary slot
+        if (TABLE[index] != null && TABLE[index ^ 1] == null) {
+            index ^= 1;
+        }
+        TABLE[index] = canonical;
+    }
+
+    private static int spread(int hash) {
+        return (hash ^ (hash >>> 16)) & MASK;
+    }
+
+    private static char toLowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static boolean equalsLowerCase(String lowerCase, String other) {
+        int length = lowerCase.length();
+        if (other.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (lowerCase.charAt(i) != toLowerCase(other.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
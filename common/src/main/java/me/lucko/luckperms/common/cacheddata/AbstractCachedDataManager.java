@@ -29,11 +29,14 @@ import me.lucko.luckperms.common.cache.LoadingMap;
 import me.lucko.luckperms.common.cacheddata.type.MetaAccumulator;
 import me.lucko.luckperms.common.cacheddata.type.MonitoredMetaCache;
 import me.lucko.luckperms.common.cacheddata.type.PermissionCache;
+import me.lucko.luckperms.common.cacheddata.type.SharedPermissionData;
 import me.lucko.luckperms.common.calculator.CalculatorFactory;
 import me.lucko.luckperms.common.calculator.PermissionCalculator;
+import me.lucko.luckperms.common.context.manager.QueryOptionsSupplier;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.util.CaffeineFactory;
 import me.lucko.luckperms.common.util.CompletableFutures;
+import me.lucko.luckperms.common.util.Difference;
 import net.luckperms.api.cacheddata.CachedData;
 import net.luckperms.api.cacheddata.CachedDataManager;
 import net.luckperms.api.cacheddata.CachedMetaData;
@@ -43,6 +46,7 @@ import net.luckperms.api.node.ChatMetaType;
 import net.luckperms.api.node.Node;
 import net.luckperms.api.query.QueryOptions;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Map;
 import java.util.Objects;
@@ -50,8 +54,10 @@ import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.IntFunction;
+import java.util.function.Predicate;
 
 /**
  * Abstract implementation of {@link CachedDataManager}.
@@ -101,6 +107,29 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
         return getMetaData(getQueryOptions());
     }
 
+    /**
+     * Creates a new {@link PermissionCheckHandle}, which pins the permission cache
+     * for the query options provided by the given supplier.
+     *
+     * @param queryOptionsSupplier the supplier of the current query options
+     * @return the handle
+     */
+    public PermissionCheckHandle newPermissionCheckHandle(QueryOptionsSupplier queryOptionsSupplier) {
+        return new PermissionCheckHandle(this, queryOptionsSupplier);
+    }
+
+    /**
+     * Gets the current generation of the permission cache container.
+     *
+     * <p>The generation is incremented each time a cache instance is removed from
+     * or replaced in the container.</p>
+     *
+     * @return the generation
+     */
+    int getPermissionGeneration() {
+        return this.permission.generation.get();
+    }
+
     /**
      * Returns a {@link CacheMetadata} instance for the given {@link QueryOptions}.
      * 
@@ -131,6 +160,15 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
      */
     protected abstract MetaStackDefinition getDefaultMetaStackDefinition(ChatMetaType type);
 
+    /**
+     * Gets if permission data should be shared with other caches that have identical content.
+     *
+     * @return if permission data should be shared
+     */
+    protected boolean shouldSharePermissionData() {
+        return false;
+    }
+
     /**
      * Resolves the owners permissions data for the given {@link QueryOptions}.
      *
@@ -149,11 +187,60 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
      */
     protected abstract void resolveMeta(MetaAccumulator accumulator, QueryOptions queryOptions);
     
+    /**
+     * Gets if the given changes can be applied to existing permission caches in place,
+     * without requiring them to be recalculated.
+     *
+     * @param changes the changes
+     * @return if the changes can be applied incrementally
+     */
+    protected boolean canApplyChangesIncrementally(Difference<Node> changes) {
+        return false;
+    }
+
+    /**
+     * Resolves the updates that need to be made to a permission cache as a result of the given changes.
+     *
+     * <p>A {@code null} value in the returned map indicates that the key should be removed.</p>
+     *
+     * @param changes the changes
+     * @param queryOptions the query options the cache is for
+     * @param current the current permissions held by the cache
+     * @return the updates to apply, or null if the cache should be recalculated instead
+     */
+    protected @Nullable Map<String, Node> resolvePermissionChanges(Difference<Node> changes, QueryOptions queryOptions, Map<String, Node> current) {
+        return null;
+    }
+
+    /**
+     * Called before the caches are invalidated, so that implementations can drop any
+     * additional data they derive from the holder.
+     *
+     * @param changes the changes which caused the invalidation, or null if all data is being invalidated
+     */
+    protected void invalidateAdditionalData(@Nullable Difference<Node> changes) {
+
+    }
+
+    /**
+     * Called after the caches are cleaned up, so that implementations can drop any
+     * additional data they hold for query options which are no longer cached.
+     *
+     * @param cached tests if data is still cached for the given query options
+     */
+    protected void cleanupAdditionalData(Predicate<QueryOptions> cached) {
+
+    }
+
     private PermissionCache calculatePermissions(QueryOptions queryOptions) {
         Objects.requireNonNull(queryOptions, "queryOptions");
         CacheMetadata metadata = getMetadataForQueryOptions(queryOptions);
 
         ConcurrentHashMap<String, Node> sourcePermissions = resolvePermissions(ConcurrentHashMap::new, queryOptions);
+        if (shouldSharePermissionData() && SharedPermissionData.canShare(sourcePermissions)) {
+            SharedPermissionData sharedData = SharedPermissionData.of(getCalculatorFactory(), metadata, sourcePermissions);
+            return new PermissionCache(queryOptions, metadata, sharedData, sourcePermissions);
+        }
         return new PermissionCache(queryOptions, metadata, getCalculatorFactory(), sourcePermissions);
     }
     
@@ -169,10 +256,42 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
 
     @Override
     public final void invalidate() {
+        invalidateAdditionalData(null);
         this.permission.invalidate();
         this.meta.invalidate();
     }
 
+    /**
+     * Applies a set of node changes made to the holder to the cached data.
+     *
+     * <p>Where possible, existing permission caches are updated in place. Otherwise,
+     * (and always for meta data) the caches are invalidated.</p>
+     *
+     * @param changes the changes
+     */
+    public final void applyChanges(Difference<Node> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        invalidateAdditionalData(changes);
+
+        if (this.permission.cache.isEmpty() || !canApplyChangesIncrementally(changes)) {
+            this.permission.invalidate();
+            this.meta.invalidate();
+            return;
+        }
+
+        boolean removed = this.permission.cache.entrySet().removeIf(entry -> {
+            PermissionCache cache = entry.getValue();
+            Map<String, Node> updates = resolvePermissionChanges(changes, entry.getKey(), cache.getPermissionNodes());
+            return updates == null || !cache.applyChanges(updates);
+        });
+        if (removed) {
+            this.permission.generation.incrementAndGet();
+        }
+    }
+
     @Override
     public final void invalidatePermissionCalculators() {
         this.permission.cache.values().forEach(PermissionCache::invalidateCache);
@@ -181,11 +300,14 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
     public final void performCacheCleanup() {
         this.permission.cleanup();
         this.meta.cleanup();
+        cleanupAdditionalData(queryOptions -> this.permission.cache.containsKey(queryOptions) || this.meta.cache.containsKey(queryOptions));
     }
 
     private static final class AbstractContainer<C extends I, I extends CachedData> implements Container<I> {
         private final Function<QueryOptions, C> cacheLoader;
         private final LoadingMap<QueryOptions, C> cache;
+        // incremented (after the change) whenever a cache instance is removed or replaced
+        private final AtomicInteger generation = new AtomicInteger();
 
         public AbstractContainer(Function<QueryOptions, C> cacheLoader) {
             this.cacheLoader = cacheLoader;
@@ -193,7 +315,9 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
         }
 
         public void cleanup() {
-            this.cache.values().removeIf(value -> ((UsageTracked) value).usedSince(TimeUnit.MINUTES.toMillis(2)));
+            if (this.cache.values().removeIf(value -> ((UsageTracked) value).usedSince(TimeUnit.MINUTES.toMillis(2)))) {
+                this.generation.incrementAndGet();
+            }
         }
 
         @Override
@@ -217,6 +341,7 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
             CompletableFuture.runAsync(() -> {
                 final C value = this.cacheLoader.apply(queryOptions);
                 this.cache.put(queryOptions, value);
+                this.generation.incrementAndGet();
             }, CaffeineFactory.executor());
         }
 
@@ -226,6 +351,7 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
 
             // invalidate the previous value until we're done recalculating
             this.cache.remove(queryOptions);
+            this.generation.incrementAndGet();
 
             // request recalculation from the cache
             return CompletableFuture.supplyAsync(() -> this.cache.get(queryOptions), CaffeineFactory.executor());
@@ -247,11 +373,13 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
         public void invalidate(@NonNull QueryOptions queryOptions) {
             Objects.requireNonNull(queryOptions, "queryOptions");
             this.cache.remove(queryOptions);
+            this.generation.incrementAndGet();
         }
 
         @Override
         public void invalidate() {
             this.cache.clear();
+            this.generation.incrementAndGet();
         }
     }
     
@@ -25,16 +25,28 @@
 
 package me.lucko.luckperms.common.cacheddata;
 
+import com.google.common.collect.Iterables;
 import me.lucko.luckperms.common.cacheddata.type.MetaAccumulator;
 import me.lucko.luckperms.common.calculator.CalculatorFactory;
 import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.config.LuckPermsConfiguration;
+import me.lucko.luckperms.common.graph.TraversalAlgorithm;
+import me.lucko.luckperms.common.model.HolderType;
 import me.lucko.luckperms.common.model.PermissionHolder;
+import me.lucko.luckperms.common.util.Difference;
 import net.luckperms.api.metastacking.MetaStackDefinition;
 import net.luckperms.api.node.ChatMetaType;
 import net.luckperms.api.node.Node;
+import net.luckperms.api.node.NodeType;
+import net.luckperms.api.node.metadata.types.InheritanceOriginMetadata;
 import net.luckperms.api.query.QueryOptions;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.IntFunction;
 
 /**
@@ -79,6 +91,69 @@ public abstract class HolderCachedDataManager<T extends PermissionHolder> extend
         return this.holder.exportPermissions(mapFactory, queryOptions, true, getPlugin().getConfiguration().get(ConfigKeys.APPLYING_SHORTHAND));
     }
 
+    @Override
+    protected boolean canApplyChangesIncrementally(Difference<Node> changes) {
+        // only the holders own nodes can be patched in place, so they must come first in the traversal
+        if (this.holder.getType() != HolderType.USER) {
+            return false;
+        }
+        LuckPermsConfiguration config = getPlugin().getConfiguration();
+        if (config.get(ConfigKeys.INHERITANCE_TRAVERSAL_ALGORITHM) == TraversalAlgorithm.DEPTH_FIRST_POST_ORDER && !config.get(ConfigKeys.POST_TRAVERSAL_INHERITANCE_SORT)) {
+            return false;
+        }
+
+        // changes to inheritance, meta or weight affect more than just the permission map
+        boolean applyingShorthand = config.get(ConfigKeys.APPLYING_SHORTHAND);
+        for (Node node : Iterables.concat(changes.getAdded(), changes.getRemoved())) {
+            if (NodeType.INHERITANCE.matches(node) || NodeType.META_OR_CHAT_META.matches(node) || NodeType.WEIGHT.matches(node)) {
+                return false;
+            }
+            if (applyingShorthand && !node.resolveShorthand().isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected @Nullable Map<String, Node> resolvePermissionChanges(Difference<Node> changes, QueryOptions queryOptions, Map<String, Node> current) {
+        Set<String> changedKeys = new HashSet<>();
+        for (Node node : Iterables.concat(changes.getAdded(), changes.getRemoved())) {
+            changedKeys.add(node.getKey().toLowerCase(Locale.ROOT));
+        }
+
+        // the holders own nodes take priority over anything inherited, so the first
+        // own node for each key (in query order) is the new value
+        Map<String, Node> updates = new HashMap<>();
+        for (Node node : this.holder.getOwnNodes(queryOptions)) {
+            String key = node.getKey().toLowerCase(Locale.ROOT);
+            if (changedKeys.contains(key)) {
+                updates.putIfAbsent(key, node);
+            }
+        }
+
+        for (String key : changedKeys) {
+            if (updates.containsKey(key)) {
+                continue;
+            }
+
+            // the key is no longer set by the holder - if it was previously, the inherited
+            // value (if any) needs to be resolved again
+            Node existing = current.get(key);
+            if (existing != null && isOwnNode(existing)) {
+                return null;
+            }
+        }
+
+        return updates;
+    }
+
+    private boolean isOwnNode(Node node) {
+        return node.getMetadata(InheritanceOriginMetadata.KEY)
+                .map(origin -> origin.getOrigin().equals(this.holder.getIdentifier()))
+                .orElse(false);
+    }
+
     @Override
     protected void resolveMeta(MetaAccumulator accumulator, QueryOptions queryOptions) {
         this.holder.accumulateMeta(accumulator, queryOptions);
@@ -0,0 +1,97 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.cacheddata;
+
+import me.lucko.luckperms.common.cacheddata.result.TristateResult;
+import me.lucko.luckperms.common.cacheddata.type.PermissionCache;
+import me.lucko.luckperms.common.context.manager.QueryOptionsSupplier;
+import me.lucko.luckperms.common.verbose.event.CheckOrigin;
+import net.luckperms.api.query.QueryOptions;
+
+/**
+ * A handle for performing repeated permission checks against a single holder,
+ * typically an online player.
+ *
+ * <p>The handle pins the {@link PermissionCache} for the holder's current query options,
+ * so that a warm check doesn't need to look up the cache again. The pinned cache is
+ * swapped out when the query options change, or when the cache instance is removed
+ * from the holder's cached data.</p>
+ */
+public final class PermissionCheckHandle {
+    private final AbstractCachedDataManager cachedData;
+    private final QueryOptionsSupplier queryOptionsSupplier;
+
+    private volatile Pinned pinned = null;
+
+    PermissionCheckHandle(AbstractCachedDataManager cachedData, QueryOptionsSupplier queryOptionsSupplier) {
+        this.cachedData = cachedData;
+        this.queryOptionsSupplier = queryOptionsSupplier;
+    }
+
+    /**
+     * Gets the permission cache for the holder's current query options.
+     *
+     * @return the permission cache
+     */
+    public PermissionCache getPermissionData() {
+        QueryOptions queryOptions = this.queryOptionsSupplier.getQueryOptions();
+
+        Pinned pinned = this.pinned;
+        if (pinned == null || pinned.queryOptions != queryOptions || pinned.generation != this.cachedData.getPermissionGeneration()) {
+            // read the generation before the cache, so a concurrent removal is noticed on the next check
+            int generation = this.cachedData.getPermissionGeneration();
+            pinned = new Pinned(queryOptions, this.cachedData.getPermissionData(queryOptions), generation);
+            this.pinned = pinned;
+        } else {
+            pinned.cache.recordUsage();
+        }
+        return pinned.cache;
+    }
+
+    /**
+     * Checks a permission using the holder's current query options.
+     *
+     * @param permission the permission to check
+     * @param origin the origin of the check
+     * @return the result
+     */
+    public TristateResult checkPermission(String permission, CheckOrigin origin) {
+        return getPermissionData().checkPermission(permission, origin);
+    }
+
+    private static final class Pinned {
+        private final QueryOptions queryOptions;
+        private final PermissionCache cache;
+        private final int generation;
+
+        Pinned(QueryOptions queryOptions, PermissionCache cache, int generation) {
+            this.queryOptions = queryOptions;
+            this.cache = cache;
+            this.generation = generation;
+        }
+    }
+
+}
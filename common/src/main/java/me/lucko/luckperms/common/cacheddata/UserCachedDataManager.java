@@ -25,17 +25,34 @@
 
 package me.lucko.luckperms.common.cacheddata;
 
+import com.google.common.collect.Iterables;
+import me.lucko.luckperms.common.cache.LoadingMap;
+import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.model.HolderType;
 import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.util.Difference;
 import me.lucko.luckperms.common.verbose.VerboseCheckTarget;
 import net.luckperms.api.cacheddata.CachedDataManager;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.node.NodeType;
 import net.luckperms.api.query.QueryOptions;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Optional;
+import java.util.function.Predicate;
 
 /**
  * Holds an easily accessible cache of a user's data in a number of contexts
  */
 public class UserCachedDataManager extends HolderCachedDataManager<User> implements CachedDataManager {
 
+    /**
+     * The users primary group, memoised per query options
+     */
+    private final LoadingMap<QueryOptions, Optional<String>> primaryGroups = LoadingMap.of(
+            queryOptions -> Optional.ofNullable(this.holder.getPrimaryGroup().calculateValue(queryOptions))
+    );
+
     public UserCachedDataManager(User holder) {
         super(holder);
     }
@@ -45,4 +62,51 @@ public class UserCachedDataManager extends HolderCachedDataManager<User> impleme
         return new CacheMetadata(HolderType.USER, VerboseCheckTarget.user(this.holder), queryOptions);
     }
 
+    @Override
+    protected boolean shouldSharePermissionData() {
+        return getPlugin().getConfiguration().get(ConfigKeys.SHARE_PERMISSION_DATA);
+    }
+
+    /**
+     * Gets the users primary group in the given query options.
+     *
+     * <p>The result is memoised until the users inheritance or stored primary group
+     * changes, or the cached data is fully invalidated. Values for query options which
+     * are no longer cached are dropped when the cache is cleaned up.</p>
+     *
+     * @param queryOptions the query options
+     * @return the name of the primary group, or null
+     */
+    public @Nullable String getPrimaryGroup(QueryOptions queryOptions) {
+        return this.primaryGroups.get(queryOptions).orElse(null);
+    }
+
+    /**
+     * Drops the memoised primary group values.
+     */
+    public void invalidatePrimaryGroups() {
+        this.primaryGroups.clear();
+    }
+
+    @Override
+    protected void invalidateAdditionalData(@Nullable Difference<Node> changes) {
+        if (changes == null || affectsInheritance(changes)) {
+            invalidatePrimaryGroups();
+        }
+    }
+
+    @Override
+    protected void cleanupAdditionalData(Predicate<QueryOptions> cached) {
+        this.primaryGroups.keySet().removeIf(cached.negate());
+    }
+
+    private static boolean affectsInheritance(Difference<Node> changes) {
+        for (Node node : Iterables.concat(changes.getAdded(), changes.getRemoved())) {
+            if (NodeType.INHERITANCE.matches(node)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
 }
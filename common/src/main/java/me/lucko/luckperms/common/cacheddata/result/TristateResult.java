@@ -87,6 +87,18 @@ public final class TristateResult implements Result<Tristate, Node> {
         this.overriddenResult = overriddenResult;
     }
 
+    /**
+     * Creates a copy of this result, with a different cause node.
+     *
+     * @param node the new cause node
+     * @return a new result
+     */
+    public TristateResult withNode(@Nullable Node node) {
+        TristateResult result = new TristateResult(this.result, node, this.processorClass);
+        result.overriddenResult = this.overriddenResult;
+        return result;
+    }
+
     @Override
     public String toString() {
         return "TristateResult(" +
@@ -70,6 +70,12 @@ public class PermissionCache extends UsageTracked implements CachedPermissionDat
      */
     private final PermissionCalculator calculator;
 
+    /**
+     * The shared data backing this cache, if any. Holding a reference here keeps the
+     * shared data alive for as long as this cache is in use.
+     */
+    private final SharedPermissionData sharedData;
+
     public PermissionCache(QueryOptions queryOptions, CacheMetadata metadata, CalculatorFactory calculatorFactory, ConcurrentHashMap<String, Node> sourcePermissions) {
         this.queryOptions = queryOptions;
         this.permissions = sourcePermissions;
@@ -77,6 +83,15 @@ public class PermissionCache extends UsageTracked implements CachedPermissionDat
 
         this.calculator = calculatorFactory.build(queryOptions, metadata);
         this.calculator.setSourcePermissions(this.permissions);
+        this.sharedData = null;
+    }
+
+    public PermissionCache(QueryOptions queryOptions, CacheMetadata metadata, SharedPermissionData sharedData, Map<String, Node> sourcePermissions) {
+        this.queryOptions = queryOptions;
+        this.permissions = sourcePermissions;
+        this.permissionsView = sharedData.getPermissionsView();
+        this.calculator = sharedData.newCalculator(metadata, this.permissions);
+        this.sharedData = sharedData;
     }
 
     @Override
@@ -84,10 +99,47 @@ public class PermissionCache extends UsageTracked implements CachedPermissionDat
         this.calculator.invalidateCache();
     }
 
+    /**
+     * Applies a set of changes to the permissions held by this cache in place.
+     *
+     * <p>A {@code null} value in the updates map indicates that the key should
+     * be removed.</p>
+     *
+     * @param updates the changes to apply
+     * @return true if the changes were applied, false if the cache must instead be rebuilt
+     */
+    public boolean applyChanges(Map<String, Node> updates) {
+        if (this.sharedData != null) {
+            // the processors are shared with other holders
+            return false;
+        }
+
+        for (Map.Entry<String, Node> update : updates.entrySet()) {
+            Node node = update.getValue();
+            if (node == null) {
+                this.permissions.remove(update.getKey());
+            } else {
+                this.permissions.put(update.getKey(), node);
+            }
+        }
+
+        this.calculator.refreshSourcePermissions(updates.keySet());
+        return true;
+    }
+
     public PermissionCalculator getCalculator() {
         return this.calculator;
     }
 
+    /**
+     * Gets an unmodifiable view of the raw permissions held by this cache.
+     *
+     * @return the permission nodes
+     */
+    public Map<String, Node> getPermissionNodes() {
+        return Collections.unmodifiableMap(this.permissions);
+    }
+
     @Override
     public @NonNull Map<String, Boolean> getPermissionMap() {
         return this.permissionsView;
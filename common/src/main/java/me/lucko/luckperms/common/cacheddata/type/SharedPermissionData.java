@@ -0,0 +1,231 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.common.cacheddata.type;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Multimaps;
+import me.lucko.luckperms.common.cacheddata.CacheMetadata;
+import me.lucko.luckperms.common.cacheddata.result.TristateResult;
+import me.lucko.luckperms.common.calculator.CalculatorFactory;
+import me.lucko.luckperms.common.calculator.PermissionCalculator;
+import me.lucko.luckperms.common.model.HolderType;
+import me.lucko.luckperms.common.util.CaffeineFactory;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.query.QueryOptions;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolved permission data which is shared between {@link PermissionCache}s
+ * with identical content.
+ *
+ * <p>Instances are deduplicated by the resolved string->boolean permission map,
+ * and the processors built for it are only set up once. The nodes behind each
+ * permission (and so their origin) are not shared - results are rebound to the
+ * nodes of the cache performing the check. An instance is released once the last
+ * cache referencing it has been discarded.</p>
+ */
+public final class SharedPermissionData {
+
+    /** Permission maps larger than this are not shared, as comparing them costs more than it saves */
+    public static final int MAX_SHARED_SIZE = 4096;
+
+    /** The currently live shared instances. Values are weakly referenced by the map, and strongly by each cache using them */
+    private static final Map<Key, SharedPermissionData> SHARED = CaffeineFactory.newBuilder()
+            .weakValues()
+            .<Key, SharedPermissionData>build()
+            .asMap();
+
+    /**
+     * Gets if the given resolved permissions are small enough to be shared.
+     *
+     * @param permissions the resolved permissions
+     * @return if the permissions can be shared
+     */
+    public static boolean canShare(Map<String, Node> permissions) {
+        return permissions.size() <= MAX_SHARED_SIZE;
+    }
+
+    /**
+     * Gets a shared instance for the given resolved permissions, creating one if necessary.
+     *
+     * <p>The permissions map is only copied if a new instance has to be created.</p>
+     *
+     * @param calculatorFactory the calculator factory
+     * @param metadata the metadata of the cache requesting the data
+     * @param permissions the resolved permissions
+     * @return the shared instance
+     */
+    public static SharedPermissionData of(CalculatorFactory calculatorFactory, CacheMetadata metadata, Map<String, Node> permissions) {
+        Key lookup = new Key(calculatorFactory, metadata.getHolderType(), metadata.getQueryOptions(), permissions);
+        SharedPermissionData existing = SHARED.get(lookup);
+        if (existing != null) {
+            return existing;
+        }
+
+        Key key = new Key(calculatorFactory, metadata.getHolderType(), metadata.getQueryOptions(), ImmutableMap.copyOf(permissions), lookup.hashCode);
+        return SHARED.computeIfAbsent(key, k -> new SharedPermissionData(k, metadata));
+    }
+
+    /** The frozen string->boolean permission map */
+    private final Map<String, Boolean> permissionsView;
+
+    /** The calculator whose processors are shared */
+    private final PermissionCalculator calculator;
+
+    /** The keys each node held by the shared processors was resolved under - a shorthand node is held under several */
+    private final ListMultimap<Node, String> nodeKeys;
+
+    private SharedPermissionData(Key key, CacheMetadata metadata) {
+        ImmutableMap.Builder<String, Boolean> view = ImmutableMap.builder();
+        ListMultimap<Node, String> nodeKeys = Multimaps.newListMultimap(new IdentityHashMap<>(key.permissions.size()), () -> new ArrayList<>(1));
+        for (Map.Entry<String, Node> e : key.permissions.entrySet()) {
+            view.put(e.getKey(), e.getValue().getValue());
+            nodeKeys.put(e.getValue(), e.getKey());
+        }
+        this.permissionsView = view.build();
+        this.nodeKeys = nodeKeys;
+
+        this.calculator = key.calculatorFactory.build(key.queryOptions, metadata);
+        this.calculator.setSourcePermissions(key.permissions);
+    }
+
+    public Map<String, Boolean> getPermissionsView() {
+        return this.permissionsView;
+    }
+
+    /**
+     * Creates a new calculator which uses the shared processors.
+     *
+     * <p>The shared processors were built from the nodes of whichever holder created
+     * this instance. The calculator rebinds any node in its results to the node held
+     * under the same key in the given permissions, so that the origin and other
+     * metadata reported is that of the cache's own holder. Where a node is held under
+     * several keys, the key of the permission being checked is preferred.</p>
+     *
+     * @param metadata the metadata of the cache
+     * @param permissions the resolved permissions of the cache
+     * @return a new calculator
+     */
+    public PermissionCalculator newCalculator(CacheMetadata metadata, Map<String, Node> permissions) {
+        return this.calculator.share(metadata, (permission, result) -> rebind(result, permission, permissions));
+    }
+
+    private TristateResult rebind(TristateResult result, String permission, Map<String, Node> permissions) {
+        TristateResult overridden = result.overriddenResult();
+        TristateResult reboundOverridden = overridden == null ? null : rebind(overridden, permission, permissions);
+
+        Node node = result.node();
+        Node reboundNode = node == null ? null : rebind(node, permission, permissions);
+
+        if (reboundNode == node && reboundOverridden == overridden) {
+            return result;
+        }
+
+        TristateResult rebound = result.withNode(reboundNode);
+        rebound.setOverriddenResult(reboundOverridden);
+        return rebound;
+    }
+
+    private Node rebind(Node node, String permission, Map<String, Node> permissions) {
+        List<String> keys = this.nodeKeys.get(node);
+        if (keys.isEmpty()) {
+            // not from the shared source map, e.g. a default or attachment permission
+            return node;
+        }
+        String key = keys.size() > 1 && keys.contains(permission) ? permission : keys.get(0);
+        Node own = permissions.get(key);
+        return own == null ? node : own;
+    }
+
+    private static final class Key {
+        private final CalculatorFactory calculatorFactory;
+        private final HolderType holderType;
+        private final QueryOptions queryOptions;
+        private final Map<String, Node> permissions;
+        private final int hashCode;
+
+        Key(CalculatorFactory calculatorFactory, HolderType holderType, QueryOptions queryOptions, Map<String, Node> permissions) {
+            this(calculatorFactory, holderType, queryOptions, permissions, calculateHashCode(calculatorFactory, holderType, queryOptions, permissions));
+        }
+
+        Key(CalculatorFactory calculatorFactory, HolderType holderType, QueryOptions queryOptions, Map<String, Node> permissions, int hashCode) {
+            this.calculatorFactory = calculatorFactory;
+            this.holderType = holderType;
+            this.queryOptions = queryOptions;
+            this.permissions = permissions;
+            this.hashCode = hashCode;
+        }
+
+        /**
+         * Calculates the hash in a single pass over the permissions, equal to the
+         * hash of the string->boolean view. Node metadata is not included.
+         */
+        private static int calculateHashCode(CalculatorFactory calculatorFactory, HolderType holderType, QueryOptions queryOptions, Map<String, Node> permissions) {
+            int permissionsHash = 0;
+            for (Map.Entry<String, Node> e : permissions.entrySet()) {
+                permissionsHash += e.getKey().hashCode() ^ Boolean.hashCode(e.getValue().getValue());
+            }
+
+            int result = System.identityHashCode(calculatorFactory);
+            result = 31 * result + holderType.hashCode();
+            result = 31 * result + queryOptions.hashCode();
+            result = 31 * result + permissionsHash;
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            if (this.hashCode != other.hashCode ||
+                    this.calculatorFactory != other.calculatorFactory ||
+                    this.holderType != other.holderType ||
+                    !this.queryOptions.equals(other.queryOptions) ||
+                    this.permissions.size() != other.permissions.size()) {
+                return false;
+            }
+
+            for (Map.Entry<String, Node> e : this.permissions.entrySet()) {
+                Node otherNode = other.permissions.get(e.getKey());
+                if (otherNode == null || otherNode.getValue() != e.getValue().getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+
+}
@@ -25,7 +25,8 @@
 
 package me.lucko.luckperms.common.calculator;
 
-import me.lucko.luckperms.common.cache.LoadingMap;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import me.lucko.luckperms.common.cache.PermissionKeyInterner;
 import me.lucko.luckperms.common.cacheddata.CacheMetadata;
 import me.lucko.luckperms.common.cacheddata.result.TristateResult;
 import me.lucko.luckperms.common.calculator.processor.PermissionProcessor;
@@ -33,10 +34,12 @@ import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.verbose.event.CheckOrigin;
 import net.luckperms.api.node.Node;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Collection;
-import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 
 /**
@@ -53,13 +56,47 @@ public class PermissionCalculator implements Function<String, TristateResult> {
     /** The processors which back this calculator */
     private final PermissionProcessor[] processors;
 
+    /** The maximum size of the lookup cache */
+    private final int lookupCacheSize;
+
     /** Loading cache for permission checks */
-    private final LoadingMap<String, TristateResult> lookupCache = LoadingMap.of(this);
+    private final PermissionLookupCache lookupCache;
+
+    /** A function applied to calculated results before they are cached, if any */
+    private final @Nullable BiFunction<String, TristateResult, TristateResult> resultMapper;
 
     public PermissionCalculator(LuckPermsPlugin plugin, CacheMetadata metadata, Collection<PermissionProcessor> processors) {
+        this(plugin, metadata, processors, -1);
+    }
+
+    public PermissionCalculator(LuckPermsPlugin plugin, CacheMetadata metadata, Collection<PermissionProcessor> processors, int lookupCacheSize) {
+        this(plugin, metadata, processors.toArray(new PermissionProcessor[0]), lookupCacheSize, null);
+    }
+
+    private PermissionCalculator(LuckPermsPlugin plugin, CacheMetadata metadata, PermissionProcessor[] processors, int lookupCacheSize, @Nullable BiFunction<String, TristateResult, TristateResult> resultMapper) {
         this.plugin = plugin;
         this.metadata = metadata;
-        this.processors = processors.toArray(new PermissionProcessor[0]);
+        this.processors = processors;
+        this.lookupCacheSize = lookupCacheSize;
+        this.resultMapper = resultMapper;
+        this.lookupCache = PermissionLookupCache.create(this, lookupCacheSize);
+    }
+
+    /**
+     * Creates a new calculator which shares the processors (and therefore the
+     * source permissions) of this calculator, but with its own metadata and
+     * lookup cache.
+     *
+     * <p>The result mapper (if any) is applied once to each calculated result,
+     * along with the permission it was calculated for,
+     * before it is stored in the lookup cache.</p>
+     *
+     * @param metadata the metadata for the new calculator
+     * @param resultMapper a function to apply to calculated results, or null
+     * @return the new calculator
+     */
+    public PermissionCalculator share(CacheMetadata metadata, @Nullable BiFunction<String, TristateResult, TristateResult> resultMapper) {
+        return new PermissionCalculator(this.plugin, metadata, this.processors, this.lookupCacheSize, resultMapper);
     }
 
     /**
@@ -73,7 +110,12 @@ public class PermissionCalculator implements Function<String, TristateResult> {
      */
     public TristateResult checkPermission(String permission, CheckOrigin origin) {
         // get the result
-        TristateResult result = this.lookupCache.get(permission);
+        TristateResult result = this.lookupCache.getIfPresent(permission);
+        if (result == null) {
+            // all keys in the cache are canonical lowercase instances, so normalise
+            // the permission and try again, calculating the result if necessary.
+            result = this.lookupCache.get(PermissionKeyInterner.intern(permission));
+        }
 
         // log this permission lookup to the verbose handler
         this.plugin.getVerboseHandler().offerPermissionCheckEvent(origin, this.metadata.getVerboseCheckInfo(), this.metadata.getQueryOptions(), permission, result);
@@ -84,9 +126,8 @@ public class PermissionCalculator implements Function<String, TristateResult> {
 
     @Override
     public TristateResult apply(@NonNull String permission) {
-        // convert the permission to lowercase, as all values in the backing map are also lowercase.
-        // this allows fast case insensitive lookups
-        permission = permission.toLowerCase(Locale.ROOT);
+        // the permission has already been converted to lowercase by the interner
+        // (see #checkPermission), as all values in the backing map are also lowercase.
 
         // offer the permission to the permission vault
         // we only need to do this once per permission, so it doesn't matter
@@ -97,6 +138,10 @@ public class PermissionCalculator implements Function<String, TristateResult> {
         for (PermissionProcessor processor : this.processors) {
             result = processor.hasPermission(result, permission);
         }
+
+        if (this.resultMapper != null) {
+            result = this.resultMapper.apply(permission, result);
+        }
         return result;
     }
 
@@ -113,10 +158,34 @@ public class PermissionCalculator implements Function<String, TristateResult> {
         }
     }
 
+    /**
+     * Notifies the calculator that entries in the source permissions map
+     * have been updated in place.
+     *
+     * @param changedKeys the keys which have changed
+     */
+    public synchronized void refreshSourcePermissions(Set<String> changedKeys) {
+        for (PermissionProcessor processor : this.processors) {
+            processor.refresh(changedKeys);
+        }
+        this.lookupCache.invalidate();
+    }
+
     public void invalidateCache() {
         for (PermissionProcessor processor : this.processors) {
             processor.invalidate();
         }
-        this.lookupCache.clear();
+        this.lookupCache.invalidate();
+    }
+
+    /**
+     * Gets the hit, miss and eviction counts for the lookup cache.
+     *
+     * <p>Stats are only recorded when the lookup cache is size bounded.</p>
+     *
+     * @return the lookup cache stats
+     */
+    public CacheStats getLookupCacheStats() {
+        return this.lookupCache.stats();
     }
 }
@@ -0,0 +1,180 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.calculator;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import me.lucko.luckperms.common.cache.LoadingMap;
+import me.lucko.luckperms.common.cacheddata.result.TristateResult;
+import me.lucko.luckperms.common.util.CaffeineFactory;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Caches the results of lookups made against a {@link PermissionCalculator}.
+ */
+public abstract class PermissionLookupCache {
+
+    /**
+     * Creates a new lookup cache.
+     *
+     * <p>If {@code maximumSize} is greater than zero, the cache will be bounded to
+     * (approximately) that many entries. Otherwise, the cache is unbounded.</p>
+     *
+     * @param loader the function used to calculate results
+     * @param maximumSize the maximum size of the cache
+     * @return a new cache
+     */
+    public static PermissionLookupCache create(Function<String, TristateResult> loader, int maximumSize) {
+        if (maximumSize > 0) {
+            return new Bounded(loader, maximumSize);
+        } else {
+            return new Unbounded(loader);
+        }
+    }
+
+    /**
+     * Gets the cached result for the given permission, if present.
+     *
+     * @param permission the permission
+     * @return the result, or null if not present
+     */
+    public abstract TristateResult getIfPresent(String permission);
+
+    /**
+     * Gets the result for the given permission, calculating it if necessary.
+     *
+     * @param permission the permission
+     * @return the result
+     */
+    public abstract TristateResult get(String permission);
+
+    /**
+     * Gets a snapshot of the hit, miss and eviction counts for this cache.
+     *
+     * <p>Stats are only recorded by bounded caches.</p>
+     *
+     * @return the stats
+     */
+    public abstract CacheStats stats();
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public abstract void invalidate();
+
+    /**
+     * Unbounded cache backed by a {@link LoadingMap}.
+     */
+    private static final class Unbounded extends PermissionLookupCache {
+        private final LoadingMap<String, TristateResult> map;
+
+        Unbounded(Function<String, TristateResult> loader) {
+            this.map = LoadingMap.of(loader);
+        }
+
+        @Override
+        public TristateResult getIfPresent(String permission) {
+            return this.map.getIfPresent(permission);
+        }
+
+        @Override
+        public TristateResult get(String permission) {
+            return this.map.get(permission);
+        }
+
+        @Override
+        public CacheStats stats() {
+            return CacheStats.empty();
+        }
+
+        @Override
+        public void invalidate() {
+            this.map.clear();
+        }
+    }
+
+    /**
+     * Size bounded cache, backed by Caffeine, which uses the W-TinyLFU policy
+     * to retain the most frequently checked permissions.
+     */
+    private static final class Bounded extends PermissionLookupCache {
+        private final Cache<String, TristateResult> cache;
+        private final Function<String, TristateResult> loader;
+
+        // lookups are made via the map view (so that a miss isn't recorded twice),
+        // which doesn't record hits - these are counted separately
+        private final LongAdder hitCount = new LongAdder();
+
+        Bounded(Function<String, TristateResult> loader, int maximumSize) {
+            this.cache = CaffeineFactory.newBuilder()
+                    .maximumSize(maximumSize)
+                    .recordStats()
+                    .build();
+            this.loader = loader;
+        }
+
+        @Override
+        public TristateResult getIfPresent(String permission) {
+            TristateResult result = this.cache.asMap().get(permission);
+            if (result != null) {
+                this.hitCount.increment();
+            }
+            return result;
+        }
+
+        @Override
+        public TristateResult get(String permission) {
+            TristateResult result = this.cache.asMap().get(permission);
+            if (result != null) {
+                this.hitCount.increment();
+                return result;
+            }
+            return this.cache.get(permission, this.loader);
+        }
+
+        @Override
+        public CacheStats stats() {
+            CacheStats stats = this.cache.stats();
+            return CacheStats.of(
+                    this.hitCount.sum() + stats.hitCount(),
+                    stats.missCount(),
+                    stats.loadSuccessCount(),
+                    stats.loadFailureCount(),
+                    stats.totalLoadTime(),
+                    stats.evictionCount(),
+                    stats.evictionWeight()
+            );
+        }
+
+        @Override
+        public void invalidate() {
+            this.cache.invalidateAll();
+        }
+    }
+
+}
@@ -35,9 +35,15 @@ public abstract class AbstractOverrideWildcardProcessor extends AbstractPermissi
         this.overrideWildcards = overrideWildcards;
     }
 
+    private static boolean isWildcardProcessor(Class<? extends PermissionProcessor> processorClass) {
+        return processorClass == WildcardProcessor.class ||
+                processorClass == WildcardTrieProcessor.class ||
+                processorClass == SpongeWildcardProcessor.class;
+    }
+
     private boolean canOverrideWildcard(TristateResult prev) {
         return this.overrideWildcards &&
-                (prev.processorClass() == WildcardProcessor.class || prev.processorClass() == SpongeWildcardProcessor.class) &&
+                isWildcardProcessor(prev.processorClass()) &&
                 prev.result() == Tristate.TRUE;
     }
 
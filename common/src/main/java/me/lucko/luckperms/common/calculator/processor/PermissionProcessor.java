@@ -30,6 +30,7 @@ import me.lucko.luckperms.common.calculator.PermissionCalculator;
 import net.luckperms.api.node.Node;
 
 import java.util.Map;
+import java.util.Set;
 
 /**
  * A processor within a {@link PermissionCalculator}.
@@ -64,6 +65,19 @@ public interface PermissionProcessor {
 
     }
 
+    /**
+     * Called after an incremental change has been made to the source map.
+     *
+     * <p>By default, the processor is fully {@link #refresh() refreshed}.
+     * Processors which can tell that the change does not affect them may
+     * skip this.</p>
+     *
+     * @param changedKeys the keys in the source map which have changed
+     */
+    default void refresh(Set<String> changedKeys) {
+        refresh();
+    }
+
     /**
      * Called after the parent calculator has been invalidated
      */
@@ -0,0 +1,726 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.calculator.processor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Matches an input against a number of regular expressions at once, using a
+ * single automaton which is converted lazily into a DFA as it is used.
+ *
+ * <p>Matching takes time linear in the length of the input, regardless of the
+ * number of expressions or how they are written. Only a subset of the
+ * {@link java.util.regex.Pattern} syntax is supported (literals, character
+ * classes, groups, alternation and greedy/lazy quantifiers) - anything else is
+ * rejected when the expression is added, so the caller can fall back to
+ * {@link java.util.regex.Pattern}.</p>
+ *
+ * <p>Expressions are always matched against the whole input, equivalent to
+ * {@link java.util.regex.Matcher#matches()}.</p>
+ */
+final class RegexAutomaton {
+
+    /** Returned by {@link #match(CharSequence)} if no expression matched */
+    static final int NO_MATCH = -1;
+
+    /** Returned by {@link #match(CharSequence)} if the input can't be handled by the automaton */
+    static final int UNSUPPORTED_INPUT = -2;
+
+    /** The maximum number of NFA states a single expression may compile into */
+    private static final int MAX_NFA_STATES = 10_000;
+
+    /** The maximum number of DFA states to retain before new states are no longer cached */
+    private static final int MAX_DFA_STATES = 10_000;
+
+    private static final int TYPE_CHAR = 0;
+    private static final int TYPE_SPLIT = 1;
+    private static final int TYPE_MATCH = 2;
+
+    private static final int[] DIGIT = {'0', '9'};
+    private static final int[] WORD = {'0', '9', 'A', 'Z', '_', '_', 'a', 'z'};
+    private static final int[] SPACE = {'\t', '\r', ' ', ' '};
+    private static final int[] DOT = {0, '\n' - 1, '\n' + 1, '\r' - 1, '\r' + 1, 0x84, 0x86, 0x2027, 0x202A, Character.MAX_VALUE};
+
+    // NFA
+    private final int[] types;
+    private final int[] out1;
+    private final int[] out2;
+    private final int[][] ranges;
+    private final int[] rules;
+
+    // DFA
+    private final DfaState start;
+    private final DfaState dead;
+    private final Map<StateSet, DfaState> dfaStates = new ConcurrentHashMap<>();
+
+    private RegexAutomaton(Builder builder) {
+        this.types = Arrays.copyOf(builder.types, builder.size);
+        this.out1 = Arrays.copyOf(builder.out1, builder.size);
+        this.out2 = Arrays.copyOf(builder.out2, builder.size);
+        this.ranges = Arrays.copyOf(builder.ranges, builder.size);
+        this.rules = Arrays.copyOf(builder.rules, builder.size);
+
+        Closure closure = new Closure(builder.size);
+        for (int s : builder.starts) {
+            closure.add(s);
+        }
+        this.start = state(closure.toSet());
+        this.dead = state(new StateSet(new int[0]));
+    }
+
+    /**
+     * Matches the input against the expressions in the automaton.
+     *
+     * @param input the input
+     * @return the lowest rule index of the expressions which matched the input, {@link #NO_MATCH}, or
+     *         {@link #UNSUPPORTED_INPUT} if the input contains characters the automaton can't handle
+     */
+    int match(CharSequence input) {
+        DfaState state = this.start;
+        for (int i = 0, len = input.length(); i < len; i++) {
+            char c = input.charAt(i);
+            if (Character.isSurrogate(c)) {
+                // Pattern matches by code point, we match by char
+                return UNSUPPORTED_INPUT;
+            }
+            state = next(state, c);
+            if (state == this.dead) {
+                return NO_MATCH;
+            }
+        }
+        return state.rule;
+    }
+
+    private DfaState next(DfaState state, char c) {
+        DfaState next;
+        if (c < DfaState.ASCII) {
+            next = state.ascii[c];
+        } else {
+            next = state.other.get(c);
+        }
+        if (next != null) {
+            return next;
+        }
+
+        Closure closure = new Closure(this.types.length);
+        for (int s : state.states.states) {
+            if (this.types[s] == TYPE_CHAR && contains(this.ranges[s], c)) {
+                closure.add(this.out1[s]);
+            }
+        }
+        next = state(closure.toSet());
+        if (!next.retained) {
+            return next;
+        }
+
+        if (c < DfaState.ASCII) {
+            state.ascii[c] = next;
+        } else if (state.other.size() < DfaState.ASCII) {
+            state.other.put(c, next);
+        }
+        return next;
+    }
+
+    private DfaState state(StateSet set) {
+        DfaState state = this.dfaStates.get(set);
+        if (state != null) {
+            return state;
+        }
+
+        int rule = NO_MATCH;
+        for (int s : set.states) {
+            if (this.types[s] == TYPE_MATCH && (rule == NO_MATCH || this.rules[s] < rule)) {
+                rule = this.rules[s];
+            }
+        }
+        if (this.dfaStates.size() >= MAX_DFA_STATES) {
+            // don't retain any more states, just calculate them as we go
+            return set.states.length == 0 && this.dead != null ? this.dead : new DfaState(set, rule, false);
+        }
+
+        state = new DfaState(set, rule, true);
+        DfaState existing = this.dfaStates.putIfAbsent(set, state);
+        return existing != null ? existing : state;
+    }
+
+    private static boolean contains(int[] ranges, char c) {
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (c < ranges[i]) {
+                return false;
+            }
+            if (c <= ranges[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Computes the epsilon closure of a set of NFA states.
+     */
+    private final class Closure {
+        private final boolean[] visited;
+        private final List<Integer> states = new ArrayList<>();
+        private final int[] stack;
+
+        Closure(int size) {
+            this.visited = new boolean[size];
+            // each state is expanded at most once, pushing at most two others
+            this.stack = new int[size * 2 + 1];
+        }
+
+        void add(int state) {
+            int sp = 0;
+            this.stack[sp++] = state;
+            while (sp != 0) {
+                int s = this.stack[--sp];
+                if (this.visited[s]) {
+                    continue;
+                }
+                this.visited[s] = true;
+
+                if (RegexAutomaton.this.types[s] == TYPE_SPLIT) {
+                    this.stack[sp++] = RegexAutomaton.this.out2[s];
+                    this.stack[sp++] = RegexAutomaton.this.out1[s];
+                } else {
+                    this.states.add(s);
+                }
+            }
+        }
+
+        StateSet toSet() {
+            int[] states = new int[this.states.size()];
+            for (int i = 0; i < states.length; i++) {
+                states[i] = this.states.get(i);
+            }
+            Arrays.sort(states);
+            return new StateSet(states);
+        }
+    }
+
+    private static final class StateSet {
+        private final int[] states;
+        private final int hashCode;
+
+        StateSet(int[] states) {
+            this.states = states;
+            this.hashCode = Arrays.hashCode(states);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o == this || o instanceof StateSet && Arrays.equals(this.states, ((StateSet) o).states);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+
+    private static final class DfaState {
+        private static final int ASCII = 128;
+
+        private final StateSet states;
+        private final int rule;
+        private final boolean retained;
+        private final DfaState[] ascii = new DfaState[ASCII];
+        private final Map<Character, DfaState> other = new ConcurrentHashMap<>();
+
+        DfaState(StateSet states, int rule, boolean retained) {
+            this.states = states;
+            this.rule = rule;
+            this.retained = retained;
+        }
+    }
+
+    /**
+     * Thrown when an expression uses syntax which isn't supported by the automaton.
+     */
+    private static final class UnsupportedSyntaxException extends Exception {
+        UnsupportedSyntaxException() {
+            super(null, null, false, false);
+        }
+    }
+
+    static final class Builder {
+        private int size = 0;
+        private int expressionStart = 0;
+        private int[] types = new int[16];
+        private int[] out1 = new int[16];
+        private int[] out2 = new int[16];
+        private int[][] ranges = new int[16][];
+        private int[] rules = new int[16];
+        private final List<Integer> starts = new ArrayList<>();
+
+        /**
+         * Adds an expression to the automaton.
+         *
+         * @param regex the expression, which must be a valid {@link java.util.regex.Pattern}
+         * @param rule the rule index to return if the expression matches
+         * @return true if the expression was added, false if it uses unsupported syntax
+         */
+        boolean add(String regex, int rule) {
+            int size = this.size;
+            this.expressionStart = size;
+            try {
+                Node node = new Parser(regex).parse();
+                int match = newState(TYPE_MATCH, -1, -1, null);
+                this.rules[match] = rule;
+                this.starts.add(compile(node, match));
+                return true;
+            } catch (UnsupportedSyntaxException e) {
+                // discard any partially compiled states
+                this.size = size;
+                return false;
+            }
+        }
+
+        RegexAutomaton build() {
+            return new RegexAutomaton(this);
+        }
+
+        private int compile(Node node, int next) throws UnsupportedSyntaxException {
+            if (node instanceof CharNode) {
+                return newState(TYPE_CHAR, next, -1, ((CharNode) node).ranges);
+            }
+            if (node instanceof ConcatNode) {
+                List<Node> nodes = ((ConcatNode) node).nodes;
+                for (int i = nodes.size() - 1; i >= 0; i--) {
+                    next = compile(nodes.get(i), next);
+                }
+                return next;
+            }
+            if (node instanceof AltNode) {
+                List<Node> nodes = ((AltNode) node).nodes;
+                int start = compile(nodes.get(nodes.size() - 1), next);
+                for (int i = nodes.size() - 2; i >= 0; i--) {
+                    start = newState(TYPE_SPLIT, compile(nodes.get(i), next), start, null);
+                }
+                return start;
+            }
+            if (node instanceof RepeatNode) {
+                RepeatNode repeat = (RepeatNode) node;
+                int start = next;
+                if (repeat.max == -1) {
+                    int loop = newState(TYPE_SPLIT, -1, next, null);
+                    this.out1[loop] = compile(repeat.node, loop);
+                    start = loop;
+                } else {
+                    for (int i = repeat.min; i < repeat.max; i++) {
+                        start = newState(TYPE_SPLIT, compile(repeat.node, start), next, null);
+                    }
+                }
+                for (int i = 0; i < repeat.min; i++) {
+                    start = compile(repeat.node, start);
+                }
+                return start;
+            }
+            throw new AssertionError(node);
+        }
+
+        private int newState(int type, int out1, int out2, int[] ranges) throws UnsupportedSyntaxException {
+            if (this.size - this.expressionStart >= MAX_NFA_STATES) {
+                throw new UnsupportedSyntaxException();
+            }
+            if (this.size == this.types.length) {
+                int newLength = this.size * 2;
+                this.types = Arrays.copyOf(this.types, newLength);
+                this.out1 = Arrays.copyOf(this.out1, newLength);
+                this.out2 = Arrays.copyOf(this.out2, newLength);
+                this.ranges = Arrays.copyOf(this.ranges, newLength);
+                this.rules = Arrays.copyOf(this.rules, newLength);
+            }
+            int state = this.size++;
+            this.types[state] = type;
+            this.out1[state] = out1;
+            this.out2[state] = out2;
+            this.ranges[state] = ranges;
+            return state;
+        }
+    }
+
+    private interface Node { }
+
+    private static final class CharNode implements Node {
+        private final int[] ranges;
+
+        CharNode(int[] ranges) {
+            this.ranges = ranges;
+        }
+    }
+
+    private static final class ConcatNode implements Node {
+        private final List<Node> nodes;
+
+        ConcatNode(List<Node> nodes) {
+            this.nodes = nodes;
+        }
+    }
+
+    private static final class AltNode implements Node {
+        private final List<Node> nodes;
+
+        AltNode(List<Node> nodes) {
+            this.nodes = nodes;
+        }
+    }
+
+    private static final class RepeatNode implements Node {
+        private final Node node;
+        private final int min;
+        private final int max;
+
+        RepeatNode(Node node, int min, int max) {
+            this.node = node;
+            this.min = min;
+            this.max = max;
+        }
+    }
+
+    /**
+     * A recursive descent parser for the supported subset of the {@link java.util.regex.Pattern} syntax.
+     */
+    private static final class Parser {
+        private final String regex;
+        private int pos;
+        private final int end;
+
+        Parser(String regex) {
+            int start = 0;
+            int end = regex.length();
+
+            // with whole-input matching, anchors at the very start/end of the expression have no effect
+            if (end > 0 && regex.charAt(0) == '^') {
+                start++;
+            }
+            if (end > start && regex.charAt(end - 1) == '$' && !isEscaped(regex, end - 1)) {
+                end--;
+            }
+
+            this.regex = regex;
+            this.pos = start;
+            this.end = end;
+        }
+
+        private static boolean isEscaped(String regex, int index) {
+            int backslashes = 0;
+            while (index - backslashes - 1 >= 0 && regex.charAt(index - backslashes - 1) == '\\') {
+                backslashes++;
+            }
+            return (backslashes & 1) == 1;
+        }
+
+        Node parse() throws UnsupportedSyntaxException {
+            for (int i = 0; i < this.regex.length(); i++) {
+                if (Character.isSurrogate(this.regex.charAt(i))) {
+                    throw new UnsupportedSyntaxException();
+                }
+            }
+
+            Node node = parseAlternation();
+            if (this.pos != this.end) {
+                throw new UnsupportedSyntaxException();
+            }
+            return node;
+        }
+
+        private boolean more() {
+            return this.pos < this.end;
+        }
+
+        private char peek() {
+            return this.regex.charAt(this.pos);
+        }
+
+        private Node parseAlternation() throws UnsupportedSyntaxException {
+            List<Node> alternatives = new ArrayList<>();
+            alternatives.add(parseConcatenation());
+            while (more() && peek() == '|') {
+                this.pos++;
+                alternatives.add(parseConcatenation());
+            }
+            return alternatives.size() == 1 ? alternatives.get(0) : new AltNode(alternatives);
+        }
+
+        private Node parseConcatenation() throws UnsupportedSyntaxException {
+            List<Node> nodes = new ArrayList<>();
+            while (more() && peek() != '|' && peek() != ')') {
+                nodes.add(parseRepetition(parseAtom()));
+            }
+            return nodes.size() == 1 ? nodes.get(0) : new ConcatNode(nodes);
+        }
+
+        private Node parseRepetition(Node atom) throws UnsupportedSyntaxException {
+            if (!more()) {
+                return atom;
+            }
+
+            int min;
+            int max;
+            switch (peek()) {
+                case '*':
+                    min = 0;
+                    max = -1;
+                    this.pos++;
+                    break;
+                case '+':
+                    min = 1;
+                    max = -1;
+                    this.pos++;
+                    break;
+                case '?':
+                    min = 0;
+                    max = 1;
+                    this.pos++;
+                    break;
+                case '{': {
+                    this.pos++;
+                    min = parseInt();
+                    max = min;
+                    if (more() && peek() == ',') {
+                        this.pos++;
+                        max = more() && peek() == '}' ? -1 : parseInt();
+                    }
+                    if (!more() || peek() != '}' || (max != -1 && max < min)) {
+                        throw new UnsupportedSyntaxException();
+                    }
+                    this.pos++;
+                    break;
+                }
+                default:
+                    return atom;
+            }
+
+            // lazy quantifiers accept the same inputs when matching the whole input
+            if (more() && peek() == '?') {
+                this.pos++;
+            }
+            // possessive or stacked quantifiers
+            if (more() && (peek() == '+' || peek() == '*' || peek() == '?' || peek() == '{')) {
+                throw new UnsupportedSyntaxException();
+            }
+            return new RepeatNode(atom, min, max);
+        }
+
+        private int parseInt() throws UnsupportedSyntaxException {
+            int start = this.pos;
+            while (more() && peek() >= '0' && peek() <= '9') {
+                this.pos++;
+            }
+            if (this.pos == start || this.pos - start > 4) {
+                throw new UnsupportedSyntaxException();
+            }
+            return Integer.parseInt(this.regex.substring(start, this.pos));
+        }
+
+        private Node parseAtom() throws UnsupportedSyntaxException {
+            char c = peek();
+            switch (c) {
+                case '(': {
+                    this.pos++;
+                    if (more() && peek() == '?') {
+                        // only non-capturing groups are supported
+                        if (this.pos + 1 >= this.end || this.regex.charAt(this.pos + 1) != ':') {
+                            throw new UnsupportedSyntaxException();
+                        }
+                        this.pos += 2;
+                    }
+                    Node node = parseAlternation();
+                    if (!more() || peek() != ')') {
+                        throw new UnsupportedSyntaxException();
+                    }
+                    this.pos++;
+                    return node;
+                }
+                case '[':
+                    this.pos++;
+                    return new CharNode(parseClass());
+                case '.':
+                    this.pos++;
+                    return new CharNode(DOT);
+                case '\\': {
+                    this.pos++;
+                    int[] ranges = parseEscape();
+                    return new CharNode(ranges);
+                }
+                case '^':
+                case '$':
+                case '*':
+                case '+':
+                case '?':
+                case '{':
+                case '}':
+                case ']':
+                case ')':
+                    throw new UnsupportedSyntaxException();
+                default:
+                    this.pos++;
+                    return new CharNode(new int[]{c, c});
+            }
+        }
+
+        private int[] parseEscape() throws UnsupportedSyntaxException {
+            if (!more()) {
+                throw new UnsupportedSyntaxException();
+            }
+            char c = this.regex.charAt(this.pos++);
+            switch (c) {
+                case 'd': return DIGIT;
+                case 'D': return complement(DIGIT);
+                case 'w': return WORD;
+                case 'W': return complement(WORD);
+                case 's': return SPACE;
+                case 'S': return complement(SPACE);
+                case 't': return single('\t');
+                case 'n': return single('\n');
+                case 'r': return single('\r');
+                case 'f': return single('\f');
+                case 'a': return single('\u0007');
+                case 'e': return single('\u001B');
+                default:
+                    // escaped punctuation is literal, anything else (back references,
+                    // boundaries, unicode classes, quoting, ...) isn't supported
+                    if (Character.isLetterOrDigit(c) || c > 127) {
+                        throw new UnsupportedSyntaxException();
+                    }
+                    return single(c);
+            }
+        }
+
+        private int[] parseClass() throws UnsupportedSyntaxException {
+            boolean negated = false;
+            if (more() && peek() == '^') {
+                negated = true;
+                this.pos++;
+            }
+            if (more() && peek() == ']') {
+                throw new UnsupportedSyntaxException();
+            }
+
+            List<int[]> parts = new ArrayList<>();
+            boolean first = true;
+            while (true) {
+                if (!more()) {
+                    throw new UnsupportedSyntaxException();
+                }
+                char c = peek();
+                if (c == ']') {
+                    this.pos++;
+                    break;
+                }
+                if (c == '[' || c == '&') {
+                    // nested classes, unions and intersections
+                    throw new UnsupportedSyntaxException();
+                }
+                if (c == '-' && !first && !(this.pos + 1 < this.end && this.regex.charAt(this.pos + 1) == ']')) {
+                    throw new UnsupportedSyntaxException();
+                }
+
+                int[] item = parseClassItem();
+                if (item.length == 2 && item[0] == item[1] && more() && peek() == '-'
+                        && this.pos + 1 < this.end && this.regex.charAt(this.pos + 1) != ']') {
+                    this.pos++;
+                    char next = peek();
+                    if (next == '[' || next == '&') {
+                        throw new UnsupportedSyntaxException();
+                    }
+                    int[] upper = parseClassItem();
+                    if (upper.length != 2 || upper[0] != upper[1] || upper[0] < item[0]) {
+                        throw new UnsupportedSyntaxException();
+                    }
+                    item = new int[]{item[0], upper[0]};
+                }
+                parts.add(item);
+                first = false;
+            }
+
+            int[] ranges = union(parts);
+            return negated ? complement(ranges) : ranges;
+        }
+
+        private int[] parseClassItem() throws UnsupportedSyntaxException {
+            char c = this.regex.charAt(this.pos++);
+            if (c == '\\') {
+                return parseEscape();
+            }
+            return single(c);
+        }
+
+        private static int[] single(char c) {
+            return new int[]{c, c};
+        }
+
+        private static int[] union(List<int[]> parts) {
+            List<int[]> pairs = new ArrayList<>();
+            for (int[] part : parts) {
+                for (int i = 0; i < part.length; i += 2) {
+                    pairs.add(new int[]{part[i], part[i + 1]});
+                }
+            }
+            pairs.sort((a, b) -> Integer.compare(a[0], b[0]));
+
+            List<int[]> merged = new ArrayList<>();
+            for (int[] pair : pairs) {
+                int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+                if (last != null && pair[0] <= last[1] + 1) {
+                    last[1] = Math.max(last[1], pair[1]);
+                } else {
+                    merged.add(pair);
+                }
+            }
+
+            int[] ranges = new int[merged.size() * 2];
+            for (int i = 0; i < merged.size(); i++) {
+                ranges[i * 2] = merged.get(i)[0];
+                ranges[i * 2 + 1] = merged.get(i)[1];
+            }
+            return ranges;
+        }
+
+        private static int[] complement(int[] ranges) {
+            List<Integer> result = new ArrayList<>();
+            int next = 0;
+            for (int i = 0; i < ranges.length; i += 2) {
+                if (ranges[i] > next) {
+                    result.add(next);
+                    result.add(ranges[i] - 1);
+                }
+                next = ranges[i + 1] + 1;
+            }
+            if (next <= Character.MAX_VALUE) {
+                result.add(next);
+                result.add((int) Character.MAX_VALUE);
+            }
+            return result.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+}
@@ -34,15 +34,36 @@ import net.luckperms.api.node.Node;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
 public class RegexProcessor extends AbstractSourceBasedProcessor implements PermissionProcessor {
     private static final TristateResult.Factory RESULT_FACTORY = new TristateResult.Factory(RegexProcessor.class);
 
+    /**
+     * If regex permissions should be compiled into a combined automaton
+     */
+    private final boolean compileAutomaton;
+
     private List<Map.Entry<Pattern, TristateResult>> regexPermissions = Collections.emptyList();
+    private CompiledPermissions compiledPermissions = null;
+
+    public RegexProcessor() {
+        this(false);
+    }
+
+    public RegexProcessor(boolean compileAutomaton) {
+        this.compileAutomaton = compileAutomaton;
+    }
 
     @Override
     public TristateResult hasPermission(String permission) {
+        CompiledPermissions compiled = this.compiledPermissions;
+        if (compiled != null) {
+            return compiled.hasPermission(permission);
+        }
+
         for (Map.Entry<Pattern, TristateResult> e : this.regexPermissions) {
             if (e.getKey().matcher(permission).matches()) {
                 return e.getValue();
@@ -51,6 +72,16 @@ public class RegexProcessor extends AbstractSourceBasedProcessor implements Perm
         return TristateResult.UNDEFINED;
     }
 
+    @Override
+    public void refresh(Set<String> changedKeys) {
+        for (String key : changedKeys) {
+            if (key.startsWith(RegexPermission.MARKER_1) || key.startsWith(RegexPermission.MARKER_2)) {
+                refresh();
+                return;
+            }
+        }
+    }
+
     @Override
     public void refresh() {
         ImmutableList.Builder<Map.Entry<Pattern, TristateResult>> builder = ImmutableList.builder();
@@ -68,6 +99,63 @@ public class RegexProcessor extends AbstractSourceBasedProcessor implements Perm
             TristateResult value = RESULT_FACTORY.result(e.getValue());
             builder.add(Maps.immutableEntry(pattern, value));
         }
-        this.regexPermissions = builder.build();
+
+        List<Map.Entry<Pattern, TristateResult>> regexPermissions = builder.build();
+        this.compiledPermissions = this.compileAutomaton && !regexPermissions.isEmpty() ? new CompiledPermissions(regexPermissions) : null;
+        this.regexPermissions = regexPermissions;
+    }
+
+    /**
+     * Regex permissions compiled into a {@link RegexAutomaton}, with any patterns
+     * the automaton can't express still matched using {@link Pattern}.
+     */
+    private static final class CompiledPermissions {
+        private final List<Map.Entry<Pattern, TristateResult>> regexPermissions;
+        private final RegexAutomaton automaton;
+        private final int[] fallbackIndexes;
+
+        CompiledPermissions(List<Map.Entry<Pattern, TristateResult>> regexPermissions) {
+            this.regexPermissions = regexPermissions;
+
+            RegexAutomaton.Builder automaton = new RegexAutomaton.Builder();
+            IntStream.Builder fallbackIndexes = IntStream.builder();
+            for (int i = 0; i < regexPermissions.size(); i++) {
+                if (!automaton.add(regexPermissions.get(i).getKey().pattern(), i)) {
+                    fallbackIndexes.add(i);
+                }
+            }
+            this.automaton = automaton.build();
+            this.fallbackIndexes = fallbackIndexes.build().toArray();
+        }
+
+        TristateResult hasPermission(String permission) {
+            int match = this.automaton.match(permission);
+            if (match == RegexAutomaton.UNSUPPORTED_INPUT) {
+                return matchPatterns(permission);
+            }
+
+            // the first matching permission wins, so only fallback patterns ordered
+            // before the automaton match need to be checked
+            for (int i : this.fallbackIndexes) {
+                if (match != RegexAutomaton.NO_MATCH && i > match) {
+                    break;
+                }
+                Map.Entry<Pattern, TristateResult> e = this.regexPermissions.get(i);
+                if (e.getKey().matcher(permission).matches()) {
+                    return e.getValue();
+                }
+            }
+
+            return match == RegexAutomaton.NO_MATCH ? TristateResult.UNDEFINED : this.regexPermissions.get(match).getValue();
+        }
+
+        private TristateResult matchPatterns(String permission) {
+            for (Map.Entry<Pattern, TristateResult> e : this.regexPermissions) {
+                if (e.getKey().matcher(permission).matches()) {
+                    return e.getValue();
+                }
+            }
+            return TristateResult.UNDEFINED;
+        }
     }
 }
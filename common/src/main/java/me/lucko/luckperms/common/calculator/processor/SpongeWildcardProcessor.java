@@ -29,6 +29,8 @@ import me.lucko.luckperms.common.cacheddata.result.TristateResult;
 import me.lucko.luckperms.common.node.AbstractNode;
 import net.luckperms.api.node.Node;
 
+import java.util.Set;
+
 public class SpongeWildcardProcessor extends AbstractSourceBasedProcessor implements PermissionProcessor {
     private static final TristateResult.Factory RESULT_FACTORY = new TristateResult.Factory(SpongeWildcardProcessor.class);
 
@@ -54,4 +56,9 @@ public class SpongeWildcardProcessor extends AbstractSourceBasedProcessor implem
         return TristateResult.UNDEFINED;
     }
 
+    @Override
+    public void refresh(Set<String> changedKeys) {
+        // no-op: lookups are made against the source map directly
+    }
+
 }
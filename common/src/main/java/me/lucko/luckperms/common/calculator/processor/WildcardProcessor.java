@@ -33,13 +33,14 @@ import net.luckperms.api.util.Tristate;
 
 import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 
 public class WildcardProcessor extends AbstractSourceBasedProcessor implements PermissionProcessor {
     private static final TristateResult.Factory RESULT_FACTORY = new TristateResult.Factory(WildcardProcessor.class);
 
     public static final String WILDCARD_SUFFIX = ".*";
-    private static final String ROOT_WILDCARD = "*";
-    private static final String ROOT_WILDCARD_WITH_QUOTES = "'*'";
+    static final String ROOT_WILDCARD = "*";
+    static final String ROOT_WILDCARD_WITH_QUOTES = "'*'";
 
     public static boolean isRootWildcard(String permission) {
         return ROOT_WILDCARD.equals(permission) || ROOT_WILDCARD_WITH_QUOTES.equals(permission);
@@ -74,6 +75,16 @@ public class WildcardProcessor extends AbstractSourceBasedProcessor implements P
         return this.rootWildcardState;
     }
 
+    @Override
+    public void refresh(Set<String> changedKeys) {
+        for (String key : changedKeys) {
+            if (WildcardProcessor.isWildcardPermission(key)) {
+                refresh();
+                return;
+            }
+        }
+    }
+
     @Override
     public void refresh() {
         ImmutableMap.Builder<String, TristateResult> builder = ImmutableMap.builder();
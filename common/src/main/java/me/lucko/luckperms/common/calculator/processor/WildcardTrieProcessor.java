@@ -0,0 +1,206 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.calculator.processor;
+
+import me.lucko.luckperms.common.cacheddata.result.TristateResult;
+import me.lucko.luckperms.common.node.AbstractNode;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.util.Tristate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Alternative implementation of {@link WildcardProcessor} which compiles the
+ * wildcard nodes in the source map into a trie keyed by permission segment.
+ *
+ * <p>Lookups walk the trie by scanning the checked permission in place, so no
+ * substrings are allocated while resolving a result.</p>
+ */
+public class WildcardTrieProcessor extends AbstractSourceBasedProcessor implements PermissionProcessor {
+    private static final TristateResult.Factory RESULT_FACTORY = new TristateResult.Factory(WildcardTrieProcessor.class);
+
+    private TrieNode root = TrieNode.EMPTY;
+    private TristateResult rootWildcardState = TristateResult.UNDEFINED;
+
+    @Override
+    public TristateResult hasPermission(String permission) {
+        TristateResult match = null;
+
+        TrieNode node = this.root;
+        int start = 0;
+        while (true) {
+            int end = permission.indexOf(AbstractNode.NODE_SEPARATOR, start);
+            if (end == -1) {
+                break;
+            }
+
+            node = node.child(permission, start, end);
+            if (node == null) {
+                break;
+            }
+
+            // the deepest match takes priority
+            if (node.value != null) {
+                match = node.value;
+            }
+            start = end + 1;
+        }
+
+        return match != null ? match : this.rootWildcardState;
+    }
+
+    @Override
+    public void refresh(Set<String> changedKeys) {
+        for (String key : changedKeys) {
+            if (WildcardProcessor.isWildcardPermission(key)) {
+                refresh();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void refresh() {
+        TrieNode.Builder builder = new TrieNode.Builder();
+        for (Map.Entry<String, Node> e : this.sourceMap.entrySet()) {
+            String key = e.getKey();
+            if (!key.endsWith(WildcardProcessor.WILDCARD_SUFFIX) || key.length() <= 2) {
+                continue;
+            }
+
+            TristateResult value = RESULT_FACTORY.result(e.getValue());
+            if (value.result() == Tristate.UNDEFINED) {
+                continue;
+            }
+
+            builder.insert(key, key.length() - 2, value);
+        }
+        this.root = builder.build();
+
+        Node rootWildcard = this.sourceMap.get(WildcardProcessor.ROOT_WILDCARD);
+        if (rootWildcard == null) {
+            rootWildcard = this.sourceMap.get(WildcardProcessor.ROOT_WILDCARD_WITH_QUOTES);
+        }
+        this.rootWildcardState = rootWildcard == null ? TristateResult.UNDEFINED : RESULT_FACTORY.result(rootWildcard);
+    }
+
+    /**
+     * An immutable node in the compiled trie.
+     *
+     * <p>Children are held in an open-addressed table keyed by segment. The table
+     * is probed using a hash computed directly over the region of the input.</p>
+     */
+    private static final class TrieNode {
+        static final TrieNode EMPTY = new TrieNode(null, new String[0], new TrieNode[0]);
+
+        final TristateResult value;
+        private final String[] keys;
+        private final TrieNode[] children;
+        private final int mask;
+
+        TrieNode(TristateResult value, String[] keys, TrieNode[] children) {
+            this.value = value;
+            this.keys = keys;
+            this.children = children;
+            this.mask = keys.length - 1;
+        }
+
+        TrieNode child(String s, int start, int end) {
+            if (this.keys.length == 0) {
+                return null;
+            }
+
+            int len = end - start;
+            int i = hash(s, start, end) & this.mask;
+            while (true) {
+                String key = this.keys[i];
+                if (key == null) {
+                    return null;
+                }
+                if (key.length() == len && s.regionMatches(start, key, 0, len)) {
+                    return this.children[i];
+                }
+                i = (i + 1) & this.mask;
+            }
+        }
+
+        // equivalent to String#hashCode for the given region, with some extra spreading
+        static int hash(String s, int start, int end) {
+            int h = 0;
+            for (int i = start; i < end; i++) {
+                h = 31 * h + s.charAt(i);
+            }
+            return h ^ (h >>> 16);
+        }
+
+        static final class Builder {
+            private final Map<String, Builder> children = new HashMap<>();
+            private TristateResult value;
+
+            void insert(String key, int length, TristateResult value) {
+                Builder node = this;
+                int start = 0;
+                while (true) {
+                    int end = key.indexOf(AbstractNode.NODE_SEPARATOR, start);
+                    if (end == -1 || end > length) {
+                        end = length;
+                    }
+
+                    node = node.children.computeIfAbsent(key.substring(start, end), k -> new Builder());
+                    if (end == length) {
+                        break;
+                    }
+                    start = end + 1;
+                }
+                node.value = value;
+            }
+
+            TrieNode build() {
+                if (this.children.isEmpty()) {
+                    return this.value == null ? EMPTY : new TrieNode(this.value, EMPTY.keys, EMPTY.children);
+                }
+
+                // keep the table at most half full
+                int size = Integer.highestOneBit(this.children.size()) << 2;
+                String[] keys = new String[size];
+                TrieNode[] children = new TrieNode[size];
+
+                for (Map.Entry<String, Builder> e : this.children.entrySet()) {
+                    String key = e.getKey();
+                    int i = hash(key, 0, key.length()) & (size - 1);
+                    while (keys[i] != null) {
+                        i = (i + 1) & (size - 1);
+                    }
+                    keys[i] = key;
+                    children[i] = e.getValue().build();
+                }
+                return new TrieNode(this.value, keys, children);
+            }
+        }
+    }
+}
@@ -35,7 +35,10 @@ import me.lucko.luckperms.common.model.Track;
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.util.Difference;
+import net.luckperms.api.node.Node;
 
+import java.util.Collections;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
@@ -90,6 +93,7 @@ public final class StorageAssistant {
     }
 
     public static CompletableFuture<Void> save(Group group, Sender sender, LuckPermsPlugin plugin) {
+        Difference<Node> changes = group.normalData().copyChanges();
         try {
             plugin.getStorage().saveGroup(group).get();
         } catch (Exception e) {
@@ -98,7 +102,14 @@ public final class StorageAssistant {
             return failedFuture(e);
         }
 
-        return invalidateCachesAndPushUpdates(plugin);
+        // only holders which inherit from the group can be affected by the change
+        plugin.getInheritanceIndex().invalidateDependants(Collections.singleton(group.getName()));
+
+        Optional<InternalMessagingService> messagingService = plugin.getMessagingService();
+        if (messagingService.isPresent() && plugin.getConfiguration().get(ConfigKeys.AUTO_PUSH_UPDATES)) {
+            messagingService.get().pushGroupUpdate(group, changes);
+        }
+        return CompletableFuture.completedFuture(null);
     }
 
     public static CompletableFuture<Void> save(Track track, Sender sender, LuckPermsPlugin plugin) {
@@ -110,7 +121,13 @@ public final class StorageAssistant {
             return failedFuture(e);
         }
 
-        return invalidateCachesAndPushUpdates(plugin);
+        invalidateCaches(plugin);
+
+        Optional<InternalMessagingService> messagingService = plugin.getMessagingService();
+        if (messagingService.isPresent() && plugin.getConfiguration().get(ConfigKeys.AUTO_PUSH_UPDATES)) {
+            messagingService.get().pushTrackUpdate(track);
+        }
+        return CompletableFuture.completedFuture(null);
     }
 
     public static void save(PermissionHolder holder, Sender sender, LuckPermsPlugin plugin) {
@@ -126,8 +143,7 @@ public final class StorageAssistant {
     }
 
     public static CompletableFuture<Void> invalidateCachesAndPushUpdates(LuckPermsPlugin plugin) {
-        plugin.getGroupManager().invalidateAllGroupCaches();
-        plugin.getUserManager().invalidateAllUserCaches();
+        invalidateCaches(plugin);
 
         Optional<InternalMessagingService> messagingService = plugin.getMessagingService();
         if (messagingService.isPresent() && plugin.getConfiguration().get(ConfigKeys.AUTO_PUSH_UPDATES)) {
@@ -137,6 +153,11 @@ public final class StorageAssistant {
         }
     }
 
+    private static void invalidateCaches(LuckPermsPlugin plugin) {
+        plugin.getGroupManager().invalidateAllGroupCaches();
+        plugin.getUserManager().invalidateAllUserCaches();
+    }
+
     private static <T> CompletableFuture<T> failedFuture(Throwable ex) {
         CompletableFuture<T> future = new CompletableFuture<>();
         future.completeExceptionally(ex);
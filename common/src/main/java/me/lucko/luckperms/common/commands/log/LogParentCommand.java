@@ -25,23 +25,101 @@
 
 package me.lucko.luckperms.common.commands.log;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.google.common.collect.ImmutableList;
-import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogFilter;
+import me.lucko.luckperms.common.actionlog.LogPage;
 import me.lucko.luckperms.common.command.abstraction.Command;
 import me.lucko.luckperms.common.command.abstraction.ParentCommand;
 import me.lucko.luckperms.common.command.spec.CommandSpec;
 import me.lucko.luckperms.common.locale.Message;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.storage.Storage;
+import me.lucko.luckperms.common.util.CaffeineFactory;
 
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
-public class LogParentCommand extends ParentCommand<Log, Void> {
+public class LogParentCommand extends ParentCommand<Storage, Void> {
+    static final int ENTRIES_PER_PAGE = 10;
+
+    /**
+     * The last page loaded for each sender, so that the page after it can be
+     * read on from where it ended.
+     */
+    private static final Cache<UUID, LoadedPage> LAST_LOADED = CaffeineFactory.newBuilder()
+            .expireAfterAccess(5, TimeUnit.MINUTES)
+            .build();
+
+    /**
+     * Loads a single page of the action log from storage.
+     *
+     * <p>The total number of entries is only counted if a specific page is requested,
+     * so the most recent page can be shown without it.</p>
+     *
+     * @param storage the storage
+     * @param sender the sender, notified if the log could not be loaded
+     * @param filter the filter to apply
+     * @param page the page requested by the sender, or {@link Integer#MIN_VALUE} for the latest page
+     * @return the page, or null if the log could not be loaded
+     */
+    static LogPage loadPage(Storage storage, Sender sender, LogFilter filter, int page) {
+        boolean latest = page == Integer.MIN_VALUE;
+        int pageNumber;
+        if (latest) {
+            pageNumber = LogPage.LATEST;
+        } else {
+            // keep out of range requests out of range
+            pageNumber = page < 1 ? -1 : page;
+        }
+
+        LoadedPage last = LAST_LOADED.getIfPresent(sender.getUniqueId());
+        LogPage.Cursor after = last != null && last.isFollowedBy(filter, pageNumber) ? last.next : null;
+
+        LogPage loaded;
+        try {
+            loaded = storage.getLogPage(filter, pageNumber, ENTRIES_PER_PAGE, after, !latest).join();
+        } catch (CompletionException e) {
+            Message.LOG_LOAD_ERROR.send(sender);
+            return null;
+        }
+
+        if (loaded.getNext() != null) {
+            LAST_LOADED.put(sender.getUniqueId(), new LoadedPage(filter, pageNumber, loaded.getNext()));
+        }
+        return loaded;
+    }
+
+    /**
+     * Checks that a page returned by {@link #loadPage} has entries to show,
+     * and notifies the sender if not.
+     *
+     * @param sender the sender
+     * @param log the page
+     * @return true if the page should be shown
+     */
+    static boolean checkPage(Sender sender, LogPage log) {
+        if (!log.getContent().isEmpty()) {
+            return true;
+        }
+
+        int maxPage = log.getMaxPages();
+        if (maxPage == 0 || maxPage == LogPage.UNKNOWN_TOTAL) {
+            Message.LOG_NO_ENTRIES.send(sender);
+        } else {
+            Message.LOG_INVALID_PAGE_RANGE.send(sender, maxPage);
+        }
+        return false;
+    }
+
     private final ReentrantLock lock = new ReentrantLock();
 
     public LogParentCommand() {
-        super(CommandSpec.LOG, "Log", Type.NO_TARGET_ARGUMENT, ImmutableList.<Command<Log>>builder()
+        super(CommandSpec.LOG, "Log", Type.NO_TARGET_ARGUMENT, ImmutableList.<Command<Storage>>builder()
                 .add(new LogRecent())
                 .add(new LogSearch())
                 .add(new LogNotify())
@@ -58,18 +136,13 @@ public class LogParentCommand extends ParentCommand<Log, Void> {
     }
 
     @Override
-    protected Log getTarget(Void target, LuckPermsPlugin plugin, Sender sender) {
-        Log log = plugin.getStorage().getLog().join();
-
-        if (log == null) {
-            Message.LOG_LOAD_ERROR.send(sender);
-        }
-
-        return log;
+    protected Storage getTarget(Void target, LuckPermsPlugin plugin, Sender sender) {
+        // log entries are loaded a page at a time by each command
+        return plugin.getStorage();
     }
 
     @Override
-    protected void cleanup(Log log, LuckPermsPlugin plugin) {
+    protected void cleanup(Storage storage, LuckPermsPlugin plugin) {
 
     }
 
@@ -85,4 +158,20 @@ public class LogParentCommand extends ParentCommand<Log, Void> {
         throw new UnsupportedOperationException();
     }
 
+    private static final class LoadedPage {
+        private final LogFilter filter;
+        private final int pageNumber;
+        private final LogPage.Cursor next;
+
+        LoadedPage(LogFilter filter, int pageNumber, LogPage.Cursor next) {
+            this.filter = filter;
+            this.pageNumber = pageNumber;
+            this.next = next;
+        }
+
+        boolean isFollowedBy(LogFilter filter, int pageNumber) {
+            return this.pageNumber + 1 == pageNumber && this.filter.equals(filter);
+        }
+    }
+
 }
@@ -25,7 +25,8 @@
 
 package me.lucko.luckperms.common.commands.log;
 
-import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogFilter;
+import me.lucko.luckperms.common.actionlog.LogPage;
 import me.lucko.luckperms.common.actionlog.LoggedAction;
 import me.lucko.luckperms.common.command.abstraction.ChildCommand;
 import me.lucko.luckperms.common.command.access.CommandPermission;
@@ -34,32 +35,35 @@ import me.lucko.luckperms.common.command.utils.ArgumentList;
 import me.lucko.luckperms.common.locale.Message;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.storage.Storage;
 import me.lucko.luckperms.common.util.Paginated;
 import me.lucko.luckperms.common.util.Predicates;
 
 import java.util.List;
 import java.util.UUID;
 
-public class LogRecent extends ChildCommand<Log> {
-    private static final int ENTRIES_PER_PAGE = 10;
-    
+public class LogRecent extends ChildCommand<Storage> {
     public LogRecent() {
         super(CommandSpec.LOG_RECENT, "recent", CommandPermission.LOG_RECENT, Predicates.notInRange(0, 2));
     }
 
     @Override
-    public void execute(LuckPermsPlugin plugin, Sender sender, Log log, ArgumentList args, String label) {
+    public void execute(LuckPermsPlugin plugin, Sender sender, Storage storage, ArgumentList args, String label) {
         if (args.isEmpty()) {
             // No page or user
-            Paginated<LoggedAction> content = new Paginated<>(log.getContent());
-            showLog(content.getMaxPages(ENTRIES_PER_PAGE), false, sender, content);
+            LogPage content = LogParentCommand.loadPage(storage, sender, LogFilter.all(), Integer.MIN_VALUE);
+            if (content != null) {
+                showLog(false, sender, content);
+            }
             return;
         }
 
         int page = args.getIntOrDefault(0, Integer.MIN_VALUE);
         if (page != Integer.MIN_VALUE) {
-            Paginated<LoggedAction> content = new Paginated<>(log.getContent());
-            showLog(page, false, sender, content);
+            LogPage content = LogParentCommand.loadPage(storage, sender, LogFilter.all(), page);
+            if (content != null) {
+                showLog(false, sender, content);
+            }
             return;
         }
 
@@ -69,28 +73,22 @@ public class LogRecent extends ChildCommand<Log> {
             return;
         }
 
-        Paginated<LoggedAction> content = new Paginated<>(log.getContent(uuid));
         page = args.getIntOrDefault(1, Integer.MIN_VALUE);
-        if (page != Integer.MIN_VALUE) {
-            showLog(page, true, sender, content);
-        } else {
-            showLog(content.getMaxPages(ENTRIES_PER_PAGE), true, sender, content);
+        LogPage content = LogParentCommand.loadPage(storage, sender, LogFilter.source(uuid), page);
+        if (content != null) {
+            showLog(true, sender, content);
         }
     }
 
-    private static void showLog(int page, boolean specificUser, Sender sender, Paginated<LoggedAction> log) {
-        int maxPage = log.getMaxPages(ENTRIES_PER_PAGE);
-        if (maxPage == 0) {
-            Message.LOG_NO_ENTRIES.send(sender);
+    private static void showLog(boolean specificUser, Sender sender, LogPage log) {
+        if (!LogParentCommand.checkPage(sender, log)) {
             return;
         }
 
-        if (page < 1 || page > maxPage) {
-            Message.LOG_INVALID_PAGE_RANGE.send(sender, maxPage);
-            return;
-        }
+        int page = log.getPageNumber();
+        int maxPage = log.getMaxPages();
 
-        List<Paginated.Entry<LoggedAction>> entries = log.getPage(page, ENTRIES_PER_PAGE);
+        List<Paginated.Entry<LoggedAction>> entries = log.getEntries();
         if (specificUser) {
             String name = entries.stream().findAny().get().value().getSource().getName();
             if (name.contains("@")) {
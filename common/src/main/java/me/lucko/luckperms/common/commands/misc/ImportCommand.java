@@ -36,16 +36,11 @@ import me.lucko.luckperms.common.locale.Message;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.sender.Sender;
 import me.lucko.luckperms.common.util.Predicates;
-import me.lucko.luckperms.common.util.gson.GsonProvider;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.zip.GZIPInputStream;
 
 public class ImportCommand extends SingleCommand {
     private final AtomicBoolean running = new AtomicBoolean(false);
@@ -63,7 +58,7 @@ public class ImportCommand extends SingleCommand {
 
         boolean fromFile = !args.remove("--upload");
 
-        JsonObject data;
+        Importer importer;
         if (fromFile) {
             String fileName = args.get(0);
             Path dataDirectory = plugin.getBootstrap().getDataDirectory();
@@ -97,14 +92,7 @@ public class ImportCommand extends SingleCommand {
                 return;
             }
 
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(path)), StandardCharsets.UTF_8))) {
-                data = GsonProvider.normal().fromJson(reader, JsonObject.class);
-            } catch (IOException e) {
-                plugin.getLogger().warn("Error whilst reading from the import file", e);
-                Message.IMPORT_FILE_READ_FAILURE.send(sender);
-                this.running.set(false);
-                return;
-            }
+            importer = new Importer(plugin, sender, path, !args.contains("--replace"));
         } else {
             String code = args.get(0);
 
@@ -113,6 +101,7 @@ public class ImportCommand extends SingleCommand {
                 return;
             }
 
+            JsonObject data;
             try {
                 data = plugin.getBytebin().getJsonContent(code).getAsJsonObject();
             } catch (UnsuccessfulRequestException e) {
@@ -128,9 +117,14 @@ public class ImportCommand extends SingleCommand {
                 Message.IMPORT_UNABLE_TO_READ.send(sender, code);
                 return;
             }
-        }
 
-        Importer importer = new Importer(plugin, sender, data, !args.contains("--replace"));
+            if (!this.running.compareAndSet(false, true)) {
+                Message.IMPORT_ALREADY_RUNNING.send(sender);
+                return;
+            }
+
+            importer = new Importer(plugin, sender, data, !args.contains("--replace"));
+        }
 
         // Run the importer in its own thread.
         plugin.getBootstrap().getScheduler().executeAsync(() -> {
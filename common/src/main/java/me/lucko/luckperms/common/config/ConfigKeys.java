@@ -44,6 +44,7 @@ import me.lucko.luckperms.common.storage.implementation.split.SplitStorageType;
 import me.lucko.luckperms.common.storage.misc.StorageCredentials;
 import me.lucko.luckperms.common.util.ImmutableCollectors;
 import me.lucko.luckperms.common.util.Predicates;
+import me.lucko.luckperms.common.verbose.VerboseHandler;
 import net.luckperms.api.context.ContextSatisfyMode;
 import net.luckperms.api.metastacking.DuplicateRemovalFunction;
 import net.luckperms.api.metastacking.MetaStackDefinition;
@@ -167,6 +168,16 @@ public final class ConfigKeys {
      */
     public static final ConfigKey<Boolean> DEBUG_LOGINS = booleanKey("debug-logins", false);
 
+    /**
+     * The number of verbose events which can be buffered before new events are dropped
+     */
+    public static final ConfigKey<Integer> VERBOSE_BUFFER_SIZE = notReloadable(key(c -> Math.max(2, c.getInteger("verbose-buffer-size", VerboseHandler.DEFAULT_BUFFER_SIZE))));
+
+    /**
+     * The maximum number of stack frames captured for each verbose event
+     */
+    public static final ConfigKey<Integer> VERBOSE_TRACE_DEPTH = notReloadable(key(c -> Math.max(0, c.getInteger("verbose-trace-depth", VerboseHandler.DEFAULT_TRACE_DEPTH))));
+
     /**
      * If LP should cancel login attempts for players whose permission data could not be loaded.
      */
@@ -251,6 +262,21 @@ public final class ConfigKeys {
      */
     public static final ConfigKey<Boolean> APPLYING_WILDCARDS = notReloadable(booleanKey("apply-wildcards", true));
 
+    /**
+     * If wildcards should be compiled into a trie, instead of being resolved by walking up the parent nodes
+     */
+    public static final ConfigKey<Boolean> APPLYING_WILDCARDS_TRIE = notReloadable(booleanKey("compile-wildcards", false));
+
+    /**
+     * The maximum number of permission lookup results cached by each permission calculator. A value <= 0 means unbounded.
+     */
+    public static final ConfigKey<Integer> PERMISSION_LOOKUP_CACHE_SIZE = notReloadable(key(c -> c.getInteger("permission-lookup-cache-size", -1)));
+
+    /**
+     * If resolved permission data should be shared between users with identical permissions
+     */
+    public static final ConfigKey<Boolean> SHARE_PERMISSION_DATA = notReloadable(booleanKey("share-permission-data", false));
+
     /**
      * If Sponge's implicit permission inheritance system should be applied
      */
@@ -269,6 +295,11 @@ public final class ConfigKeys {
      */
     public static final ConfigKey<Boolean> APPLYING_REGEX = notReloadable(booleanKey("apply-regex", true));
 
+    /**
+     * If regex permissions should be compiled into a single automaton, instead of being matched one by one
+     */
+    public static final ConfigKey<Boolean> APPLYING_REGEX_AUTOMATON = notReloadable(booleanKey("compile-regex", false));
+
     /**
      * If shorthand permissions are being applied
      */
@@ -443,6 +474,11 @@ public final class ConfigKeys {
                 .collect(ImmutableCollectors.toList());
     });
 
+    /**
+     * The number of days action log entries should be kept for, or -1 to keep them forever
+     */
+    public static final ConfigKey<Integer> LOG_RETENTION_DAYS = key(c -> c.getInteger("log-retention-days", -1));
+
     /**
      * If LuckPerms should automatically install translation bundles and periodically update them.
      */
@@ -513,6 +549,11 @@ public final class ConfigKeys {
      */
     public static final ConfigKey<Boolean> INTEGRATED_SERVER_OWNER_BYPASSES_CHECKS = booleanKey("integrated-server-owner-bypasses-checks", true);
 
+    /**
+     * If expired player contexts should be recalculated asynchronously, serving the previous contexts in the meantime
+     */
+    public static final ConfigKey<Boolean> ASYNC_CONTEXT_REFRESH = notReloadable(booleanKey("async-context-refresh", false));
+
     /**
      * Disabled context calculators
      */
@@ -559,6 +600,16 @@ public final class ConfigKeys {
         );
     }));
 
+    /**
+     * The time in milliseconds to wait for further user loads, so they can be loaded from the database together
+     */
+    public static final ConfigKey<Integer> USER_LOAD_BATCH_WINDOW = notReloadable(key(c -> Math.max(0, c.getInteger("data.user-load-batch-window", 5))));
+
+    /**
+     * The time in milliseconds to delay saves for, so repeated saves of the same holder can be combined
+     */
+    public static final ConfigKey<Integer> SAVE_WRITE_BEHIND_WINDOW = notReloadable(key(c -> Math.max(0, c.getInteger("data.write-behind-window", 0))));
+
     /**
      * The prefix for any SQL tables
      */
@@ -592,6 +643,11 @@ public final class ConfigKeys {
      */
     public static final ConfigKey<Boolean> WATCH_FILES = booleanKey("watch-files", true);
 
+    /**
+     * If an index of the permissions held by each user should be kept for flat-file storage types
+     */
+    public static final ConfigKey<Boolean> FLAT_FILE_USER_INDEX = notReloadable(booleanKey("flat-file-user-index", false));
+
     /**
      * If split storage is being used
      */
@@ -620,6 +676,11 @@ public final class ConfigKeys {
      */
     public static final ConfigKey<Boolean> AUTO_PUSH_UPDATES = notReloadable(booleanKey("auto-push-updates", true));
 
+    /**
+     * The time in milliseconds to wait for further outgoing messages, so they can be sent together
+     */
+    public static final ConfigKey<Integer> MESSAGING_BATCH_WINDOW = notReloadable(key(c -> Math.max(0, c.getInteger("messaging-batch-window", 0))));
+
     /**
      * If LuckPerms should push logging entries to connected servers via the messaging service
      */
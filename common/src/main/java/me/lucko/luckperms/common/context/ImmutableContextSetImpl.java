@@ -242,6 +242,10 @@ public final class ImmutableContextSetImpl extends AbstractContextSet implements
         private Context[] builder = EMPTY.array;
         private int size = 0;
 
+        // the set this builder was copied from, if nothing has been added since.
+        // its array is shared with the builder, so must be copied before it is modified.
+        private ImmutableContextSetImpl source = null;
+
         public BuilderImpl() {
 
         }
@@ -257,9 +261,9 @@ public final class ImmutableContextSetImpl extends AbstractContextSet implements
             int insertPos = -pos - 1;
 
             Context[] dest;
-            if (this.builder.length == this.size) {
+            if (this.builder.length == this.size || this.source != null) {
                 // grow
-                dest = new Context[Math.max(this.builder.length * 2, INITIAL_SIZE)];
+                dest = new Context[Math.max(this.size * 2, INITIAL_SIZE)];
                 System.arraycopy(this.builder, 0, dest, 0, insertPos);
             } else {
                 dest = this.builder;
@@ -270,6 +274,7 @@ public final class ImmutableContextSetImpl extends AbstractContextSet implements
 
             this.size++;
             this.builder = dest;
+            this.source = null;
         }
 
         @Override
@@ -289,12 +294,24 @@ public final class ImmutableContextSetImpl extends AbstractContextSet implements
         @Override
         public @NonNull BuilderImpl addAll(@NonNull ContextSet contextSet) {
             Objects.requireNonNull(contextSet, "contextSet");
+            if (this.size == 0 && contextSet instanceof ImmutableContextSetImpl) {
+                // share the (already sorted and sanitized) array until something else is added,
+                // so that building without further changes returns the same instance
+                ImmutableContextSetImpl immutable = (ImmutableContextSetImpl) contextSet;
+                this.builder = immutable.array;
+                this.size = immutable.size;
+                this.source = immutable;
+                return this;
+            }
             addAll(contextSet.toSet());
             return this;
         }
 
         @Override
         public @NonNull ImmutableContextSet build() {
+            if (this.source != null) {
+                return this.source;
+            }
             if (this.builder.length == 0) {
                 return EMPTY;
             } else {
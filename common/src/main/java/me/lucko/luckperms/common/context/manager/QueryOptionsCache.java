@@ -26,6 +26,8 @@
 package me.lucko.luckperms.common.context.manager;
 
 import me.lucko.luckperms.common.cache.ExpiringCache;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.util.CaffeineFactory;
 import net.luckperms.api.context.ImmutableContextSet;
 import net.luckperms.api.query.QueryOptions;
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -42,7 +44,8 @@ public final class QueryOptionsCache<T> extends ExpiringCache<QueryOptions> impl
     private final ContextManager<T, ?> contextManager;
 
     public QueryOptionsCache(T subject, ContextManager<T, ?> contextManager) {
-        super(50L, TimeUnit.MILLISECONDS); // expire roughly every tick
+        // expire roughly every tick
+        super(50L, TimeUnit.MILLISECONDS, contextManager.plugin.getConfiguration().get(ConfigKeys.ASYNC_CONTEXT_REFRESH) ? CaffeineFactory.executor() : null, contextManager.plugin.getLogger());
         this.subject = subject;
         this.contextManager = contextManager;
     }
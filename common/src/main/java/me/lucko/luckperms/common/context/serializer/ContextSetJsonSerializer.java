@@ -25,6 +25,7 @@
 
 package me.lucko.luckperms.common.context.serializer;
 
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.common.base.Preconditions;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
@@ -33,7 +34,11 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
 import me.lucko.luckperms.common.context.MutableContextSetImpl;
+import me.lucko.luckperms.common.util.CaffeineFactory;
+import me.lucko.luckperms.common.util.gson.GsonProvider;
+import net.luckperms.api.context.Context;
 import net.luckperms.api.context.ContextSet;
+import net.luckperms.api.context.ImmutableContextSet;
 import net.luckperms.api.context.MutableContextSet;
 
 import java.util.ArrayList;
@@ -49,10 +54,19 @@ import java.util.Set;
  * <p>The entries within the serialized output are sorted, this ensures that any two invocations
  * of {@link #serialize(ContextSet)} with the same {@link ContextSet} will produce
  * the same exact JSON string.</p>
+ *
+ * <p>{@link #serializeToString(ContextSet)} and {@link #deserializeFromString(String)} read and
+ * write the JSON string form directly, for use by storage implementations which read and write
+ * context sets for every node. The number of distinct context sets in use is usually small, so
+ * the results of {@link #deserializeFromString(String)} are cached.</p>
  */
 public final class ContextSetJsonSerializer {
     private ContextSetJsonSerializer() {}
 
+    private static final LoadingCache<String, ImmutableContextSet> STRING_CACHE = CaffeineFactory.newBuilder()
+            .maximumSize(1024)
+            .build(ContextSetJsonSerializer::parseString);
+
     public static JsonObject serialize(ContextSet contextSet) {
         JsonObject output = new JsonObject();
 
@@ -122,4 +136,276 @@ public final class ContextSetJsonSerializer {
         return contextSet;
     }
 
+    /**
+     * Serializes a context set to a JSON string, producing the same output as
+     * {@code GsonProvider.normal().toJson(serialize(contextSet))}.
+     *
+     * @param contextSet the context set
+     * @return the JSON string
+     */
+    public static String serializeToString(ContextSet contextSet) {
+        if (contextSet.isEmpty()) {
+            return "{}";
+        }
+
+        // the array is sorted by key, then by value - the same order as serialize
+        Context[] contexts = ((ImmutableContextSetImpl) contextSet.immutableCopy()).toArray();
+
+        StringBuilder sb = new StringBuilder(contexts.length * 16);
+        sb.append('{');
+        for (int i = 0; i < contexts.length; ) {
+            String key = contexts[i].getKey();
+
+            // find the end of the run of values for the key
+            int end = i + 1;
+            while (end < contexts.length && contexts[end].getKey().equals(key)) {
+                end++;
+            }
+
+            if (i != 0) {
+                sb.append(',');
+            }
+            writeString(sb, key);
+            sb.append(':');
+
+            if (end - i == 1) {
+                writeString(sb, contexts[i].getValue());
+            } else {
+                sb.append('[');
+                for (int j = i; j < end; j++) {
+                    if (j != i) {
+                        sb.append(',');
+                    }
+                    writeString(sb, contexts[j].getValue());
+                }
+                sb.append(']');
+            }
+
+            i = end;
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * Deserializes a context set from a JSON string.
+     *
+     * @param input the JSON string
+     * @return the context set
+     */
+    public static ImmutableContextSet deserializeFromString(String input) {
+        Objects.requireNonNull(input, "input");
+        if (input.equals("{}")) {
+            return ImmutableContextSetImpl.EMPTY;
+        }
+        return STRING_CACHE.get(input);
+    }
+
+    private static ImmutableContextSet parseString(String input) {
+        ImmutableContextSet contextSet = new FlatObjectReader(input).read();
+        if (contextSet == null) {
+            // not the flat shape we write, let gson deal with it
+            contextSet = deserialize(GsonProvider.normal(), input).immutableCopy();
+        }
+        return contextSet;
+    }
+
+    // escapes in the same way as gson, with html escaping disabled
+    private static void writeString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0, len = value.length(); i < len; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                case '\b':
+                    sb.append("\\b");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\f':
+                    sb.append("\\f");
+                    break;
+                case '\u2028':
+                case '\u2029':
+                    sb.append(String.format("\\u%04x", (int) c));
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                    break;
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * Reads a JSON object whose values are strings, or arrays of strings.
+     *
+     * <p>Returns null if the input is of any other shape.</p>
+     */
+    private static final class FlatObjectReader {
+        private final String input;
+        private int pos = 0;
+
+        FlatObjectReader(String input) {
+            this.input = input;
+        }
+
+        ImmutableContextSet read() {
+            ImmutableContextSet.Builder builder = new ImmutableContextSetImpl.BuilderImpl();
+
+            if (!consume('{')) {
+                return null;
+            }
+            if (consume('}')) {
+                return end() ? builder.build() : null;
+            }
+
+            do {
+                String key = readString();
+                if (key == null || !consume(':')) {
+                    return null;
+                }
+
+                if (consume('[')) {
+                    if (!consume(']')) {
+                        do {
+                            String value = readString();
+                            if (value == null) {
+                                return null;
+                            }
+                            builder.add(key, value);
+                        } while (consume(','));
+
+                        if (!consume(']')) {
+                            return null;
+                        }
+                    }
+                } else {
+                    String value = readString();
+                    if (value == null) {
+                        return null;
+                    }
+                    builder.add(key, value);
+                }
+            } while (consume(','));
+
+            if (!consume('}') || !end()) {
+                return null;
+            }
+            return builder.build();
+        }
+
+        private void skipWhitespace() {
+            while (this.pos < this.input.length()) {
+                char c = this.input.charAt(this.pos);
+                if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                    break;
+                }
+                this.pos++;
+            }
+        }
+
+        private boolean consume(char expected) {
+            skipWhitespace();
+            if (this.pos < this.input.length() && this.input.charAt(this.pos) == expected) {
+                this.pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean end() {
+            skipWhitespace();
+            return this.pos == this.input.length();
+        }
+
+        private String readString() {
+            if (!consume('"')) {
+                return null;
+            }
+
+            StringBuilder sb = null;
+            int start = this.pos;
+            while (this.pos < this.input.length()) {
+                char c = this.input.charAt(this.pos++);
+                if (c == '"') {
+                    if (sb == null) {
+                        return this.input.substring(start, this.pos - 1);
+                    }
+                    return sb.toString();
+                }
+
+                if (c != '\\') {
+                    if (sb != null) {
+                        sb.append(c);
+                    }
+                    continue;
+                }
+
+                if (sb == null) {
+                    sb = new StringBuilder().append(this.input, start, this.pos - 1);
+                }
+                if (this.pos >= this.input.length()) {
+                    return null;
+                }
+
+                char escaped = this.input.charAt(this.pos++);
+                switch (escaped) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        sb.append(escaped);
+                        break;
+                    case 'b':
+                        sb.append('\b');
+                        break;
+                    case 'f':
+                        sb.append('\f');
+                        break;
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'u':
+                        if (this.pos + 4 > this.input.length()) {
+                            return null;
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(this.input.substring(this.pos, this.pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            return null;
+                        }
+                        this.pos += 4;
+                        break;
+                    default:
+                        return null;
+                }
+            }
+
+            // unterminated string
+            return null;
+        }
+    }
+
 }
@@ -29,9 +29,12 @@ import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.HolderType;
 import me.lucko.luckperms.common.model.PermissionHolder;
 import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.cacheddata.result.IntegerResult;
 import me.lucko.luckperms.common.model.manager.group.GroupManager;
 
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
 
 /**
  * Determines the order of group inheritance in {@link PermissionHolder}.
@@ -39,6 +42,13 @@ import java.util.Comparator;
 public class InheritanceComparator implements Comparator<PermissionHolder> {
     private static final Comparator<PermissionHolder> NULL_ORIGIN = new InheritanceComparator(null).reversed();
 
+    // sort key layout, from most to least significant: 1 bit user flag, 32 bits weight,
+    // 1 bit primary group flag, 29 bits original index
+    private static final long INDEX_MASK = (1L << 29) - 1;
+    private static final long NOT_PRIMARY_BIT = 1L << 29;
+    private static final int WEIGHT_SHIFT = 30;
+    private static final long NOT_USER_BIT = 1L << 62;
+
     public static Comparator<? super PermissionHolder> getFor(PermissionHolder origin) {
         if (origin.getType() == HolderType.USER) {
             return new InheritanceComparator((User) origin).reversed();
@@ -46,6 +56,61 @@ public class InheritanceComparator implements Comparator<PermissionHolder> {
         return NULL_ORIGIN;
     }
 
+    /**
+     * Sorts the given list according to the same rules as {@link #getFor(PermissionHolder)},
+     * but reads the weight of each holder only once.
+     *
+     * <p>Each element is packed into a single {@code long} sort key (user flag, inverted
+     * weight, primary group flag, original index), so the sort runs over a flat primitive
+     * array and ties keep their existing order.</p>
+     *
+     * @param list the list to sort
+     * @param origin the holder the list is being sorted for
+     * @param <T> the holder type
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends PermissionHolder> void sort(List<T> list, PermissionHolder origin) {
+        int size = list.size();
+        if (size < 2) {
+            return;
+        }
+        if (size > INDEX_MASK) {
+            list.sort(getFor(origin));
+            return;
+        }
+
+        String primaryGroup = origin.getType() == HolderType.USER
+                ? ((User) origin).getPrimaryGroup().getStoredValue().orElse(GroupManager.DEFAULT_GROUP_NAME)
+                : null;
+
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            PermissionHolder holder = list.get(i);
+
+            long key = i;
+            if (holder.getType() == HolderType.USER) {
+                key |= NOT_PRIMARY_BIT;
+            } else {
+                IntegerResult<?> weight = holder.getWeightResult();
+                int weightValue = weight.isNull() ? 0 : weight.intResult();
+
+                key |= NOT_USER_BIT;
+                key |= (Integer.MAX_VALUE - (long) weightValue) << WEIGHT_SHIFT;
+                if (primaryGroup == null || !((Group) holder).getName().equalsIgnoreCase(primaryGroup)) {
+                    key |= NOT_PRIMARY_BIT;
+                }
+            }
+            keys[i] = key;
+        }
+
+        Arrays.sort(keys);
+
+        Object[] sorted = list.toArray();
+        for (int i = 0; i < size; i++) {
+            list.set(i, (T) sorted[(int) (keys[i] & INDEX_MASK)]);
+        }
+    }
+
     private final User origin;
 
     private InheritanceComparator(User origin) {
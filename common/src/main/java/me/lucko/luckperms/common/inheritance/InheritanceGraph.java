@@ -25,24 +25,33 @@
 
 package me.lucko.luckperms.common.inheritance;
 
+import com.google.common.collect.ImmutableList;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.graph.Graph;
 import me.lucko.luckperms.common.graph.TraversalAlgorithm;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.PermissionHolder;
+import me.lucko.luckperms.common.model.manager.group.GroupManager;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import net.luckperms.api.node.types.InheritanceNode;
 import net.luckperms.api.query.QueryOptions;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A {@link Graph} which represents an "inheritance tree".
+ *
+ * <p>The successors and traversal order of each group are memoised, and reused
+ * until any group changes (see {@link GroupManager#invalidateInheritance()}).</p>
  */
 public class InheritanceGraph implements Graph<PermissionHolder> {
+
     private final LuckPermsPlugin plugin;
 
     /**
@@ -50,6 +59,21 @@ public class InheritanceGraph implements Graph<PermissionHolder> {
      */
     private final QueryOptions queryOptions;
 
+    /**
+     * The group version the memoised data was resolved at.
+     */
+    private volatile long version = -1;
+
+    /**
+     * The memoised (sorted) successors of each group
+     */
+    private final Map<Group, Resolved<List<Group>>> successors = new ConcurrentHashMap<>();
+
+    /**
+     * The memoised traversal from each group
+     */
+    private final Map<Group, Resolved<List<PermissionHolder>>> traversals = new ConcurrentHashMap<>();
+
     public InheritanceGraph(LuckPermsPlugin plugin, QueryOptions queryOptions) {
         this.plugin = plugin;
         this.queryOptions = queryOptions;
@@ -57,6 +81,24 @@ public class InheritanceGraph implements Graph<PermissionHolder> {
 
     @Override
     public Iterable<? extends PermissionHolder> successors(PermissionHolder holder) {
+        if (!(holder instanceof Group)) {
+            return resolveSuccessors(holder);
+        }
+
+        Group group = (Group) holder;
+        long version = currentVersion();
+
+        Resolved<List<Group>> resolved = this.successors.get(group);
+        if (resolved != null && resolved.version == version) {
+            return resolved.value;
+        }
+
+        List<Group> successors = ImmutableList.copyOf(resolveSuccessors(group));
+        this.successors.put(group, new Resolved<>(version, null, successors));
+        return successors;
+    }
+
+    private List<Group> resolveSuccessors(PermissionHolder holder) {
         Set<Group> successors = new LinkedHashSet<>();
         for (InheritanceNode n : holder.getOwnInheritanceNodes(this.queryOptions)) {
             Group g = this.plugin.getGroupManager().getIfLoaded(n.getGroupName());
@@ -66,7 +108,7 @@ public class InheritanceGraph implements Graph<PermissionHolder> {
         }
 
         List<Group> successorsSorted = new ArrayList<>(successors);
-        successorsSorted.sort(holder.getInheritanceComparator());
+        InheritanceComparator.sort(successorsSorted, holder);
         return successorsSorted;
     }
 
@@ -81,7 +123,7 @@ public class InheritanceGraph implements Graph<PermissionHolder> {
      * @return an iterable
      */
     public Iterable<PermissionHolder> traverse(TraversalAlgorithm algorithm, boolean postTraversalSort, PermissionHolder startNode) {
-        Iterable<PermissionHolder> traversal = traverse(algorithm, startNode);
+        Iterable<PermissionHolder> traversal = resolveTraversal(algorithm, startNode);
 
         // perform post traversal sort if needed
         if (postTraversalSort) {
@@ -90,7 +132,7 @@ public class InheritanceGraph implements Graph<PermissionHolder> {
                 resolvedTraversal.add(node);
             }
 
-            resolvedTraversal.sort(startNode.getInheritanceComparator());
+            InheritanceComparator.sort(resolvedTraversal, startNode);
             traversal = resolvedTraversal;
         }
 
@@ -111,4 +153,77 @@ public class InheritanceGraph implements Graph<PermissionHolder> {
         );
     }
 
+    private Iterable<PermissionHolder> resolveTraversal(TraversalAlgorithm algorithm, PermissionHolder startNode) {
+        if (startNode instanceof Group) {
+            return groupTraversal((Group) startNode, algorithm);
+        }
+
+        // a breadth-first traversal can't be composed from the traversals of each successor
+        if (algorithm == TraversalAlgorithm.BREADTH_FIRST) {
+            return traverse(algorithm, startNode);
+        }
+
+        // for depth-first traversals, the traversal from the start node is the concatenation
+        // of the traversals from each of its successors, skipping anything already visited
+        List<PermissionHolder> traversal = new ArrayList<>();
+        Set<PermissionHolder> visited = new HashSet<>();
+        visited.add(startNode);
+
+        if (algorithm == TraversalAlgorithm.DEPTH_FIRST_PRE_ORDER) {
+            traversal.add(startNode);
+        }
+        for (PermissionHolder successor : successors(startNode)) {
+            for (PermissionHolder holder : groupTraversal((Group) successor, algorithm)) {
+                if (visited.add(holder)) {
+                    traversal.add(holder);
+                }
+            }
+        }
+        if (algorithm == TraversalAlgorithm.DEPTH_FIRST_POST_ORDER) {
+            traversal.add(startNode);
+        }
+        return traversal;
+    }
+
+    private List<PermissionHolder> groupTraversal(Group group, TraversalAlgorithm algorithm) {
+        long version = currentVersion();
+
+        Resolved<List<PermissionHolder>> resolved = this.traversals.get(group);
+        if (resolved != null && resolved.version == version && resolved.algorithm == algorithm) {
+            return resolved.value;
+        }
+
+        List<PermissionHolder> traversal = ImmutableList.copyOf(traverse(algorithm, group));
+        this.traversals.put(group, new Resolved<>(version, algorithm, traversal));
+        return traversal;
+    }
+
+    private long currentVersion() {
+        long version = this.plugin.getGroupManager().getInheritanceVersion();
+        if (this.version != version) {
+            // drop entries for groups which may no longer be loaded
+            this.version = version;
+            this.successors.clear();
+            this.traversals.clear();
+        }
+        return version;
+    }
+
+    /**
+     * A memoised value, stamped with the group version it was resolved at.
+     *
+     * @param <T> the value type
+     */
+    private static final class Resolved<T> {
+        private final long version;
+        private final TraversalAlgorithm algorithm;
+        private final T value;
+
+        Resolved(long version, TraversalAlgorithm algorithm, T value) {
+            this.version = version;
+            this.algorithm = algorithm;
+            this.value = value;
+        }
+    }
+
 }
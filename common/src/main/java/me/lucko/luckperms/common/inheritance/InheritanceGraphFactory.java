@@ -25,10 +25,14 @@
 
 package me.lucko.luckperms.common.inheritance;
 
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.query.QueryOptionsImpl;
+import me.lucko.luckperms.common.util.CaffeineFactory;
 import net.luckperms.api.query.QueryOptions;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Provides {@link InheritanceGraph}s.
  */
@@ -38,10 +42,18 @@ public class InheritanceGraphFactory {
     private final InheritanceGraph nonContextualGraph;
     private final InheritanceGraph defaultContextualGraph;
 
+    /**
+     * Graphs for other query options, memoised so their resolved inheritance can be reused
+     */
+    private final LoadingCache<QueryOptions, InheritanceGraph> graphs;
+
     public InheritanceGraphFactory(LuckPermsPlugin plugin) {
         this.plugin = plugin;
         this.nonContextualGraph = new InheritanceGraph(plugin, QueryOptionsImpl.DEFAULT_NON_CONTEXTUAL);
         this.defaultContextualGraph = new InheritanceGraph(plugin, QueryOptionsImpl.DEFAULT_CONTEXTUAL);
+        this.graphs = CaffeineFactory.newBuilder()
+                .expireAfterAccess(5, TimeUnit.MINUTES)
+                .build(queryOptions -> new InheritanceGraph(plugin, queryOptions));
     }
 
     public InheritanceGraph getGraph(QueryOptions queryOptions) {
@@ -50,7 +62,7 @@ public class InheritanceGraphFactory {
         } else if (queryOptions == QueryOptionsImpl.DEFAULT_CONTEXTUAL) {
             return this.defaultContextualGraph;
         } else {
-            return new InheritanceGraph(this.plugin, queryOptions);
+            return this.graphs.get(queryOptions);
         }
     }
 
@@ -0,0 +1,160 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.inheritance;
+
+import com.google.common.collect.ImmutableSet;
+import me.lucko.luckperms.common.model.PermissionHolder;
+import me.lucko.luckperms.common.model.PermissionHolderIdentifier;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import net.luckperms.api.model.PermissionHolder.Identifier;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A reverse index of the inheritance relationships between holders.
+ *
+ * <p>Maps each group to the holders which directly inherit from it, so that when a group
+ * changes, only the caches of the groups and users which (directly or transitively)
+ * inherit from it need to be invalidated.</p>
+ *
+ * <p>Holders update their entry whenever their nodes change.</p>
+ */
+public class InheritanceIndex {
+    private final LuckPermsPlugin plugin;
+
+    // holder -> the groups it directly inherits from
+    private final Map<PermissionHolderIdentifier, Set<String>> parents = new HashMap<>();
+
+    // group -> the holders which directly inherit from it
+    private final Map<String, Set<PermissionHolderIdentifier>> children = new HashMap<>();
+
+    public InheritanceIndex(LuckPermsPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Updates the groups a holder directly inherits from.
+     *
+     * @param holder the holder
+     * @param parentGroups the names of the groups it inherits from
+     */
+    public synchronized void update(PermissionHolderIdentifier holder, Set<String> parentGroups) {
+        Set<String> existing = this.parents.getOrDefault(holder, Collections.emptySet());
+        if (existing.equals(parentGroups)) {
+            return;
+        }
+
+        for (String group : existing) {
+            if (!parentGroups.contains(group)) {
+                removeChild(group, holder);
+            }
+        }
+        for (String group : parentGroups) {
+            if (!existing.contains(group)) {
+                this.children.computeIfAbsent(group, x -> new HashSet<>()).add(holder);
+            }
+        }
+
+        if (parentGroups.isEmpty()) {
+            this.parents.remove(holder);
+        } else {
+            this.parents.put(holder, ImmutableSet.copyOf(parentGroups));
+        }
+    }
+
+    /**
+     * Removes a holder from the index.
+     *
+     * @param holder the holder
+     */
+    public synchronized void remove(PermissionHolderIdentifier holder) {
+        Set<String> existing = this.parents.remove(holder);
+        if (existing != null) {
+            for (String group : existing) {
+                removeChild(group, holder);
+            }
+        }
+    }
+
+    private void removeChild(String group, PermissionHolderIdentifier holder) {
+        Set<PermissionHolderIdentifier> holders = this.children.get(group);
+        if (holders != null && holders.remove(holder) && holders.isEmpty()) {
+            this.children.remove(group);
+        }
+    }
+
+    /**
+     * Gets the holders which directly or transitively inherit from any of the given groups.
+     *
+     * <p>The given groups themselves are not included, unless they inherit from
+     * one another.</p>
+     *
+     * @param groups the group names
+     * @return the dependant holders
+     */
+    public synchronized Set<PermissionHolderIdentifier> getDependants(Collection<String> groups) {
+        Set<PermissionHolderIdentifier> dependants = new HashSet<>();
+        Set<String> visited = new HashSet<>(groups);
+        Deque<String> queue = new ArrayDeque<>(groups);
+
+        while (!queue.isEmpty()) {
+            Set<PermissionHolderIdentifier> holders = this.children.get(queue.poll());
+            if (holders == null) {
+                continue;
+            }
+
+            for (PermissionHolderIdentifier holder : holders) {
+                dependants.add(holder);
+                if (holder.getType().equals(Identifier.GROUP_TYPE) && visited.add(holder.getName())) {
+                    queue.add(holder.getName());
+                }
+            }
+        }
+        return dependants;
+    }
+
+    /**
+     * Invalidates the caches of the loaded groups and users which directly or
+     * transitively inherit from any of the given groups.
+     *
+     * @param groups the names of the groups which have changed
+     */
+    public void invalidateDependants(Collection<String> groups) {
+        for (PermissionHolderIdentifier identifier : getDependants(groups)) {
+            PermissionHolder holder = identifier.getIfLoaded(this.plugin);
+            if (holder != null) {
+                holder.getCachedData().invalidate();
+            }
+        }
+    }
+}
@@ -1635,6 +1635,17 @@ public interface Message {
                                     .append(text(size, GREEN))
                             ));
                         }
+
+                        if (storageMeta.pendingSaves() != null) {
+                            builder.append(newline());
+                            builder.append(prefixed(text()
+                                    .color(DARK_AQUA)
+                                    .append(text("     "))
+                                    .append(translatable("luckperms.command.info.storage.meta.pending-saves-key"))
+                                    .append(text(": "))
+                                    .append(text(storageMeta.pendingSaves(), GREEN))
+                            ));
+                        }
                     })),
             prefixed(text()
                     .color(AQUA)
@@ -3849,10 +3860,7 @@ public interface Message {
             .append(text()
                     .color(GRAY)
                     .append(OPEN_BRACKET)
-                    .append(translatable()
-                            .key("luckperms.command.misc.page")
-                            .args(text(page, WHITE), text(totalPages, WHITE))
-                    )
+                    .append(formatLogPage(page, totalPages))
                     .append(CLOSE_BRACKET)
             )
     );
@@ -3865,10 +3873,7 @@ public interface Message {
             .append(text()
                     .color(GRAY)
                     .append(OPEN_BRACKET)
-                    .append(translatable()
-                            .key("luckperms.command.misc.page")
-                            .args(text(page, WHITE), text(totalPages, WHITE))
-                    )
+                    .append(formatLogPage(page, totalPages))
                     .append(CLOSE_BRACKET)
             )
     );
@@ -3884,10 +3889,7 @@ public interface Message {
             .append(text()
                     .color(GRAY)
                     .append(OPEN_BRACKET)
-                    .append(translatable()
-                            .key("luckperms.command.misc.page")
-                            .args(text(page, WHITE), text(totalPages, WHITE))
-                    )
+                    .append(formatLogPage(page, totalPages))
                     .append(CLOSE_BRACKET)
             )
     );
@@ -3903,10 +3905,7 @@ public interface Message {
             .append(text()
                     .color(GRAY)
                     .append(OPEN_BRACKET)
-                    .append(translatable()
-                            .key("luckperms.command.misc.page")
-                            .args(text(page, WHITE), text(totalPages, WHITE))
-                    )
+                    .append(formatLogPage(page, totalPages))
                     .append(CLOSE_BRACKET)
             )
     );
@@ -3922,10 +3921,7 @@ public interface Message {
             .append(text()
                     .color(GRAY)
                     .append(OPEN_BRACKET)
-                    .append(translatable()
-                            .key("luckperms.command.misc.page")
-                            .args(text(page, WHITE), text(totalPages, WHITE))
-                    )
+                    .append(formatLogPage(page, totalPages))
                     .append(CLOSE_BRACKET)
             )
     );
@@ -3941,10 +3937,7 @@ public interface Message {
             .append(text()
                     .color(GRAY)
                     .append(OPEN_BRACKET)
-                    .append(translatable()
-                            .key("luckperms.command.misc.page")
-                            .args(text(page, WHITE), text(totalPages, WHITE))
-                    )
+                    .append(formatLogPage(page, totalPages))
                     .append(CLOSE_BRACKET)
             )
     );
@@ -4260,7 +4253,21 @@ public interface Message {
         return builder.build();
     }
 
-    static Component formatTrackPath(Collection<String> groups)  {
+    static Component formatLogPage(int page, int totalPages) {
+        if (totalPages < 0) {
+            // the number of pages wasn't counted
+            return translatable()
+                    .key("luckperms.command.misc.page-no-total")
+                    .args(text(page, WHITE))
+                    .build();
+        }
+        return translatable()
+                .key("luckperms.command.misc.page")
+                .args(text(page, WHITE), text(totalPages, WHITE))
+                .build();
+    }
+
+        static Component formatTrackPath(Collection<String> groups)  {
         Iterator<String> it = groups.iterator();
         if (!it.hasNext()) {
             return translatable("luckperms.command.track.path.empty", GOLD); // "&6None"
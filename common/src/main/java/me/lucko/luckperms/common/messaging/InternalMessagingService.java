@@ -26,10 +26,15 @@
 package me.lucko.luckperms.common.messaging;
 
 import me.lucko.luckperms.common.cache.BufferedRequest;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.Track;
 import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.util.Difference;
 import net.luckperms.api.actionlog.Action;
 import net.luckperms.api.messenger.Messenger;
 import net.luckperms.api.messenger.MessengerProvider;
+import net.luckperms.api.node.Node;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 public interface InternalMessagingService {
 
@@ -69,6 +74,24 @@ public interface InternalMessagingService {
      */
     void pushUserUpdate(User user);
 
+    /**
+     * Pushes an update for a specific group.
+     *
+     * <p>If the changes are included, receivers can apply them directly instead of
+     * reloading the group from storage.</p>
+     *
+     * @param group the group
+     * @param changes the changes made to the group's nodes, or null if not known
+     */
+    void pushGroupUpdate(Group group, @Nullable Difference<Node> changes);
+
+    /**
+     * Pushes an update for a specific track.
+     *
+     * @param track the track
+     */
+    void pushTrackUpdate(Track track);
+
     /**
      * Pushes a log entry to connected servers.
      *
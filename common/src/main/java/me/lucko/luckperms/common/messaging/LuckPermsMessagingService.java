@@ -30,12 +30,19 @@ import com.google.gson.JsonObject;
 import me.lucko.luckperms.common.actionlog.LoggedAction;
 import me.lucko.luckperms.common.cache.BufferedRequest;
 import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.messaging.message.AbstractMessage;
 import me.lucko.luckperms.common.messaging.message.ActionLogMessageImpl;
+import me.lucko.luckperms.common.messaging.message.BatchMessageImpl;
 import me.lucko.luckperms.common.messaging.message.CustomMessageImpl;
+import me.lucko.luckperms.common.messaging.message.GroupUpdateMessageImpl;
+import me.lucko.luckperms.common.messaging.message.TrackUpdateMessageImpl;
 import me.lucko.luckperms.common.messaging.message.UpdateMessageImpl;
 import me.lucko.luckperms.common.messaging.message.UserUpdateMessageImpl;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.Track;
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.util.Difference;
 import me.lucko.luckperms.common.util.ExpiringSet;
 import me.lucko.luckperms.common.util.gson.GsonProvider;
 import me.lucko.luckperms.common.util.gson.JObject;
@@ -49,17 +56,31 @@ import net.luckperms.api.messenger.message.type.ActionLogMessage;
 import net.luckperms.api.messenger.message.type.CustomMessage;
 import net.luckperms.api.messenger.message.type.UpdateMessage;
 import net.luckperms.api.messenger.message.type.UserUpdateMessage;
+import net.luckperms.api.node.Node;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 
 public class LuckPermsMessagingService implements InternalMessagingService, IncomingMessageConsumer {
+
+    /**
+     * The maximum number of changed nodes to include in a group update message.
+     * Larger changes are sent without the nodes, and receivers reload the group from storage.
+     */
+    static final int MAX_GROUP_UPDATE_CHANGES = 100;
+
     private final LuckPermsPlugin plugin;
     private final ExpiringSet<UUID> receivedMessages;
     private final PushUpdateBuffer updateBuffer;
+    private final @Nullable OutgoingMessageBatcher batcher;
 
     private final MessengerProvider messengerProvider;
     private final Messenger messenger;
@@ -73,6 +94,11 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
 
         this.receivedMessages = new ExpiringSet<>(5, TimeUnit.MINUTES);
         this.updateBuffer = new PushUpdateBuffer(plugin);
+
+        int batchWindow = plugin.getConfiguration().get(ConfigKeys.MESSAGING_BATCH_WINDOW);
+        this.batcher = batchWindow > 0
+                ? new OutgoingMessageBatcher(plugin.getBootstrap().getScheduler(), batchWindow, this::sendBatch)
+                : null;
     }
 
     @Override
@@ -92,6 +118,9 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
 
     @Override
     public void close() {
+        if (this.batcher != null) {
+            this.batcher.flush();
+        }
         this.messenger.close();
     }
 
@@ -101,9 +130,30 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
     }
 
     private UUID generatePingId() {
-        UUID uuid = UUID.randomUUID();
-        this.receivedMessages.add(uuid);
-        return uuid;
+        return UUID.randomUUID();
+    }
+
+    private void send(AbstractMessage message) {
+        if (this.batcher != null) {
+            this.batcher.enqueue(message);
+        } else {
+            this.receivedMessages.add(message.getId());
+            this.messenger.sendOutgoingMessage(message);
+        }
+    }
+
+    private void sendBatch(List<AbstractMessage> messages) {
+        AbstractMessage message;
+        if (messages.size() == 1) {
+            message = messages.get(0);
+        } else {
+            message = new BatchMessageImpl(generatePingId(), messages);
+            this.plugin.getLogger().info("[Messaging] Sending batch of " + messages.size() + " messages with id: " + message.getId());
+        }
+
+        // only the id of the message actually sent needs to be remembered
+        this.receivedMessages.add(message.getId());
+        this.messenger.sendOutgoingMessage(message);
     }
 
     @Override
@@ -111,7 +161,7 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
         this.plugin.getBootstrap().getScheduler().executeAsync(() -> {
             UUID requestId = generatePingId();
             this.plugin.getLogger().info("[Messaging] Sending ping with id: " + requestId);
-            this.messenger.sendOutgoingMessage(new UpdateMessageImpl(requestId));
+            send(new UpdateMessageImpl(requestId));
         });
     }
 
@@ -120,7 +170,41 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
         this.plugin.getBootstrap().getScheduler().executeAsync(() -> {
             UUID requestId = generatePingId();
             this.plugin.getLogger().info("[Messaging] Sending user ping for '" + user.getPlainDisplayName() + "' with id: " + requestId);
-            this.messenger.sendOutgoingMessage(new UserUpdateMessageImpl(requestId, user.getUniqueId()));
+            send(new UserUpdateMessageImpl(requestId, user.getUniqueId()));
+        });
+    }
+
+    @Override
+    public void pushGroupUpdate(Group group, @Nullable Difference<Node> changes) {
+        Difference<Node> included = changes != null && changes.getChanges().size() <= MAX_GROUP_UPDATE_CHANGES ? changes : null;
+
+        // hash the nodes before & after the changes, so receivers can tell if the changes apply to their copy of the group
+        long hash = 0;
+        long baseHash = 0;
+        if (included != null) {
+            Set<Node> nodes = group.normalData().asSet();
+            hash = GroupUpdateMessageImpl.hashNodes(nodes);
+            nodes.removeAll(included.getAdded());
+            nodes.addAll(included.getRemoved());
+            baseHash = GroupUpdateMessageImpl.hashNodes(nodes);
+        }
+
+        long finalHash = hash;
+        long finalBaseHash = baseHash;
+        this.plugin.getBootstrap().getScheduler().executeAsync(() -> {
+            UUID requestId = generatePingId();
+            this.plugin.getLogger().info("[Messaging] Sending group ping for '" + group.getName() + "' with id: " + requestId);
+            send(new GroupUpdateMessageImpl(requestId, group.getName(), included, finalBaseHash, finalHash));
+        });
+    }
+
+    @Override
+    public void pushTrackUpdate(Track track) {
+        List<String> groups = track.getGroups();
+        this.plugin.getBootstrap().getScheduler().executeAsync(() -> {
+            UUID requestId = generatePingId();
+            this.plugin.getLogger().info("[Messaging] Sending track ping for '" + track.getName() + "' with id: " + requestId);
+            send(new TrackUpdateMessageImpl(requestId, track.getName(), groups));
         });
     }
 
@@ -134,7 +218,7 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
             }
 
             this.plugin.getLogger().info("[Messaging] Sending log with id: " + requestId);
-            this.messenger.sendOutgoingMessage(new ActionLogMessageImpl(requestId, logEntry));
+            send(new ActionLogMessageImpl(requestId, logEntry));
         });
     }
 
@@ -142,7 +226,7 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
     public void pushCustomPayload(String channelId, String payload) {
         this.plugin.getBootstrap().getScheduler().executeAsync(() -> {
             UUID requestId = generatePingId();
-            this.messenger.sendOutgoingMessage(new CustomMessageImpl(requestId, channelId, payload));
+            send(new CustomMessageImpl(requestId, channelId, payload));
         });
     }
 
@@ -155,7 +239,8 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
         }
 
         // determine if the message can be handled by us
-        boolean valid = message instanceof UpdateMessage ||
+        boolean valid = message instanceof BatchMessageImpl ||
+                message instanceof UpdateMessage ||
                 message instanceof UserUpdateMessage ||
                 message instanceof ActionLogMessage ||
                 message instanceof CustomMessage;
@@ -187,54 +272,62 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
         JsonObject json = parsed.getAsJsonObject();
 
         // extract id
-        JsonElement idElement = json.get("id");
-        if (idElement == null) {
-            throw new IllegalStateException("Incoming message has no id argument: " + encodedString);
-        }
-        UUID id = UUID.fromString(idElement.getAsString());
+        UUID id = decodeId(json);
 
         // ensure the message hasn't been received already
         if (!this.receivedMessages.add(id)) {
             return false;
         }
 
+        // decode message
+        Message decoded = decodeMessage(json, id);
+        if (decoded == null) {
+            // gracefully return if we just don't recognise the type
+            return false;
+        }
+
+        // consume the message
+        processIncomingMessage(decoded);
+        return true;
+    }
+
+    private static UUID decodeId(JsonObject json) {
+        JsonElement idElement = json.get("id");
+        if (idElement == null) {
+            throw new IllegalStateException("Incoming message has no id argument: " + json);
+        }
+        return UUID.fromString(idElement.getAsString());
+    }
+
+    private static @Nullable Message decodeMessage(JsonObject json, UUID id) {
         // extract type
         JsonElement typeElement = json.get("type");
         if (typeElement == null) {
-            throw new IllegalStateException("Incoming message has no type argument: " + encodedString);
+            throw new IllegalStateException("Incoming message has no type argument: " + json);
         }
         String type = typeElement.getAsString();
 
         // extract content
         @Nullable JsonElement content = json.get("content");
 
-        // decode message
-        Message decoded;
         switch (type) {
             case UpdateMessageImpl.TYPE:
-                decoded = UpdateMessageImpl.decode(content, id);
-                break;
+                return UpdateMessageImpl.decode(content, id);
             case UserUpdateMessageImpl.TYPE:
-                decoded = UserUpdateMessageImpl.decode(content, id);
-                break;
+                return UserUpdateMessageImpl.decode(content, id);
             case ActionLogMessageImpl.TYPE:
-                decoded = ActionLogMessageImpl.decode(content, id);
-                break;
+                return ActionLogMessageImpl.decode(content, id);
             case CustomMessageImpl.TYPE:
-                decoded = CustomMessageImpl.decode(content, id);
-                break;
+                return CustomMessageImpl.decode(content, id);
+            case BatchMessageImpl.TYPE:
+                return BatchMessageImpl.decode(content, id, message -> decodeMessage(message, decodeId(message)));
             default:
-                // gracefully return if we just don't recognise the type
-                return false;
+                return null;
         }
-
-        // consume the message
-        processIncomingMessage(decoded);
-        return true;
     }
 
-    public static String encodeMessageAsString(String type, UUID id, @Nullable JsonElement content) {
-        JsonObject json = new JObject()
+    public static JsonObject encodeMessageAsJson(String type, UUID id, @Nullable JsonElement content) {
+        return new JObject()
                 .add("id", id.toString())
                 .add("type", type)
                 .consume(o -> {
@@ -243,12 +336,42 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
                     }
                 })
                 .toJson();
-
-        return GsonProvider.normal().toJson(json);
     }
 
     private void processIncomingMessage(Message message) {
-        if (message instanceof UpdateMessage) {
+        if (message instanceof BatchMessageImpl) {
+            BatchMessageImpl msg = (BatchMessageImpl) message;
+
+            this.plugin.getLogger().info("[Messaging] Received batch of " + msg.getMessages().size() + " messages with id: " + msg.getId());
+            for (Message m : msg.getMessages()) {
+                processIncomingMessage(m);
+            }
+
+        } else if (message instanceof GroupUpdateMessageImpl) {
+            GroupUpdateMessageImpl msg = (GroupUpdateMessageImpl) message;
+            UUID msgId = msg.getId();
+
+            if (this.plugin.getEventDispatcher().dispatchNetworkPreSync(false, msgId, SyncType.FULL, null)) {
+                return;
+            }
+
+            this.plugin.getLogger().info("[Messaging] Received group update ping for '" + msg.getGroupName() + "' with id: " + msgId);
+            CompletableFuture.runAsync(() -> applyGroupUpdate(msg), this.plugin.getBootstrap().getScheduler().async())
+                    .thenRunAsync(() -> this.plugin.getEventDispatcher().dispatchNetworkPostSync(msgId, SyncType.FULL, true, null));
+
+        } else if (message instanceof TrackUpdateMessageImpl) {
+            TrackUpdateMessageImpl msg = (TrackUpdateMessageImpl) message;
+            UUID msgId = msg.getId();
+
+            if (this.plugin.getEventDispatcher().dispatchNetworkPreSync(false, msgId, SyncType.FULL, null)) {
+                return;
+            }
+
+            this.plugin.getLogger().info("[Messaging] Received track update ping for '" + msg.getTrackName() + "' with id: " + msgId);
+            this.plugin.getTrackManager().getOrMake(msg.getTrackName()).setGroups(msg.getGroups());
+            this.plugin.getEventDispatcher().dispatchNetworkPostSync(msgId, SyncType.FULL, true, null);
+
+        } else if (message instanceof UpdateMessage) {
             UpdateMessage msg = (UpdateMessage) message;
             UUID msgId = msg.getId();
 
@@ -295,6 +418,61 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
         }
     }
 
+    private void applyGroupUpdate(GroupUpdateMessageImpl msg) {
+        Difference<Node> changes = msg.getChanges();
+        boolean applied = false;
+
+        if (changes != null) {
+            // deltas for the same group are applied one at a time, and not while the group is
+            // being loaded from storage, so that the hash check and the update happen atomically
+            Lock lock = this.plugin.getGroupManager().getUpdateLock(msg.getGroupName());
+            lock.lock();
+            try {
+                Group group = this.plugin.getGroupManager().getIfLoaded(msg.getGroupName());
+                applied = group != null && applyGroupChanges(group, changes, msg.getBaseHash(), msg.getHash());
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        if (!applied) {
+            // we don't have the group or the changes, or our copy of the group doesn't match
+            // the one the changes were made to, so load it from storage
+            if (!this.plugin.getStorage().loadGroup(msg.getGroupName()).join().isPresent()) {
+                this.plugin.getGroupManager().unload(msg.getGroupName());
+            }
+        }
+
+        this.plugin.getInheritanceIndex().invalidateDependants(Collections.singleton(msg.getGroupName()));
+    }
+
+    /**
+     * Applies the changes from a group update message to the data we already have.
+     *
+     * @return true if the group is now up to date, false if it needs to be loaded from storage
+     */
+    private static boolean applyGroupChanges(Group group, Difference<Node> changes, long baseHash, long hash) {
+        Set<Node> nodes = group.normalData().asSet();
+        long currentHash = GroupUpdateMessageImpl.hashNodes(nodes);
+        if (currentHash == hash) {
+            // already up to date, e.g. the message was received twice
+            return true;
+        }
+        if (currentHash != baseHash) {
+            // an earlier update was missed, or the updates arrived out of order
+            return false;
+        }
+
+        nodes.removeAll(changes.getRemoved());
+        nodes.addAll(changes.getAdded());
+        if (GroupUpdateMessageImpl.hashNodes(nodes) != hash) {
+            return false;
+        }
+
+        group.loadNodesFromStorage(nodes);
+        return true;
+    }
+
     private final class PushUpdateBuffer extends BufferedRequest<Void> {
         PushUpdateBuffer(LuckPermsPlugin plugin) {
             super(2, TimeUnit.SECONDS, plugin.getBootstrap().getScheduler());
@@ -0,0 +1,147 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.messaging;
+
+import me.lucko.luckperms.common.messaging.message.AbstractMessage;
+import me.lucko.luckperms.common.messaging.message.GroupUpdateMessageImpl;
+import me.lucko.luckperms.common.messaging.message.TrackUpdateMessageImpl;
+import me.lucko.luckperms.common.messaging.message.UpdateMessageImpl;
+import me.lucko.luckperms.common.messaging.message.UserUpdateMessageImpl;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
+import me.lucko.luckperms.common.util.Difference;
+import net.luckperms.api.node.Node;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Collects outgoing messages over a short window, so they can be coalesced
+ * and sent together.
+ */
+final class OutgoingMessageBatcher {
+    private final SchedulerAdapter scheduler;
+    private final long windowMillis;
+    private final Consumer<List<AbstractMessage>> sender;
+
+    private final Object lock = new Object();
+    private List<AbstractMessage> pending = new ArrayList<>();
+    private boolean flushScheduled = false;
+
+    OutgoingMessageBatcher(SchedulerAdapter scheduler, long windowMillis, Consumer<List<AbstractMessage>> sender) {
+        this.scheduler = scheduler;
+        this.windowMillis = windowMillis;
+        this.sender = sender;
+    }
+
+    public void enqueue(AbstractMessage message) {
+        synchronized (this.lock) {
+            this.pending.add(message);
+            if (this.flushScheduled) {
+                return;
+            }
+            this.flushScheduled = true;
+        }
+        this.scheduler.asyncLater(this::flush, this.windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void flush() {
+        List<AbstractMessage> messages;
+        synchronized (this.lock) {
+            messages = this.pending;
+            this.pending = new ArrayList<>();
+            this.flushScheduled = false;
+        }
+
+        if (!messages.isEmpty()) {
+            this.sender.accept(coalesce(messages));
+        }
+    }
+
+    /**
+     * Removes messages which are made redundant by others in the same batch.
+     *
+     * <p>A full update makes all user, group and track updates redundant. Otherwise,
+     * updates for the same user, group or track are merged into one, kept at the
+     * position of the first. Other messages are always kept.</p>
+     *
+     * @param messages the messages
+     * @return the coalesced messages
+     */
+    static List<AbstractMessage> coalesce(List<AbstractMessage> messages) {
+        boolean fullUpdate = false;
+        for (AbstractMessage message : messages) {
+            if (message.getClass() == UpdateMessageImpl.class) {
+                fullUpdate = true;
+                break;
+            }
+        }
+
+        // keyed by the type & subject of the update, in order of first appearance
+        Map<Object, AbstractMessage> coalesced = new LinkedHashMap<>();
+        for (AbstractMessage message : messages) {
+            if (message instanceof UserUpdateMessageImpl) {
+                if (!fullUpdate) {
+                    coalesced.putIfAbsent("user:" + ((UserUpdateMessageImpl) message).getUserUniqueId(), message);
+                }
+            } else if (message instanceof GroupUpdateMessageImpl) {
+                if (!fullUpdate) {
+                    GroupUpdateMessageImpl msg = (GroupUpdateMessageImpl) message;
+                    coalesced.merge("group:" + msg.getGroupName(), msg, (a, b) -> mergeGroupUpdates((GroupUpdateMessageImpl) a, (GroupUpdateMessageImpl) b));
+                }
+            } else if (message instanceof TrackUpdateMessageImpl) {
+                if (!fullUpdate) {
+                    // the latest message has the current groups
+                    TrackUpdateMessageImpl msg = (TrackUpdateMessageImpl) message;
+                    coalesced.merge("track:" + msg.getTrackName(), msg, (a, b) -> b);
+                }
+            } else if (message.getClass() == UpdateMessageImpl.class) {
+                coalesced.putIfAbsent(UpdateMessageImpl.TYPE, message);
+            } else {
+                coalesced.put(message, message);
+            }
+        }
+
+        return new ArrayList<>(coalesced.values());
+    }
+
+    private static GroupUpdateMessageImpl mergeGroupUpdates(GroupUpdateMessageImpl first, GroupUpdateMessageImpl second) {
+        // the changes can only be combined if the second update was made on top of the first
+        if (first.getChanges() == null || second.getChanges() == null || first.getHash() != second.getBaseHash()) {
+            return new GroupUpdateMessageImpl(first.getId(), first.getGroupName());
+        }
+
+        Difference<Node> changes = new Difference<Node>().mergeFrom(first.getChanges()).mergeFrom(second.getChanges());
+        if (changes.getChanges().size() > LuckPermsMessagingService.MAX_GROUP_UPDATE_CHANGES) {
+            return new GroupUpdateMessageImpl(first.getId(), first.getGroupName());
+        }
+        return new GroupUpdateMessageImpl(first.getId(), first.getGroupName(), changes, first.getBaseHash(), second.getHash());
+    }
+
+}
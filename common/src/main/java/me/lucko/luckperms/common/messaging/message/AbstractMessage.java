@@ -25,6 +25,8 @@
 
 package me.lucko.luckperms.common.messaging.message;
 
+import com.google.gson.JsonObject;
+import me.lucko.luckperms.common.util.gson.GsonProvider;
 import net.luckperms.api.messenger.message.Message;
 import net.luckperms.api.messenger.message.OutgoingMessage;
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -43,4 +45,16 @@ public abstract class AbstractMessage implements Message, OutgoingMessage {
         return this.id;
     }
 
+    /**
+     * Encodes this message as a JSON object.
+     *
+     * @return the encoded message
+     */
+    public abstract @NonNull JsonObject asJsonObject();
+
+    @Override
+    public @NonNull String asEncodedString() {
+        return GsonProvider.normal().toJson(asJsonObject());
+    }
+
 }
@@ -26,6 +26,7 @@
 package me.lucko.luckperms.common.messaging.message;
 
 import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import me.lucko.luckperms.common.actionlog.ActionJsonSerializer;
 import me.lucko.luckperms.common.messaging.LuckPermsMessagingService;
 import net.luckperms.api.actionlog.Action;
@@ -59,8 +60,8 @@ public class ActionLogMessageImpl extends AbstractMessage implements ActionLogMe
     }
 
     @Override
-    public @NonNull String asEncodedString() {
-        return LuckPermsMessagingService.encodeMessageAsString(
+    public @NonNull JsonObject asJsonObject() {
+        return LuckPermsMessagingService.encodeMessageAsJson(
                 TYPE, getId(), ActionJsonSerializer.serialize(this.logEntry)
         );
     }
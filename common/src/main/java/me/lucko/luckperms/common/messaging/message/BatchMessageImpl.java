@@ -0,0 +1,141 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.messaging.message;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import me.lucko.luckperms.common.messaging.LuckPermsMessagingService;
+import me.lucko.luckperms.common.util.gson.GsonProvider;
+import me.lucko.luckperms.common.util.gson.JObject;
+import net.luckperms.api.messenger.message.Message;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A message which contains a number of other messages, sent together as a single frame.
+ *
+ * <p>Large batches are compressed with gzip, and sent as a base64 string.</p>
+ */
+public class BatchMessageImpl extends AbstractMessage {
+    public static final String TYPE = "batch";
+
+    /**
+     * The encoded size (in chars) above which the batched messages are compressed
+     */
+    private static final int COMPRESSION_THRESHOLD = 1024;
+
+    public static BatchMessageImpl decode(@Nullable JsonElement content, UUID id, Function<JsonObject, @Nullable Message> decoder) {
+        if (content == null) {
+            throw new IllegalStateException("Missing content");
+        }
+
+        JsonObject object = content.getAsJsonObject();
+        JsonArray messages;
+        if (object.has("compressed")) {
+            messages = decompress(object.get("compressed").getAsString());
+        } else if (object.has("messages")) {
+            messages = object.getAsJsonArray("messages");
+        } else {
+            throw new IllegalStateException("Incoming message has no messages argument: " + content);
+        }
+
+        ImmutableList.Builder<Message> decoded = ImmutableList.builder();
+        for (JsonElement message : messages) {
+            Message m = decoder.apply(message.getAsJsonObject());
+            // skip messages we don't recognise
+            if (m != null) {
+                decoded.add(m);
+            }
+        }
+        return new BatchMessageImpl(id, decoded.build());
+    }
+
+    private final List<Message> messages;
+
+    public BatchMessageImpl(UUID id, List<? extends Message> messages) {
+        super(id);
+        this.messages = ImmutableList.copyOf(messages);
+    }
+
+    public List<Message> getMessages() {
+        return this.messages;
+    }
+
+    @Override
+    public @NonNull JsonObject asJsonObject() {
+        JsonArray messages = new JsonArray();
+        for (Message message : this.messages) {
+            messages.add(((AbstractMessage) message).asJsonObject());
+        }
+
+        String messagesString = GsonProvider.normal().toJson(messages);
+        JsonElement content;
+        if (messagesString.length() > COMPRESSION_THRESHOLD) {
+            content = new JObject().add("compressed", compress(messagesString)).toJson();
+        } else {
+            content = new JObject().add("messages", messages).toJson();
+        }
+
+        return LuckPermsMessagingService.encodeMessageAsJson(TYPE, getId(), content);
+    }
+
+    private static String compress(String json) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length() / 4);
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(bytes), StandardCharsets.UTF_8)) {
+            writer.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    private static JsonArray decompress(String data) {
+        byte[] bytes = Base64.getDecoder().decode(data);
+        try (Reader reader = new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(bytes)), StandardCharsets.UTF_8)) {
+            return GsonProvider.normal().fromJson(reader, JsonArray.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
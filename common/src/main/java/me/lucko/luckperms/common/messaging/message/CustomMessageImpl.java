@@ -77,8 +77,8 @@ public class CustomMessageImpl extends AbstractMessage implements CustomMessage
     }
 
     @Override
-    public @NonNull String asEncodedString() {
-        return LuckPermsMessagingService.encodeMessageAsString(
+    public @NonNull JsonObject asJsonObject() {
+        return LuckPermsMessagingService.encodeMessageAsJson(
                 TYPE, getId(), new JObject().add("channelId", this.channelId).add("payload", this.payload).toJson()
         );
     }
@@ -0,0 +1,173 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.messaging.message;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import me.lucko.luckperms.common.messaging.LuckPermsMessagingService;
+import me.lucko.luckperms.common.node.utils.NodeJsonSerializer;
+import me.lucko.luckperms.common.util.Difference;
+import me.lucko.luckperms.common.util.gson.JObject;
+import net.luckperms.api.context.Context;
+import net.luckperms.api.node.Node;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * An {@link UpdateMessageImpl} which names the group that changed, and optionally
+ * includes the nodes which were added and removed.
+ *
+ * <p>The message is encoded with the same type as a normal update message, so
+ * receivers which don't understand the extra content fall back to a full sync.</p>
+ *
+ * <p>Messages may be lost, duplicated or delivered out of order, so included changes
+ * are accompanied by a hash of the group's nodes before and after they were made.
+ * Receivers only apply the changes on top of a matching base state.</p>
+ */
+public class GroupUpdateMessageImpl extends UpdateMessageImpl {
+    static final String GROUP_KEY = "group";
+
+    static GroupUpdateMessageImpl decode(JsonObject content, UUID id) {
+        String groupName = content.get(GROUP_KEY).getAsString();
+
+        Difference<Node> changes = null;
+        long baseHash = 0;
+        long hash = 0;
+        if (content.has("added") && content.has("removed") && content.has("baseHash") && content.has("hash")) {
+            changes = new Difference<>();
+            changes.recordChanges(Difference.ChangeType.ADD, NodeJsonSerializer.deserializeNodes(content.getAsJsonArray("added")));
+            changes.recordChanges(Difference.ChangeType.REMOVE, NodeJsonSerializer.deserializeNodes(content.getAsJsonArray("removed")));
+            baseHash = content.get("baseHash").getAsLong();
+            hash = content.get("hash").getAsLong();
+        }
+
+        return new GroupUpdateMessageImpl(id, groupName, changes, baseHash, hash);
+    }
+
+    /**
+     * Calculates a hash of the given set of nodes, which is consistent between servers.
+     *
+     * <p>The hash is independent of the iteration order, and ignores node metadata.</p>
+     *
+     * @param nodes the nodes
+     * @return the hash
+     */
+    public static long hashNodes(Iterable<? extends Node> nodes) {
+        long hash = 0;
+        for (Node node : nodes) {
+            hash += hashNode(node);
+        }
+        return hash;
+    }
+
+    private static long hashNode(Node node) {
+        long contexts = 0;
+        for (Context context : node.getContexts()) {
+            contexts += HASH_FUNCTION.hashString(context.getKey() + '=' + context.getValue(), StandardCharsets.UTF_8).asLong();
+        }
+
+        Instant expiry = node.getExpiry();
+        return HASH_FUNCTION.newHasher()
+                .putString(node.getKey(), StandardCharsets.UTF_8)
+                .putBoolean(node.getValue())
+                .putLong(expiry == null ? 0 : expiry.getEpochSecond())
+                .putLong(contexts)
+                .hash().asLong();
+    }
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private final String groupName;
+    private final @Nullable Difference<Node> changes;
+    private final long baseHash;
+    private final long hash;
+
+    public GroupUpdateMessageImpl(UUID id, String groupName) {
+        this(id, groupName, null, 0, 0);
+    }
+
+    public GroupUpdateMessageImpl(UUID id, String groupName, @Nullable Difference<Node> changes, long baseHash, long hash) {
+        super(id);
+        this.groupName = groupName;
+        this.changes = changes;
+        this.baseHash = baseHash;
+        this.hash = hash;
+    }
+
+    public String getGroupName() {
+        return this.groupName;
+    }
+
+    /**
+     * Gets the changes made to the group's nodes, if they were included in the message.
+     *
+     * @return the changes, or null if the group should be reloaded from storage
+     */
+    public @Nullable Difference<Node> getChanges() {
+        return this.changes;
+    }
+
+    /**
+     * Gets the {@link #hashNodes(Iterable) hash} of the group's nodes before the changes were made.
+     *
+     * @return the base hash
+     */
+    public long getBaseHash() {
+        return this.baseHash;
+    }
+
+    /**
+     * Gets the {@link #hashNodes(Iterable) hash} of the group's nodes after the changes were made.
+     *
+     * @return the hash
+     */
+    public long getHash() {
+        return this.hash;
+    }
+
+    @Override
+    public @NonNull JsonObject asJsonObject() {
+        JsonElement content = new JObject()
+                .add(GROUP_KEY, this.groupName)
+                .consume(obj -> {
+                    if (this.changes != null) {
+                        obj.add("added", NodeJsonSerializer.serializeNodes(this.changes.getAdded()));
+                        obj.add("removed", NodeJsonSerializer.serializeNodes(this.changes.getRemoved()));
+                        obj.add("baseHash", this.baseHash);
+                        obj.add("hash", this.hash);
+                    }
+                })
+                .toJson();
+
+        return LuckPermsMessagingService.encodeMessageAsJson(TYPE, getId(), content);
+    }
+}
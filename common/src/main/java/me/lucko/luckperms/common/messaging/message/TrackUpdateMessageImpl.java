@@ -0,0 +1,86 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.messaging.message;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import me.lucko.luckperms.common.messaging.LuckPermsMessagingService;
+import me.lucko.luckperms.common.util.gson.JArray;
+import me.lucko.luckperms.common.util.gson.JObject;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * An {@link UpdateMessageImpl} which names the track that changed, and includes
+ * its new list of groups.
+ *
+ * <p>The message is encoded with the same type as a normal update message, so
+ * receivers which don't understand the extra content fall back to a full sync.</p>
+ */
+public class TrackUpdateMessageImpl extends UpdateMessageImpl {
+    static final String TRACK_KEY = "track";
+
+    static TrackUpdateMessageImpl decode(JsonObject content, UUID id) {
+        String trackName = content.get(TRACK_KEY).getAsString();
+
+        ImmutableList.Builder<String> groups = ImmutableList.builder();
+        for (JsonElement group : content.getAsJsonArray("groups")) {
+            groups.add(group.getAsString());
+        }
+
+        return new TrackUpdateMessageImpl(id, trackName, groups.build());
+    }
+
+    private final String trackName;
+    private final List<String> groups;
+
+    public TrackUpdateMessageImpl(UUID id, String trackName, List<String> groups) {
+        super(id);
+        this.trackName = trackName;
+        this.groups = ImmutableList.copyOf(groups);
+    }
+
+    public String getTrackName() {
+        return this.trackName;
+    }
+
+    public List<String> getGroups() {
+        return this.groups;
+    }
+
+    @Override
+    public @NonNull JsonObject asJsonObject() {
+        JsonElement content = new JObject()
+                .add(TRACK_KEY, this.trackName)
+                .add("groups", new JArray().addAll(this.groups))
+                .toJson();
+
+        return LuckPermsMessagingService.encodeMessageAsJson(TYPE, getId(), content);
+    }
+}
@@ -26,6 +26,7 @@
 package me.lucko.luckperms.common.messaging.message;
 
 import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import me.lucko.luckperms.common.messaging.LuckPermsMessagingService;
 import net.luckperms.api.messenger.message.type.UpdateMessage;
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -37,6 +38,18 @@ public class UpdateMessageImpl extends AbstractMessage implements UpdateMessage
     public static final String TYPE = "update";
 
     public static UpdateMessageImpl decode(@Nullable JsonElement content, UUID id) {
+        // targeted updates are sent as normal update messages with extra content,
+        // so older versions which don't understand the content just do a full sync
+        if (content != null && content.isJsonObject()) {
+            JsonObject object = content.getAsJsonObject();
+            if (object.has(GroupUpdateMessageImpl.GROUP_KEY)) {
+                return GroupUpdateMessageImpl.decode(object, id);
+            }
+            if (object.has(TrackUpdateMessageImpl.TRACK_KEY)) {
+                return TrackUpdateMessageImpl.decode(object, id);
+            }
+        }
+
         return new UpdateMessageImpl(id);
     }
 
@@ -45,7 +58,7 @@ public class UpdateMessageImpl extends AbstractMessage implements UpdateMessage
     }
 
     @Override
-    public @NonNull String asEncodedString() {
-        return LuckPermsMessagingService.encodeMessageAsString(TYPE, getId(), null);
+    public @NonNull JsonObject asJsonObject() {
+        return LuckPermsMessagingService.encodeMessageAsJson(TYPE, getId(), null);
     }
 }
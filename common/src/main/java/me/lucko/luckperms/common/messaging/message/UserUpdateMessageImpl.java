@@ -26,6 +26,7 @@
 package me.lucko.luckperms.common.messaging.message;
 
 import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import me.lucko.luckperms.common.messaging.LuckPermsMessagingService;
 import me.lucko.luckperms.common.util.gson.JObject;
 import net.luckperms.api.messenger.message.type.UserUpdateMessage;
@@ -65,8 +66,8 @@ public class UserUpdateMessageImpl extends AbstractMessage implements UserUpdate
     }
 
     @Override
-    public @NonNull String asEncodedString() {
-        return LuckPermsMessagingService.encodeMessageAsString(
+    public @NonNull JsonObject asJsonObject() {
+        return LuckPermsMessagingService.encodeMessageAsJson(
                 TYPE, getId(), new JObject().add("userUuid", this.userUuid.toString()).toJson()
         );
     }
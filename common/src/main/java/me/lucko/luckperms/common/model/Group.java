@@ -32,8 +32,10 @@ import me.lucko.luckperms.common.cacheddata.result.IntegerResult;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.locale.Message;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.util.Difference;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
+import net.luckperms.api.node.Node;
 import net.luckperms.api.node.NodeType;
 import net.luckperms.api.node.types.DisplayNameNode;
 import net.luckperms.api.node.types.WeightNode;
@@ -81,6 +83,13 @@ public class Group extends PermissionHolder {
         // invalidate our caches
         this.weightCache.invalidate();
         this.displayNameCache.invalidate();
+        getPlugin().getGroupManager().invalidateInheritance();
+    }
+
+    @Override
+    protected void invalidateCache(Difference<Node> changes) {
+        // group changes can affect weight, display name and any inheriting holders
+        invalidateCache();
     }
 
     // name getters
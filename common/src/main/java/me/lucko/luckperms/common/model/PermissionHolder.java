@@ -31,6 +31,7 @@ import me.lucko.luckperms.common.cacheddata.result.IntegerResult;
 import me.lucko.luckperms.common.cacheddata.type.MetaAccumulator;
 import me.lucko.luckperms.common.inheritance.InheritanceComparator;
 import me.lucko.luckperms.common.inheritance.InheritanceGraph;
+import me.lucko.luckperms.common.inheritance.InheritanceIndex;
 import me.lucko.luckperms.common.model.nodemap.NodeMap;
 import me.lucko.luckperms.common.model.nodemap.NodeMapMutable;
 import me.lucko.luckperms.common.model.nodemap.RecordedNodeMap;
@@ -60,10 +61,12 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.OptionalInt;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.function.IntFunction;
@@ -213,6 +216,65 @@ public abstract class PermissionHolder {
     protected void invalidateCache() {
         getCachedData().invalidate();
         getPlugin().getEventDispatcher().dispatchDataRecalculate(this);
+        scheduleTemporaryNodeExpiry();
+        updateInheritanceIndex();
+    }
+
+    protected void invalidateCache(Difference<Node> changes) {
+        getCachedData().applyChanges(changes);
+        getPlugin().getEventDispatcher().dispatchDataRecalculate(this);
+        scheduleTemporaryNodeExpiry(changes.getAdded());
+        for (Difference.Change<Node> change : changes.getChanges()) {
+            if (change.value() instanceof InheritanceNode) {
+                updateInheritanceIndex();
+                break;
+            }
+        }
+    }
+
+    /**
+     * Updates the {@link InheritanceIndex} with the groups this holder directly inherits from.
+     */
+    private void updateInheritanceIndex() {
+        InheritanceIndex index = getPlugin().getInheritanceIndex();
+        if (index == null) {
+            return;
+        }
+
+        Set<String> parents = new HashSet<>();
+        for (InheritanceNode node : this.normalNodes.inheritanceAsList()) {
+            parents.add(node.getGroupName());
+        }
+        for (InheritanceNode node : this.transientNodes.inheritanceAsList()) {
+            parents.add(node.getGroupName());
+        }
+        index.update(this.identifier, parents);
+    }
+
+    /**
+     * Registers the earliest expiry time of the holders temporary nodes
+     * with the {@link TemporaryNodeExpiryQueue}.
+     */
+    public void scheduleTemporaryNodeExpiry() {
+        scheduleTemporaryNodeExpiry(this.normalNodes.asList());
+        scheduleTemporaryNodeExpiry(this.transientNodes.asList());
+    }
+
+    private void scheduleTemporaryNodeExpiry(Iterable<Node> nodes) {
+        long earliest = Long.MAX_VALUE;
+        for (Node node : nodes) {
+            Instant expiry = node.getExpiry();
+            if (expiry != null) {
+                earliest = Math.min(earliest, expiry.toEpochMilli());
+            }
+        }
+
+        if (earliest != Long.MAX_VALUE) {
+            TemporaryNodeExpiryQueue queue = getPlugin().getTemporaryNodeExpiryQueue();
+            if (queue != null) {
+                queue.schedule(this.identifier, earliest);
+            }
+        }
     }
 
     public void loadNodesFromStorage(Iterable<? extends Node> set) {
@@ -224,7 +286,7 @@ public abstract class PermissionHolder {
 
     public Difference<Node> setNodes(DataType type, Iterable<? extends Node> set, boolean callEvent) {
         Difference<Node> res = getData(type).setContent(set);
-        invalidateCache();
+        invalidateCache(res);
         if (callEvent) {
             getPlugin().getEventDispatcher().dispatchNodeChanges(this, type, res);
         }
@@ -233,7 +295,7 @@ public abstract class PermissionHolder {
 
     public Difference<Node> setNodes(DataType type, Difference<Node> changes, boolean callEvent) {
         Difference<Node> res = getData(type).applyChanges(changes);
-        invalidateCache();
+        invalidateCache(res);
         if (callEvent) {
             getPlugin().getEventDispatcher().dispatchNodeChanges(this, type, res);
         }
@@ -407,7 +469,7 @@ public abstract class PermissionHolder {
 
         // accumulate primary group
         if (this instanceof User) {
-            String primaryGroup = ((User) this).getPrimaryGroup().calculateValue(queryOptions);
+            String primaryGroup = ((User) this).getCachedData().getPrimaryGroup(queryOptions);
             accumulator.setPrimaryGroup(primaryGroup);
         }
 
@@ -430,7 +492,7 @@ public abstract class PermissionHolder {
     private boolean auditTemporaryNodes(DataType dataType) {
         Difference<Node> result = getData(dataType).removeIf(Node::hasExpired);
         if (!result.isEmpty()) {
-            invalidateCache();
+            invalidateCache(result);
         }
         this.plugin.getEventDispatcher().dispatchNodeChanges(this, dataType, result);
         return !result.isEmpty();
@@ -463,7 +525,7 @@ public abstract class PermissionHolder {
         }
 
         Difference<Node> changes = getData(dataType).add(node);
-        invalidateCache();
+        invalidateCache(changes);
         if (callEvent) {
             this.plugin.getEventDispatcher().dispatchNodeChanges(this, dataType, changes);
         }
@@ -500,7 +562,7 @@ public abstract class PermissionHolder {
                 if (newNode != null) {
                     // Remove the old Node & add the new one.
                     Difference<Node> changes = data.removeThenAdd(otherMatch, newNode);
-                    invalidateCache();
+                    invalidateCache(changes);
                     this.plugin.getEventDispatcher().dispatchNodeChanges(this, dataType, changes);
 
                     return new MergedNodeResult(DataMutateResult.SUCCESS, newNode);
@@ -518,7 +580,7 @@ public abstract class PermissionHolder {
         }
 
         Difference<Node> changes = getData(dataType).remove(node);
-        invalidateCache();
+        invalidateCache(changes);
         this.plugin.getEventDispatcher().dispatchNodeChanges(this, dataType, changes);
 
         return DataMutateResult.SUCCESS;
@@ -540,7 +602,7 @@ public abstract class PermissionHolder {
 
                     // Remove the old Node & add the new one.
                     Difference<Node> changes = data.removeThenAdd(otherMatch, newNode);
-                    invalidateCache();
+                    invalidateCache(changes);
                     this.plugin.getEventDispatcher().dispatchNodeChanges(this, dataType, changes);
 
                     return new MergedNodeResult(DataMutateResult.SUCCESS, newNode);
@@ -565,10 +627,13 @@ public abstract class PermissionHolder {
         }
 
         if (getType() == HolderType.USER && giveDefault) {
+            // the default group may have been added, which won't be reflected in the changes
             getPlugin().getUserManager().giveDefaultIfNeeded((User) this);
+            invalidateCache();
+        } else {
+            invalidateCache(changes);
         }
 
-        invalidateCache();
         this.plugin.getEventDispatcher().dispatchNodeClear(this, dataType, changes);
         return true;
     }
@@ -25,10 +25,14 @@
 
 package me.lucko.luckperms.common.model;
 
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.util.Uuids;
 import net.luckperms.api.model.PermissionHolder.Identifier;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Objects;
+import java.util.UUID;
 
 public final class PermissionHolderIdentifier implements Identifier {
     private final String type;
@@ -56,6 +60,21 @@ public final class PermissionHolderIdentifier implements Identifier {
         return this.name;
     }
 
+    /**
+     * Gets the holder this identifier refers to, if it is currently loaded.
+     *
+     * @param plugin the plugin instance
+     * @return the holder, or null if it is not loaded
+     */
+    public @Nullable PermissionHolder getIfLoaded(LuckPermsPlugin plugin) {
+        if (this.type.equals(Identifier.GROUP_TYPE)) {
+            return plugin.getGroupManager().getIfLoaded(this.name);
+        }
+
+        UUID uniqueId = Uuids.fromString(this.name);
+        return uniqueId == null ? null : plugin.getUserManager().getIfLoaded(uniqueId);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -25,6 +25,7 @@
 
 package me.lucko.luckperms.common.model;
 
+import me.lucko.luckperms.common.cacheddata.result.IntegerResult;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.inheritance.InheritanceGraph;
 import net.luckperms.api.node.types.InheritanceNode;
@@ -37,7 +38,10 @@ import java.util.Optional;
 import java.util.Set;
 
 /**
- * Calculates and caches a User's "primary group"
+ * Calculates a User's "primary group".
+ *
+ * <p>Calculated values are memoised by the user's cached data, see
+ * {@link me.lucko.luckperms.common.cacheddata.UserCachedDataManager#getPrimaryGroup(QueryOptions)}.</p>
  */
 public interface PrimaryGroupHolder {
 
@@ -87,11 +91,17 @@ public interface PrimaryGroupHolder {
 
         @Override
         public void setStoredValue(String value) {
+            String previous = this.value;
             if (value == null || value.isEmpty()) {
                 this.value = null;
             } else {
                 this.value = value.toLowerCase(Locale.ROOT);
             }
+
+            // the stored value is used as a fallback and to break ties between equally weighted groups
+            if (!Objects.equals(previous, this.value)) {
+                this.user.getCachedData().invalidatePrimaryGroups();
+            }
         }
     }
 
@@ -139,7 +149,8 @@ public interface PrimaryGroupHolder {
             int best = 0;
 
             for (Group g : groups) {
-                int weight = g.getWeight().orElse(0);
+                IntegerResult<?> weightResult = g.getWeightResult();
+                int weight = weightResult.isNull() ? 0 : weightResult.intResult();
                 if (bestGroup == null || weight > best) {
                     bestGroup = g;
                     best = weight;
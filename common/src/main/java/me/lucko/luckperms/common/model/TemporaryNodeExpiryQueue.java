@@ -0,0 +1,113 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * A queue of the times at which holders next have a temporary node expire.
+ *
+ * <p>Holders register the earliest expiry time of their nodes whenever their data changes,
+ * so the expiry task only needs to audit the holders which have nodes due to expire,
+ * rather than every loaded holder.</p>
+ *
+ * <p>Only the earliest expiry time is tracked for each holder. Once a holder has been
+ * audited, it should register its next expiry time (if any) again.</p>
+ */
+public class TemporaryNodeExpiryQueue {
+
+    // entries ordered by expiry time. may contain stale entries, which are skipped when polled
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+
+    // the earliest expiry time currently scheduled for each holder
+    private final Map<PermissionHolderIdentifier, Long> scheduled = new HashMap<>();
+
+    /**
+     * Schedules the holder to be audited at the given time, unless it is already
+     * scheduled to be audited at or before that time.
+     *
+     * @param holder the holder
+     * @param expiry the expiry time, in epoch milliseconds
+     */
+    public synchronized void schedule(PermissionHolderIdentifier holder, long expiry) {
+        Long existing = this.scheduled.get(holder);
+        if (existing != null && existing <= expiry) {
+            return;
+        }
+
+        this.scheduled.put(holder, expiry);
+        this.queue.add(new Entry(holder, expiry));
+    }
+
+    /**
+     * Removes and returns the holders which are due to be audited.
+     *
+     * @param now the current time, in epoch milliseconds
+     * @return the due holders
+     */
+    public synchronized List<PermissionHolderIdentifier> pollDue(long now) {
+        List<PermissionHolderIdentifier> due = new ArrayList<>();
+        while (!this.queue.isEmpty() && this.queue.peek().expiry <= now) {
+            Entry entry = this.queue.poll();
+
+            // skip entries which have since been replaced by an earlier time
+            Long scheduled = this.scheduled.get(entry.holder);
+            if (scheduled != null && scheduled == entry.expiry) {
+                this.scheduled.remove(entry.holder);
+                due.add(entry.holder);
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Gets the number of holders with a scheduled expiry.
+     *
+     * @return the number of holders
+     */
+    public synchronized int size() {
+        return this.scheduled.size();
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private final PermissionHolderIdentifier holder;
+        private final long expiry;
+
+        Entry(PermissionHolderIdentifier holder, long expiry) {
+            this.holder = holder;
+            this.expiry = expiry;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return Long.compare(this.expiry, other.expiry);
+        }
+    }
+}
@@ -25,14 +25,25 @@
 
 package me.lucko.luckperms.common.model.manager.group;
 
+import com.google.common.util.concurrent.Striped;
+import me.lucko.luckperms.common.inheritance.InheritanceIndex;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.manager.AbstractManager;
 
 import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
 
 public abstract class AbstractGroupManager<T extends Group> extends AbstractManager<String, Group, T> implements GroupManager<T> {
 
+    /** The number of update locks shared between all groups */
+    private static final int UPDATE_LOCK_STRIPES = 64;
+
+    private final Striped<Lock> updateLocks = Striped.lock(UPDATE_LOCK_STRIPES);
+
+    private final AtomicLong inheritanceVersion = new AtomicLong();
+
     @Override
     public T getByDisplayName(String name) {
         // try to get an exact match first
@@ -60,6 +71,30 @@ public abstract class AbstractGroupManager<T extends Group> extends AbstractMana
         return null;
     }
 
+    @Override
+    public T getOrMake(String id) {
+        T group = getIfLoaded(id);
+        if (group != null) {
+            return group;
+        }
+
+        group = super.getOrMake(id);
+        invalidateInheritance();
+        return group;
+    }
+
+    @Override
+    public void unload(String id) {
+        T group = id == null ? null : getIfLoaded(id);
+        super.unload(id);
+        invalidateInheritance();
+
+        InheritanceIndex index = group == null ? null : group.getPlugin().getInheritanceIndex();
+        if (index != null) {
+            index.remove(group.getIdentifier());
+        }
+    }
+
     @Override
     protected String sanitizeIdentifier(String s) {
         return s.toLowerCase(Locale.ROOT);
@@ -68,10 +103,26 @@ public abstract class AbstractGroupManager<T extends Group> extends AbstractMana
     @Override
     public void invalidateAllGroupCaches() {
         getAll().values().forEach(g -> g.getCachedData().invalidate());
+        invalidateInheritance();
     }
 
     @Override
     public void invalidateAllPermissionCalculators() {
         getAll().values().forEach(g -> g.getCachedData().invalidatePermissionCalculators());
     }
-}
\ No newline at end of file
+
+    @Override
+    public void invalidateInheritance() {
+        this.inheritanceVersion.incrementAndGet();
+    }
+
+    @Override
+    public long getInheritanceVersion() {
+        return this.inheritanceVersion.get();
+    }
+
+    @Override
+    public Lock getUpdateLock(String name) {
+        return this.updateLocks.get(sanitizeIdentifier(name));
+    }
+}
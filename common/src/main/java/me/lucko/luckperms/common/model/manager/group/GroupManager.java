@@ -26,9 +26,12 @@
 package me.lucko.luckperms.common.model.manager.group;
 
 import me.lucko.luckperms.common.calculator.PermissionCalculator;
+import me.lucko.luckperms.common.inheritance.InheritanceGraph;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.manager.Manager;
 
+import java.util.concurrent.locks.Lock;
+
 public interface GroupManager<T extends Group> extends Manager<String, Group, T> {
 
     /**
@@ -54,4 +57,30 @@ public interface GroupManager<T extends Group> extends Manager<String, Group, T>
      */
     void invalidateAllPermissionCalculators();
 
+    /**
+     * Marks the resolved inheritance of all groups as stale, so that data
+     * memoised by each {@link InheritanceGraph} is resolved again.
+     */
+    void invalidateInheritance();
+
+    /**
+     * Gets a version number which is incremented whenever the inheritance
+     * of any group may have changed.
+     *
+     * @return the inheritance version
+     */
+    long getInheritanceVersion();
+
+    /**
+     * Gets the lock which must be held while reading the current nodes of a group
+     * and replacing them with a new set, so that updates are applied one at a time.
+     *
+     * <p>A fixed number of locks are shared between all groups, so the same lock
+     * may also be returned for other groups.</p>
+     *
+     * @param name the name of the group
+     * @return the lock
+     */
+    Lock getUpdateLock(String name);
+
 }
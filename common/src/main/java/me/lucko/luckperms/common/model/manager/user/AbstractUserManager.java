@@ -27,6 +27,7 @@ package me.lucko.luckperms.common.model.manager.user;
 
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
+import me.lucko.luckperms.common.inheritance.InheritanceIndex;
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.model.manager.AbstractManager;
 import me.lucko.luckperms.common.model.manager.group.GroupManager;
@@ -67,6 +68,17 @@ public abstract class AbstractUserManager<T extends User> extends AbstractManage
         return user;
     }
 
+    @Override
+    public void unload(UUID id) {
+        T user = id == null ? null : getIfLoaded(id);
+        super.unload(id);
+
+        InheritanceIndex index = user == null ? null : this.plugin.getInheritanceIndex();
+        if (index != null) {
+            index.remove(user.getIdentifier());
+        }
+    }
+
     @Override
     public T getByUsername(String name) {
         for (T user : getAll().values()) {
@@ -74,6 +74,15 @@ public class RecordedNodeMap implements NodeMap {
         }
     }
 
+    public Difference<Node> copyChanges() {
+        this.lock.lock();
+        try {
+            return new Difference<Node>().mergeFrom(this.changes);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
     public Difference<Node> exportChanges(Predicate<Difference<Node>> onlyIf) {
         this.lock.lock();
         try {
@@ -61,7 +61,9 @@ public abstract class AbstractNode<N extends ScopedNode<N, B>, B extends NodeBui
     protected final ImmutableContextSet contexts;
     protected final Map<NodeMetadataKey<?>, Object> metadata;
 
-    private final List<String> resolvedShorthand;
+    // lazily calculated, as it is only needed when applying shorthand is enabled.
+    // ImmutableList is safe to publish without synchronization, so at worst it is calculated more than once.
+    private List<String> resolvedShorthand;
 
     // this class is immutable, so we can cache the hashcode calculation
     private final int hashCode;
@@ -71,9 +73,7 @@ public abstract class AbstractNode<N extends ScopedNode<N, B>, B extends NodeBui
         this.value = value;
         this.expireAt = expireAt;
         this.contexts = contexts;
-        this.metadata = ImmutableMap.copyOf(metadata);
-
-        this.resolvedShorthand = this instanceof PermissionNode ? ImmutableList.copyOf(ShorthandParser.expandShorthand(this.key)) : ImmutableList.of();
+        this.metadata = metadata.isEmpty() ? ImmutableMap.of() : ImmutableMap.copyOf(metadata);
 
         this.hashCode = calculateHashCode();
     }
@@ -128,7 +128,12 @@ public abstract class AbstractNode<N extends ScopedNode<N, B>, B extends NodeBui
 
     @Override
     public @NonNull Collection<String> resolveShorthand() {
-        return this.resolvedShorthand;
+        List<String> resolvedShorthand = this.resolvedShorthand;
+        if (resolvedShorthand == null) {
+            resolvedShorthand = this instanceof PermissionNode ? ImmutableList.copyOf(ShorthandParser.expandShorthand(this.key)) : ImmutableList.of();
+            this.resolvedShorthand = resolvedShorthand;
+        }
+        return resolvedShorthand;
     }
 
     @Override
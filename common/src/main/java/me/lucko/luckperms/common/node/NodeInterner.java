@@ -0,0 +1,80 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.node;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import net.luckperms.api.context.ImmutableContextSet;
+import net.luckperms.api.node.Node;
+
+/**
+ * Weakly interns immutable {@link Node}s and {@link ImmutableContextSet}s, so that
+ * identical instances loaded from storage (for example, the same node held by thousands
+ * of users) share a single object.
+ *
+ * <p>Interned instances are only weakly referenced by the pool, so they are collected
+ * once no holder is using them.</p>
+ */
+public final class NodeInterner {
+    private NodeInterner() {}
+
+    private static final Interner<Node> NODES = Interners.newWeakInterner();
+    private static final Interner<ImmutableContextSet> CONTEXTS = Interners.newWeakInterner();
+
+    /**
+     * Gets the shared instance of the given node.
+     *
+     * <p>Nodes with metadata are returned as-is, as metadata is not considered
+     * by {@link Node#equals(Object)}.</p>
+     *
+     * @param node the node
+     * @param <N> the node type
+     * @return the shared instance
+     */
+    @SuppressWarnings("unchecked")
+    public static <N extends Node> N intern(N node) {
+        if (!((AbstractNode<?, ?>) node).metadata.isEmpty()) {
+            return node;
+        }
+
+        // nodes are only equal if their keys (and therefore their types) are equal
+        return (N) NODES.intern(node);
+    }
+
+    /**
+     * Gets the shared instance of the given context set.
+     *
+     * @param contextSet the context set
+     * @return the shared instance
+     */
+    public static ImmutableContextSet intern(ImmutableContextSet contextSet) {
+        if (contextSet.isEmpty()) {
+            return contextSet;
+        }
+        return CONTEXTS.intern(contextSet);
+    }
+
+}
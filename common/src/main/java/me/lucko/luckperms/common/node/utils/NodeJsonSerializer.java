@@ -29,6 +29,7 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import me.lucko.luckperms.common.context.serializer.ContextSetJsonSerializer;
+import me.lucko.luckperms.common.node.NodeInterner;
 import me.lucko.luckperms.common.node.factory.NodeBuilders;
 import net.luckperms.api.node.Node;
 import net.luckperms.api.node.NodeBuilder;
@@ -108,10 +109,10 @@ public class NodeJsonSerializer {
         }
 
         if (attributes.has("context")) {
-            builder.context(ContextSetJsonSerializer.deserialize(attributes.get("context")));
+            builder.context(NodeInterner.intern(ContextSetJsonSerializer.deserialize(attributes.get("context")).immutableCopy()));
         }
 
-        return builder.build();
+        return NodeInterner.intern(builder.build());
     }
 
     public static Set<Node> deserializeNodes(JsonArray arr) {
@@ -46,11 +46,13 @@ import me.lucko.luckperms.common.extension.SimpleExtensionManager;
 import me.lucko.luckperms.common.http.BytebinClient;
 import me.lucko.luckperms.common.http.BytesocksClient;
 import me.lucko.luckperms.common.inheritance.InheritanceGraphFactory;
+import me.lucko.luckperms.common.inheritance.InheritanceIndex;
 import me.lucko.luckperms.common.locale.Message;
 import me.lucko.luckperms.common.locale.TranslationManager;
 import me.lucko.luckperms.common.locale.TranslationRepository;
 import me.lucko.luckperms.common.messaging.InternalMessagingService;
 import me.lucko.luckperms.common.messaging.MessagingFactory;
+import me.lucko.luckperms.common.model.TemporaryNodeExpiryQueue;
 import me.lucko.luckperms.common.plugin.logging.PluginLogger;
 import me.lucko.luckperms.common.plugin.util.HealthCheckResult;
 import me.lucko.luckperms.common.storage.Storage;
@@ -60,6 +62,7 @@ import me.lucko.luckperms.common.storage.implementation.file.watcher.FileWatcher
 import me.lucko.luckperms.common.storage.misc.DataConstraints;
 import me.lucko.luckperms.common.tasks.CacheHousekeepingTask;
 import me.lucko.luckperms.common.tasks.ExpireTemporaryTask;
+import me.lucko.luckperms.common.tasks.PruneActionLogTask;
 import me.lucko.luckperms.common.tasks.SyncTask;
 import me.lucko.luckperms.common.treeview.PermissionRegistry;
 import me.lucko.luckperms.common.verbose.VerboseHandler;
@@ -107,6 +110,8 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
     private Storage storage;
     private InternalMessagingService messagingService = null;
     private SyncTask.Buffer syncTaskBuffer;
+    private final TemporaryNodeExpiryQueue temporaryNodeExpiryQueue = new TemporaryNodeExpiryQueue();
+    private final InheritanceIndex inheritanceIndex = new InheritanceIndex(this);
     private InheritanceGraphFactory inheritanceGraphFactory;
     private CalculatorFactory calculatorFactory;
     private LuckPermsApiProvider apiProvider;
@@ -139,7 +144,6 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
         Message.STARTUP_BANNER.send(getConsoleSender(), getBootstrap());
 
         // load some utilities early
-        this.verboseHandler = new VerboseHandler(getBootstrap().getScheduler());
         this.logDispatcher = new LogDispatcher(this);
 
         // load configuration
@@ -151,6 +155,13 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
                 configFileAdapter
         ));
 
+        // setup the verbose handler
+        this.verboseHandler = new VerboseHandler(
+                getBootstrap().getScheduler(),
+                getConfiguration().get(ConfigKeys.VERBOSE_BUFFER_SIZE),
+                getConfiguration().get(ConfigKeys.VERBOSE_TRACE_DEPTH)
+        );
+
         // setup a bytebin instance
         this.httpClient = new OkHttpClient.Builder()
                 .callTimeout(15, TimeUnit.SECONDS)
@@ -245,7 +256,7 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
         // run an update instantly.
         getLogger().info("Performing initial data load...");
         try {
-            new SyncTask(this).run();
+            this.syncTaskBuffer.requestDirectly();
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -345,6 +356,7 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
     protected void registerHousekeepingTasks() {
         getBootstrap().getScheduler().asyncRepeating(new ExpireTemporaryTask(this), 3, TimeUnit.SECONDS);
         getBootstrap().getScheduler().asyncRepeating(new CacheHousekeepingTask(this), 2, TimeUnit.MINUTES);
+        getBootstrap().getScheduler().asyncRepeating(new PruneActionLogTask(this), 1, TimeUnit.HOURS);
     }
 
     protected abstract void setupSenderFactory();
@@ -418,6 +430,9 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
         if (meta.sizeBytes() != null) {
             map.put("storageSizeBytes", meta.sizeBytes());
         }
+        if (meta.pendingSaves() != null) {
+            map.put("storagePendingSaves", meta.pendingSaves());
+        }
 
         return HealthCheckResult.healthy(map);
     }
@@ -543,6 +558,16 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
         return this.syncTaskBuffer;
     }
 
+    @Override
+    public TemporaryNodeExpiryQueue getTemporaryNodeExpiryQueue() {
+        return this.temporaryNodeExpiryQueue;
+    }
+
+    @Override
+    public InheritanceIndex getInheritanceIndex() {
+        return this.inheritanceIndex;
+    }
+
     @Override
     public InheritanceGraphFactory getInheritanceGraphFactory() {
         return this.inheritanceGraphFactory;
@@ -38,10 +38,12 @@ import me.lucko.luckperms.common.extension.SimpleExtensionManager;
 import me.lucko.luckperms.common.http.BytebinClient;
 import me.lucko.luckperms.common.http.BytesocksClient;
 import me.lucko.luckperms.common.inheritance.InheritanceGraphFactory;
+import me.lucko.luckperms.common.inheritance.InheritanceIndex;
 import me.lucko.luckperms.common.locale.TranslationManager;
 import me.lucko.luckperms.common.locale.TranslationRepository;
 import me.lucko.luckperms.common.messaging.InternalMessagingService;
 import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.TemporaryNodeExpiryQueue;
 import me.lucko.luckperms.common.model.Track;
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.model.manager.group.GroupManager;
@@ -328,6 +330,20 @@ public interface LuckPermsPlugin {
      */
     SyncTask.Buffer getSyncTaskBuffer();
 
+    /**
+     * Gets the queue of upcoming temporary node expiry times.
+     *
+     * @return the expiry queue
+     */
+    TemporaryNodeExpiryQueue getTemporaryNodeExpiryQueue();
+
+    /**
+     * Gets the reverse index of inheritance relationships between holders.
+     *
+     * @return the inheritance index
+     */
+    InheritanceIndex getInheritanceIndex();
+
     /**
      * Called at the end of the sync task.
      */
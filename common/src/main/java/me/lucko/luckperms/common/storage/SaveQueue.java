@@ -0,0 +1,296 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage;
+
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
+import me.lucko.luckperms.common.util.Throwing;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Delays saves for a short window, so repeated saves of the same holder
+ * can be written to storage together.
+ *
+ * <p>Holders track the changes made to their nodes since they were last saved,
+ * so a single save writes the combined result of every change made in the window.</p>
+ *
+ * <p>Each holder is only saved once per flush, and flushes run one at a time,
+ * so saves of the same holder are always written in order.</p>
+ *
+ * <p>A holder's pending save must be {@link #flush(String) flushed} before it is
+ * loaded, and {@link #cancel(String) cancelled} before it is deleted.</p>
+ */
+final class SaveQueue {
+
+    /** The number of pending saves at which the queue is flushed without waiting for the window */
+    static final int MAX_PENDING = 500;
+
+    private final SchedulerAdapter scheduler;
+    private final long windowMillis;
+
+    private final Object lock = new Object();
+    private Map<String, PendingSave> pending = new LinkedHashMap<>();
+    private boolean flushScheduled = false;
+    private boolean flushRequested = false;
+    private boolean shutdown = false;
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    SaveQueue(SchedulerAdapter scheduler, long windowMillis) {
+        this.scheduler = scheduler;
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Queues a save.
+     *
+     * @param key a key identifying the holder being saved
+     * @param holder the holder instance being saved
+     * @param action the action which saves the holder
+     * @return a future which completes once the holder has been saved
+     */
+    public CompletableFuture<Void> save(String key, Object holder, Throwing.Runnable action) {
+        CompletableFuture<Void> future;
+        boolean full;
+        boolean schedule = false;
+
+        synchronized (this.lock) {
+            if (this.shutdown) {
+                return CompletableFuture.runAsync(() -> run(action), this.scheduler.async());
+            }
+
+            PendingSave save = this.pending.computeIfAbsent(key, x -> new PendingSave());
+            save.add(holder, action);
+            future = save.future;
+
+            full = this.pending.size() >= MAX_PENDING;
+            if (!full && !this.flushScheduled) {
+                this.flushScheduled = true;
+                schedule = true;
+            }
+        }
+
+        if (full) {
+            this.scheduler.executeAsync(this::requestFlush);
+        } else if (schedule) {
+            this.scheduler.asyncLater(this::requestFlush, this.windowMillis, TimeUnit.MILLISECONDS);
+        }
+        return future;
+    }
+
+    /**
+     * Gets the number of holders waiting to be saved.
+     *
+     * @return the number of pending saves
+     */
+    public int getPendingCount() {
+        synchronized (this.lock) {
+            return this.pending.size();
+        }
+    }
+
+    /**
+     * Writes all pending saves, and waits for them to complete.
+     */
+    public void flush() {
+        this.flushLock.lock();
+        try {
+            flushPending();
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the pending save for the given key, if there is one, and waits for it to complete.
+     *
+     * <p>If a flush which includes the key is already in progress, waits for that instead.</p>
+     *
+     * @param key the key identifying the holder
+     */
+    public void flush(String key) {
+        complete(key, true);
+    }
+
+    /**
+     * Drops the pending save for the given key, if there is one, without writing it.
+     *
+     * <p>If a flush which includes the key is already in progress, waits for it to complete.</p>
+     *
+     * @param key the key identifying the holder
+     */
+    public void cancel(String key) {
+        complete(key, false);
+    }
+
+    /**
+     * Gets if there is a save waiting to be written for the given key.
+     *
+     * @param key the key identifying the holder
+     * @return true if a save for the key may not have been written yet
+     */
+    public boolean isPending(String key) {
+        synchronized (this.lock) {
+            // a flush in progress may include the key, even though it's no longer in the map
+            return this.pending.containsKey(key) || this.flushLock.isLocked();
+        }
+    }
+
+    private void complete(String key, boolean write) {
+        if (!isPending(key)) {
+            return;
+        }
+
+        this.flushLock.lock();
+        try {
+            PendingSave save;
+            synchronized (this.lock) {
+                save = this.pending.remove(key);
+            }
+            if (save == null) {
+                return;
+            }
+
+            if (write) {
+                save.run();
+            } else {
+                save.cancel();
+            }
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes all pending saves, unless a flush is already in progress,
+     * in which case that flush will run again once it completes.
+     *
+     * <p>This avoids tying up worker threads waiting for the flush lock.</p>
+     */
+    private void requestFlush() {
+        synchronized (this.lock) {
+            this.flushRequested = true;
+        }
+
+        while (this.flushLock.tryLock()) {
+            try {
+                synchronized (this.lock) {
+                    if (!this.flushRequested) {
+                        return;
+                    }
+                    this.flushRequested = false;
+                }
+                flushPending();
+            } finally {
+                this.flushLock.unlock();
+            }
+        }
+    }
+
+    private void flushPending() {
+        Map<String, PendingSave> batch;
+        synchronized (this.lock) {
+            batch = this.pending;
+            this.pending = new LinkedHashMap<>();
+            this.flushScheduled = false;
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // holders appear at most once per batch, so they can be saved in parallel
+        List<CompletableFuture<Void>> futures = new ArrayList<>(batch.size());
+        for (PendingSave save : batch.values()) {
+            futures.add(CompletableFuture.runAsync(save::run, this.scheduler.async()));
+        }
+
+        // wait for this batch to complete before the next can start
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    /**
+     * Flushes all pending saves, and stops queueing new ones.
+     */
+    public void shutdown() {
+        synchronized (this.lock) {
+            this.shutdown = true;
+        }
+        flush();
+    }
+
+    private static void run(Throwing.Runnable action) {
+        try {
+            action.run();
+        } catch (Exception e) {
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            throw new CompletionException(e);
+        }
+    }
+
+    private static final class PendingSave {
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        // usually just one, unless the holder was unloaded & reloaded in the window
+        private final List<Object> holders = new ArrayList<>(1);
+        private final List<Throwing.Runnable> actions = new ArrayList<>(1);
+
+        void add(Object holder, Throwing.Runnable action) {
+            for (Object existing : this.holders) {
+                if (existing == holder) {
+                    return;
+                }
+            }
+            this.holders.add(holder);
+            this.actions.add(action);
+        }
+
+        void run() {
+            try {
+                for (Throwing.Runnable action : this.actions) {
+                    SaveQueue.run(action);
+                }
+                this.future.complete(null);
+            } catch (Throwable e) {
+                this.future.completeExceptionally(e);
+            }
+        }
+
+        void cancel() {
+            this.future.complete(null);
+        }
+    }
+
+}
@@ -27,7 +27,10 @@ package me.lucko.luckperms.common.storage;
 
 import com.google.common.collect.ImmutableList;
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogFilter;
+import me.lucko.luckperms.common.actionlog.LogPage;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
+import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.Track;
 import me.lucko.luckperms.common.model.User;
@@ -36,13 +39,18 @@ import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.storage.implementation.StorageImplementation;
 import me.lucko.luckperms.common.storage.implementation.split.SplitStorage;
 import me.lucko.luckperms.common.storage.misc.NodeEntry;
+import me.lucko.luckperms.common.storage.misc.StorageChanges;
+import me.lucko.luckperms.common.storage.misc.StorageRevision;
+import me.lucko.luckperms.common.storage.misc.UserLoginResult;
 import me.lucko.luckperms.common.util.Throwing;
 import net.luckperms.api.actionlog.Action;
 import net.luckperms.api.event.cause.CreationCause;
 import net.luckperms.api.event.cause.DeletionCause;
 import net.luckperms.api.model.PlayerSaveResult;
 import net.luckperms.api.node.Node;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.time.Instant;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -54,6 +62,7 @@ import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Provides a {@link CompletableFuture} based API for interacting with a {@link StorageImplementation}.
@@ -61,10 +70,22 @@ import java.util.concurrent.CompletionException;
 public class Storage {
     private final LuckPermsPlugin plugin;
     private final StorageImplementation implementation;
+    private final @Nullable UserLoadBatcher userLoadBatcher;
+    private final @Nullable SaveQueue saveQueue;
 
     public Storage(LuckPermsPlugin plugin, StorageImplementation implementation) {
         this.plugin = plugin;
         this.implementation = implementation;
+
+        int batchWindow = plugin.getConfiguration().get(ConfigKeys.USER_LOAD_BATCH_WINDOW);
+        this.userLoadBatcher = batchWindow > 0 && implementation.supportsUserBatchLoading()
+                ? new UserLoadBatcher(implementation, plugin.getBootstrap().getScheduler(), batchWindow)
+                : null;
+
+        int saveWindow = plugin.getConfiguration().get(ConfigKeys.SAVE_WRITE_BEHIND_WINDOW);
+        this.saveQueue = saveWindow > 0
+                ? new SaveQueue(plugin.getBootstrap().getScheduler(), saveWindow)
+                : null;
     }
 
     public StorageImplementation getImplementation() {
@@ -118,6 +139,13 @@ public class Storage {
     }
 
     public void shutdown() {
+        if (this.userLoadBatcher != null) {
+            this.userLoadBatcher.flush();
+        }
+        if (this.saveQueue != null) {
+            this.saveQueue.shutdown();
+        }
+
         try {
             this.implementation.shutdown();
         } catch (Exception e) {
@@ -126,7 +154,67 @@ public class Storage {
     }
 
     public StorageMetadata getMeta() {
-        return this.implementation.getMeta();
+        StorageMetadata meta = this.implementation.getMeta();
+        if (this.saveQueue != null) {
+            meta.pendingSaves(this.saveQueue.getPendingCount());
+        }
+        return meta;
+    }
+
+    /**
+     * Gets the number of holders waiting to be saved by the write-behind queue.
+     *
+     * @return the number of pending saves
+     */
+    public int getPendingSaveCount() {
+        return this.saveQueue == null ? 0 : this.saveQueue.getPendingCount();
+    }
+
+    private CompletableFuture<Void> save(String key, Object holder, Throwing.Runnable action) {
+        if (this.saveQueue != null) {
+            return this.saveQueue.save(key, holder, action);
+        }
+        return future(action);
+    }
+
+    /**
+     * Writes any pending save for the given key, so a following load reads up to date data.
+     *
+     * @param key the save key
+     */
+    private void flushPendingSave(String key) {
+        if (this.saveQueue != null) {
+            this.saveQueue.flush(key);
+        }
+    }
+
+    /**
+     * Drops any pending save for the given key, so it can't recreate a holder which is being deleted.
+     *
+     * @param key the save key
+     */
+    private void cancelPendingSave(String key) {
+        if (this.saveQueue != null) {
+            this.saveQueue.cancel(key);
+        }
+    }
+
+    private void flushPendingSaves() {
+        if (this.saveQueue != null) {
+            this.saveQueue.flush();
+        }
+    }
+
+    private static String userKey(UUID uniqueId) {
+        return "user:" + uniqueId;
+    }
+
+    private static String groupKey(String name) {
+        return "group:" + name.toLowerCase(Locale.ROOT);
+    }
+
+    private static String trackKey(String name) {
+        return "track:" + name.toLowerCase(Locale.ROOT);
     }
 
     public CompletableFuture<Void> logAction(Action entry) {
@@ -137,12 +225,37 @@ public class Storage {
         return future(this.implementation::getLog);
     }
 
+    public CompletableFuture<LogPage> getLogPage(LogFilter filter, int pageNumber, int pageSize, LogPage.@Nullable Cursor after, boolean countTotal) {
+        return future(() -> this.implementation.getLogPage(filter, pageNumber, pageSize, after, countTotal));
+    }
+
+    public CompletableFuture<Void> pruneLog(Instant before) {
+        return future(() -> this.implementation.pruneLog(before));
+    }
+
     public CompletableFuture<Void> applyBulkUpdate(BulkUpdate bulkUpdate) {
         return future(() -> this.implementation.applyBulkUpdate(bulkUpdate));
     }
 
     public CompletableFuture<User> loadUser(UUID uniqueId, String username) {
+        if (this.userLoadBatcher != null) {
+            CompletableFuture<User> future;
+            if (this.saveQueue != null && this.saveQueue.isPending(userKey(uniqueId))) {
+                future = future(() -> flushPendingSave(userKey(uniqueId))).thenCompose(v -> this.userLoadBatcher.load(uniqueId, username));
+            } else {
+                future = this.userLoadBatcher.load(uniqueId, username);
+            }
+
+            return future.thenApply(user -> {
+                if (user != null) {
+                    this.plugin.getEventDispatcher().dispatchUserLoad(user);
+                }
+                return user;
+            });
+        }
+
         return future(() -> {
+            flushPendingSave(userKey(uniqueId));
             User user = this.implementation.loadUser(uniqueId, username);
             if (user != null) {
                 this.plugin.getEventDispatcher().dispatchUserLoad(user);
@@ -153,6 +266,9 @@ public class Storage {
 
     public CompletableFuture<Map<UUID, User>> loadUsers(Set<UUID> uniqueIds) {
         return future(() -> {
+            for (UUID uniqueId : uniqueIds) {
+                flushPendingSave(userKey(uniqueId));
+            }
             Map<UUID, User> users = this.implementation.loadUsers(uniqueIds);
             for (User user : users.values()) {
                 this.plugin.getEventDispatcher().dispatchUserLoad(user);
@@ -162,7 +278,7 @@ public class Storage {
     }
 
     public CompletableFuture<Void> saveUser(User user) {
-        return future(() -> this.implementation.saveUser(user));
+        return save(userKey(user.getUniqueId()), user, () -> this.implementation.saveUser(user));
     }
 
     public CompletableFuture<Set<UUID>> getUniqueUsers() {
@@ -179,6 +295,7 @@ public class Storage {
 
     public CompletableFuture<Group> createAndLoadGroup(String name, CreationCause cause) {
         return future(() -> {
+            flushPendingSave(groupKey(name));
             Group group = this.implementation.createAndLoadGroup(name.toLowerCase(Locale.ROOT));
             if (group != null) {
                 this.plugin.getEventDispatcher().dispatchGroupCreate(group, cause);
@@ -189,7 +306,15 @@ public class Storage {
 
     public CompletableFuture<Optional<Group>> loadGroup(String name) {
         return future(() -> {
-            Optional<Group> group = this.implementation.loadGroup(name.toLowerCase(Locale.ROOT));
+            flushPendingSave(groupKey(name));
+            Optional<Group> group;
+            Lock lock = this.plugin.getGroupManager().getUpdateLock(name);
+            lock.lock();
+            try {
+                group = this.implementation.loadGroup(name.toLowerCase(Locale.ROOT));
+            } finally {
+                lock.unlock();
+            }
             if (group.isPresent()) {
                 this.plugin.getEventDispatcher().dispatchGroupLoad(group.get());
             }
@@ -199,17 +324,19 @@ public class Storage {
 
     public CompletableFuture<Void> loadAllGroups() {
         return future(() -> {
+            flushPendingSaves();
             this.implementation.loadAllGroups();
             this.plugin.getEventDispatcher().dispatchGroupLoadAll();
         });
     }
 
     public CompletableFuture<Void> saveGroup(Group group) {
-        return future(() -> this.implementation.saveGroup(group));
+        return save(groupKey(group.getName()), group, () -> this.implementation.saveGroup(group));
     }
 
     public CompletableFuture<Void> deleteGroup(Group group, DeletionCause cause) {
         return future(() -> {
+            cancelPendingSave(groupKey(group.getName()));
             this.implementation.deleteGroup(group);
             this.plugin.getEventDispatcher().dispatchGroupDelete(group, cause);
         });
@@ -225,6 +352,7 @@ public class Storage {
 
     public CompletableFuture<Track> createAndLoadTrack(String name, CreationCause cause) {
         return future(() -> {
+            flushPendingSave(trackKey(name));
             Track track = this.implementation.createAndLoadTrack(name.toLowerCase(Locale.ROOT));
             if (track != null) {
                 this.plugin.getEventDispatcher().dispatchTrackCreate(track, cause);
@@ -235,6 +363,7 @@ public class Storage {
 
     public CompletableFuture<Optional<Track>> loadTrack(String name) {
         return future(() -> {
+            flushPendingSave(trackKey(name));
             Optional<Track> track = this.implementation.loadTrack(name.toLowerCase(Locale.ROOT));
             if (track.isPresent()) {
                 this.plugin.getEventDispatcher().dispatchTrackLoad(track.get());
@@ -245,17 +374,19 @@ public class Storage {
 
     public CompletableFuture<Void> loadAllTracks() {
         return future(() -> {
+            flushPendingSaves();
             this.implementation.loadAllTracks();
             this.plugin.getEventDispatcher().dispatchTrackLoadAll();
         });
     }
 
     public CompletableFuture<Void> saveTrack(Track track) {
-        return future(() -> this.implementation.saveTrack(track));
+        return save(trackKey(track.getName()), track, () -> this.implementation.saveTrack(track));
     }
 
     public CompletableFuture<Void> deleteTrack(Track track, DeletionCause cause) {
         return future(() -> {
+            cancelPendingSave(trackKey(track.getName()));
             this.implementation.deleteTrack(track);
             this.plugin.getEventDispatcher().dispatchTrackDelete(track, cause);
          });
@@ -271,6 +402,33 @@ public class Storage {
         });
     }
 
+    public CompletableFuture<UserLoginResult> loginUser(UUID uniqueId, String username) {
+        if (this.userLoadBatcher != null) {
+            CompletableFuture<UserLoginResult> future;
+            if (this.saveQueue != null && this.saveQueue.isPending(userKey(uniqueId))) {
+                future = future(() -> flushPendingSave(userKey(uniqueId))).thenCompose(v -> this.userLoadBatcher.login(uniqueId, username));
+            } else {
+                future = this.userLoadBatcher.login(uniqueId, username);
+            }
+            return future.thenApply(result -> dispatchLogin(uniqueId, username, result));
+        }
+
+        return future(() -> {
+            flushPendingSave(userKey(uniqueId));
+            return dispatchLogin(uniqueId, username, this.implementation.loginUser(uniqueId, username));
+        });
+    }
+
+    private UserLoginResult dispatchLogin(UUID uniqueId, String username, UserLoginResult result) {
+        if (result.getPlayerSaveResult() != null) {
+            this.plugin.getEventDispatcher().dispatchPlayerDataSave(uniqueId, username, result.getPlayerSaveResult());
+        }
+        if (result.getUser() != null) {
+            this.plugin.getEventDispatcher().dispatchUserLoad(result.getUser());
+        }
+        return result;
+    }
+
     public CompletableFuture<Void> deletePlayerData(UUID uniqueId) {
         return future(() -> this.implementation.deletePlayerData(uniqueId));
     }
@@ -282,4 +440,8 @@ public class Storage {
     public CompletableFuture<String> getPlayerName(UUID uniqueId) {
         return future(() -> this.implementation.getPlayerName(uniqueId));
     }
+
+    public CompletableFuture<StorageChanges> getChangesSince(StorageRevision sinceRevision) {
+        return future(() -> this.implementation.getChangesSince(sinceRevision));
+    }
 }
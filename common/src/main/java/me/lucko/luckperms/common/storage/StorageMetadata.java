@@ -34,6 +34,9 @@ public class StorageMetadata {
     // local
     private Long sizeBytes;
 
+    // write-behind
+    private Integer pendingSaves;
+
     public Boolean connected() {
         return this.connected;
     }
@@ -46,6 +49,10 @@ public class StorageMetadata {
         return this.sizeBytes;
     }
 
+    public Integer pendingSaves() {
+        return this.pendingSaves;
+    }
+
     public StorageMetadata connected(boolean connected) {
         this.connected = connected;
         return this;
@@ -61,6 +68,11 @@ public class StorageMetadata {
         return this;
     }
 
+    public StorageMetadata pendingSaves(int pendingSaves) {
+        this.pendingSaves = pendingSaves;
+        return this;
+    }
+
     public StorageMetadata combine(StorageMetadata other) {
         if (this.connected == null || (other.connected != null && !other.connected)) {
             this.connected = other.connected;
@@ -71,6 +83,9 @@ public class StorageMetadata {
         if (this.sizeBytes == null || (other.sizeBytes != null && other.sizeBytes > this.sizeBytes)) {
             this.sizeBytes = other.sizeBytes;
         }
+        if (this.pendingSaves == null || (other.pendingSaves != null && other.pendingSaves > this.pendingSaves)) {
+            this.pendingSaves = other.pendingSaves;
+        }
         return this;
     }
 
@@ -0,0 +1,201 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage;
+
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
+import me.lucko.luckperms.common.storage.implementation.StorageImplementation;
+import me.lucko.luckperms.common.storage.misc.UserLoginResult;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Combines requests to load users which are made within a short window of each other
+ * into a single {@link StorageImplementation#loadUserBatch(Map)} call, and logins into
+ * a single {@link StorageImplementation#loginUserBatch(Map)} call.
+ *
+ * <p>This reduces the number of round-trips to the database when lots of players
+ * connect at once, e.g. after a proxy restart.</p>
+ */
+final class UserLoadBatcher {
+
+    /** The maximum number of users to load in a single batch */
+    static final int MAX_BATCH_SIZE = 500;
+
+    private final StorageImplementation implementation;
+    private final SchedulerAdapter scheduler;
+    private final long windowMillis;
+
+    private final Object lock = new Object();
+    private Map<UUID, PendingLoad> pending = new LinkedHashMap<>();
+    private Map<UUID, PendingLogin> pendingLogins = new LinkedHashMap<>();
+    private boolean flushScheduled = false;
+
+    UserLoadBatcher(StorageImplementation implementation, SchedulerAdapter scheduler, long windowMillis) {
+        this.implementation = implementation;
+        this.scheduler = scheduler;
+        this.windowMillis = windowMillis;
+    }
+
+    public CompletableFuture<User> load(UUID uniqueId, @Nullable String username) {
+        CompletableFuture<User> future;
+        boolean full;
+
+        synchronized (this.lock) {
+            PendingLoad load = this.pending.computeIfAbsent(uniqueId, x -> new PendingLoad());
+            if (username != null) {
+                load.username = username;
+            }
+            future = load.future;
+            full = isFull();
+        }
+
+        scheduleFlush(full);
+        return future;
+    }
+
+    public CompletableFuture<UserLoginResult> login(UUID uniqueId, String username) {
+        CompletableFuture<UserLoginResult> future;
+        boolean full;
+
+        synchronized (this.lock) {
+            PendingLogin login = this.pendingLogins.get(uniqueId);
+            if (login == null) {
+                login = new PendingLogin(username);
+                this.pendingLogins.put(uniqueId, login);
+            } else {
+                login.username = username;
+            }
+            future = login.future;
+            full = isFull();
+        }
+
+        scheduleFlush(full);
+        return future;
+    }
+
+    private boolean isFull() {
+        return this.pending.size() + this.pendingLogins.size() >= MAX_BATCH_SIZE;
+    }
+
+    private void scheduleFlush(boolean full) {
+        boolean schedule = false;
+        synchronized (this.lock) {
+            if (!full && !this.flushScheduled) {
+                this.flushScheduled = true;
+                schedule = true;
+            }
+        }
+
+        if (full) {
+            this.scheduler.executeAsync(this::flush);
+        } else if (schedule) {
+            this.scheduler.asyncLater(this::flush, this.windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void flush() {
+        Map<UUID, PendingLoad> batch;
+        Map<UUID, PendingLogin> logins;
+        synchronized (this.lock) {
+            batch = this.pending;
+            logins = this.pendingLogins;
+            this.pending = new LinkedHashMap<>();
+            this.pendingLogins = new LinkedHashMap<>();
+            this.flushScheduled = false;
+        }
+
+        if (!logins.isEmpty()) {
+            flushLogins(logins, batch);
+        }
+        if (!batch.isEmpty()) {
+            flushLoads(batch);
+        }
+    }
+
+    private void flushLogins(Map<UUID, PendingLogin> logins, Map<UUID, PendingLoad> loads) {
+        Map<UUID, String> users = new LinkedHashMap<>();
+        logins.forEach((uniqueId, login) -> users.put(uniqueId, login.username));
+
+        Map<UUID, UserLoginResult> results;
+        try {
+            results = this.implementation.loginUserBatch(users);
+        } catch (Throwable e) {
+            for (PendingLogin login : logins.values()) {
+                login.future.completeExceptionally(e);
+            }
+            return;
+        }
+
+        logins.forEach((uniqueId, login) -> {
+            UserLoginResult result = results.get(uniqueId);
+            login.future.complete(result);
+
+            // a login also loads the user, so a pending load for the same user can share the result
+            PendingLoad load = loads.remove(uniqueId);
+            if (load != null) {
+                load.future.complete(result == null ? null : result.getUser());
+            }
+        });
+    }
+
+    private void flushLoads(Map<UUID, PendingLoad> batch) {
+        Map<UUID, String> users = new LinkedHashMap<>();
+        batch.forEach((uniqueId, load) -> users.put(uniqueId, load.username));
+
+        Map<UUID, User> loaded;
+        try {
+            loaded = this.implementation.loadUserBatch(users);
+        } catch (Throwable e) {
+            for (PendingLoad load : batch.values()) {
+                load.future.completeExceptionally(e);
+            }
+            return;
+        }
+
+        batch.forEach((uniqueId, load) -> load.future.complete(loaded.get(uniqueId)));
+    }
+
+    private static final class PendingLoad {
+        private final CompletableFuture<User> future = new CompletableFuture<>();
+        private @Nullable String username;
+    }
+
+    private static final class PendingLogin {
+        private final CompletableFuture<UserLoginResult> future = new CompletableFuture<>();
+        private String username;
+
+        PendingLogin(String username) {
+            this.username = username;
+        }
+    }
+
+}
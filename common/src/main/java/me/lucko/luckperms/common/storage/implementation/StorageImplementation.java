@@ -26,6 +26,9 @@
 package me.lucko.luckperms.common.storage.implementation;
 
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogFilter;
+import me.lucko.luckperms.common.actionlog.LogPage;
+import me.lucko.luckperms.common.actionlog.LoggedAction;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.Track;
@@ -34,16 +37,22 @@ import me.lucko.luckperms.common.node.matcher.ConstraintNodeMatcher;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.storage.StorageMetadata;
 import me.lucko.luckperms.common.storage.misc.NodeEntry;
+import me.lucko.luckperms.common.storage.misc.StorageChanges;
+import me.lucko.luckperms.common.storage.misc.StorageRevision;
+import me.lucko.luckperms.common.storage.misc.UserLoginResult;
 import net.luckperms.api.actionlog.Action;
 import net.luckperms.api.model.PlayerSaveResult;
 import net.luckperms.api.node.Node;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.time.Instant;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 public interface StorageImplementation {
     LuckPermsPlugin getPlugin();
@@ -60,12 +69,67 @@ public interface StorageImplementation {
 
     Log getLog() throws Exception;
 
+    /**
+     * Gets a page of the entries in the action log which match the given filter.
+     *
+     * <p>The default implementation reads the whole log and filters it in memory.</p>
+     *
+     * @param filter the filter
+     * @param pageNumber the page number, where {@link LogPage#LATEST} is the most recent
+     * @param pageSize the number of entries per page
+     * @param after the {@link LogPage#getNext() cursor} of the previous page, which implementations
+     *              may use to read on from instead of skipping over earlier pages, or null
+     * @param countTotal if the total number of matching entries is needed
+     * @return the page
+     */
+    default LogPage getLogPage(LogFilter filter, int pageNumber, int pageSize, LogPage.@Nullable Cursor after, boolean countTotal) throws Exception {
+        List<LoggedAction> entries = getLog().getContent().stream()
+                .filter(filter)
+                .collect(Collectors.toList());
+        return LogPage.of(entries, pageNumber, pageSize);
+    }
+
+    /**
+     * Deletes entries from the action log which are older than the given time.
+     *
+     * <p>Implementations which can't efficiently remove entries do nothing.</p>
+     *
+     * @param before the time before which entries should be deleted
+     */
+    default void pruneLog(Instant before) throws Exception {
+
+    }
+
     void applyBulkUpdate(BulkUpdate bulkUpdate) throws Exception;
 
     User loadUser(UUID uniqueId, String username) throws Exception;
 
     Map<UUID, User> loadUsers(Set<UUID> uniqueIds) throws Exception;
 
+    /**
+     * Gets if {@link #loadUserBatch(Map)} is able to load users more efficiently
+     * than a number of individual {@link #loadUser(UUID, String)} calls.
+     *
+     * @return if batch loading is supported
+     */
+    default boolean supportsUserBatchLoading() {
+        return false;
+    }
+
+    /**
+     * Loads a number of users, with the same effect as calling {@link #loadUser(UUID, String)} for each.
+     *
+     * @param users the unique ids of the users to load, mapped to their username (or null if unknown)
+     * @return the loaded users
+     */
+    default Map<UUID, User> loadUserBatch(Map<UUID, String> users) throws Exception {
+        Map<UUID, User> loaded = new HashMap<>();
+        for (Map.Entry<UUID, String> user : users.entrySet()) {
+            loaded.put(user.getKey(), loadUser(user.getKey(), user.getValue()));
+        }
+        return loaded;
+    }
+
     void saveUser(User user) throws Exception;
 
     Set<UUID> getUniqueUsers() throws Exception;
@@ -96,9 +160,54 @@ public interface StorageImplementation {
 
     PlayerSaveResult savePlayerData(UUID uniqueId, String username) throws Exception;
 
+    /**
+     * Saves the player data for a connecting player and loads their user, with
+     * the same effect as {@link #savePlayerData(UUID, String)} followed by
+     * {@link #loadUser(UUID, String)}.
+     *
+     * <p>Implementations backed by a remote database should override this to
+     * perform both operations in as few round-trips as possible.</p>
+     *
+     * @param uniqueId the players unique id
+     * @param username the players username
+     * @return the result
+     */
+    default UserLoginResult loginUser(UUID uniqueId, String username) throws Exception {
+        PlayerSaveResult saveResult = savePlayerData(uniqueId, username);
+        return new UserLoginResult(saveResult, loadUser(uniqueId, username));
+    }
+
+    /**
+     * Logs in a number of players, with the same effect as calling
+     * {@link #loginUser(UUID, String)} for each, in iteration order.
+     *
+     * @param users the unique ids of the connecting players, mapped to their username
+     * @return the results
+     */
+    default Map<UUID, UserLoginResult> loginUserBatch(Map<UUID, String> users) throws Exception {
+        Map<UUID, UserLoginResult> results = new HashMap<>();
+        for (Map.Entry<UUID, String> user : users.entrySet()) {
+            results.put(user.getKey(), loginUser(user.getKey(), user.getValue()));
+        }
+        return results;
+    }
+
     void deletePlayerData(UUID uniqueId) throws Exception;
 
     @Nullable UUID getPlayerUniqueId(String username) throws Exception;
 
     @Nullable String getPlayerName(UUID uniqueId) throws Exception;
+
+    /**
+     * Gets the users, groups and tracks which have changed since the given revision.
+     *
+     * <p>Implementations which do not keep track of changes return null, in which
+     * case all data should be reloaded.</p>
+     *
+     * @param sinceRevision the revision returned by the previous call, or {@link StorageRevision#UNKNOWN}
+     * @return the changes, or null if changes are not tracked
+     */
+    default @Nullable StorageChanges getChangesSince(StorageRevision sinceRevision) throws Exception {
+        return null;
+    }
 }
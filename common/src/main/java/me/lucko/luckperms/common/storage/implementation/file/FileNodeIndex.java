@@ -0,0 +1,269 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage.implementation.file;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * A secondary index of the node keys held by each file in a flat-file storage directory.
+ *
+ * <p>Allows searches and bulk updates to only read the files which could contain a matching node,
+ * instead of every file in the directory.</p>
+ *
+ * <p>Each entry records the last modified time of the file it was built from, so entries can be
+ * checked against the directory when the index is loaded from disk.</p>
+ */
+public class FileNodeIndex {
+    private static final int VERSION = 1;
+
+    // holder -> indexed entry
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    // node key -> holders with a node with that key
+    private final Map<String, Set<String>> holdersByKey = new HashMap<>();
+
+    // holders whose files have changed since they were indexed
+    private final Set<String> stale = new HashSet<>();
+
+    // if the index has changed since it was last saved
+    private boolean dirty = false;
+
+    /**
+     * Updates the index entry for a holder.
+     *
+     * @param holder the holder
+     * @param lastModified the last modified time of the holders file
+     * @param keys the node keys held by the holder
+     */
+    public synchronized void update(String holder, long lastModified, Collection<String> keys) {
+        removeKeys(holder);
+        Set<String> keySet = ImmutableSet.copyOf(keys);
+        this.entries.put(holder, new Entry(lastModified, keySet));
+        for (String key : keySet) {
+            this.holdersByKey.computeIfAbsent(key, k -> new HashSet<>()).add(holder);
+        }
+        this.stale.remove(holder);
+        this.dirty = true;
+    }
+
+    /**
+     * Removes a holder from the index.
+     *
+     * @param holder the holder
+     */
+    public synchronized void remove(String holder) {
+        removeKeys(holder);
+        this.entries.remove(holder);
+        this.stale.remove(holder);
+        this.dirty = true;
+    }
+
+    /**
+     * Marks a holder as stale, so it will be re-indexed before it is next queried.
+     *
+     * @param holder the holder
+     */
+    public synchronized void invalidate(String holder) {
+        this.stale.add(holder);
+    }
+
+    private void removeKeys(String holder) {
+        Entry existing = this.entries.get(holder);
+        if (existing == null) {
+            return;
+        }
+
+        for (String key : existing.keys) {
+            Set<String> holders = this.holdersByKey.get(key);
+            if (holders != null && holders.remove(holder) && holders.isEmpty()) {
+                this.holdersByKey.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Gets the last modified time of the file a holders entry was built from.
+     *
+     * @param holder the holder
+     * @return the last modified time, or -1 if the holder is not indexed or is stale
+     */
+    public synchronized long getLastModified(String holder) {
+        if (this.stale.contains(holder)) {
+            return -1;
+        }
+        Entry entry = this.entries.get(holder);
+        return entry == null ? -1 : entry.lastModified;
+    }
+
+    /**
+     * Gets the holders which are currently indexed.
+     *
+     * @return the holders
+     */
+    public synchronized Set<String> getHolders() {
+        return new HashSet<>(this.entries.keySet());
+    }
+
+    /**
+     * Gets the holders which have been marked as stale, and clears the set.
+     *
+     * @return the stale holders
+     */
+    public synchronized Set<String> pollStale() {
+        Set<String> stale = new HashSet<>(this.stale);
+        this.stale.clear();
+        return stale;
+    }
+
+    /**
+     * Gets the holders with at least one node whose key matches the given predicate.
+     *
+     * @param keyPredicate the key predicate
+     * @return the matching holders
+     */
+    public synchronized Set<String> getHolders(Predicate<String> keyPredicate) {
+        Set<String> holders = new HashSet<>();
+        for (Map.Entry<String, Set<String>> entry : this.holdersByKey.entrySet()) {
+            if (keyPredicate.test(entry.getKey())) {
+                holders.addAll(entry.getValue());
+            }
+        }
+        return holders;
+    }
+
+    public synchronized void load(Path file) {
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        try (JsonReader reader = new JsonReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("version")) {
+                    if (reader.nextInt() != VERSION) {
+                        return;
+                    }
+                } else if (name.equals("entries")) {
+                    readEntries(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IOException | IllegalStateException e) {
+            // the index will be rebuilt from the files
+            this.entries.clear();
+            this.holdersByKey.clear();
+            e.printStackTrace();
+        }
+        this.dirty = false;
+    }
+
+    private void readEntries(JsonReader reader) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String holder = reader.nextName();
+            long lastModified = -1;
+            Set<String> keys = new HashSet<>();
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("modified")) {
+                    lastModified = reader.nextLong();
+                } else if (name.equals("keys") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        keys.add(reader.nextString());
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            update(holder, lastModified, keys);
+        }
+        reader.endObject();
+    }
+
+    public synchronized void save(Path file) {
+        if (!this.dirty) {
+            return;
+        }
+
+        try (JsonWriter writer = new JsonWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            writer.beginObject();
+            writer.name("version").value(VERSION);
+            writer.name("entries").beginObject();
+            for (Map.Entry<String, Entry> entry : this.entries.entrySet()) {
+                if (this.stale.contains(entry.getKey())) {
+                    continue;
+                }
+
+                writer.name(entry.getKey()).beginObject();
+                writer.name("modified").value(entry.getValue().lastModified);
+                writer.name("keys").beginArray();
+                for (String key : entry.getValue().keys) {
+                    writer.value(key);
+                }
+                writer.endArray();
+                writer.endObject();
+            }
+            writer.endObject();
+            writer.endObject();
+            this.dirty = false;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static final class Entry {
+        private final long lastModified;
+        private final Set<String> keys;
+
+        Entry(long lastModified, Set<String> keys) {
+            this.lastModified = lastModified;
+            this.keys = keys;
+        }
+    }
+}
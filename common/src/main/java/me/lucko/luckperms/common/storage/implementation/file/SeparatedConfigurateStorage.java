@@ -28,6 +28,10 @@ package me.lucko.luckperms.common.storage.implementation.file;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.common.collect.ImmutableMap;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
+import me.lucko.luckperms.common.bulkupdate.comparison.Constraint;
+import me.lucko.luckperms.common.bulkupdate.query.Query;
+import me.lucko.luckperms.common.bulkupdate.query.QueryField;
+import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.model.HolderType;
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.node.matcher.ConstraintNodeMatcher;
@@ -41,12 +45,14 @@ import me.lucko.luckperms.common.util.MoreFiles;
 import me.lucko.luckperms.common.util.Uuids;
 import net.luckperms.api.node.Node;
 import ninja.leaping.configurate.ConfigurationNode;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -78,6 +84,12 @@ public class SeparatedConfigurateStorage extends AbstractConfigurateStorage {
 
     private final LoadingCache<Path, ReentrantLock> ioLocks;
 
+    // index of the node keys held by each user file, or null if disabled
+    private FileNodeIndex userIndex;
+    private Path userIndexFile;
+    private final ReentrantLock userIndexLock = new ReentrantLock();
+    private boolean userIndexVerified = false;
+
     public SeparatedConfigurateStorage(LuckPermsPlugin plugin, String implementationName, ConfigurateLoader loader, String fileExtension, String dataFolderName) {
         super(plugin, implementationName, loader, dataFolderName);
         this.fileExtension = fileExtension;
@@ -132,15 +144,111 @@ public class SeparatedConfigurateStorage extends AbstractConfigurateStorage {
         try {
             if (node == null) {
                 Files.deleteIfExists(file);
-                return;
+            } else {
+                this.loader.loader(file).save(node);
             }
 
-            this.loader.loader(file).save(node);
+            if (this.userIndex != null && file.getParent().equals(this.users.directory)) {
+                indexUserFile(file, node);
+            }
         } finally {
             lock.unlock();
         }
     }
 
+    private void indexUserFile(Path file, ConfigurationNode node) throws IOException {
+        String holder = getHolderName(file);
+        if (node == null || !Files.exists(file)) {
+            this.userIndex.remove(holder);
+            return;
+        }
+
+        Set<String> keys = readNodes(node).stream().map(Node::getKey).collect(Collectors.toSet());
+        this.userIndex.update(holder, Files.getLastModifiedTime(file).toMillis(), keys);
+    }
+
+    private void reindexUserFile(Path file) {
+        ReentrantLock lock = Objects.requireNonNull(this.ioLocks.get(file));
+        lock.lock();
+        try {
+            indexUserFile(file, readFile(file));
+        } catch (Exception e) {
+            // unreadable files can't match a search anyway
+            this.userIndex.remove(getHolderName(file));
+            this.plugin.getLogger().severe(
+                    "Exception whilst indexing user file",
+                    new FileIOException(file.getFileName().toString(), e)
+            );
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the user node index, ensuring it is up to date with the files on disk.
+     *
+     * @return the index, or null if it is disabled
+     * @throws IOException if an io error occurs
+     */
+    private FileNodeIndex getUserIndex() throws IOException {
+        if (this.userIndex == null) {
+            return null;
+        }
+
+        this.userIndexLock.lock();
+        try {
+            if (!this.userIndexVerified || this.users.watcher == null) {
+                // compare the index against the files on disk, and re-index any which have changed
+                // since they were last indexed. after the first check, changes are picked up by the
+                // file watcher (if enabled), so we only need to do this again if it isn't.
+                Set<String> removed = this.userIndex.getHolders();
+                try (Stream<Path> stream = Files.list(this.users.directory)) {
+                    Iterator<Path> it = stream.filter(this.fileExtensionFilter).iterator();
+                    while (it.hasNext()) {
+                        Path file = it.next();
+                        String holder = getHolderName(file);
+                        removed.remove(holder);
+                        if (this.userIndex.getLastModified(holder) != Files.getLastModifiedTime(file).toMillis()) {
+                            reindexUserFile(file);
+                        }
+                    }
+                }
+                removed.forEach(this.userIndex::remove);
+                this.userIndexVerified = true;
+            } else {
+                for (String holder : this.userIndex.pollStale()) {
+                    reindexUserFile(this.users.directory.resolve(holder + this.fileExtension));
+                }
+            }
+        } finally {
+            this.userIndexLock.unlock();
+        }
+        return this.userIndex;
+    }
+
+    /**
+     * Lists the user files which could contain a node with a key matching the given predicate.
+     *
+     * @param keyPredicate the key predicate, or null to list all files
+     * @return the files
+     * @throws IOException if an io error occurs
+     */
+    private Stream<Path> listUserFiles(@Nullable Predicate<String> keyPredicate) throws IOException {
+        FileNodeIndex index = keyPredicate == null ? null : getUserIndex();
+        if (index == null) {
+            return Files.list(getDirectory(StorageLocation.USERS)).filter(this.fileExtensionFilter);
+        }
+
+        return index.getHolders(keyPredicate).stream()
+                .map(holder -> getDirectory(StorageLocation.USERS).resolve(holder + this.fileExtension))
+                .filter(Files::exists);
+    }
+
+    private String getHolderName(Path file) {
+        String fileName = file.getFileName().toString();
+        return fileName.substring(0, fileName.length() - this.fileExtension.length());
+    }
+
     private Path getDirectory(StorageLocation location) {
         return this.fileGroups.get(location).directory;
     }
@@ -160,6 +268,12 @@ public class SeparatedConfigurateStorage extends AbstractConfigurateStorage {
         this.groups.directory = MoreFiles.createDirectoryIfNotExists(super.dataDirectory.resolve("groups"));
         this.tracks.directory = MoreFiles.createDirectoryIfNotExists(super.dataDirectory.resolve("tracks"));
 
+        if (this.plugin.getConfiguration().get(ConfigKeys.FLAT_FILE_USER_INDEX)) {
+            this.userIndex = new FileNodeIndex();
+            this.userIndexFile = super.dataDirectory.resolve("users-index.json");
+            this.userIndex.load(this.userIndexFile);
+        }
+
         // Listen for file changes.
         FileWatcher watcher = this.plugin.getFileWatcher().orElse(null);
         if (watcher != null) {
@@ -171,6 +285,10 @@ public class SeparatedConfigurateStorage extends AbstractConfigurateStorage {
                 }
 
                 String user = fileName.substring(0, fileName.length() - this.fileExtension.length());
+                if (this.userIndex != null) {
+                    this.userIndex.invalidate(user);
+                }
+
                 UUID uuid = Uuids.parse(user);
                 if (uuid == null) {
                     return;
@@ -209,11 +327,19 @@ public class SeparatedConfigurateStorage extends AbstractConfigurateStorage {
         }
     }
 
+    @Override
+    public void shutdown() {
+        super.shutdown();
+        if (this.userIndex != null) {
+            this.userIndex.save(this.userIndexFile);
+        }
+    }
+
     @Override
     public void applyBulkUpdate(BulkUpdate bulkUpdate) throws Exception {
         if (bulkUpdate.getDataType().isIncludingUsers()) {
-            try (Stream<Path> s = Files.list(getDirectory(StorageLocation.USERS))) {
-                s.filter(this.fileExtensionFilter).forEach(file -> {
+            try (Stream<Path> s = listUserFiles(getPermissionPredicate(bulkUpdate))) {
+                s.forEach(file -> {
                     try {
                         registerFileAction(StorageLocation.USERS, file);
                         ConfigurationNode object = readFile(file);
@@ -250,6 +376,23 @@ public class SeparatedConfigurateStorage extends AbstractConfigurateStorage {
         }
     }
 
+    /**
+     * Gets a predicate which the key of any node affected by the bulk update must match.
+     *
+     * @param bulkUpdate the bulk update
+     * @return the predicate, or null if the update may affect nodes with any key
+     */
+    private static @Nullable Predicate<String> getPermissionPredicate(BulkUpdate bulkUpdate) {
+        Predicate<String> predicate = null;
+        for (Query query : bulkUpdate.getQueries()) {
+            if (query.getField() == QueryField.PERMISSION) {
+                Constraint constraint = query.getConstraint();
+                predicate = predicate == null ? constraint::eval : predicate.and(constraint::eval);
+            }
+        }
+        return predicate;
+    }
+
     @Override
     public Set<UUID> getUniqueUsers() throws IOException {
         try (Stream<Path> stream = Files.list(this.users.directory)) {
@@ -265,28 +408,27 @@ public class SeparatedConfigurateStorage extends AbstractConfigurateStorage {
     @Override
     public <N extends Node> List<NodeEntry<UUID, N>> searchUserNodes(ConstraintNodeMatcher<N> constraint) throws IOException {
         List<NodeEntry<UUID, N>> held = new ArrayList<>();
-        try (Stream<Path> stream = Files.list(getDirectory(StorageLocation.USERS))) {
-            stream.filter(this.fileExtensionFilter)
-                    .forEach(file -> {
-                        String fileName = file.getFileName().toString();
-                        try {
-                            registerFileAction(StorageLocation.USERS, file);
-                            ConfigurationNode object = readFile(file);
-                            UUID holder = UUID.fromString(fileName.substring(0, fileName.length() - this.fileExtension.length()));
-                            Set<Node> nodes = readNodes(object);
-                            for (Node e : nodes) {
-                                N match = constraint.match(e);
-                                if (match != null) {
-                                    held.add(NodeEntry.of(holder, match));
-                                }
-                            }
-                        } catch (Exception e) {
-                            this.plugin.getLogger().severe(
-                                    "Exception whilst searching user nodes",
-                                    new FileIOException(file.getFileName().toString(), e)
-                            );
+        try (Stream<Path> stream = listUserFiles(constraint.getConstraint()::eval)) {
+            stream.forEach(file -> {
+                String fileName = file.getFileName().toString();
+                try {
+                    registerFileAction(StorageLocation.USERS, file);
+                    ConfigurationNode object = readFile(file);
+                    UUID holder = UUID.fromString(fileName.substring(0, fileName.length() - this.fileExtension.length()));
+                    Set<Node> nodes = readNodes(object);
+                    for (Node e : nodes) {
+                        N match = constraint.match(e);
+                        if (match != null) {
+                            held.add(NodeEntry.of(holder, match));
                         }
-                    });
+                    }
+                } catch (Exception e) {
+                    this.plugin.getLogger().severe(
+                            "Exception whilst searching user nodes",
+                            new FileIOException(file.getFileName().toString(), e)
+                    );
+                }
+            });
         }
         return held;
     }
@@ -35,16 +35,23 @@ import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndReplaceOptions;
+import com.mongodb.client.model.Indexes;
 import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogFilter;
+import me.lucko.luckperms.common.actionlog.LogPage;
 import me.lucko.luckperms.common.actionlog.LoggedAction;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
-import me.lucko.luckperms.common.context.MutableContextSetImpl;
+import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.HolderType;
 import me.lucko.luckperms.common.model.Track;
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.model.manager.group.GroupManager;
+import me.lucko.luckperms.common.node.NodeInterner;
 import me.lucko.luckperms.common.node.factory.NodeBuilders;
 import me.lucko.luckperms.common.node.matcher.ConstraintNodeMatcher;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
@@ -58,12 +65,14 @@ import net.luckperms.api.actionlog.Action;
 import net.luckperms.api.context.Context;
 import net.luckperms.api.context.ContextSet;
 import net.luckperms.api.context.DefaultContextKeys;
-import net.luckperms.api.context.MutableContextSet;
+import net.luckperms.api.context.ImmutableContextSet;
 import net.luckperms.api.model.PlayerSaveResult;
 import net.luckperms.api.node.Node;
 import net.luckperms.api.node.NodeBuilder;
 import org.bson.Document;
 import org.bson.UuidRepresentation;
+import org.bson.conversions.Bson;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.time.Instant;
 import java.util.ArrayList;
@@ -76,6 +85,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class MongoStorage implements StorageImplementation {
@@ -134,6 +144,13 @@ public class MongoStorage implements StorageImplementation {
         }
         
         this.database = this.mongoClient.getDatabase(this.configuration.getDatabase());
+
+        // indexes used by action log queries
+        MongoCollection<Document> actions = this.database.getCollection(this.prefix + "action");
+        actions.createIndex(Indexes.ascending("timestamp"));
+        actions.createIndex(Indexes.ascending("source.uniqueId"));
+        actions.createIndex(Indexes.ascending("target.uniqueId"));
+        actions.createIndex(Indexes.ascending("target.name"));
     }
 
     @Override
@@ -196,51 +213,109 @@ public class MongoStorage implements StorageImplementation {
         MongoCollection<Document> c = this.database.getCollection(this.prefix + "action");
         try (MongoCursor<Document> cursor = c.find().iterator()) {
             while (cursor.hasNext()) {
-                Document d = cursor.next();
+                log.add(readAction(cursor.next()));
+            }
+        }
+        return log.build();
+    }
 
-                if (d.containsKey("source")) {
-                    // new format
-                    Document source = d.get("source", Document.class);
-                    Document target = d.get("target", Document.class);
+    @Override
+    public LogPage getLogPage(LogFilter filter, int pageNumber, int pageSize, LogPage.@Nullable Cursor after, boolean countTotal) {
+        MongoCollection<Document> c = this.database.getCollection(this.prefix + "action");
+        Bson query = createLogQuery(filter);
 
-                    UUID targetUniqueId = null;
-                    if (target.containsKey("uniqueId")) {
-                        targetUniqueId = target.get("uniqueId", UUID.class);
-                    }
+        int total = countTotal ? (int) c.countDocuments(query) : LogPage.UNKNOWN_TOTAL;
+        int offset = LogPage.offset(pageNumber, pageSize);
+        if (offset < 0 || (countTotal && offset >= total)) {
+            return new LogPage(Collections.emptyList(), pageNumber, pageSize, total, null);
+        }
 
-                    LoggedAction e = LoggedAction.build()
-                            .timestamp(Instant.ofEpochSecond(d.getLong("timestamp")))
-                            .source(source.get("uniqueId", UUID.class))
-                            .sourceName(source.getString("name"))
-                            .targetType(LoggedAction.parseType(target.getString("type")))
-                            .target(targetUniqueId)
-                            .targetName(target.getString("name"))
-                            .description(d.getString("description"))
-                            .build();
-
-                    log.add(e);
-                } else {
-                    // old format
-                    UUID actedUuid = null;
-                    if (d.containsKey("acted")) {
-                        actedUuid = d.get("acted", UUID.class);
-                    }
+        // read the most recent entries first, then put them back in order
+        List<LoggedAction> content = new ArrayList<>(pageSize);
+        try (MongoCursor<Document> cursor = c.find(query).sort(Sorts.descending("timestamp", "_id")).skip(offset).limit(pageSize).iterator()) {
+            while (cursor.hasNext()) {
+                content.add(readAction(cursor.next()));
+            }
+        }
+        Collections.reverse(content);
+        return new LogPage(content, pageNumber, pageSize, total, null);
+    }
 
-                    LoggedAction e = LoggedAction.build()
-                            .timestamp(Instant.ofEpochSecond(d.getLong("timestamp")))
-                            .source(d.get("actor", UUID.class))
-                            .sourceName(d.getString("actorName"))
-                            .targetType(LoggedAction.parseTypeCharacter(d.getString("type").charAt(0)))
-                            .target(actedUuid)
-                            .targetName(d.getString("actedName"))
-                            .description(d.getString("action"))
-                            .build();
-
-                    log.add(e);
-                }
+    @Override
+    public void pruneLog(Instant before) {
+        MongoCollection<Document> c = this.database.getCollection(this.prefix + "action");
+        c.deleteMany(Filters.lt("timestamp", before.getEpochSecond()));
+    }
+
+    private static Bson createLogQuery(LogFilter filter) {
+        // only entries in the new format can be matched by source/target
+        List<Bson> conditions = new ArrayList<>();
+        if (filter.getSourceUniqueId() != null) {
+            conditions.add(Filters.eq("source.uniqueId", filter.getSourceUniqueId()));
+        }
+        if (filter.getTargetType() != null) {
+            conditions.add(Filters.eq("target.type", filter.getTargetType().name()));
+        }
+        if (filter.getTargetUniqueId() != null) {
+            conditions.add(Filters.eq("target.uniqueId", filter.getTargetUniqueId()));
+        }
+        if (filter.getTargetName() != null) {
+            conditions.add(Filters.eq("target.name", filter.getTargetName()));
+        }
+        if (filter.getSearch() != null) {
+            Pattern pattern = Pattern.compile(Pattern.quote(filter.getSearch()), Pattern.CASE_INSENSITIVE);
+            conditions.add(Filters.or(
+                    Filters.regex("source.name", pattern),
+                    Filters.regex("target.name", pattern),
+                    Filters.regex("description", pattern)
+            ));
+        }
+        if (filter.getAfter() != null) {
+            conditions.add(Filters.gte("timestamp", filter.getAfter().getEpochSecond()));
+        }
+        if (filter.getBefore() != null) {
+            conditions.add(Filters.lt("timestamp", filter.getBefore().getEpochSecond()));
+        }
+        return conditions.isEmpty() ? new Document() : Filters.and(conditions);
+    }
+
+    private static LoggedAction readAction(Document d) {
+        if (d.containsKey("source")) {
+            // new format
+            Document source = d.get("source", Document.class);
+            Document target = d.get("target", Document.class);
+
+            UUID targetUniqueId = null;
+            if (target.containsKey("uniqueId")) {
+                targetUniqueId = target.get("uniqueId", UUID.class);
+            }
+
+            return LoggedAction.build()
+                    .timestamp(Instant.ofEpochSecond(d.getLong("timestamp")))
+                    .source(source.get("uniqueId", UUID.class))
+                    .sourceName(source.getString("name"))
+                    .targetType(LoggedAction.parseType(target.getString("type")))
+                    .target(targetUniqueId)
+                    .targetName(target.getString("name"))
+                    .description(d.getString("description"))
+                    .build();
+        } else {
+            // old format
+            UUID actedUuid = null;
+            if (d.containsKey("acted")) {
+                actedUuid = d.get("acted", UUID.class);
             }
+
+            return LoggedAction.build()
+                    .timestamp(Instant.ofEpochSecond(d.getLong("timestamp")))
+                    .source(d.get("actor", UUID.class))
+                    .sourceName(d.getString("actorName"))
+                    .targetType(LoggedAction.parseTypeCharacter(d.getString("type").charAt(0)))
+                    .target(actedUuid)
+                    .targetName(d.getString("actedName"))
+                    .description(d.getString("action"))
+                    .build();
         }
-        return log.build();
     }
 
     @Override
@@ -529,13 +604,13 @@ public class MongoStorage implements StorageImplementation {
         username = username.toLowerCase(Locale.ROOT);
         MongoCollection<Document> c = this.database.getCollection(this.prefix + "uuid");
 
-        // find any existing mapping
-        String oldUsername = getPlayerName(uniqueId);
-
-        // do the insert
-        if (!username.equalsIgnoreCase(oldUsername)) {
-            c.replaceOne(new Document("_id", uniqueId), new Document("_id", uniqueId).append("name", username), new ReplaceOptions().upsert(true));
-        }
+        // upsert the mapping, returning the existing one (if any) in the same round-trip
+        Document existing = c.findOneAndReplace(
+                new Document("_id", uniqueId),
+                new Document("_id", uniqueId).append("name", username),
+                new FindOneAndReplaceOptions().upsert(true).returnDocument(ReturnDocument.BEFORE)
+        );
+        String oldUsername = existing == null ? null : existing.getString("name");
 
         PlayerSaveResultImpl result = PlayerSaveResultImpl.determineBaseResult(username, oldUsername);
 
@@ -662,12 +737,14 @@ public class MongoStorage implements StorageImplementation {
         NodeBuilder<?, ?> builder = NodeBuilders.determineMostApplicable(key)
                 .value(document.getBoolean("value", true));
 
+        ImmutableContextSet.Builder contextBuilder = new ImmutableContextSetImpl.BuilderImpl();
+
         if (document.containsKey("server")) {
-            builder.withContext(DefaultContextKeys.SERVER_KEY, document.getString("server"));
+            contextBuilder.add(DefaultContextKeys.SERVER_KEY, document.getString("server"));
         }
 
         if (document.containsKey("world")) {
-            builder.withContext(DefaultContextKeys.WORLD_KEY, document.getString("world"));
+            contextBuilder.add(DefaultContextKeys.WORLD_KEY, document.getString("world"));
         }
 
         if (document.containsKey("expiry")) {
@@ -677,10 +754,13 @@ public class MongoStorage implements StorageImplementation {
         if (document.containsKey("context") && document.get("context") instanceof List) {
             //noinspection unchecked
             List<Document> contexts = (List<Document>) document.get("context");
-            builder.withContext(docsToContextSet(contexts));
+            for (Document context : contexts) {
+                contextBuilder.add(context.getString("key"), context.getString("value"));
+            }
         }
 
-        return builder.build();
+        builder.context(NodeInterner.intern(contextBuilder.build()));
+        return NodeInterner.intern(builder.build());
     }
 
     private static List<Document> contextSetToDocs(ContextSet contextSet) {
@@ -691,12 +771,4 @@ public class MongoStorage implements StorageImplementation {
         return contexts;
     }
 
-    private static MutableContextSet docsToContextSet(List<Document> documents) {
-        MutableContextSet map = new MutableContextSetImpl();
-        for (Document doc : documents) {
-            map.add(doc.getString("key"), doc.getString("value"));
-        }
-        return map;
-    }
-
 }
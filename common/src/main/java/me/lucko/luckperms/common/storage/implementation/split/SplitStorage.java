@@ -27,6 +27,8 @@ package me.lucko.luckperms.common.storage.implementation.split;
 
 import com.google.common.collect.ImmutableMap;
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogFilter;
+import me.lucko.luckperms.common.actionlog.LogPage;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.Track;
@@ -37,10 +39,16 @@ import me.lucko.luckperms.common.storage.StorageMetadata;
 import me.lucko.luckperms.common.storage.StorageType;
 import me.lucko.luckperms.common.storage.implementation.StorageImplementation;
 import me.lucko.luckperms.common.storage.misc.NodeEntry;
+import me.lucko.luckperms.common.storage.misc.StorageChanges;
+import me.lucko.luckperms.common.storage.misc.StorageRevision;
+import me.lucko.luckperms.common.storage.misc.UserLoginResult;
 import net.luckperms.api.actionlog.Action;
 import net.luckperms.api.model.PlayerSaveResult;
 import net.luckperms.api.node.Node;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.time.Instant;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -122,6 +130,16 @@ public class SplitStorage implements StorageImplementation {
         return implFor(SplitStorageType.LOG).getLog();
     }
 
+    @Override
+    public LogPage getLogPage(LogFilter filter, int pageNumber, int pageSize, LogPage.@Nullable Cursor after, boolean countTotal) throws Exception {
+        return implFor(SplitStorageType.LOG).getLogPage(filter, pageNumber, pageSize, after, countTotal);
+    }
+
+    @Override
+    public void pruneLog(Instant before) throws Exception {
+        implFor(SplitStorageType.LOG).pruneLog(before);
+    }
+
     @Override
     public void applyBulkUpdate(BulkUpdate bulkUpdate) throws Exception {
         StorageType userType = this.types.get(SplitStorageType.USER);
@@ -145,6 +163,16 @@ public class SplitStorage implements StorageImplementation {
         return implFor(SplitStorageType.USER).loadUsers(uniqueIds);
     }
 
+    @Override
+    public boolean supportsUserBatchLoading() {
+        return implFor(SplitStorageType.USER).supportsUserBatchLoading();
+    }
+
+    @Override
+    public Map<UUID, User> loadUserBatch(Map<UUID, String> users) throws Exception {
+        return implFor(SplitStorageType.USER).loadUserBatch(users);
+    }
+
     @Override
     public void saveUser(User user) throws Exception {
         implFor(SplitStorageType.USER).saveUser(user);
@@ -220,6 +248,38 @@ public class SplitStorage implements StorageImplementation {
         return implFor(SplitStorageType.UUID).savePlayerData(uniqueId, username);
     }
 
+    @Override
+    public UserLoginResult loginUser(UUID uniqueId, String username) throws Exception {
+        StorageImplementation userImpl = implFor(SplitStorageType.USER);
+        if (userImpl == implFor(SplitStorageType.UUID)) {
+            return userImpl.loginUser(uniqueId, username);
+        }
+
+        PlayerSaveResult saveResult = savePlayerData(uniqueId, username);
+        return new UserLoginResult(saveResult, loadUser(uniqueId, username));
+    }
+
+    @Override
+    public Map<UUID, UserLoginResult> loginUserBatch(Map<UUID, String> users) throws Exception {
+        StorageImplementation userImpl = implFor(SplitStorageType.USER);
+        if (userImpl == implFor(SplitStorageType.UUID)) {
+            return userImpl.loginUserBatch(users);
+        }
+
+        Map<UUID, PlayerSaveResult> saveResults = new HashMap<>();
+        for (Map.Entry<UUID, String> user : users.entrySet()) {
+            saveResults.put(user.getKey(), savePlayerData(user.getKey(), user.getValue()));
+        }
+
+        Map<UUID, User> loaded = loadUserBatch(users);
+
+        Map<UUID, UserLoginResult> results = new HashMap<>();
+        for (UUID uniqueId : users.keySet()) {
+            results.put(uniqueId, new UserLoginResult(saveResults.get(uniqueId), loaded.get(uniqueId)));
+        }
+        return results;
+    }
+
     @Override
     public void deletePlayerData(UUID uniqueId) throws Exception {
         implFor(SplitStorageType.UUID).deletePlayerData(uniqueId);
@@ -234,4 +294,15 @@ public class SplitStorage implements StorageImplementation {
     public String getPlayerName(UUID uniqueId) throws Exception {
         return implFor(SplitStorageType.UUID).getPlayerName(uniqueId);
     }
+
+    @Override
+    public StorageChanges getChangesSince(StorageRevision sinceRevision) throws Exception {
+        // revisions are only comparable within a single backing, so changes can only be
+        // tracked if users, groups and tracks are all stored in the same place
+        StorageImplementation impl = implFor(SplitStorageType.USER);
+        if (impl != implFor(SplitStorageType.GROUP) || impl != implFor(SplitStorageType.TRACK)) {
+            return null;
+        }
+        return impl.getChangesSince(sinceRevision);
+    }
 }
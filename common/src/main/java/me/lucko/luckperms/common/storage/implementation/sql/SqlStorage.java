@@ -29,15 +29,19 @@ import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import com.google.gson.reflect.TypeToken;
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogFilter;
+import me.lucko.luckperms.common.actionlog.LogPage;
 import me.lucko.luckperms.common.actionlog.LoggedAction;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdateStatistics;
 import me.lucko.luckperms.common.bulkupdate.PreparedStatementBuilder;
+import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
 import me.lucko.luckperms.common.context.serializer.ContextSetJsonSerializer;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.Track;
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.model.manager.group.GroupManager;
+import me.lucko.luckperms.common.node.NodeInterner;
 import me.lucko.luckperms.common.node.factory.NodeBuilders;
 import me.lucko.luckperms.common.node.matcher.ConstraintNodeMatcher;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
@@ -46,14 +50,19 @@ import me.lucko.luckperms.common.storage.implementation.StorageImplementation;
 import me.lucko.luckperms.common.storage.implementation.sql.connection.ConnectionFactory;
 import me.lucko.luckperms.common.storage.misc.NodeEntry;
 import me.lucko.luckperms.common.storage.misc.PlayerSaveResultImpl;
+import me.lucko.luckperms.common.storage.misc.StorageChanges;
+import me.lucko.luckperms.common.storage.misc.StorageRevision;
+import me.lucko.luckperms.common.storage.misc.UserLoginResult;
 import me.lucko.luckperms.common.util.Difference;
 import me.lucko.luckperms.common.util.Uuids;
 import me.lucko.luckperms.common.util.gson.GsonProvider;
 import net.luckperms.api.actionlog.Action;
 import net.luckperms.api.context.DefaultContextKeys;
+import net.luckperms.api.context.ImmutableContextSet;
 import net.luckperms.api.context.MutableContextSet;
 import net.luckperms.api.model.PlayerSaveResult;
 import net.luckperms.api.node.Node;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -67,15 +76,21 @@ import java.sql.Statement;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class SqlStorage implements StorageImplementation {
@@ -95,10 +110,11 @@ public class SqlStorage implements StorageImplementation {
     private static final String PLAYER_UPDATE_USERNAME_FOR_UUID = "UPDATE '{prefix}players' SET username=? WHERE uuid=?";
     private static final String PLAYER_INSERT = "INSERT INTO '{prefix}players' (uuid, username, primary_group) VALUES(?, ?, ?)";
     private static final String PLAYER_DELETE = "DELETE FROM '{prefix}players' WHERE uuid=?";
-    private static final String PLAYER_SELECT_ALL_UUIDS_BY_USERNAME = "SELECT uuid FROM '{prefix}players' WHERE username=? AND NOT uuid=?";
     private static final String PLAYER_DELETE_ALL_UUIDS_BY_USERNAME = "DELETE FROM '{prefix}players' WHERE username=? AND NOT uuid=?";
     private static final String PLAYER_SELECT_BY_UUID = "SELECT username, primary_group FROM '{prefix}players' WHERE uuid=? LIMIT 1";
+    private static final String PLAYER_SELECT_BY_UUID_OR_USERNAME = "SELECT uuid, username, primary_group FROM '{prefix}players' WHERE uuid=? OR username=?";
     private static final String PLAYER_SELECT_BY_UUID_MULTIPLE = "SELECT uuid, username, primary_group FROM '{prefix}players' WHERE ";
+    private static final String PLAYER_SELECT_BY_UUID_OR_USERNAME_MULTIPLE = "SELECT uuid, username, primary_group FROM '{prefix}players' WHERE username IN ({usernames}) OR ";
     private static final String PLAYER_SELECT_PRIMARY_GROUP_BY_UUID = "SELECT primary_group FROM '{prefix}players' WHERE uuid=? LIMIT 1";
     private static final String PLAYER_UPDATE_PRIMARY_GROUP_BY_UUID = "UPDATE '{prefix}players' SET primary_group=? WHERE uuid=?";
 
@@ -127,12 +143,45 @@ public class SqlStorage implements StorageImplementation {
 
     private static final String ACTION_INSERT = "INSERT INTO '{prefix}actions' (time, actor_uuid, actor_name, type, acted_uuid, acted_name, action) VALUES(?, ?, ?, ?, ?, ?, ?)";
     private static final String ACTION_SELECT_ALL = "SELECT * FROM '{prefix}actions'";
+    private static final String ACTION_COUNT = "SELECT COUNT(*) FROM '{prefix}actions'";
+    private static final String ACTION_DELETE_OLD = "DELETE FROM '{prefix}actions' WHERE time<?";
+
+    private static final String CHANGES_INSERT = "INSERT INTO '{prefix}changes' (time, type, name) VALUES(?, ?, ?)";
+    private static final String CHANGES_SELECT_SINCE = "SELECT id, type, name FROM '{prefix}changes' WHERE id>? ORDER BY id LIMIT ?";
+    private static final String CHANGES_SELECT_IDS = "SELECT id, type, name FROM '{prefix}changes' WHERE id IN ({ids})";
+    private static final String CHANGES_SELECT_BOUNDS = "SELECT MIN(id), MAX(id) FROM '{prefix}changes'";
+    private static final String CHANGES_SELECT_OLDEST_RECENT = "SELECT MIN(id) FROM '{prefix}changes' WHERE time>=?";
+    private static final String CHANGES_DELETE_OLD = "DELETE FROM '{prefix}changes' WHERE time<? AND id<?";
+
+    private static final String CHANGE_TYPE_USER = "U";
+    private static final String CHANGE_TYPE_GROUP = "G";
+    private static final String CHANGE_TYPE_TRACK = "T";
+    private static final String CHANGE_TYPE_EVERYTHING = "*";
+
+    /** How long entries in the changes table are retained for */
+    private static final long CHANGES_RETENTION_MILLIS = TimeUnit.DAYS.toMillis(1);
+    /** How often old entries are pruned from the changes table */
+    private static final long CHANGES_PRUNE_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+    /**
+     * How long a gap in the ids of the changes table is assumed to belong to a
+     * transaction which hasn't committed yet, before it is skipped over
+     */
+    private static final long CHANGES_GAP_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    /** The number of entries read from the changes table per query */
+    private static final int CHANGES_PAGE_SIZE = 1000;
+    /** The number of entries since the last revision above which everything is reloaded instead */
+    private static final long CHANGES_MAX_ENTRIES = 10000;
+    /** The maximum number of missing ids to keep checking for */
+    private static final int CHANGES_MAX_MISSING = 100;
 
     private final LuckPermsPlugin plugin;
     
     private final ConnectionFactory connectionFactory;
     private final Function<String, String> statementProcessor;
 
+    /** The last time old entries were pruned from the changes table */
+    private volatile long lastChangesPruneTime = 0;
+
     public SqlStorage(LuckPermsPlugin plugin, ConnectionFactory connectionFactory, String tablePrefix) {
         this.plugin = plugin;
         this.connectionFactory = connectionFactory;
@@ -162,16 +211,28 @@ public class SqlStorage implements StorageImplementation {
         this.connectionFactory.init(this.plugin);
 
         boolean tableExists;
+        boolean changesTableExists;
+        boolean actionIndexesExist;
         try (Connection c = this.connectionFactory.getConnection()) {
             tableExists = tableExists(c, this.statementProcessor.apply("{prefix}user_permissions"));
+            changesTableExists = tableExists(c, this.statementProcessor.apply("{prefix}changes"));
+            actionIndexesExist = tableExists && indexExists(c, this.statementProcessor.apply("{prefix}actions"), "time");
         }
 
         if (!tableExists) {
-            applySchema();
+            applySchema(statement -> true);
+        } else {
+            // the changes table and action indexes were added after the initial schema, create them separately
+            if (!changesTableExists) {
+                applySchema(statement -> statement.contains("{prefix}changes"));
+            }
+            if (!actionIndexesExist) {
+                applySchema(statement -> statement.startsWith("CREATE INDEX") && statement.contains("{prefix}actions"));
+            }
         }
     }
 
-    private void applySchema() throws IOException, SQLException {
+    private void applySchema(Predicate<String> filter) throws IOException, SQLException {
         List<String> statements;
 
         String schemaFileName = "me/lucko/luckperms/schema/" + this.connectionFactory.getImplementationName().toLowerCase(Locale.ROOT) + ".sql";
@@ -181,6 +242,7 @@ public class SqlStorage implements StorageImplementation {
             }
 
             statements = SchemaReader.getStatements(is).stream()
+                    .filter(filter)
                     .map(this.statementProcessor)
                     .collect(Collectors.toList());
         }
@@ -256,6 +318,103 @@ public class SqlStorage implements StorageImplementation {
         return log.build();
     }
 
+    @Override
+    public LogPage getLogPage(LogFilter filter, int pageNumber, int pageSize, LogPage.@Nullable Cursor after, boolean countTotal) throws SQLException {
+        PreparedStatementBuilder where = new PreparedStatementBuilder();
+        boolean hasConditions = appendLogFilter(where, filter);
+
+        try (Connection c = this.connectionFactory.getConnection()) {
+            int total = LogPage.UNKNOWN_TOTAL;
+            if (countTotal) {
+                try (PreparedStatement ps = new PreparedStatementBuilder().append(ACTION_COUNT).append(where).build(c, this.statementProcessor)) {
+                    try (ResultSet rs = ps.executeQuery()) {
+                        total = rs.next() ? rs.getInt(1) : 0;
+                    }
+                }
+            }
+
+            int offset = LogPage.offset(pageNumber, pageSize);
+            if (offset < 0 || (countTotal && offset >= total)) {
+                return new LogPage(Collections.emptyList(), pageNumber, pageSize, total, null);
+            }
+
+            // read the most recent entries first, carrying on from the end of the previous
+            // page if we know where it was, so that earlier pages don't have to be skipped over
+            PreparedStatementBuilder select = new PreparedStatementBuilder().append(ACTION_SELECT_ALL).append(where);
+            if (after != null) {
+                select.append(hasConditions ? " AND " : " WHERE ")
+                        .append("(time < ").variable(after.getTime())
+                        .append(" OR (time = ").variable(after.getTime()).append(" AND id < ").variable(after.getId()).append("))");
+            }
+            select.append(" ORDER BY time DESC, id DESC LIMIT " + pageSize);
+            if (after == null && offset > 0) {
+                select.append(" OFFSET " + offset);
+            }
+
+            List<LoggedAction> content = new ArrayList<>(pageSize);
+            LogPage.Cursor next = null;
+            try (PreparedStatement ps = select.build(c, this.statementProcessor)) {
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        content.add(readAction(rs));
+                        next = new LogPage.Cursor(rs.getLong("time"), rs.getLong("id"));
+                    }
+                }
+            }
+
+            // put the entries back into chronological order
+            Collections.reverse(content);
+            return new LogPage(content, pageNumber, pageSize, total, next);
+        }
+    }
+
+    private static boolean appendLogFilter(PreparedStatementBuilder builder, LogFilter filter) {
+        List<Consumer<PreparedStatementBuilder>> conditions = new ArrayList<>();
+
+        if (filter.getSourceUniqueId() != null) {
+            conditions.add(b -> b.append("actor_uuid = ").variable(filter.getSourceUniqueId().toString()));
+        }
+        if (filter.getTargetType() != null) {
+            conditions.add(b -> b.append("type = ").variable(Character.toString(LoggedAction.getTypeCharacter(filter.getTargetType()))));
+        }
+        if (filter.getTargetUniqueId() != null) {
+            conditions.add(b -> b.append("acted_uuid = ").variable(filter.getTargetUniqueId().toString()));
+        }
+        if (filter.getTargetName() != null) {
+            conditions.add(b -> b.append("acted_name = ").variable(filter.getTargetName()));
+        }
+        if (filter.getSearch() != null) {
+            // escape any wildcard characters in the query
+            String pattern = "%" + filter.getSearch().replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+            conditions.add(b -> b.append("(LOWER(actor_name) LIKE ").variable(pattern).append(" ESCAPE ").variable("!")
+                    .append(" OR LOWER(acted_name) LIKE ").variable(pattern).append(" ESCAPE ").variable("!")
+                    .append(" OR LOWER(action) LIKE ").variable(pattern).append(" ESCAPE ").variable("!")
+                    .append(")"));
+        }
+        if (filter.getAfter() != null) {
+            conditions.add(b -> b.append("time >= ").variable(filter.getAfter().getEpochSecond()));
+        }
+        if (filter.getBefore() != null) {
+            conditions.add(b -> b.append("time < ").variable(filter.getBefore().getEpochSecond()));
+        }
+
+        for (int i = 0; i < conditions.size(); i++) {
+            builder.append(i == 0 ? " WHERE " : " AND ");
+            conditions.get(i).accept(builder);
+        }
+        return !conditions.isEmpty();
+    }
+
+    @Override
+    public void pruneLog(Instant before) throws SQLException {
+        try (Connection c = this.connectionFactory.getConnection()) {
+            try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(ACTION_DELETE_OLD))) {
+                ps.setLong(1, before.getEpochSecond());
+                ps.execute();
+            }
+        }
+    }
+
     @Override
     public void applyBulkUpdate(BulkUpdate bulkUpdate) throws SQLException {
         BulkUpdateStatistics stats = bulkUpdate.getStatistics();
@@ -314,6 +473,9 @@ public class SqlStorage implements StorageImplementation {
                     }
                 }
             }
+
+            // a bulk update could affect any holder
+            insertChange(c, CHANGE_TYPE_EVERYTHING, "*");
         }
     }
 
@@ -349,6 +511,29 @@ public class SqlStorage implements StorageImplementation {
         return users;
     }
 
+    @Override
+    public boolean supportsUserBatchLoading() {
+        return true;
+    }
+
+    @Override
+    public Map<UUID, User> loadUserBatch(Map<UUID, String> users) throws SQLException {
+        Map<UUID, List<Node>> nodesMap;
+        Map<UUID, SqlPlayerData> playerDataMap;
+
+        try (Connection c = this.connectionFactory.getConnection()) {
+            nodesMap = selectUserPermissions(c, users.keySet());
+            playerDataMap = selectPlayerData(c, users.keySet());
+        }
+
+        Map<UUID, User> loaded = new HashMap<>();
+        for (Map.Entry<UUID, String> user : users.entrySet()) {
+            UUID uniqueId = user.getKey();
+            loaded.put(uniqueId, createUser(uniqueId, user.getValue(), playerDataMap.get(uniqueId), nodesMap.get(uniqueId), true));
+        }
+        return loaded;
+    }
+
     private User createUser(UUID uniqueId, String username, SqlPlayerData playerData, List<Node> nodes, boolean saveAfterAudit) throws SQLException {
         User user = this.plugin.getUserManager().getOrMake(uniqueId, username);
         if (playerData != null) {
@@ -395,19 +580,18 @@ public class SqlStorage implements StorageImplementation {
         }
 
         if (changes == null) {
-            try (Connection c = this.connectionFactory.getConnection()) {
-                deleteUser(c, user.getUniqueId());
-            }
+            writeChange(CHANGE_TYPE_USER, user.getUniqueId().toString(), c -> deleteUser(c, user.getUniqueId()));
             return;
         }
 
-        try (Connection c = this.connectionFactory.getConnection()) {
-            updateUserPermissions(c, user.getUniqueId(), changes.getAdded(), changes.getRemoved());
+        Difference<Node> userChanges = changes;
+        writeChange(CHANGE_TYPE_USER, user.getUniqueId().toString(), c -> {
+            updateUserPermissions(c, user.getUniqueId(), userChanges.getAdded(), userChanges.getRemoved());
             insertPlayerData(c, user.getUniqueId(), new SqlPlayerData(
                     user.getPrimaryGroup().getStoredValue().orElse(GroupManager.DEFAULT_GROUP_NAME),
                     user.getUsername().orElse("null").toLowerCase(Locale.ROOT)
             ));
-        }
+        });
     }
 
     @Override
@@ -459,12 +643,12 @@ public class SqlStorage implements StorageImplementation {
     @Override
     public Group createAndLoadGroup(String name) throws SQLException {
         String query = GROUP_INSERT.getOrDefault(this.connectionFactory.getImplementationName(), GROUP_INSERT_DEFAULT);
-        try (Connection c = this.connectionFactory.getConnection()) {
+        writeChange(CHANGE_TYPE_GROUP, name, c -> {
             try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(query))) {
                 ps.setString(1, name);
                 ps.execute();
             }
-        }
+        });
 
         return loadGroup(name).get();
     }
@@ -512,22 +696,20 @@ public class SqlStorage implements StorageImplementation {
         Difference<Node> changes = group.normalData().exportChanges(c -> true);
 
         if (!changes.isEmpty()) {
-            try (Connection c = this.connectionFactory.getConnection()) {
-                updateGroupPermissions(c, group.getName(), changes.getAdded(), changes.getRemoved());
-            }
+            writeChange(CHANGE_TYPE_GROUP, group.getName(), c -> updateGroupPermissions(c, group.getName(), changes.getAdded(), changes.getRemoved()));
         }
     }
 
     @Override
     public void deleteGroup(Group group) throws SQLException {
-        try (Connection c = this.connectionFactory.getConnection()) {
+        writeChange(CHANGE_TYPE_GROUP, group.getName(), c -> {
             deleteGroupPermissions(c, group.getName());
 
             try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(GROUP_DELETE))) {
                 ps.setString(1, group.getName());
                 ps.execute();
             }
-        }
+        });
 
         this.plugin.getGroupManager().unload(group.getName());
     }
@@ -570,9 +752,7 @@ public class SqlStorage implements StorageImplementation {
         if (groups != null) {
             track.setGroups(groups);
         } else {
-            try (Connection c = this.connectionFactory.getConnection()) {
-                insertTrack(c, track.getName(), track.getGroups());
-            }
+            writeChange(CHANGE_TYPE_TRACK, track.getName(), c -> insertTrack(c, track.getName(), track.getGroups()));
         }
         return track;
     }
@@ -616,19 +796,17 @@ public class SqlStorage implements StorageImplementation {
 
     @Override
     public void saveTrack(Track track) throws SQLException {
-        try (Connection c = this.connectionFactory.getConnection()) {
-            updateTrack(c, track.getName(), track.getGroups());
-        }
+        writeChange(CHANGE_TYPE_TRACK, track.getName(), c -> updateTrack(c, track.getName(), track.getGroups()));
     }
 
     @Override
     public void deleteTrack(Track track) throws SQLException {
-        try (Connection c = this.connectionFactory.getConnection()) {
+        writeChange(CHANGE_TYPE_TRACK, track.getName(), c -> {
             try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(TRACK_DELETE))) {
                 ps.setString(1, track.getName());
                 ps.execute();
             }
-        }
+        });
 
         this.plugin.getTrackManager().unload(track.getName());
     }
@@ -636,53 +814,118 @@ public class SqlStorage implements StorageImplementation {
     @Override
     public PlayerSaveResult savePlayerData(UUID uniqueId, String username) throws SQLException {
         username = username.toLowerCase(Locale.ROOT);
-        String oldUsername = null;
+        try (Connection c = this.connectionFactory.getConnection()) {
+            Map<UUID, SqlPlayerData> existing = selectPlayerData(c, uniqueId, username);
+            return savePlayerData(c, uniqueId, username, existing);
+        }
+    }
+
+    @Override
+    public UserLoginResult loginUser(UUID uniqueId, String username) throws SQLException {
+        String lowerCaseUsername = username.toLowerCase(Locale.ROOT);
+        PlayerSaveResult saveResult;
+        SqlPlayerData playerData;
+        List<Node> nodes;
 
+        // the players existing data and any conflicting username mappings are read in a
+        // single query, then reused for both the save and the load
         try (Connection c = this.connectionFactory.getConnection()) {
-            SqlPlayerData existingPlayerData = selectPlayerData(c, uniqueId);
-            if (existingPlayerData == null) {
-                try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(PLAYER_INSERT))) {
-                    ps.setString(1, uniqueId.toString());
-                    ps.setString(2, username);
-                    ps.setString(3, GroupManager.DEFAULT_GROUP_NAME);
-                    ps.execute();
-                }
-            } else {
-                oldUsername = existingPlayerData.username;
-                if (!username.equals(oldUsername)) {
-                    try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(PLAYER_UPDATE_USERNAME_FOR_UUID))) {
-                        ps.setString(1, username);
-                        ps.setString(2, uniqueId.toString());
-                        ps.execute();
-                    }
-                }
-            }
+            Map<UUID, SqlPlayerData> existing = selectPlayerData(c, uniqueId, lowerCaseUsername);
+            saveResult = savePlayerData(c, uniqueId, lowerCaseUsername, existing);
+            nodes = selectUserPermissions(c, uniqueId);
+
+            SqlPlayerData existingPlayerData = existing.get(uniqueId);
+            String primaryGroup = existingPlayerData == null ? GroupManager.DEFAULT_GROUP_NAME : existingPlayerData.primaryGroup;
+            playerData = new SqlPlayerData(primaryGroup, lowerCaseUsername);
         }
 
-        PlayerSaveResultImpl result = PlayerSaveResultImpl.determineBaseResult(username, oldUsername);
+        return new UserLoginResult(saveResult, createUser(uniqueId, username, playerData, nodes, true));
+    }
+
+    @Override
+    public Map<UUID, UserLoginResult> loginUserBatch(Map<UUID, String> users) throws SQLException {
+        Map<UUID, PlayerSaveResult> saveResults = new HashMap<>();
+        Map<UUID, SqlPlayerData> playerData = new HashMap<>();
+        Map<UUID, List<Node>> nodesMap;
 
-        Set<UUID> conflicting = new HashSet<>();
+        // the existing data for all of the players, and any conflicting username mappings,
+        // are read in a single query. the players are then saved one by one (in the order
+        // they logged in), keeping the snapshot in step with the rows written so that
+        // players in the same batch see each others changes
         try (Connection c = this.connectionFactory.getConnection()) {
-            try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(PLAYER_SELECT_ALL_UUIDS_BY_USERNAME))) {
-                ps.setString(1, username);
-                ps.setString(2, uniqueId.toString());
-                try (ResultSet rs = ps.executeQuery()) {
-                    while (rs.next()) {
-                        conflicting.add(UUID.fromString(rs.getString("uuid")));
+            Map<UUID, String> lowerCaseUsernames = new LinkedHashMap<>();
+            users.forEach((uniqueId, username) -> lowerCaseUsernames.put(uniqueId, username.toLowerCase(Locale.ROOT)));
+
+            Map<UUID, SqlPlayerData> existing = selectPlayerData(c, lowerCaseUsernames);
+            for (Map.Entry<UUID, String> user : lowerCaseUsernames.entrySet()) {
+                UUID uniqueId = user.getKey();
+                String username = user.getValue();
+
+                Map<UUID, SqlPlayerData> existingForUser = new HashMap<>();
+                existing.forEach((uuid, data) -> {
+                    if (uuid.equals(uniqueId) || username.equals(data.username)) {
+                        existingForUser.put(uuid, data);
                     }
-                }
+                });
+
+                saveResults.put(uniqueId, savePlayerData(c, uniqueId, username, existingForUser));
+
+                SqlPlayerData existingPlayerData = existingForUser.get(uniqueId);
+                String primaryGroup = existingPlayerData == null ? GroupManager.DEFAULT_GROUP_NAME : existingPlayerData.primaryGroup;
+                SqlPlayerData data = new SqlPlayerData(primaryGroup, username);
+
+                existing.keySet().removeAll(existingForUser.keySet());
+                existing.put(uniqueId, data);
+                playerData.put(uniqueId, data);
             }
+
+            nodesMap = selectUserPermissions(c, users.keySet());
         }
 
-        if (!conflicting.isEmpty()) {
-            // remove the mappings for conflicting uuids
-            try (Connection c = this.connectionFactory.getConnection()) {
-                try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(PLAYER_DELETE_ALL_UUIDS_BY_USERNAME))) {
+        Map<UUID, UserLoginResult> results = new HashMap<>();
+        for (Map.Entry<UUID, String> user : users.entrySet()) {
+            UUID uniqueId = user.getKey();
+            User loaded = createUser(uniqueId, user.getValue(), playerData.get(uniqueId), nodesMap.get(uniqueId), true);
+            results.put(uniqueId, new UserLoginResult(saveResults.get(uniqueId), loaded));
+        }
+        return results;
+    }
+
+    private PlayerSaveResultImpl savePlayerData(Connection c, UUID uniqueId, String username, Map<UUID, SqlPlayerData> existing) throws SQLException {
+        SqlPlayerData existingPlayerData = existing.get(uniqueId);
+        String oldUsername = null;
+
+        if (existingPlayerData == null) {
+            try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(PLAYER_INSERT))) {
+                ps.setString(1, uniqueId.toString());
+                ps.setString(2, username);
+                ps.setString(3, GroupManager.DEFAULT_GROUP_NAME);
+                ps.execute();
+            }
+        } else {
+            oldUsername = existingPlayerData.username;
+            if (!username.equals(oldUsername)) {
+                try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(PLAYER_UPDATE_USERNAME_FOR_UUID))) {
                     ps.setString(1, username);
                     ps.setString(2, uniqueId.toString());
                     ps.execute();
                 }
             }
+        }
+
+        PlayerSaveResultImpl result = PlayerSaveResultImpl.determineBaseResult(username, oldUsername);
+
+        // any other rows were selected because they share the username
+        Set<UUID> conflicting = new HashSet<>(existing.keySet());
+        conflicting.remove(uniqueId);
+
+        if (!conflicting.isEmpty()) {
+            // remove the mappings for conflicting uuids
+            try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(PLAYER_DELETE_ALL_UUIDS_BY_USERNAME))) {
+                ps.setString(1, username);
+                ps.setString(2, uniqueId.toString());
+                ps.execute();
+            }
             result = result.withOtherUuidsPresent(conflicting);
         }
 
@@ -733,6 +976,151 @@ public class SqlStorage implements StorageImplementation {
         return null;
     }
 
+    @Override
+    public StorageChanges getChangesSince(StorageRevision sinceRevision) throws SQLException {
+        try (Connection c = this.connectionFactory.getConnection()) {
+            // prune before reading the bounds, so that the check below sees the real oldest entry
+            pruneChanges(c);
+
+            long oldest;
+            long latest;
+            try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(CHANGES_SELECT_BOUNDS))) {
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    oldest = rs.getLong(1);
+                    latest = rs.getLong(2);
+                }
+            }
+
+            long now = System.currentTimeMillis();
+            long since = sinceRevision.getLatest();
+
+            // if there is no previous revision, the changes table has been reset, or the
+            // entries since the previous revision have been pruned, we don't know what changed
+            if (sinceRevision.isUnknown() || latest < since || (oldest - 1) > since) {
+                return StorageChanges.everything(getSafeRevision(c, latest, now));
+            }
+
+            // if too much has changed, it's quicker to reload everything
+            if (latest - since > CHANGES_MAX_ENTRIES) {
+                return StorageChanges.everything(getSafeRevision(c, latest, now));
+            }
+
+            ChangesReader reader = new ChangesReader();
+
+            // ids are allocated before the inserting transaction commits, so an entry with a
+            // lower id can become visible after one with a higher id. any gaps in the ids are
+            // remembered and checked for again next time, until they have been there for long
+            // enough to be ignored.
+            Map<Long, Long> missing = new HashMap<>();
+            for (Map.Entry<Long, Long> e : sinceRevision.getMissing().entrySet()) {
+                if (now - e.getValue() < CHANGES_GAP_TIMEOUT_MILLIS) {
+                    missing.put(e.getKey(), e.getValue());
+                }
+            }
+            if (!missing.isEmpty()) {
+                List<Long> ids = new ArrayList<>(missing.keySet());
+                String query = CHANGES_SELECT_IDS.replace("{ids}", String.join(", ", Collections.nCopies(ids.size(), "?")));
+                try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(query))) {
+                    for (int i = 0; i < ids.size(); i++) {
+                        ps.setLong(i + 1, ids.get(i));
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            missing.remove(rs.getLong("id"));
+                            if (!reader.read(rs)) {
+                                return StorageChanges.everything(getSafeRevision(c, latest, now));
+                            }
+                        }
+                    }
+                }
+            }
+
+            // read the new entries a page at a time
+            long revision = since;
+            int read;
+            do {
+                read = 0;
+                try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(CHANGES_SELECT_SINCE))) {
+                    ps.setLong(1, revision);
+                    ps.setInt(2, CHANGES_PAGE_SIZE);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            read++;
+                            long id = rs.getLong("id");
+                            for (long gap = revision + 1; gap < id && missing.size() < CHANGES_MAX_MISSING; gap++) {
+                                missing.put(gap, now);
+                            }
+                            revision = id;
+
+                            if (!reader.read(rs)) {
+                                return StorageChanges.everything(getSafeRevision(c, latest, now));
+                            }
+                        }
+                    }
+                }
+            } while (read == CHANGES_PAGE_SIZE);
+
+            return StorageChanges.of(StorageRevision.of(revision, missing), reader.users, reader.groups, reader.tracks);
+        }
+    }
+
+    /**
+     * Gets the revision to resume from after reloading everything.
+     *
+     * <p>Entries written recently are read again next time, in case an entry with a
+     * lower id is yet to be committed.</p>
+     */
+    private StorageRevision getSafeRevision(Connection c, long latest, long now) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(CHANGES_SELECT_OLDEST_RECENT))) {
+            ps.setLong(1, now - CHANGES_GAP_TIMEOUT_MILLIS);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    long oldestRecent = rs.getLong(1);
+                    if (!rs.wasNull()) {
+                        return StorageRevision.of(Math.min(latest, oldestRecent - 1));
+                    }
+                }
+            }
+        }
+        return StorageRevision.of(latest);
+    }
+
+    /**
+     * Collects the holders referenced by rows in the changes table.
+     */
+    private static final class ChangesReader {
+        private final Set<UUID> users = new HashSet<>();
+        private final Set<String> groups = new HashSet<>();
+        private final Set<String> tracks = new HashSet<>();
+
+        /**
+         * Reads a row from the changes table.
+         *
+         * @param rs the result set
+         * @return false if the change affects everything
+         * @throws SQLException if an error occurs
+         */
+        boolean read(ResultSet rs) throws SQLException {
+            String type = rs.getString("type");
+            String name = rs.getString("name");
+
+            if (type.equals(CHANGE_TYPE_USER)) {
+                UUID uniqueId = Uuids.fromString(name);
+                if (uniqueId != null) {
+                    this.users.add(uniqueId);
+                }
+            } else if (type.equals(CHANGE_TYPE_GROUP)) {
+                this.groups.add(name.toLowerCase(Locale.ROOT));
+            } else if (type.equals(CHANGE_TYPE_TRACK)) {
+                this.tracks.add(name.toLowerCase(Locale.ROOT));
+            } else {
+                return false;
+            }
+            return true;
+        }
+    }
+
     private static void writeAction(Action action, PreparedStatement ps) throws SQLException {
         ps.setLong(1, action.getTimestamp().getEpochSecond());
         ps.setString(2, action.getSource().getUniqueId().toString());
@@ -777,12 +1165,17 @@ public class SqlStorage implements StorageImplementation {
             world = "global";
         }
 
+        ImmutableContextSet contextSet = new ImmutableContextSetImpl.BuilderImpl()
+                .add(DefaultContextKeys.SERVER_KEY, server)
+                .add(DefaultContextKeys.WORLD_KEY, world)
+                .addAll(ContextSetJsonSerializer.deserializeFromString(contexts))
+                .build();
+
+        // the node itself can't be shared, as it holds the row id
         return NodeBuilders.determineMostApplicable(permission)
                 .value(value)
-                .withContext(DefaultContextKeys.SERVER_KEY, server)
-                .withContext(DefaultContextKeys.WORLD_KEY, world)
+                .context(NodeInterner.intern(contextSet))
                 .expiry(expiry)
-                .withContext(ContextSetJsonSerializer.deserialize(GsonProvider.normal(), contexts).immutableCopy())
                 .withMetadata(SqlRowId.KEY, new SqlRowId(id))
                 .build();
     }
@@ -799,9 +1192,18 @@ public class SqlStorage implements StorageImplementation {
     }
 
     private static void writeNode(Node node, PreparedStatement ps) throws SQLException {
-        MutableContextSet contexts = node.getContexts().mutableCopy();
-        String server = getFirstContextValue(contexts, DefaultContextKeys.SERVER_KEY);
-        String world = getFirstContextValue(contexts, DefaultContextKeys.WORLD_KEY);
+        String server = "global";
+        String world = "global";
+        String contextsJson = "{}";
+
+        ImmutableContextSet nodeContexts = node.getContexts();
+        if (!nodeContexts.isEmpty()) {
+            MutableContextSet contexts = nodeContexts.mutableCopy();
+            server = getFirstContextValue(contexts, DefaultContextKeys.SERVER_KEY);
+            world = getFirstContextValue(contexts, DefaultContextKeys.WORLD_KEY);
+            contextsJson = ContextSetJsonSerializer.serializeToString(contexts);
+        }
+
         long expiry = node.hasExpiry() ? node.getExpiry().getEpochSecond() : 0L;
 
         ps.setString(2, node.getKey());
@@ -809,7 +1211,7 @@ public class SqlStorage implements StorageImplementation {
         ps.setString(4, server);
         ps.setString(5, world);
         ps.setLong(6, expiry);
-        ps.setString(7, GsonProvider.normal().toJson(ContextSetJsonSerializer.serialize(contexts)));
+        ps.setString(7, contextsJson);
     }
 
     private void updateUserPermissions(Connection c, UUID user, Set<Node> add, Set<Node> delete) throws SQLException {
@@ -895,6 +1297,41 @@ public class SqlStorage implements StorageImplementation {
         }
     }
 
+    private Map<UUID, SqlPlayerData> selectPlayerData(Connection c, UUID user, String username) throws SQLException {
+        Map<UUID, SqlPlayerData> map = new HashMap<>();
+        try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(PLAYER_SELECT_BY_UUID_OR_USERNAME))) {
+            ps.setString(1, user.toString());
+            ps.setString(2, username);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    UUID uuid = UUID.fromString(rs.getString("uuid"));
+                    map.put(uuid, new SqlPlayerData(rs.getString("primary_group"), rs.getString("username")));
+                }
+            }
+        }
+        return map;
+    }
+
+    private Map<UUID, SqlPlayerData> selectPlayerData(Connection c, Map<UUID, String> users) throws SQLException {
+        Map<UUID, SqlPlayerData> map = new HashMap<>();
+
+        // usernames are bound as parameters, the uuids are inlined (see createUserSelectWhereClause)
+        List<String> usernames = new ArrayList<>(new LinkedHashSet<>(users.values()));
+        String query = PLAYER_SELECT_BY_UUID_OR_USERNAME_MULTIPLE.replace("{usernames}", String.join(", ", Collections.nCopies(usernames.size(), "?")));
+        try (PreparedStatement ps = c.prepareStatement(createUserSelectWhereClause(query, users.keySet()))) {
+            for (int i = 0; i < usernames.size(); i++) {
+                ps.setString(i + 1, usernames.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    UUID uuid = UUID.fromString(rs.getString("uuid"));
+                    map.put(uuid, new SqlPlayerData(rs.getString("primary_group"), rs.getString("username")));
+                }
+            }
+        }
+        return map;
+    }
+
     private Map<UUID, List<Node>> selectUserPermissions(Connection c, Set<UUID> users) throws SQLException {
         Map<UUID, List<Node>> map = new HashMap<>();
         for (UUID uuid : users) {
@@ -908,7 +1345,7 @@ public class SqlStorage implements StorageImplementation {
                     UUID uuid = UUID.fromString(rs.getString("uuid"));
                     Node node = readNode(rs);
                     if (node != null) {
-                        map.get(uuid).add(readNode(rs));
+                        map.get(uuid).add(node);
                     }
                 }
             }
@@ -1083,6 +1520,100 @@ public class SqlStorage implements StorageImplementation {
         return tracks;
     }
 
+    /**
+     * Performs a write, and records the holder it changed in the changes table.
+     *
+     * <p>Both are done in the same transaction, so that the write can't be committed
+     * without its entry in the changes table. Connections to flatfile databases are
+     * shared between threads, so can't be used for transactions - those databases are
+     * only accessed by this process anyway.</p>
+     *
+     * @param type the type of holder
+     * @param name the name of the holder
+     * @param write the write to perform
+     * @throws SQLException if an error occurs
+     */
+    private void writeChange(String type, String name, SqlWrite write) throws SQLException {
+        try (Connection c = this.connectionFactory.getConnection()) {
+            if (this.connectionFactory.isConnectionShared()) {
+                write.write(c);
+                insertChange(c, type, name);
+                return;
+            }
+
+            boolean autoCommit = c.getAutoCommit();
+            c.setAutoCommit(false);
+            try {
+                write.write(c);
+                insertChange(c, type, name);
+                c.commit();
+            } catch (SQLException | RuntimeException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private void insertChange(Connection c, String type, String name) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(CHANGES_INSERT))) {
+            ps.setLong(1, System.currentTimeMillis());
+            ps.setString(2, type);
+            ps.setString(3, name);
+            ps.execute();
+        }
+    }
+
+    private void pruneChanges(Connection c) throws SQLException {
+        long now = System.currentTimeMillis();
+        if (now - this.lastChangesPruneTime < CHANGES_PRUNE_INTERVAL_MILLIS) {
+            return;
+        }
+        this.lastChangesPruneTime = now;
+
+        long latest;
+        try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(CHANGES_SELECT_BOUNDS))) {
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                latest = rs.getLong(2);
+            }
+        }
+
+        // always keep the latest entry, so the current revision can still be determined
+        try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(CHANGES_DELETE_OLD))) {
+            ps.setLong(1, now - CHANGES_RETENTION_MILLIS);
+            ps.setLong(2, latest);
+            ps.execute();
+        }
+    }
+
+    private static boolean indexExists(Connection connection, String table, String column) throws SQLException {
+        // find the table name as it's stored in the metadata, which may differ in case
+        String tableName = null;
+        try (ResultSet rs = connection.getMetaData().getTables(connection.getCatalog(), null, "%", null)) {
+            while (rs.next()) {
+                if (rs.getString(3).equalsIgnoreCase(table)) {
+                    tableName = rs.getString(3);
+                    break;
+                }
+            }
+        }
+        if (tableName == null) {
+            return false;
+        }
+
+        try (ResultSet rs = connection.getMetaData().getIndexInfo(connection.getCatalog(), null, tableName, false, true)) {
+            while (rs.next()) {
+                String indexedColumn = rs.getString("COLUMN_NAME");
+                if (indexedColumn != null && indexedColumn.equalsIgnoreCase(column)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
     private static boolean tableExists(Connection connection, String table) throws SQLException {
         try (ResultSet rs = connection.getMetaData().getTables(connection.getCatalog(), null, "%", null)) {
             while (rs.next()) {
@@ -1104,4 +1635,9 @@ public class SqlStorage implements StorageImplementation {
         }
     }
 
+
+    @FunctionalInterface
+    private interface SqlWrite {
+        void write(Connection c) throws SQLException;
+    }
 }
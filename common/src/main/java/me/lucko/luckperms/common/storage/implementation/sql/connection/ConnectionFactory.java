@@ -46,4 +46,14 @@ public interface ConnectionFactory {
 
     Connection getConnection() throws SQLException;
 
+    /**
+     * Gets if the connections returned by {@link #getConnection()} are shared
+     * between threads, in which case they can't be used for transactions.
+     *
+     * @return if connections are shared
+     */
+    default boolean isConnectionShared() {
+        return false;
+    }
+
 }
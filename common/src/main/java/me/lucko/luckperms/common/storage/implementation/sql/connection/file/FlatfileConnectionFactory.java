@@ -67,6 +67,11 @@ abstract class FlatfileConnectionFactory implements ConnectionFactory {
         return connection;
     }
 
+    @Override
+    public boolean isConnectionShared() {
+        return true;
+    }
+
     @Override
     public void shutdown() throws Exception {
         if (this.connection != null) {
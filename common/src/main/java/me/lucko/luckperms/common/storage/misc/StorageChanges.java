@@ -0,0 +1,114 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage.misc;
+
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The set of holders which have been changed in storage since a given revision.
+ *
+ * <p>Revisions are assigned by the storage implementation and increase monotonically
+ * each time a user, group or track is modified.</p>
+ */
+public final class StorageChanges {
+
+    /**
+     * Creates a {@link StorageChanges} instance indicating that the specific changes
+     * could not be determined, and all data should be reloaded.
+     *
+     * @param revision the latest revision
+     * @return the changes
+     */
+    public static StorageChanges everything(StorageRevision revision) {
+        return new StorageChanges(revision, true, ImmutableSet.of(), ImmutableSet.of(), ImmutableSet.of());
+    }
+
+    public static StorageChanges of(StorageRevision revision, Set<UUID> users, Set<String> groups, Set<String> tracks) {
+        return new StorageChanges(revision, false, ImmutableSet.copyOf(users), ImmutableSet.copyOf(groups), ImmutableSet.copyOf(tracks));
+    }
+
+    private final StorageRevision revision;
+    private final boolean everything;
+    private final Set<UUID> users;
+    private final Set<String> groups;
+    private final Set<String> tracks;
+
+    private StorageChanges(StorageRevision revision, boolean everything, Set<UUID> users, Set<String> groups, Set<String> tracks) {
+        this.revision = revision;
+        this.everything = everything;
+        this.users = users;
+        this.groups = groups;
+        this.tracks = tracks;
+    }
+
+    /**
+     * Gets the revision these changes are up to date with, which should be passed
+     * to the next request for changes.
+     *
+     * <p>Changes made after this revision may already be included, in which case
+     * they will be returned again by the next request.</p>
+     *
+     * @return the revision
+     */
+    public StorageRevision getRevision() {
+        return this.revision;
+    }
+
+    /**
+     * Gets if all data should be reloaded, instead of only the holders returned
+     * by {@link #getUsers()}, {@link #getGroups()} and {@link #getTracks()}.
+     *
+     * @return true if everything has (potentially) changed
+     */
+    public boolean isEverything() {
+        return this.everything;
+    }
+
+    public Set<UUID> getUsers() {
+        return this.users;
+    }
+
+    public Set<String> getGroups() {
+        return this.groups;
+    }
+
+    public Set<String> getTracks() {
+        return this.tracks;
+    }
+
+    public boolean isEmpty() {
+        return !this.everything && this.users.isEmpty() && this.groups.isEmpty() && this.tracks.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "StorageChanges(revision=" + this.revision + ", everything=" + this.everything +
+                ", users=" + this.users + ", groups=" + this.groups + ", tracks=" + this.tracks + ')';
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.common.storage.misc;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+
+/**
+ * A position in the changes recorded by a storage implementation.
+ *
+ * <p>Revisions are made up of the latest change which has been read, and the ids of
+ * any earlier changes which were missing when it was read (for example as they
+ * belong to a transaction which had not yet committed). Missing ids are mapped to
+ * the time they were first found to be missing.</p>
+ */
+public final class StorageRevision {
+
+    /** The revision used when nothing is known about the state of the storage */
+    public static final StorageRevision UNKNOWN = new StorageRevision(-1, ImmutableMap.of());
+
+    public static StorageRevision of(long latest) {
+        return new StorageRevision(latest, ImmutableMap.of());
+    }
+
+    public static StorageRevision of(long latest, Map<Long, Long> missing) {
+        return new StorageRevision(latest, ImmutableMap.copyOf(missing));
+    }
+
+    private final long latest;
+    private final Map<Long, Long> missing;
+
+    private StorageRevision(long latest, Map<Long, Long> missing) {
+        this.latest = latest;
+        this.missing = missing;
+    }
+
+    /**
+     * Gets the id of the latest change included in this revision, or -1 if unknown.
+     *
+     * @return the latest id
+     */
+    public long getLatest() {
+        return this.latest;
+    }
+
+    /**
+     * Gets the ids below {@link #getLatest()} which have not been read yet, mapped
+     * to the time they were first found to be missing.
+     *
+     * @return the missing ids
+     */
+    public Map<Long, Long> getMissing() {
+        return this.missing;
+    }
+
+    public boolean isUnknown() {
+        return this.latest < 0;
+    }
+
+    @Override
+    public String toString() {
+        return "StorageRevision(latest=" + this.latest + ", missing=" + this.missing.keySet() + ')';
+    }
+}
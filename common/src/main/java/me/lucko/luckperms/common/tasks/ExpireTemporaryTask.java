@@ -26,9 +26,15 @@
 package me.lucko.luckperms.common.tasks;
 
 import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.PermissionHolder;
+import me.lucko.luckperms.common.model.PermissionHolderIdentifier;
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 public class ExpireTemporaryTask implements Runnable {
     private final LuckPermsPlugin plugin;
 
@@ -38,24 +44,36 @@ public class ExpireTemporaryTask implements Runnable {
 
     @Override
     public void run() {
-        boolean groupChanges = false;
-        for (Group group : this.plugin.getGroupManager().getAll().values()) {
-            if (group.auditTemporaryNodes()) {
-                this.plugin.getStorage().saveGroup(group);
-                groupChanges = true;
-            }
+        // only visit the holders which have a node due to expire
+        List<PermissionHolderIdentifier> due = this.plugin.getTemporaryNodeExpiryQueue().pollDue(System.currentTimeMillis());
+        if (due.isEmpty()) {
+            return;
         }
 
-        for (User user : this.plugin.getUserManager().getAll().values()) {
-            if (user.auditTemporaryNodes()) {
-                this.plugin.getStorage().saveUser(user);
+        Set<String> changedGroups = new HashSet<>();
+        for (PermissionHolderIdentifier identifier : due) {
+            PermissionHolder holder = identifier.getIfLoaded(this.plugin);
+            if (holder == null) {
+                // no longer loaded - will be rescheduled if/when it is loaded again
+                continue;
             }
+
+            if (holder.auditTemporaryNodes()) {
+                if (holder instanceof Group) {
+                    this.plugin.getStorage().saveGroup((Group) holder);
+                    changedGroups.add(((Group) holder).getName());
+                } else {
+                    this.plugin.getStorage().saveUser((User) holder);
+                }
+            }
+
+            // schedule the holders next expiry, if it has one
+            holder.scheduleTemporaryNodeExpiry();
         }
 
-        if (groupChanges) {
-            this.plugin.getGroupManager().invalidateAllGroupCaches();
-            this.plugin.getUserManager().invalidateAllUserCaches();
+        if (!changedGroups.isEmpty()) {
+            this.plugin.getInheritanceIndex().invalidateDependants(changedGroups);
         }
     }
 
-}
\ No newline at end of file
+}
@@ -26,22 +26,41 @@
 package me.lucko.luckperms.common.tasks;
 
 import me.lucko.luckperms.common.cache.BufferedRequest;
+import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.manager.group.GroupManager;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.storage.misc.StorageChanges;
+import me.lucko.luckperms.common.storage.misc.StorageRevision;
 import net.luckperms.api.event.cause.CreationCause;
 
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * System wide sync task for LuckPerms.
  *
  * <p>Ensures that all local data is consistent with the storage.</p>
+ *
+ * <p>If the storage keeps track of changes, only the users, groups and tracks which
+ * have changed since the last sync are reloaded. Otherwise, all data is reloaded.</p>
  */
 public class SyncTask implements Runnable {
     private final LuckPermsPlugin plugin;
 
+    /** The storage revision the local data was last synced with */
+    private final AtomicReference<StorageRevision> revision;
+
     public SyncTask(LuckPermsPlugin plugin) {
+        this(plugin, new AtomicReference<>(StorageRevision.UNKNOWN));
+    }
+
+    public SyncTask(LuckPermsPlugin plugin, AtomicReference<StorageRevision> revision) {
         this.plugin = plugin;
+        this.revision = revision;
     }
 
     /**
@@ -55,6 +74,28 @@ public class SyncTask implements Runnable {
             return;
         }
 
+        // Find out what has changed - this is done before loading anything so
+        // that changes made whilst the sync is running are picked up next time
+        StorageRevision revision = this.revision.get();
+        StorageChanges changes = this.plugin.getStorage().getChangesSince(revision).join();
+
+        if (changes == null || changes.isEverything()) {
+            syncEverything();
+        } else if (!changes.isEmpty()) {
+            syncChanges(changes);
+        }
+
+        // the new revision may be lower, if the storage was reset or wants recent changes to be read again
+        if (changes != null) {
+            this.revision.compareAndSet(revision, changes.getRevision());
+        }
+
+        this.plugin.performPlatformDataSync();
+
+        this.plugin.getEventDispatcher().dispatchPostSync();
+    }
+
+    private void syncEverything() {
         // Reload all groups
         this.plugin.getStorage().loadAllGroups().join();
         if (!this.plugin.getGroupManager().isLoaded(GroupManager.DEFAULT_GROUP_NAME)) {
@@ -67,17 +108,49 @@ public class SyncTask implements Runnable {
         // Reload all online users.
         this.plugin.getUserManager().loadAllUsers().join();
 
-        this.plugin.performPlatformDataSync();
-
         // Just to be sure...
         this.plugin.getGroupManager().invalidateAllGroupCaches();
         this.plugin.getUserManager().invalidateAllUserCaches();
+    }
 
-        this.plugin.getEventDispatcher().dispatchPostSync();
+    private void syncChanges(StorageChanges changes) {
+        // Reload changed groups, unloading any which no longer exist
+        for (String groupName : changes.getGroups()) {
+            Optional<Group> group = this.plugin.getStorage().loadGroup(groupName).join();
+            if (!group.isPresent()) {
+                this.plugin.getGroupManager().unload(groupName);
+            }
+        }
+        if (!this.plugin.getGroupManager().isLoaded(GroupManager.DEFAULT_GROUP_NAME)) {
+            this.plugin.getStorage().createAndLoadGroup(GroupManager.DEFAULT_GROUP_NAME, CreationCause.INTERNAL).join();
+        }
+
+        // Reload changed tracks, unloading any which no longer exist
+        for (String trackName : changes.getTracks()) {
+            if (!this.plugin.getStorage().loadTrack(trackName).join().isPresent()) {
+                this.plugin.getTrackManager().unload(trackName);
+            }
+        }
+
+        // Reload changed users, if they're loaded - all together, in as few queries as the storage allows
+        Set<UUID> loadedUsers = new HashSet<>();
+        for (UUID uniqueId : changes.getUsers()) {
+            if (this.plugin.getUserManager().isLoaded(uniqueId)) {
+                loadedUsers.add(uniqueId);
+            }
+        }
+        if (!loadedUsers.isEmpty()) {
+            this.plugin.getStorage().loadUsers(loadedUsers).join();
+        }
+
+        if (!changes.getGroups().isEmpty()) {
+            this.plugin.getInheritanceIndex().invalidateDependants(changes.getGroups());
+        }
     }
 
     public static class Buffer extends BufferedRequest<Void> {
         private final LuckPermsPlugin plugin;
+        private final AtomicReference<StorageRevision> revision = new AtomicReference<>(StorageRevision.UNKNOWN);
 
         public Buffer(LuckPermsPlugin plugin) {
             super(500L, TimeUnit.MILLISECONDS, plugin.getBootstrap().getScheduler());
@@ -86,7 +159,7 @@ public class SyncTask implements Runnable {
 
         @Override
         protected Void perform() {
-            new SyncTask(this.plugin).run();
+            new SyncTask(this.plugin, this.revision).run();
             return null;
         }
     }
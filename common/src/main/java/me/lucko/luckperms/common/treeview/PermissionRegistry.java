@@ -26,6 +26,7 @@
 package me.lucko.luckperms.common.treeview;
 
 import com.google.common.base.Splitter;
+import me.lucko.luckperms.common.cache.PermissionKeyInterner;
 import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
 import me.lucko.luckperms.common.plugin.scheduler.SchedulerTask;
 import me.lucko.luckperms.common.util.ImmutableCollectors;
@@ -70,7 +71,8 @@ public class PermissionRegistry implements AutoCloseable {
         if (permission == null) {
             throw new NullPointerException("permission");
         }
-        this.queue.offer(permission);
+        // dedupe against the interner, so queued permissions share the canonical instance
+        this.queue.offer(PermissionKeyInterner.intern(permission));
     }
 
     private void tick() {
@@ -35,23 +35,20 @@ import java.util.concurrent.TimeUnit;
  * @param <E> element type
  */
 public class ExpiringSet<E> {
-    private final Cache<E, Long> cache;
-    private final long lifetime;
+    private final Cache<E, Boolean> cache;
 
     public ExpiringSet(long duration, TimeUnit unit) {
         this.cache = CaffeineFactory.newBuilder().expireAfterWrite(duration, unit).build();
-        this.lifetime = unit.toMillis(duration);
     }
 
     public boolean add(E item) {
-        boolean present = contains(item);
-        this.cache.put(item, System.currentTimeMillis() + this.lifetime);
-        return !present;
+        // entries which have expired are never returned by the cache,
+        // so a single put is enough to both refresh the entry and check if it was present
+        return this.cache.asMap().put(item, Boolean.TRUE) == null;
     }
 
     public boolean contains(E item) {
-        Long timeout = this.cache.getIfPresent(item);
-        return timeout != null && timeout > System.currentTimeMillis();
+        return this.cache.getIfPresent(item) != null;
     }
 
     public void remove(E item) {
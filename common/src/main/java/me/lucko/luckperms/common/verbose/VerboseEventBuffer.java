@@ -0,0 +1,147 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.verbose;
+
+import me.lucko.luckperms.common.verbose.event.VerboseEvent;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, preallocated multi-producer single-consumer ring buffer of {@link VerboseEvent}s.
+ *
+ * <p>Events are offered by the threads performing permission checks, and drained by the
+ * {@link VerboseHandler} tick task. When the buffer is full, new events are dropped
+ * (and counted) rather than blocking the checking thread or growing without bound.</p>
+ */
+final class VerboseEventBuffer {
+
+    /** The slots in the buffer */
+    private final AtomicReferenceArray<VerboseEvent> buffer;
+    /** The sequence number of each slot, used to coordinate producers with the consumer */
+    private final AtomicLongArray sequences;
+    /** The mask used to map a position to a slot index */
+    private final int mask;
+
+    /** The next position to be claimed by a producer */
+    private final AtomicLong head = new AtomicLong();
+    /** The next position to be read by the consumer */
+    private long tail = 0;
+
+    /** The number of events which have been dropped because the buffer was full */
+    private final LongAdder dropped = new LongAdder();
+
+    VerboseEventBuffer(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2");
+        }
+
+        // round up to the next power of two
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            this.sequences.set(i, i);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Gets the number of slots in the buffer.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return this.mask + 1;
+    }
+
+    /**
+     * Attempts to add an event to the buffer.
+     *
+     * <p>This method is safe to be called concurrently by any number of threads.</p>
+     *
+     * @param event the event
+     * @return true if the event was added, false if it was dropped
+     */
+    public boolean offer(VerboseEvent event) {
+        long pos = this.head.get();
+        while (true) {
+            int index = (int) (pos & this.mask);
+            long diff = this.sequences.get(index) - pos;
+
+            if (diff == 0) {
+                // the slot is free, try to claim it
+                if (this.head.compareAndSet(pos, pos + 1)) {
+                    this.buffer.lazySet(index, event);
+                    this.sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = this.head.get();
+            } else if (diff < 0) {
+                // the slot still holds an event from the previous lap - the buffer is full
+                this.dropped.increment();
+                return false;
+            } else {
+                // another producer claimed the slot first
+                pos = this.head.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the next event from the buffer.
+     *
+     * <p>This method must only be called by one thread at a time.</p>
+     *
+     * @return the next event, or null if the buffer is empty
+     */
+    public @Nullable VerboseEvent poll() {
+        long pos = this.tail;
+        int index = (int) (pos & this.mask);
+        if (this.sequences.get(index) != pos + 1) {
+            return null;
+        }
+
+        VerboseEvent event = this.buffer.get(index);
+        this.buffer.lazySet(index, null);
+        this.sequences.set(index, pos + this.mask + 1);
+        this.tail = pos + 1;
+        return event;
+    }
+
+    /**
+     * Gets the number of events which have been dropped since the buffer was created.
+     *
+     * @return the dropped event count
+     */
+    public long droppedCount() {
+        return this.dropped.sum();
+    }
+
+}
@@ -36,11 +36,11 @@ import me.lucko.luckperms.common.verbose.event.PermissionCheckEvent;
 import me.lucko.luckperms.common.verbose.event.VerboseEvent;
 import net.luckperms.api.query.QueryOptions;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -48,25 +48,40 @@ import java.util.concurrent.TimeUnit;
  */
 public class VerboseHandler implements AutoCloseable {
 
+    /** The default number of events which can be buffered between ticks */
+    public static final int DEFAULT_BUFFER_SIZE = 16384;
+    /** The default maximum number of stack frames captured for each event */
+    public static final int DEFAULT_TRACE_DEPTH = 64;
+
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+    private static final String HANDLER_CLASS_NAME = VerboseHandler.class.getName();
+
     /** A map of currently registered listeners */
     private final Map<UUID, VerboseListener> listeners;
-    /** A queue of verbose events to be handled */
-    private final Queue<VerboseEvent> queue;
+    /** A buffer of verbose events to be handled */
+    private final VerboseEventBuffer buffer;
+    /** The maximum number of stack frames to capture for each event */
+    private final int traceDepth;
     /** If there are any listeners registered */
     private boolean listening = false;
     /** The tick task */
     private final SchedulerTask task;
 
     public VerboseHandler(SchedulerAdapter scheduler) {
+        this(scheduler, DEFAULT_BUFFER_SIZE, DEFAULT_TRACE_DEPTH);
+    }
+
+    public VerboseHandler(SchedulerAdapter scheduler, int bufferSize, int traceDepth) {
         this.listeners = new ConcurrentHashMap<>();
-        this.queue = new ConcurrentLinkedQueue<>();
+        this.buffer = new VerboseEventBuffer(bufferSize);
+        this.traceDepth = traceDepth;
         this.task = scheduler.asyncRepeating(this::tick, 100, TimeUnit.MILLISECONDS);
     }
 
     /**
      * Offers permission check data to the handler, to be eventually passed onto listeners.
      *
-     * <p>The check data is added to a queue to be processed later, to avoid blocking
+     * <p>The check data is added to a buffer to be processed later, to avoid blocking
      * the main thread each time a permission check is made.</p>
      *
      * @param origin the origin of the check
@@ -82,17 +97,15 @@ public class VerboseHandler implements AutoCloseable {
         }
 
         long time = System.currentTimeMillis();
-        Throwable trace = new Throwable();
         String thread = Thread.currentThread().getName();
 
-        // add the check data to a queue to be processed later.
-        this.queue.offer(new PermissionCheckEvent(origin, checkTarget, checkQueryOptions, time, trace, thread, permission, result));
+        offer(new PermissionCheckEvent(origin, checkTarget, checkQueryOptions, time, thread, permission, result));
     }
 
     /**
      * Offers meta check data to the handler, to be eventually passed onto listeners.
      *
-     * <p>The check data is added to a queue to be processed later, to avoid blocking
+     * <p>The check data is added to a buffer to be processed later, to avoid blocking
      * the main thread each time a meta check is made.</p>
      *
      * @param origin the origin of the check
@@ -108,11 +121,47 @@ public class VerboseHandler implements AutoCloseable {
         }
 
         long time = System.currentTimeMillis();
-        Throwable trace = new Throwable();
         String thread = Thread.currentThread().getName();
 
-        // add the check data to a queue to be processed later.
-        this.queue.offer(new MetaCheckEvent(origin, checkTarget, checkQueryOptions, time, trace, thread, key, result));
+        offer(new MetaCheckEvent(origin, checkTarget, checkQueryOptions, time, thread, key, result));
+    }
+
+    private void offer(VerboseEvent event) {
+        // run the listener filters now, so events nobody is interested in are never
+        // traced or buffered. the accepting listeners are recorded on the event so the
+        // filters don't need to be evaluated again when it is flushed or dropped
+        List<VerboseListener> accepted = null;
+        for (VerboseListener listener : this.listeners.values()) {
+            if (listener.shouldAccept(event)) {
+                if (accepted == null) {
+                    accepted = new ArrayList<>(1);
+                }
+                accepted.add(listener);
+            }
+        }
+        if (accepted == null) {
+            return;
+        }
+        event.setAcceptedListeners(accepted);
+
+        if (this.traceDepth > 0) {
+            event.setCheckTrace(captureTrace(this.traceDepth));
+        }
+
+        // add the check data to the buffer to be processed later.
+        if (!this.buffer.offer(event)) {
+            for (VerboseListener listener : accepted) {
+                listener.acceptDropped(event);
+            }
+        }
+    }
+
+    private static StackWalker.StackFrame[] captureTrace(int depth) {
+        return STACK_WALKER.walk(frames -> frames
+                .dropWhile(frame -> frame.getClassName().equals(HANDLER_CLASS_NAME))
+                .limit(depth)
+                .toArray(StackWalker.StackFrame[]::new)
+        );
     }
 
     /**
@@ -147,7 +196,7 @@ public class VerboseHandler implements AutoCloseable {
         // remove listeners where the sender is no longer valid
         this.listeners.values().removeIf(l -> !l.getNotifiedSender().isValid());
 
-        // handle all events in the queue
+        // handle all events in the buffer
         flush();
 
         // update listening state
@@ -158,13 +207,25 @@ public class VerboseHandler implements AutoCloseable {
      * Flushes the pending events to listeners.
      */
     public synchronized void flush() {
-        for (VerboseEvent e; (e = this.queue.poll()) != null; ) {
-            for (VerboseListener listener : this.listeners.values()) {
-                listener.acceptEvent(e);
+        for (VerboseEvent e; (e = this.buffer.poll()) != null; ) {
+            for (VerboseListener listener : e.getAcceptedListeners()) {
+                // skip listeners which have been unregistered since the event was offered
+                if (this.listeners.get(listener.getNotifiedSender().getUniqueId()) == listener) {
+                    listener.acceptEvent(e);
+                }
             }
         }
     }
 
+    /**
+     * Gets the number of events which have been dropped because the buffer was full.
+     *
+     * @return the dropped event count
+     */
+    public long getDroppedCount() {
+        return this.buffer.droppedCount();
+    }
+
     @Override
     public void close() {
         this.task.cancel();
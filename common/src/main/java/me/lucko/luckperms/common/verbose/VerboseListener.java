@@ -113,6 +113,9 @@ public class VerboseListener {
     // the number of events we have processed and accepted, based on the filter rules for this
     // listener
     private final AtomicInteger matchedCounter = new AtomicInteger(0);
+    // the number of events which passed the filter but were dropped because the handler
+    // could not keep up
+    private final AtomicInteger droppedCounter = new AtomicInteger(0);
     // the events which passed the filter, up to a max size of #DATA_TRUNCATION
     private final List<VerboseEvent> results = new ArrayList<>(DATA_TRUNCATION / 10);
 
@@ -123,19 +126,42 @@ public class VerboseListener {
     }
 
     /**
-     * Accepts and processes verbose events.
+     * Tests whether an event passes the filter for this listener.
      *
-     * @param event the event to process
+     * <p>This is called by the {@link VerboseHandler} on the thread where the
+     * check took place, before the event is queued.</p>
+     *
+     * @param event the event to test
+     * @return true if the event should be queued for this listener
      */
-    public void acceptEvent(VerboseEvent event) {
+    public boolean shouldAccept(VerboseEvent event) {
         // increment handled counter
         this.counter.incrementAndGet();
 
         // check if the data passes our filter
-        if (!this.filter.evaluate(event)) {
-            return;
-        }
+        return this.filter.evaluate(event);
+    }
 
+    /**
+     * Records that an event which passed the filter for this listener was dropped,
+     * because the handler could not keep up.
+     *
+     * @param event the dropped event
+     */
+    public void acceptDropped(VerboseEvent event) {
+        this.droppedCounter.incrementAndGet();
+    }
+
+    /**
+     * Accepts and processes verbose events.
+     *
+     * <p>The {@link VerboseHandler} only passes events which have already been
+     * accepted by {@link #shouldAccept(VerboseEvent)}, so the filter is not
+     * evaluated again here.</p>
+     *
+     * @param event the event to process
+     */
+    public void acceptEvent(VerboseEvent event) {
         // increment the matched filter
         this.matchedCounter.incrementAndGet();
 
@@ -246,7 +272,7 @@ public class VerboseListener {
         String startDate = DATE_FORMAT.format(this.startTime);
         String endDate = DATE_FORMAT.format(Instant.now());
         String duration = DurationFormatter.CONCISE.formatString(Duration.between(this.startTime, Instant.now()));
-        boolean truncated = this.matchedCounter.get() > this.results.size();
+        boolean truncated = this.matchedCounter.get() > this.results.size() || this.droppedCounter.get() != 0;
 
         JObject metadata = new JObject()
                 .add("startTime", startDate)
@@ -255,6 +281,7 @@ public class VerboseListener {
                 .add("count", new JObject()
                         .add("matched", this.matchedCounter.get())
                         .add("total", this.counter.get())
+                        .add("dropped", this.droppedCounter.get())
                 )
                 .add("uploader", new JObject()
                         .add("name", this.notifiedSender.getNameWithLocation())
@@ -46,8 +46,8 @@ public class MetaCheckEvent extends VerboseEvent {
      */
     private final StringResult<?> result;
 
-    public MetaCheckEvent(CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, Throwable checkTrace, String checkThread, String key, StringResult<?> result) {
-        super(origin, checkTarget, checkQueryOptions, checkTime, checkTrace, checkThread);
+    public MetaCheckEvent(CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, String checkThread, String key, StringResult<?> result) {
+        super(origin, checkTarget, checkQueryOptions, checkTime, checkThread);
         this.key = key;
         this.result = result;
     }
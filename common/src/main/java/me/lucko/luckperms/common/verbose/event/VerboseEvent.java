@@ -30,12 +30,15 @@ import me.lucko.luckperms.common.util.StackTracePrinter;
 import me.lucko.luckperms.common.util.gson.JArray;
 import me.lucko.luckperms.common.util.gson.JObject;
 import me.lucko.luckperms.common.verbose.VerboseCheckTarget;
+import me.lucko.luckperms.common.verbose.VerboseListener;
 import me.lucko.luckperms.common.verbose.expression.BooleanExpressionCompiler.VariableEvaluator;
 import net.luckperms.api.cacheddata.Result;
 import net.luckperms.api.context.Context;
 import net.luckperms.api.query.QueryMode;
 import net.luckperms.api.query.QueryOptions;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.UUID;
@@ -44,6 +47,7 @@ import java.util.UUID;
  * Represents a verbose event.
  */
 public abstract class VerboseEvent implements VariableEvaluator {
+    private static final StackWalker.StackFrame[] NO_TRACE = new StackWalker.StackFrame[0];
 
     /**
      * The origin of the check
@@ -66,21 +70,25 @@ public abstract class VerboseEvent implements VariableEvaluator {
     private final long checkTime;
 
     /**
-     * The throwable created when the check took place
+     * The stack frames captured when the check took place, if any
      */
-    private final Throwable checkTrace;
+    private StackWalker.StackFrame[] checkTrace = NO_TRACE;
+
+    /**
+     * The listeners whose filters accepted the event
+     */
+    private List<VerboseListener> acceptedListeners = Collections.emptyList();
 
     /**
      * The name of the thread where the check took place
      */
     private final String checkThread;
 
-    protected VerboseEvent(CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, Throwable checkTrace, String checkThread) {
+    protected VerboseEvent(CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, String checkThread) {
         this.origin = origin;
         this.checkTarget = checkTarget;
         this.checkQueryOptions = checkQueryOptions;
         this.checkTime = checkTime;
-        this.checkTrace = checkTrace;
         this.checkThread = checkThread;
     }
 
@@ -103,7 +111,45 @@ public abstract class VerboseEvent implements VariableEvaluator {
     }
 
     public StackTraceElement[] getCheckTrace() {
-        return this.checkTrace.getStackTrace();
+        StackWalker.StackFrame[] frames = this.checkTrace;
+        StackTraceElement[] trace = new StackTraceElement[frames.length];
+        for (int i = 0; i < frames.length; i++) {
+            trace[i] = frames[i].toStackTraceElement();
+        }
+        return trace;
+    }
+
+    /**
+     * Sets the stack frames captured when the check took place.
+     *
+     * <p>Traces are only captured once an event is known to be of interest to a
+     * listener, so this is called after construction by the {@link me.lucko.luckperms.common.verbose.VerboseHandler}.</p>
+     *
+     * @param checkTrace the captured frames
+     */
+    public void setCheckTrace(StackWalker.StackFrame[] checkTrace) {
+        this.checkTrace = checkTrace;
+    }
+
+    /**
+     * Gets the listeners whose filters accepted this event when it was offered.
+     *
+     * @return the accepting listeners
+     */
+    public List<VerboseListener> getAcceptedListeners() {
+        return this.acceptedListeners;
+    }
+
+    /**
+     * Sets the listeners whose filters accepted this event.
+     *
+     * <p>Filters are evaluated once, on the thread where the check took place, so
+     * listeners can trust this result when the event is later flushed or dropped.</p>
+     *
+     * @param acceptedListeners the accepting listeners
+     */
+    public void setAcceptedListeners(List<VerboseListener> acceptedListeners) {
+        this.acceptedListeners = acceptedListeners;
     }
 
     public String getCheckThread() {
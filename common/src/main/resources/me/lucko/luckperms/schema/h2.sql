@@ -50,9 +50,21 @@ CREATE TABLE `{prefix}actions` (
   `action`     VARCHAR(300)       NOT NULL,
   PRIMARY KEY (`id`)
 );
+CREATE INDEX ON `{prefix}actions` (`time`);
+CREATE INDEX ON `{prefix}actions` (`actor_uuid`);
+CREATE INDEX ON `{prefix}actions` (`acted_uuid`);
+CREATE INDEX ON `{prefix}actions` (`acted_name`);
 
 CREATE TABLE `{prefix}tracks` (
   `name`   VARCHAR(36) NOT NULL,
   `groups` TEXT        NOT NULL,
   PRIMARY KEY (`name`)
 );
+
+CREATE TABLE `{prefix}changes` (
+  `id`   BIGINT AUTO_INCREMENT NOT NULL,
+  `time` BIGINT                NOT NULL,
+  `type` CHAR(1)               NOT NULL,
+  `name` VARCHAR(36)           NOT NULL,
+  PRIMARY KEY (`id`)
+);
@@ -45,8 +45,19 @@ CREATE TABLE "{prefix}actions" (
   "acted_name" VARCHAR(36)              NOT NULL,
   "action"     VARCHAR(300)             NOT NULL
 );
+CREATE INDEX "{prefix}actions_time" ON "{prefix}actions" ("time");
+CREATE INDEX "{prefix}actions_actor_uuid" ON "{prefix}actions" ("actor_uuid");
+CREATE INDEX "{prefix}actions_acted_uuid" ON "{prefix}actions" ("acted_uuid");
+CREATE INDEX "{prefix}actions_acted_name" ON "{prefix}actions" ("acted_name");
 
 CREATE TABLE "{prefix}tracks" (
   "name"   VARCHAR(36) PRIMARY KEY NOT NULL,
   "groups" TEXT                    NOT NULL
 );
+
+CREATE TABLE "{prefix}changes" (
+  "id"   BIGSERIAL PRIMARY KEY NOT NULL,
+  "time" BIGINT                NOT NULL,
+  "type" CHAR(1)               NOT NULL,
+  "name" VARCHAR(36)           NOT NULL
+);
@@ -0,0 +1,202 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.backup;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.gson.JsonObject;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.PrimaryGroupHolder;
+import me.lucko.luckperms.common.model.Track;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.model.manager.group.GroupManager;
+import me.lucko.luckperms.common.model.manager.track.TrackManager;
+import me.lucko.luckperms.common.model.manager.user.UserHousekeeper;
+import me.lucko.luckperms.common.model.manager.user.UserManager;
+import me.lucko.luckperms.common.model.nodemap.RecordedNodeMap;
+import me.lucko.luckperms.common.node.types.Inheritance;
+import me.lucko.luckperms.common.node.types.Permission;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.plugin.logging.PluginLogger;
+import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.storage.Storage;
+import me.lucko.luckperms.common.util.gson.GsonProvider;
+import net.luckperms.api.node.Node;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ExporterTest {
+
+    @Mock private LuckPermsPlugin plugin;
+    @Mock private Sender sender;
+    @Mock private Storage storage;
+
+    @BeforeEach
+    public void setupMocks() {
+        GroupManager<?> groupManager = mock(GroupManager.class);
+        TrackManager<?> trackManager = mock(TrackManager.class);
+        UserManager<?> userManager = mock(UserManager.class);
+
+        lenient().when(this.plugin.getConsoleSender()).thenReturn(mock(Sender.class));
+        lenient().when(this.plugin.getStorage()).thenReturn(this.storage);
+        lenient().when(this.plugin.getLogger()).thenReturn(mock(PluginLogger.class));
+        lenient().doReturn(groupManager).when(this.plugin).getGroupManager();
+        lenient().doReturn(trackManager).when(this.plugin).getTrackManager();
+        lenient().doReturn(userManager).when(this.plugin).getUserManager();
+        lenient().when(userManager.getHouseKeeper()).thenReturn(mock(UserHousekeeper.class));
+        lenient().when(this.sender.getNameWithLocation()).thenReturn("Console");
+
+        lenient().doReturn(ImmutableMap.of(
+                "default", group("default", 0, Permission.builder().permission("test.default").build()),
+                "admin", group("admin", 10, Permission.builder().permission("test.admin").build())
+        )).when(groupManager).getAll();
+
+        Track track = mock(Track.class);
+        lenient().when(track.getName()).thenReturn("staff");
+        lenient().when(track.getGroups()).thenReturn(ImmutableList.of("default", "admin"));
+        lenient().doReturn(ImmutableMap.of("staff", track)).when(trackManager).getAll();
+    }
+
+    private static Group group(String name, int weight, Node... nodes) {
+        Group group = mock(Group.class);
+        RecordedNodeMap data = mock(RecordedNodeMap.class);
+        lenient().when(group.getName()).thenReturn(name);
+        lenient().when(group.getWeight()).thenReturn(OptionalInt.of(weight));
+        lenient().when(group.normalData()).thenReturn(data);
+        lenient().when(data.asSet()).thenReturn(new LinkedHashSet<>(ImmutableList.copyOf(nodes)));
+        return group;
+    }
+
+    private static User user(UUID uniqueId) {
+        User user = mock(User.class);
+        PrimaryGroupHolder primaryGroup = mock(PrimaryGroupHolder.class);
+        RecordedNodeMap data = mock(RecordedNodeMap.class);
+        when(user.getUsername()).thenReturn(Optional.of("user" + uniqueId.getLeastSignificantBits()));
+        when(user.getPrimaryGroup()).thenReturn(primaryGroup);
+        when(primaryGroup.getStoredValue()).thenReturn(Optional.of("default"));
+        when(user.normalData()).thenReturn(data);
+        when(data.asSet()).thenReturn(new LinkedHashSet<>(ImmutableList.of(Inheritance.builder("admin").build())));
+        return user;
+    }
+
+    private static List<String> keys(JsonObject object) {
+        return object.entrySet().stream().map(Map.Entry::getKey).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testExport() {
+        // enough users to be loaded in several chunks
+        List<UUID> users = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            users.add(new UUID(0, i));
+        }
+        when(this.storage.getUniqueUsers()).thenReturn(CompletableFuture.completedFuture(ImmutableSet.copyOf(users)));
+        when(this.storage.loadUsers(any())).thenAnswer(invocation -> {
+            Map<UUID, User> loaded = new HashMap<>();
+            for (UUID uniqueId : invocation.<Set<UUID>>getArgument(0)) {
+                loaded.put(uniqueId, user(uniqueId));
+            }
+            return CompletableFuture.completedFuture(loaded);
+        });
+
+        TestExporter exporter = new TestExporter(this.plugin, this.sender);
+        exporter.run();
+        assertTrue(exporter.completed);
+
+        JsonObject data = GsonProvider.normal().fromJson(exporter.writer.toString(), JsonObject.class);
+        assertEquals("Console", data.getAsJsonObject("metadata").get("generatedBy").getAsString());
+
+        // groups are written heaviest first
+        assertEquals(ImmutableList.of("admin", "default"), keys(data.getAsJsonObject("groups")));
+        assertEquals("test.admin", data.getAsJsonObject("groups").getAsJsonObject("admin").getAsJsonArray("nodes").get(0).getAsJsonObject().get("key").getAsString());
+        assertEquals(2, data.getAsJsonObject("tracks").getAsJsonObject("staff").getAsJsonArray("groups").size());
+
+        // users are written in order, and only include a primary group if it isn't the default
+        JsonObject usersData = data.getAsJsonObject("users");
+        assertEquals(users.stream().map(UUID::toString).collect(Collectors.toList()), keys(usersData));
+        JsonObject userData = usersData.getAsJsonObject(users.get(0).toString());
+        assertEquals("user0", userData.get("username").getAsString());
+        assertFalse(userData.has("primaryGroup"));
+        assertEquals("group.admin", userData.getAsJsonArray("nodes").get(0).getAsJsonObject().get("key").getAsString());
+    }
+
+    @Test
+    public void testFailedExportIsNotCompleted() {
+        when(this.storage.getUniqueUsers()).thenReturn(CompletableFuture.failedFuture(new RuntimeException("test")));
+
+        TestExporter exporter = new TestExporter(this.plugin, this.sender);
+        exporter.run();
+        assertFalse(exporter.completed);
+    }
+
+    private static final class TestExporter extends Exporter {
+        private final StringWriter writer = new StringWriter();
+        private boolean completed = false;
+
+        TestExporter(LuckPermsPlugin plugin, Sender executor) {
+            super(plugin, executor, true, true);
+        }
+
+        @Override
+        protected Writer openWriter() {
+            return this.writer;
+        }
+
+        @Override
+        protected void onComplete() {
+            this.completed = true;
+        }
+    }
+
+}
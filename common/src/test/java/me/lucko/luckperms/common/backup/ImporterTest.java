@@ -0,0 +1,173 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.backup;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import me.lucko.luckperms.common.locale.Message;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.PrimaryGroupHolder;
+import me.lucko.luckperms.common.model.Track;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.model.manager.user.UserHousekeeper;
+import me.lucko.luckperms.common.model.manager.user.UserManager;
+import me.lucko.luckperms.common.node.types.Inheritance;
+import me.lucko.luckperms.common.node.types.Permission;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.plugin.logging.PluginLogger;
+import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.storage.Storage;
+import me.lucko.luckperms.common.tasks.SyncTask;
+import net.luckperms.api.event.cause.CreationCause;
+import net.luckperms.api.model.data.DataType;
+import net.luckperms.api.node.Node;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.StringReader;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+public class ImporterTest {
+
+    private static final UUID USER_ID = UUID.fromString("c1d60c50-70b5-4722-8057-87767557e50d");
+
+    private static final String DATA = "{" +
+            "\"metadata\":{\"generatedBy\":\"Console\"}," +
+            "\"groups\":{" +
+                "\"admin\":{\"nodes\":[{\"type\":\"permission\",\"key\":\"test.admin\",\"value\":true}]}," +
+                "\"default\":{\"nodes\":[{\"type\":\"permission\",\"key\":\"test.default\",\"value\":true}]}" +
+            "}," +
+            "\"tracks\":{\"staff\":{\"groups\":[\"default\",\"admin\"]}}," +
+            "\"users\":{\"" + USER_ID + "\":{\"username\":\"Luck\",\"primaryGroup\":\"admin\",\"nodes\":[{\"type\":\"inheritance\",\"key\":\"group.admin\",\"value\":true}]}}" +
+            "}";
+
+    @Mock private LuckPermsPlugin plugin;
+    @Mock private Sender sender;
+    @Mock private Storage storage;
+
+    private Group admin;
+    private Group defaultGroup;
+    private Track track;
+    private User user;
+
+    @BeforeEach
+    public void setupMocks() {
+        this.admin = mock(Group.class);
+        this.defaultGroup = mock(Group.class);
+        this.track = mock(Track.class);
+        this.user = mock(User.class);
+        PrimaryGroupHolder primaryGroup = mock(PrimaryGroupHolder.class);
+        UserManager<?> userManager = mock(UserManager.class);
+
+        lenient().when(this.sender.isConsole()).thenReturn(true);
+        lenient().when(this.plugin.getStorage()).thenReturn(this.storage);
+        lenient().when(this.plugin.getLogger()).thenReturn(mock(PluginLogger.class));
+        lenient().when(this.plugin.getSyncTaskBuffer()).thenReturn(mock(SyncTask.Buffer.class));
+        lenient().doReturn(userManager).when(this.plugin).getUserManager();
+        lenient().when(userManager.getHouseKeeper()).thenReturn(mock(UserHousekeeper.class));
+
+        lenient().when(this.storage.createAndLoadGroup("admin", CreationCause.INTERNAL)).thenReturn(CompletableFuture.completedFuture(this.admin));
+        lenient().when(this.storage.createAndLoadGroup("default", CreationCause.INTERNAL)).thenReturn(CompletableFuture.completedFuture(this.defaultGroup));
+        lenient().when(this.storage.createAndLoadTrack("staff", CreationCause.INTERNAL)).thenReturn(CompletableFuture.completedFuture(this.track));
+        lenient().when(this.storage.loadUser(USER_ID, "Luck")).thenReturn(CompletableFuture.completedFuture(this.user));
+        lenient().when(this.storage.saveGroup(any())).thenReturn(CompletableFuture.completedFuture(null));
+        lenient().when(this.storage.saveTrack(any())).thenReturn(CompletableFuture.completedFuture(null));
+        lenient().when(this.storage.saveUser(any())).thenReturn(CompletableFuture.completedFuture(null));
+        lenient().when(this.user.getPrimaryGroup()).thenReturn(primaryGroup);
+        lenient().when(this.user.getUniqueId()).thenReturn(USER_ID);
+    }
+
+    private Importer importer(String data, boolean merge) {
+        return new Importer(this.plugin, this.sender, () -> new StringReader(data), merge);
+    }
+
+    @Test
+    public void testImport() {
+        importer(DATA, false).run();
+
+        Set<Node> adminNodes = ImmutableSet.of(Permission.builder().permission("test.admin").build());
+        Set<Node> defaultNodes = ImmutableSet.of(Permission.builder().permission("test.default").build());
+        Set<Node> userNodes = ImmutableSet.of(Inheritance.builder("admin").build());
+
+        verify(this.admin).setNodes(DataType.NORMAL, adminNodes, false);
+        verify(this.defaultGroup).setNodes(DataType.NORMAL, defaultNodes, false);
+        verify(this.track).setGroups(ImmutableList.of("default", "admin"));
+        verify(this.user.getPrimaryGroup()).setStoredValue("admin");
+        verify(this.user).setNodes(DataType.NORMAL, userNodes, false);
+
+        verify(this.storage).saveGroup(this.admin);
+        verify(this.storage).saveGroup(this.defaultGroup);
+        verify(this.storage).saveTrack(this.track);
+        verify(this.storage).saveUser(this.user);
+        verify(this.sender, never()).sendMessage(Message.IMPORT_FILE_READ_FAILURE.build());
+    }
+
+    @Test
+    public void testMergeImport() {
+        importer(DATA, true).run();
+
+        verify(this.admin).mergeNodes(DataType.NORMAL, ImmutableSet.of(Permission.builder().permission("test.admin").build()));
+        verify(this.user).mergeNodes(DataType.NORMAL, ImmutableSet.of(Inheritance.builder("admin").build()));
+    }
+
+    @Test
+    public void testTruncatedDataIsNotApplied() {
+        // cut the data off part way through the users section
+        importer(DATA.substring(0, DATA.indexOf("\"users\"") + 20), false).run();
+
+        verify(this.storage, never()).createAndLoadGroup(anyString(), any());
+        verify(this.storage, never()).createAndLoadTrack(anyString(), any());
+        verifyNoInteractions(this.admin, this.defaultGroup, this.track, this.user);
+        verify(this.sender).sendMessage(Message.IMPORT_FILE_READ_FAILURE.build());
+    }
+
+    @Test
+    public void testMalformedEntryIsNotApplied() {
+        // the user entry is missing its nodes
+        String data = DATA.replace(",\"nodes\":[{\"type\":\"inheritance\",\"key\":\"group.admin\",\"value\":true}]", "");
+        importer(data, false).run();
+
+        verify(this.storage, never()).createAndLoadGroup(anyString(), any());
+        verifyNoInteractions(this.admin, this.defaultGroup, this.track, this.user);
+        verify(this.sender).sendMessage(Message.IMPORT_FILE_READ_FAILURE.build());
+    }
+
+}
@@ -0,0 +1,175 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.cache;
+
+import me.lucko.luckperms.common.plugin.logging.PluginLogger;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class ExpiringCacheTest {
+
+    @Test
+    public void testEqualValueIsReused() {
+        TestCache cache = new TestCache(null);
+        cache.next = "hello";
+
+        String first = cache.get();
+        cache.next = new String("hello");
+        assertSame(first, cache.get());
+
+        cache.next = "world";
+        assertEquals("world", cache.get());
+        assertEquals(3, cache.supplied);
+    }
+
+    @Test
+    public void testAsyncRefresh() {
+        List<Runnable> tasks = new ArrayList<>();
+        TestCache cache = new TestCache(tasks::add);
+
+        // the first value is computed inline
+        cache.next = "one";
+        assertEquals("one", cache.get());
+        assertEquals(1, cache.supplied);
+
+        // expired values are served while a single refresh is scheduled
+        cache.next = "two";
+        assertEquals("one", cache.get());
+        assertEquals("one", cache.get());
+        assertEquals(1, tasks.size());
+        assertEquals(1, cache.supplied);
+
+        tasks.remove(0).run();
+        assertEquals("two", cache.get());
+        assertEquals(2, cache.supplied);
+
+        // invalidation forces the value to be computed inline
+        tasks.clear();
+        cache.next = "three";
+        cache.invalidate();
+        assertEquals("three", cache.get());
+        assertEquals(0, tasks.size());
+    }
+
+    @Test
+    public void testAsyncRefreshDiscardedAfterInvalidate() {
+        List<Runnable> tasks = new ArrayList<>();
+        TestCache cache = new TestCache(tasks::add);
+
+        cache.next = "one";
+        cache.get();
+        cache.get();
+        assertEquals(1, tasks.size());
+
+        cache.invalidate();
+        cache.next = "two";
+        tasks.remove(0).run();
+
+        // the refreshed value is discarded, and the next access is computed inline
+        cache.next = "three";
+        assertEquals("three", cache.get());
+    }
+
+    @Test
+    public void testAsyncRefreshFailure() {
+        List<Runnable> tasks = new ArrayList<>();
+        PluginLogger logger = mock(PluginLogger.class);
+        TestCache cache = new TestCache(tasks::add, logger);
+
+        cache.next = "one";
+        cache.get();
+        cache.get();
+        assertEquals(1, tasks.size());
+
+        // the failure is logged, and the stale value is kept
+        cache.fail = true;
+        tasks.remove(0).run();
+        verify(logger).warn(anyString(), any(IllegalStateException.class));
+        assertEquals("one", cache.get());
+
+        // another refresh can be scheduled once the value expires again
+        assertEquals(1, tasks.size());
+        cache.fail = false;
+        cache.next = "two";
+        tasks.remove(0).run();
+        assertEquals("two", cache.get());
+    }
+
+    @Test
+    public void testAsyncRefreshRejected() {
+        TestCache cache = new TestCache(task -> {
+            throw new RejectedExecutionException();
+        });
+
+        cache.next = "one";
+        assertEquals("one", cache.get());
+
+        // the value is computed inline, and a refresh is attempted again next time
+        cache.next = "two";
+        assertEquals("two", cache.get());
+        cache.next = "three";
+        assertEquals("three", cache.get());
+        assertEquals(3, cache.supplied);
+    }
+
+    private static final class TestCache extends ExpiringCache<String> {
+        private String next;
+        private boolean fail;
+        private int supplied;
+
+        TestCache(Executor refreshExecutor) {
+            this(refreshExecutor, null);
+        }
+
+        TestCache(Executor refreshExecutor, PluginLogger logger) {
+            // expire immediately
+            super(0, TimeUnit.NANOSECONDS, refreshExecutor, logger);
+        }
+
+        @Override
+        protected @NonNull String supply() {
+            this.supplied++;
+            if (this.fail) {
+                throw new IllegalStateException("failed");
+            }
+            return this.next;
+        }
+    }
+
+}
@@ -0,0 +1,261 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.cacheddata;
+
+import com.google.common.collect.ImmutableList;
+import me.lucko.luckperms.common.cacheddata.result.TristateResult;
+import me.lucko.luckperms.common.cacheddata.type.PermissionCache;
+import me.lucko.luckperms.common.calculator.CalculatorFactory;
+import me.lucko.luckperms.common.calculator.PermissionCalculator;
+import me.lucko.luckperms.common.calculator.processor.DirectProcessor;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.config.LuckPermsConfiguration;
+import me.lucko.luckperms.common.event.EventDispatcher;
+import me.lucko.luckperms.common.graph.TraversalAlgorithm;
+import me.lucko.luckperms.common.inheritance.InheritanceGraphFactory;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.PrimaryGroupHolder;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.model.manager.group.GroupManager;
+import me.lucko.luckperms.common.model.manager.group.StandardGroupManager;
+import me.lucko.luckperms.common.node.types.Inheritance;
+import me.lucko.luckperms.common.node.types.Meta;
+import me.lucko.luckperms.common.node.types.Permission;
+import me.lucko.luckperms.common.node.types.Weight;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.query.QueryOptionsImpl;
+import me.lucko.luckperms.common.treeview.PermissionRegistry;
+import me.lucko.luckperms.common.util.Difference;
+import me.lucko.luckperms.common.verbose.VerboseHandler;
+import me.lucko.luckperms.common.verbose.event.CheckOrigin;
+import net.luckperms.api.context.ContextSatisfyMode;
+import net.luckperms.api.model.data.DataType;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.node.metadata.types.InheritanceOriginMetadata;
+import net.luckperms.api.query.QueryOptions;
+import net.luckperms.api.util.Tristate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class HolderCachedDataManagerTest {
+
+    private static final QueryOptions QUERY_OPTIONS = QueryOptionsImpl.DEFAULT_CONTEXTUAL;
+
+    @Mock private LuckPermsPlugin plugin;
+    @Mock private LuckPermsConfiguration configuration;
+
+    private StandardGroupManager groupManager;
+
+    @BeforeEach
+    public void setupMocks() {
+        this.groupManager = new StandardGroupManager(this.plugin);
+        CalculatorFactory calculatorFactory = (queryOptions, metadata) -> new PermissionCalculator(this.plugin, metadata, ImmutableList.of(new DirectProcessor()));
+
+        //noinspection unchecked,rawtypes
+        lenient().when(this.plugin.getGroupManager()).thenReturn((GroupManager) this.groupManager);
+        lenient().when(this.plugin.getInheritanceGraphFactory()).thenReturn(new InheritanceGraphFactory(this.plugin));
+        lenient().when(this.plugin.getConfiguration()).thenReturn(this.configuration);
+        lenient().when(this.plugin.getEventDispatcher()).thenReturn(mock(EventDispatcher.class));
+        lenient().when(this.plugin.getVerboseHandler()).thenReturn(mock(VerboseHandler.class));
+        lenient().when(this.plugin.getPermissionRegistry()).thenReturn(mock(PermissionRegistry.class));
+        lenient().when(this.plugin.getCalculatorFactory()).thenReturn(calculatorFactory);
+
+        lenient().when(this.configuration.get(ConfigKeys.CONTEXT_SATISFY_MODE)).thenReturn(ContextSatisfyMode.AT_LEAST_ONE_VALUE_PER_KEY);
+        lenient().when(this.configuration.get(ConfigKeys.GROUP_WEIGHTS)).thenReturn(Collections.emptyMap());
+        lenient().when(this.configuration.get(ConfigKeys.PRIMARY_GROUP_CALCULATION)).thenReturn(PrimaryGroupHolder.Stored::new);
+        lenient().when(this.configuration.get(ConfigKeys.INHERITANCE_TRAVERSAL_ALGORITHM)).thenReturn(TraversalAlgorithm.DEPTH_FIRST_PRE_ORDER);
+        lenient().when(this.configuration.get(ConfigKeys.POST_TRAVERSAL_INHERITANCE_SORT)).thenReturn(false);
+        lenient().when(this.configuration.get(ConfigKeys.APPLYING_SHORTHAND)).thenReturn(false);
+        lenient().when(this.configuration.get(ConfigKeys.SHARE_PERMISSION_DATA)).thenReturn(false);
+    }
+
+    @Test
+    public void testAddOwnNodeIsPatched() {
+        User user = createUser();
+        PermissionCache cache = user.getCachedData().getPermissionData(QUERY_OPTIONS);
+
+        user.setNode(DataType.NORMAL, Permission.builder().permission("own.new").build(), false);
+
+        assertSame(cache, user.getCachedData().getPermissionData(QUERY_OPTIONS));
+        assertEquals(Tristate.TRUE, cache.checkPermission("own.new"));
+        assertMatchesRebuild(user);
+    }
+
+    @Test
+    public void testOverrideOwnNodeIsPatched() {
+        User user = createUser();
+        PermissionCache cache = user.getCachedData().getPermissionData(QUERY_OPTIONS);
+
+        // replaces the users existing value
+        user.setNode(DataType.NORMAL, Permission.builder().permission("own").value(false).build(), false);
+        // shadows the inherited value
+        user.setNode(DataType.NORMAL, Permission.builder().permission("inherited").value(false).build(), false);
+
+        assertSame(cache, user.getCachedData().getPermissionData(QUERY_OPTIONS));
+        assertEquals(Tristate.FALSE, cache.checkPermission("own"));
+        assertEquals(Tristate.FALSE, cache.checkPermission("inherited"));
+        assertMatchesRebuild(user);
+    }
+
+    @Test
+    public void testRemoveOwnNodeIsPatched() {
+        User user = createUser();
+        PermissionCache cache = user.getCachedData().getPermissionData(QUERY_OPTIONS);
+
+        user.unsetNode(DataType.NORMAL, Permission.builder().permission("own").build());
+
+        assertSame(cache, user.getCachedData().getPermissionData(QUERY_OPTIONS));
+        assertEquals(Tristate.UNDEFINED, cache.checkPermission("own"));
+        assertMatchesRebuild(user);
+    }
+
+    @Test
+    public void testRemoveShadowingNodeIsRebuilt() {
+        User user = createUser();
+        Node node = Permission.builder().permission("inherited").value(false).build();
+        user.setNode(DataType.NORMAL, node, false);
+        PermissionCache cache = user.getCachedData().getPermissionData(QUERY_OPTIONS);
+        assertEquals(Tristate.FALSE, cache.checkPermission("inherited"));
+
+        user.unsetNode(DataType.NORMAL, node);
+
+        // the inherited value can't be recovered from the cache
+        Difference<Node> changes = new Difference<>();
+        changes.recordChange(Difference.ChangeType.REMOVE, node);
+        assertNull(user.getCachedData().resolvePermissionChanges(changes, QUERY_OPTIONS, cache.getPermissionNodes()));
+
+        PermissionCache rebuilt = user.getCachedData().getPermissionData(QUERY_OPTIONS);
+        assertNotSame(cache, rebuilt);
+        assertEquals(Tristate.TRUE, rebuilt.checkPermission("inherited"));
+        assertMatchesRebuild(user);
+    }
+
+    @Test
+    public void testInheritanceMetaAndWeightChangesAreRebuilt() {
+        User user = createUser();
+        Group other = this.groupManager.getOrMake("other");
+        other.normalData().add(Permission.builder().permission("other").build());
+
+        Node[] changes = {
+                Inheritance.builder().group(other.getName()).build(),
+                Meta.builder("key", "value").build(),
+                Weight.builder().weight(10).build()
+        };
+
+        for (Node change : changes) {
+            PermissionCache cache = user.getCachedData().getPermissionData(QUERY_OPTIONS);
+            user.setNode(DataType.NORMAL, change, false);
+
+            assertNotSame(cache, user.getCachedData().getPermissionData(QUERY_OPTIONS), change.getKey());
+            assertMatchesRebuild(user);
+        }
+
+        assertEquals(Tristate.TRUE, user.getCachedData().getPermissionData(QUERY_OPTIONS).checkPermission("other"));
+    }
+
+    @Test
+    public void testPostOrderTraversalIsRebuilt() {
+        when(this.configuration.get(ConfigKeys.INHERITANCE_TRAVERSAL_ALGORITHM)).thenReturn(TraversalAlgorithm.DEPTH_FIRST_POST_ORDER);
+        when(this.configuration.get(ConfigKeys.POST_TRAVERSAL_INHERITANCE_SORT)).thenReturn(false);
+
+        User user = createUser();
+        PermissionCache cache = user.getCachedData().getPermissionData(QUERY_OPTIONS);
+
+        user.setNode(DataType.NORMAL, Permission.builder().permission("inherited").value(false).build(), false);
+
+        // the users own nodes are visited last, so the inherited value still applies
+        PermissionCache rebuilt = user.getCachedData().getPermissionData(QUERY_OPTIONS);
+        assertNotSame(cache, rebuilt);
+        assertEquals(Tristate.TRUE, rebuilt.checkPermission("inherited"));
+        assertMatchesRebuild(user);
+    }
+
+    @Test
+    public void testSharedCacheIsRebuilt() {
+        when(this.configuration.get(ConfigKeys.SHARE_PERMISSION_DATA)).thenReturn(true);
+
+        User user = createUser();
+        PermissionCache cache = user.getCachedData().getPermissionData(QUERY_OPTIONS);
+
+        user.setNode(DataType.NORMAL, Permission.builder().permission("own.new").build(), false);
+
+        PermissionCache rebuilt = user.getCachedData().getPermissionData(QUERY_OPTIONS);
+        assertNotSame(cache, rebuilt);
+        assertEquals(Tristate.UNDEFINED, cache.checkPermission("own.new"));
+        assertEquals(Tristate.TRUE, rebuilt.checkPermission("own.new"));
+        assertMatchesRebuild(user);
+    }
+
+    private User createUser() {
+        Group group = this.groupManager.getOrMake("default");
+        group.normalData().add(Permission.builder().permission("inherited").build());
+
+        User user = new User(UUID.randomUUID(), this.plugin);
+        user.normalData().add(Inheritance.builder().group(group.getName()).build());
+        user.normalData().add(Permission.builder().permission("own").build());
+        return user;
+    }
+
+    private static void assertMatchesRebuild(User user) {
+        PermissionCache cache = user.getCachedData().getPermissionData(QUERY_OPTIONS);
+        PermissionCache rebuilt = (PermissionCache) user.getCachedData().permissionData().calculate(QUERY_OPTIONS);
+
+        assertEquals(rebuilt.getPermissionNodes(), cache.getPermissionNodes());
+        assertEquals(rebuilt.getPermissionMap(), cache.getPermissionMap());
+
+        Set<String> permissions = new HashSet<>(rebuilt.getPermissionNodes().keySet());
+        permissions.add("unset");
+        for (String permission : permissions) {
+            TristateResult expected = rebuilt.checkPermission(permission, CheckOrigin.INTERNAL);
+            TristateResult actual = cache.checkPermission(permission, CheckOrigin.INTERNAL);
+            assertEquals(expected.result(), actual.result(), permission);
+
+            if (expected.node() != null) {
+                assertEquals(expected.node().metadata(InheritanceOriginMetadata.KEY).getOrigin(), actual.node().metadata(InheritanceOriginMetadata.KEY).getOrigin(), permission);
+            }
+        }
+        assertTrue(cache.getPermissionNodes().containsKey("inherited"));
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.cacheddata;
+
+import me.lucko.luckperms.common.cacheddata.type.MetaAccumulator;
+import me.lucko.luckperms.common.calculator.CalculatorFactory;
+import me.lucko.luckperms.common.calculator.PermissionCalculator;
+import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
+import me.lucko.luckperms.common.query.QueryOptionsImpl;
+import net.luckperms.api.metastacking.MetaStackDefinition;
+import net.luckperms.api.node.ChatMetaType;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.query.QueryOptions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PermissionCheckHandleTest {
+
+    private static AbstractCachedDataManager createCachedData() {
+        CalculatorFactory calculatorFactory = mock(CalculatorFactory.class);
+        when(calculatorFactory.build(any(), any())).thenAnswer(invocation -> mock(PermissionCalculator.class));
+
+        return new AbstractCachedDataManager(null) {
+            @Override
+            protected CacheMetadata getMetadataForQueryOptions(QueryOptions queryOptions) {
+                return null;
+            }
+
+            @Override
+            protected QueryOptions getQueryOptions() {
+                return QueryOptionsImpl.DEFAULT_CONTEXTUAL;
+            }
+
+            @Override
+            protected CalculatorFactory getCalculatorFactory() {
+                return calculatorFactory;
+            }
+
+            @Override
+            protected MetaStackDefinition getDefaultMetaStackDefinition(ChatMetaType type) {
+                return null;
+            }
+
+            @Override
+            protected <M extends Map<String, Node>> M resolvePermissions(IntFunction<M> mapFactory, QueryOptions queryOptions) {
+                return mapFactory.apply(0);
+            }
+
+            @Override
+            protected void resolveMeta(MetaAccumulator accumulator, QueryOptions queryOptions) {
+
+            }
+        };
+    }
+
+    @Test
+    public void testPinnedUntilInvalidated() {
+        AbstractCachedDataManager cachedData = createCachedData();
+        PermissionCheckHandle handle = cachedData.newPermissionCheckHandle(() -> QueryOptionsImpl.DEFAULT_CONTEXTUAL);
+
+        Object cache = handle.getPermissionData();
+        assertSame(cache, handle.getPermissionData());
+        assertSame(cache, cachedData.getPermissionData(QueryOptionsImpl.DEFAULT_CONTEXTUAL));
+
+        cachedData.invalidate();
+        Object recalculated = handle.getPermissionData();
+        assertNotSame(cache, recalculated);
+        assertSame(recalculated, cachedData.getPermissionData(QueryOptionsImpl.DEFAULT_CONTEXTUAL));
+
+        cachedData.permissionData().invalidate(QueryOptionsImpl.DEFAULT_CONTEXTUAL);
+        assertNotSame(recalculated, handle.getPermissionData());
+    }
+
+    @Test
+    public void testQueryOptionsChange() {
+        AbstractCachedDataManager cachedData = createCachedData();
+        AtomicReference<QueryOptions> queryOptions = new AtomicReference<>(QueryOptionsImpl.DEFAULT_CONTEXTUAL);
+        PermissionCheckHandle handle = cachedData.newPermissionCheckHandle(queryOptions::get);
+
+        Object cache = handle.getPermissionData();
+
+        QueryOptions world = QueryOptionsImpl.DEFAULT_CONTEXTUAL.toBuilder()
+                .context(ImmutableContextSetImpl.of("world", "nether"))
+                .build();
+        queryOptions.set(world);
+        assertSame(cachedData.getPermissionData(world), handle.getPermissionData());
+
+        queryOptions.set(QueryOptionsImpl.DEFAULT_CONTEXTUAL);
+        assertSame(cache, handle.getPermissionData());
+    }
+
+}
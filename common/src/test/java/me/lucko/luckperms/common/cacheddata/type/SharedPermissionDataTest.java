@@ -0,0 +1,184 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.cacheddata.type;
+
+import com.google.common.collect.ImmutableList;
+import me.lucko.luckperms.common.cacheddata.CacheMetadata;
+import me.lucko.luckperms.common.calculator.CalculatorFactory;
+import me.lucko.luckperms.common.calculator.PermissionCalculator;
+import me.lucko.luckperms.common.calculator.processor.DirectProcessor;
+import me.lucko.luckperms.common.model.HolderType;
+import me.lucko.luckperms.common.model.InheritanceOrigin;
+import me.lucko.luckperms.common.model.PermissionHolderIdentifier;
+import me.lucko.luckperms.common.node.types.Permission;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.query.QueryOptionsImpl;
+import me.lucko.luckperms.common.treeview.PermissionRegistry;
+import me.lucko.luckperms.common.verbose.VerboseCheckTarget;
+import me.lucko.luckperms.common.verbose.VerboseHandler;
+import me.lucko.luckperms.common.verbose.event.CheckOrigin;
+import net.luckperms.api.model.data.DataType;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.node.metadata.types.InheritanceOriginMetadata;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+
+@ExtendWith(MockitoExtension.class)
+public class SharedPermissionDataTest {
+
+    private static final PermissionHolderIdentifier GROUP = new PermissionHolderIdentifier(HolderType.GROUP, "default");
+
+    @Mock private LuckPermsPlugin plugin;
+
+    private CalculatorFactory calculatorFactory;
+
+    @BeforeEach
+    public void setupMocks() {
+        lenient().when(this.plugin.getVerboseHandler()).thenReturn(mock(VerboseHandler.class));
+        lenient().when(this.plugin.getPermissionRegistry()).thenReturn(mock(PermissionRegistry.class));
+        this.calculatorFactory = (queryOptions, metadata) -> new PermissionCalculator(this.plugin, metadata, ImmutableList.of(new DirectProcessor()));
+    }
+
+    private static Node node(String permission, PermissionHolderIdentifier origin) {
+        return Permission.builder()
+                .permission(permission)
+                .withMetadata(InheritanceOriginMetadata.KEY, new InheritanceOrigin(origin, DataType.NORMAL))
+                .build();
+    }
+
+    private static Map<String, Node> permissions(PermissionHolderIdentifier user) {
+        Map<String, Node> permissions = new HashMap<>();
+        permissions.put("direct", node("direct", user));
+        permissions.put("inherited", node("inherited", GROUP));
+        return permissions;
+    }
+
+    private static CacheMetadata metadata(PermissionHolderIdentifier user) {
+        return new CacheMetadata(HolderType.USER, VerboseCheckTarget.of(VerboseCheckTarget.USER_TYPE, user.getName()), QueryOptionsImpl.DEFAULT_CONTEXTUAL);
+    }
+
+    private static PermissionHolderIdentifier originOf(PermissionCache cache, String permission) {
+        Node node = cache.checkPermission(permission, CheckOrigin.INTERNAL).node();
+        return (PermissionHolderIdentifier) node.metadata(InheritanceOriginMetadata.KEY).getOrigin();
+    }
+
+    @Test
+    public void testIdenticalUsersShareData() {
+        PermissionHolderIdentifier alice = new PermissionHolderIdentifier(HolderType.USER, "alice");
+        PermissionHolderIdentifier bob = new PermissionHolderIdentifier(HolderType.USER, "bob");
+
+        Map<String, Node> alicePermissions = permissions(alice);
+        Map<String, Node> bobPermissions = permissions(bob);
+
+        SharedPermissionData aliceData = SharedPermissionData.of(this.calculatorFactory, metadata(alice), alicePermissions);
+        SharedPermissionData bobData = SharedPermissionData.of(this.calculatorFactory, metadata(bob), bobPermissions);
+        assertSame(aliceData, bobData);
+
+        Map<String, Node> otherPermissions = permissions(bob);
+        otherPermissions.put("extra", node("extra", bob));
+        assertNotSame(aliceData, SharedPermissionData.of(this.calculatorFactory, metadata(bob), otherPermissions));
+    }
+
+    @Test
+    public void testSharedDataKeepsOwnOrigin() {
+        PermissionHolderIdentifier alice = new PermissionHolderIdentifier(HolderType.USER, "alice");
+        PermissionHolderIdentifier bob = new PermissionHolderIdentifier(HolderType.USER, "bob");
+
+        Map<String, Node> alicePermissions = permissions(alice);
+        Map<String, Node> bobPermissions = permissions(bob);
+
+        SharedPermissionData aliceData = SharedPermissionData.of(this.calculatorFactory, metadata(alice), alicePermissions);
+        SharedPermissionData bobData = SharedPermissionData.of(this.calculatorFactory, metadata(bob), bobPermissions);
+        assertSame(aliceData, bobData);
+
+        PermissionCache aliceCache = new PermissionCache(QueryOptionsImpl.DEFAULT_CONTEXTUAL, metadata(alice), aliceData, alicePermissions);
+        PermissionCache bobCache = new PermissionCache(QueryOptionsImpl.DEFAULT_CONTEXTUAL, metadata(bob), bobData, bobPermissions);
+
+        assertEquals(alice, originOf(aliceCache, "direct"));
+        assertEquals(bob, originOf(bobCache, "direct"));
+
+        // inherited nodes are left alone
+        assertEquals(GROUP, originOf(aliceCache, "inherited"));
+        assertEquals(GROUP, originOf(bobCache, "inherited"));
+
+        assertSame(bobPermissions.get("direct"), bobCache.getPermissionNodes().get("direct"));
+    }
+
+    @Test
+    public void testSharedDataIgnoresInheritedOrigin() {
+        PermissionHolderIdentifier alice = new PermissionHolderIdentifier(HolderType.USER, "alice");
+        PermissionHolderIdentifier bob = new PermissionHolderIdentifier(HolderType.USER, "bob");
+        PermissionHolderIdentifier admin = new PermissionHolderIdentifier(HolderType.GROUP, "admin");
+
+        Map<String, Node> alicePermissions = permissions(alice);
+        Map<String, Node> bobPermissions = permissions(bob);
+        bobPermissions.put("inherited", node("inherited", admin));
+
+        SharedPermissionData aliceData = SharedPermissionData.of(this.calculatorFactory, metadata(alice), alicePermissions);
+        SharedPermissionData bobData = SharedPermissionData.of(this.calculatorFactory, metadata(bob), bobPermissions);
+        assertSame(aliceData, bobData);
+
+        PermissionCache bobCache = new PermissionCache(QueryOptionsImpl.DEFAULT_CONTEXTUAL, metadata(bob), bobData, bobPermissions);
+        assertEquals(admin, originOf(bobCache, "inherited"));
+    }
+
+    @Test
+    public void testSharedDataRebindsShorthandByCheckedKey() {
+        PermissionHolderIdentifier alice = new PermissionHolderIdentifier(HolderType.USER, "alice");
+        PermissionHolderIdentifier bob = new PermissionHolderIdentifier(HolderType.USER, "bob");
+
+        // a shorthand node is held under each permission it expands to
+        Map<String, Node> alicePermissions = permissions(alice);
+        Node shorthand = node("shorthand.(a|b)", alice);
+        alicePermissions.put("shorthand.a", shorthand);
+        alicePermissions.put("shorthand.b", shorthand);
+
+        Map<String, Node> bobPermissions = permissions(bob);
+        bobPermissions.put("shorthand.a", node("shorthand.a", bob));
+        bobPermissions.put("shorthand.b", node("shorthand.b", bob));
+
+        SharedPermissionData aliceData = SharedPermissionData.of(this.calculatorFactory, metadata(alice), alicePermissions);
+        SharedPermissionData bobData = SharedPermissionData.of(this.calculatorFactory, metadata(bob), bobPermissions);
+        assertSame(aliceData, bobData);
+
+        PermissionCache bobCache = new PermissionCache(QueryOptionsImpl.DEFAULT_CONTEXTUAL, metadata(bob), bobData, bobPermissions);
+        assertSame(bobPermissions.get("shorthand.a"), bobCache.checkPermission("shorthand.a", CheckOrigin.INTERNAL).node());
+        assertSame(bobPermissions.get("shorthand.b"), bobCache.checkPermission("shorthand.b", CheckOrigin.INTERNAL).node());
+    }
+
+}
@@ -25,8 +25,10 @@
 
 package me.lucko.luckperms.common.calculator;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import me.lucko.luckperms.common.cacheddata.CacheMetadata;
 import me.lucko.luckperms.common.cacheddata.result.TristateResult;
 import me.lucko.luckperms.common.calculator.processor.AbstractOverrideWildcardProcessor;
@@ -35,6 +37,7 @@ import me.lucko.luckperms.common.calculator.processor.PermissionProcessor;
 import me.lucko.luckperms.common.calculator.processor.RegexProcessor;
 import me.lucko.luckperms.common.calculator.processor.SpongeWildcardProcessor;
 import me.lucko.luckperms.common.calculator.processor.WildcardProcessor;
+import me.lucko.luckperms.common.calculator.processor.WildcardTrieProcessor;
 import me.lucko.luckperms.common.model.HolderType;
 import me.lucko.luckperms.common.node.factory.NodeBuilders;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
@@ -54,6 +57,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -168,6 +172,37 @@ public class PermissionCalculatorTest {
         }
     }
 
+    @ParameterizedTest
+    @CsvSource({
+            "one.two.three.four, true, direct",
+            "one.two.three.test, false, wildcard",
+            "one.two.three.four.five, false, wildcard",
+            "one.two.three, true, direct",
+            "one.two.test, false, wildcard",
+            "one.test, false, wildcard",
+            "one, true, direct",
+            "onetwo.three, false, wildcard",
+            "test, false, wildcard",
+            "*, false, direct",
+    })
+    public void testWildcardTrie(String node, boolean expected, String type) {
+        PermissionCalculator calculator = createCalculator(new DirectProcessor(), new WildcardTrieProcessor());
+        calculator.setSourcePermissions(EXAMPLE_PERMISSIONS);
+
+        TristateResult result = calculator.checkPermission(node, CheckOrigin.INTERNAL);
+        assertEquals(Tristate.of(expected), result.result());
+        assertNull(result.overriddenResult());
+        assertNotNull(result.node());
+
+        if (type.equals("direct")) {
+            assertSame(DirectProcessor.class, result.processorClass());
+        } else if (type.equals("wildcard")) {
+            assertSame(WildcardTrieProcessor.class, result.processorClass());
+        } else {
+            throw new AssertionError();
+        }
+    }
+
     @ParameterizedTest
     @CsvSource({
             "one, true, direct",
@@ -221,6 +256,95 @@ public class PermissionCalculatorTest {
         }
     }
 
+    @ParameterizedTest
+    @CsvSource({
+            "hello, UNDEFINED",
+            "hello1, TRUE",
+            "hello123, TRUE",
+            "helloo, UNDEFINED",
+            "regex1, FALSE",
+            "regexes2, FALSE",
+            "regexp3, FALSE",
+            "regexps4, FALSE",
+    })
+    public void testRegexAutomaton(String node, Tristate expected) {
+        PermissionCalculator calculator = createCalculator(new DirectProcessor(), new RegexProcessor(true));
+        calculator.setSourcePermissions(EXAMPLE_PERMISSIONS);
+
+        TristateResult result = calculator.checkPermission(node, CheckOrigin.INTERNAL);
+        assertEquals(expected, result.result());
+        assertNull(result.overriddenResult());
+
+        if (expected != Tristate.UNDEFINED) {
+            assertNotNull(result.node());
+            assertSame(RegexProcessor.class, result.processorClass());
+        } else {
+            assertNull(result.node());
+            assertNull(result.processorClass());
+        }
+    }
+
+    @Test
+    public void testLookupCacheStats() {
+        PermissionCalculator calculator = new PermissionCalculator(this.plugin, MOCK_METADATA, ImmutableList.of(new DirectProcessor()), 100);
+        calculator.setSourcePermissions(EXAMPLE_PERMISSIONS);
+
+        assertEquals(Tristate.TRUE, calculator.checkPermission("test.node1", CheckOrigin.INTERNAL).result());
+        assertEquals(Tristate.TRUE, calculator.checkPermission("test.node1", CheckOrigin.INTERNAL).result());
+        assertEquals(Tristate.UNDEFINED, calculator.checkPermission("test.node3", CheckOrigin.INTERNAL).result());
+
+        CacheStats stats = calculator.getLookupCacheStats();
+        assertEquals(1, stats.hitCount());
+        assertEquals(2, stats.missCount());
+
+        calculator.invalidateCache();
+        assertEquals(Tristate.TRUE, calculator.checkPermission("test.node1", CheckOrigin.INTERNAL).result());
+        assertEquals(3, calculator.getLookupCacheStats().missCount());
+    }
+
+    @Test
+    public void testUnboundedLookupCacheRecordsNoStats() {
+        PermissionCalculator calculator = new PermissionCalculator(this.plugin, MOCK_METADATA, ImmutableList.of(new DirectProcessor()), -1);
+        calculator.setSourcePermissions(EXAMPLE_PERMISSIONS);
+
+        assertEquals(Tristate.TRUE, calculator.checkPermission("test.node1", CheckOrigin.INTERNAL).result());
+        assertEquals(Tristate.TRUE, calculator.checkPermission("test.node1", CheckOrigin.INTERNAL).result());
+        assertEquals(Tristate.UNDEFINED, calculator.checkPermission("test.node3", CheckOrigin.INTERNAL).result());
+        assertEquals(CacheStats.empty(), calculator.getLookupCacheStats());
+    }
+
+    @Test
+    public void testCaseInsensitiveLookup() {
+        PermissionCalculator calculator = new PermissionCalculator(this.plugin, MOCK_METADATA, ImmutableList.of(new DirectProcessor()), 100);
+        calculator.setSourcePermissions(EXAMPLE_PERMISSIONS);
+
+        TristateResult result = calculator.checkPermission("TEST.Node1", CheckOrigin.INTERNAL);
+        assertEquals(Tristate.TRUE, result.result());
+        assertSame(result, calculator.checkPermission("test.node1", CheckOrigin.INTERNAL));
+        assertSame(result, calculator.checkPermission("Test.NODE1", CheckOrigin.INTERNAL));
+
+        CacheStats stats = calculator.getLookupCacheStats();
+        assertEquals(2, stats.hitCount());
+        assertEquals(1, stats.missCount());
+    }
+
+    @Test
+    public void testRefreshSourcePermissions() {
+        Map<String, Node> permissions = new ConcurrentHashMap<>(EXAMPLE_PERMISSIONS);
+        PermissionCalculator calculator = createCalculator(new DirectProcessor(), new WildcardProcessor());
+        calculator.setSourcePermissions(permissions);
+
+        assertEquals(Tristate.FALSE, calculator.checkPermission("test.node3", CheckOrigin.INTERNAL).result());
+        assertEquals(Tristate.FALSE, calculator.checkPermission("one.two.three.five", CheckOrigin.INTERNAL).result());
+
+        permissions.put("test.node3", NodeBuilders.determineMostApplicable("test.node3").value(true).build());
+        permissions.put("one.two.three.*", NodeBuilders.determineMostApplicable("one.two.three.*").value(true).build());
+        calculator.refreshSourcePermissions(ImmutableSet.of("test.node3", "one.two.three.*"));
+
+        assertEquals(Tristate.TRUE, calculator.checkPermission("test.node3", CheckOrigin.INTERNAL).result());
+        assertEquals(Tristate.TRUE, calculator.checkPermission("one.two.three.five", CheckOrigin.INTERNAL).result());
+    }
+
     @Test
     public void testOverrideWildcard() {
         AbstractOverrideWildcardProcessor overrideProcessor = new AbstractOverrideWildcardProcessor(true) {
@@ -0,0 +1,98 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.calculator.processor;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RegexAutomatonTest {
+
+    private static final String[] INPUTS = {
+            "", "a", "ab", "abc", "abcabc", "aaa", "b", "hello", "hello1", "hello123", "helloo",
+            "regex1", "regexes2", "regexp3", "regexps4", "regexps6", "test.node", "test-node",
+            "test.node.1", "essentials.home.5", "essentials.home.50", "a.b.c.d", "x_y", " ",
+            "tab\tbed", "line\nbreak", "été", " ", "]", "-", "a-z", "{1}"
+    };
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "abc", "a|ab|abc", "(abc)+", "a*", "a+b?c*", "hello\\d+", "rege(x(es)?|xps?)[1-5]",
+            "test\\.node", "test.node", "test[.-]node(\\.\\d)?", "essentials\\.home\\.\\d{1,1}",
+            "essentials\\.home\\.[0-9]{2,}", "a{2}", "a{1,3}", "(?:ab|c)*", "[^a-c]+", "[a-]", "[-a]+",
+            "\\w+", "\\W", "\\s*\\S+\\s*", ".*", ".+\\..+", "^abc$", "^a.*", "x*?y*", "(a|)*b?",
+            "((a*)*)*", "[\\d.]+", "\\{1\\}", "\\]", "a.b.c.d", "tab\\tbed", "line.break", "\\-"
+    })
+    public void testMatchesPattern(String regex) {
+        Pattern pattern = Pattern.compile(regex);
+
+        RegexAutomaton.Builder builder = new RegexAutomaton.Builder();
+        assertTrue(builder.add(regex, 0));
+        RegexAutomaton automaton = builder.build();
+
+        for (String input : INPUTS) {
+            boolean expected = pattern.matcher(input).matches();
+            assertEquals(expected ? 0 : RegexAutomaton.NO_MATCH, automaton.match(input), () -> "'" + regex + "' against '" + input + "'");
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "(a)\\1", "a(?=b)", "a(?!b)", "(?<=a)b", "(?i)abc", "\\bword\\b", "\\p{L}+", "\\Qa.b\\E",
+            "a*+", "a++", "[a-z&&[^b]]", "[[a]b]", "\\x41", "\\u0041", "a$b", "a^b", "(?<name>a)"
+    })
+    public void testUnsupportedSyntax(String regex) {
+        Pattern.compile(regex);
+
+        RegexAutomaton.Builder builder = new RegexAutomaton.Builder();
+        assertFalse(builder.add(regex, 0));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "hello1, 0",
+            "hello12, 1",
+            "world, 2",
+            "other, 3"
+    })
+    public void testFirstRuleWins(String input, int expected) {
+        RegexAutomaton.Builder builder = new RegexAutomaton.Builder();
+        builder.add("hello\\d", 0);
+        builder.add("hello\\d+", 1);
+        builder.add("\\w+d", 2);
+        builder.add(".*", 3);
+        RegexAutomaton automaton = builder.build();
+
+        assertEquals(expected, automaton.match(input));
+    }
+
+}
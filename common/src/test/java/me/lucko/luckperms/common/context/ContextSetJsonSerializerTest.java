@@ -29,6 +29,7 @@ import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 import me.lucko.luckperms.common.context.serializer.ContextSetJsonSerializer;
+import me.lucko.luckperms.common.util.gson.GsonProvider;
 import net.luckperms.api.context.ContextSet;
 import net.luckperms.api.context.ImmutableContextSet;
 import org.junit.jupiter.api.Test;
@@ -36,6 +37,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class ContextSetJsonSerializerTest {
@@ -93,4 +95,47 @@ public class ContextSetJsonSerializerTest {
         assertThrows(JsonParseException.class, () -> ContextSetJsonSerializer.deserialize(GSON, json));
     }
 
+    @Test
+    public void testSerializeToString() {
+        ImmutableContextSet escapes = new ImmutableContextSetImpl.BuilderImpl()
+                .add("quote", "a\"b")
+                .add("slash", "a\\b/c")
+                .add("control", "a\tb\u0001\u2028")
+                .add("html", "<a href='x'>&")
+                .build();
+
+        for (ImmutableContextSet set : new ImmutableContextSet[]{EXAMPLE_1, EXAMPLE_2, escapes, ImmutableContextSetImpl.EMPTY}) {
+            String expected = GsonProvider.normal().toJson(ContextSetJsonSerializer.serialize(set));
+            assertEquals(expected, ContextSetJsonSerializer.serializeToString(set));
+            assertEquals(expected, ContextSetJsonSerializer.serializeToString(set.mutableCopy()));
+            assertEquals(set, ContextSetJsonSerializer.deserializeFromString(expected));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"foo\":[\"bar\",\"foo\"],\"server\":\"foo\",\"world\":[\"foo\"]}",
+            " { \"foo\" : [ \"bar\" , \"foo\" ] , \"server\" : \"foo\" , \"world\" : \"foo\" } ",
+            "{\"Foo\":\"a\\u0062\\/c\",\"server\":\"global\",\"empty\":[]}",
+            "{\"number\":1,\"bool\":[true]}",
+            "{}",
+            ""
+    })
+    public void testDeserializeFromString(String json) {
+        ContextSet expected = ContextSetJsonSerializer.deserialize(GSON, json);
+        assertEquals(expected, ContextSetJsonSerializer.deserializeFromString(json));
+        // cached
+        assertSame(ContextSetJsonSerializer.deserializeFromString(json), ContextSetJsonSerializer.deserializeFromString(json));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "null",
+            "[]",
+            "foo"
+    })
+    public void testDeserializeFromStringThrows(String json) {
+        assertThrows(JsonParseException.class, () -> ContextSetJsonSerializer.deserializeFromString(json));
+    }
+
 }
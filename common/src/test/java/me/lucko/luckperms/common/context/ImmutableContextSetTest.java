@@ -38,6 +38,7 @@ import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ImmutableContextSetTest {
@@ -94,6 +95,26 @@ public class ImmutableContextSetTest {
         assertTrue(set.contains("test", "c"));
     }
 
+    @Test
+    public void testBuilderReusesSource() {
+        ImmutableContextSet set = new ImmutableContextSetImpl.BuilderImpl()
+                .add("test", "a")
+                .add("test", "b")
+                .build();
+
+        // building an unmodified copy returns the same instance
+        assertSame(set, new ImmutableContextSetImpl.BuilderImpl().addAll(set).build());
+        assertSame(set, new ImmutableContextSetImpl.BuilderImpl().addAll(set).add("test", "a").build());
+
+        // adding something new must not modify the source
+        ImmutableContextSet.Builder builder = new ImmutableContextSetImpl.BuilderImpl().addAll(set);
+        ImmutableContextSet modified = builder.add("test", "c").build();
+        assertEquals(3, modified.size());
+        assertEquals(2, set.size());
+        assertFalse(set.contains("test", "c"));
+        assertEquals(ImmutableSet.of("a", "b", "c"), modified.getValues("test"));
+    }
+
     @Test
     public void testContains() {
         ImmutableContextSet set = new ImmutableContextSetImpl.BuilderImpl()
@@ -0,0 +1,93 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.inheritance;
+
+import com.google.common.collect.ImmutableSet;
+import me.lucko.luckperms.common.model.HolderType;
+import me.lucko.luckperms.common.model.PermissionHolderIdentifier;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class InheritanceIndexTest {
+
+    private static final PermissionHolderIdentifier ADMIN = new PermissionHolderIdentifier(HolderType.GROUP, "admin");
+    private static final PermissionHolderIdentifier MOD = new PermissionHolderIdentifier(HolderType.GROUP, "mod");
+    private static final PermissionHolderIdentifier VIP = new PermissionHolderIdentifier(HolderType.GROUP, "vip");
+    private static final PermissionHolderIdentifier USER_1 = new PermissionHolderIdentifier(HolderType.USER, "1");
+    private static final PermissionHolderIdentifier USER_2 = new PermissionHolderIdentifier(HolderType.USER, "2");
+    private static final PermissionHolderIdentifier USER_3 = new PermissionHolderIdentifier(HolderType.USER, "3");
+
+    private static InheritanceIndex createIndex() {
+        // admin -> mod -> default, vip -> default
+        InheritanceIndex index = new InheritanceIndex(null);
+        index.update(ADMIN, ImmutableSet.of("mod"));
+        index.update(MOD, ImmutableSet.of("default"));
+        index.update(VIP, ImmutableSet.of("default"));
+        index.update(USER_1, ImmutableSet.of("admin"));
+        index.update(USER_2, ImmutableSet.of("vip"));
+        index.update(USER_3, ImmutableSet.of("default"));
+        return index;
+    }
+
+    @Test
+    public void testGetDependants() {
+        InheritanceIndex index = createIndex();
+
+        assertEquals(ImmutableSet.of(USER_1), index.getDependants(ImmutableSet.of("admin")));
+        assertEquals(ImmutableSet.of(ADMIN, USER_1), index.getDependants(ImmutableSet.of("mod")));
+        assertEquals(ImmutableSet.of(USER_2), index.getDependants(ImmutableSet.of("vip")));
+        assertEquals(ImmutableSet.of(ADMIN, MOD, VIP, USER_1, USER_2, USER_3), index.getDependants(ImmutableSet.of("default")));
+        assertEquals(ImmutableSet.of(), index.getDependants(ImmutableSet.of("unknown")));
+    }
+
+    @Test
+    public void testUpdateAndRemove() {
+        InheritanceIndex index = createIndex();
+
+        // user 2 moves from vip to admin
+        index.update(USER_2, ImmutableSet.of("admin"));
+        assertEquals(ImmutableSet.of(), index.getDependants(ImmutableSet.of("vip")));
+        assertEquals(ImmutableSet.of(USER_1, USER_2), index.getDependants(ImmutableSet.of("admin")));
+
+        // admin no longer inherits from mod
+        index.update(ADMIN, ImmutableSet.of());
+        assertEquals(ImmutableSet.of(), index.getDependants(ImmutableSet.of("mod")));
+
+        index.remove(USER_1);
+        assertEquals(ImmutableSet.of(USER_2), index.getDependants(ImmutableSet.of("admin")));
+    }
+
+    @Test
+    public void testCycle() {
+        InheritanceIndex index = new InheritanceIndex(null);
+        index.update(ADMIN, ImmutableSet.of("mod"));
+        index.update(MOD, ImmutableSet.of("admin"));
+
+        assertEquals(ImmutableSet.of(ADMIN, MOD), index.getDependants(ImmutableSet.of("admin")));
+    }
+
+}
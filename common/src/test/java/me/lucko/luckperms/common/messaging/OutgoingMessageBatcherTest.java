@@ -0,0 +1,123 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.messaging;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import me.lucko.luckperms.common.messaging.message.AbstractMessage;
+import me.lucko.luckperms.common.messaging.message.CustomMessageImpl;
+import me.lucko.luckperms.common.messaging.message.GroupUpdateMessageImpl;
+import me.lucko.luckperms.common.messaging.message.TrackUpdateMessageImpl;
+import me.lucko.luckperms.common.messaging.message.UpdateMessageImpl;
+import me.lucko.luckperms.common.messaging.message.UserUpdateMessageImpl;
+import me.lucko.luckperms.common.node.types.Permission;
+import me.lucko.luckperms.common.util.Difference;
+import net.luckperms.api.node.Node;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class OutgoingMessageBatcherTest {
+
+    private static Difference<Node> added(String permission) {
+        Difference<Node> diff = new Difference<>();
+        diff.recordChange(Difference.ChangeType.ADD, Permission.builder().permission(permission).build());
+        return diff;
+    }
+
+    @Test
+    public void testUserUpdatesDeduplicated() {
+        UUID user1 = UUID.randomUUID();
+        UUID user2 = UUID.randomUUID();
+
+        AbstractMessage a = new UserUpdateMessageImpl(UUID.randomUUID(), user1);
+        AbstractMessage b = new UserUpdateMessageImpl(UUID.randomUUID(), user2);
+        AbstractMessage c = new UserUpdateMessageImpl(UUID.randomUUID(), user1);
+        AbstractMessage custom = new CustomMessageImpl(UUID.randomUUID(), "channel", "payload");
+
+        List<AbstractMessage> result = OutgoingMessageBatcher.coalesce(ImmutableList.of(a, custom, b, c));
+        assertEquals(ImmutableList.of(a, custom, b), result);
+    }
+
+    @Test
+    public void testFullUpdateReplacesTargetedUpdates() {
+        AbstractMessage user = new UserUpdateMessageImpl(UUID.randomUUID(), UUID.randomUUID());
+        AbstractMessage group = new GroupUpdateMessageImpl(UUID.randomUUID(), "admin");
+        AbstractMessage track = new TrackUpdateMessageImpl(UUID.randomUUID(), "staff", ImmutableList.of("admin"));
+        AbstractMessage full1 = new UpdateMessageImpl(UUID.randomUUID());
+        AbstractMessage full2 = new UpdateMessageImpl(UUID.randomUUID());
+        AbstractMessage custom = new CustomMessageImpl(UUID.randomUUID(), "channel", "payload");
+
+        List<AbstractMessage> result = OutgoingMessageBatcher.coalesce(ImmutableList.of(user, group, full1, track, custom, full2));
+        assertEquals(ImmutableList.of(full1, custom), result);
+    }
+
+    @Test
+    public void testGroupUpdatesMerged() {
+        AbstractMessage a = new GroupUpdateMessageImpl(UUID.randomUUID(), "admin", added("test.a"), 1, 2);
+        AbstractMessage b = new GroupUpdateMessageImpl(UUID.randomUUID(), "admin", added("test.b"), 2, 3);
+
+        List<AbstractMessage> result = OutgoingMessageBatcher.coalesce(ImmutableList.of(a, b));
+        assertEquals(1, result.size());
+
+        GroupUpdateMessageImpl merged = (GroupUpdateMessageImpl) result.get(0);
+        assertEquals(a.getId(), merged.getId());
+        assertEquals(
+                ImmutableSet.of(Permission.builder().permission("test.a").build(), Permission.builder().permission("test.b").build()),
+                merged.getChanges().getAdded()
+        );
+        assertEquals(1, merged.getBaseHash());
+        assertEquals(3, merged.getHash());
+
+        // if either update doesn't include its changes, the merged one can't either
+        AbstractMessage c = new GroupUpdateMessageImpl(UUID.randomUUID(), "admin");
+        result = OutgoingMessageBatcher.coalesce(ImmutableList.of(a, c, b));
+        assertEquals(1, result.size());
+        assertNull(((GroupUpdateMessageImpl) result.get(0)).getChanges());
+
+        // if the second update wasn't made on top of the first, the changes can't be merged
+        AbstractMessage d = new GroupUpdateMessageImpl(UUID.randomUUID(), "admin", added("test.d"), 5, 6);
+        result = OutgoingMessageBatcher.coalesce(ImmutableList.of(a, d));
+        assertEquals(1, result.size());
+        assertNull(((GroupUpdateMessageImpl) result.get(0)).getChanges());
+    }
+
+    @Test
+    public void testTrackUpdatesKeepLatest() {
+        AbstractMessage a = new TrackUpdateMessageImpl(UUID.randomUUID(), "staff", ImmutableList.of("mod"));
+        AbstractMessage b = new TrackUpdateMessageImpl(UUID.randomUUID(), "staff", ImmutableList.of("mod", "admin"));
+
+        List<AbstractMessage> result = OutgoingMessageBatcher.coalesce(ImmutableList.of(a, b));
+        assertEquals(1, result.size());
+        assertSame(b, result.get(0));
+    }
+
+}
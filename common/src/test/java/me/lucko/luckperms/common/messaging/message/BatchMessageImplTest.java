@@ -0,0 +1,121 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.messaging.message;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import me.lucko.luckperms.common.util.gson.GsonProvider;
+import net.luckperms.api.messenger.message.Message;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BatchMessageImplTest {
+
+    private static BatchMessageImpl roundTrip(BatchMessageImpl message) {
+        JsonObject json = GsonProvider.normal().fromJson(message.asEncodedString(), JsonObject.class);
+        assertEquals(BatchMessageImpl.TYPE, json.get("type").getAsString());
+        return BatchMessageImpl.decode(json.get("content"), message.getId(), inner -> {
+            UUID id = UUID.fromString(inner.get("id").getAsString());
+            switch (inner.get("type").getAsString()) {
+                case UserUpdateMessageImpl.TYPE:
+                    return UserUpdateMessageImpl.decode(inner.get("content"), id);
+                case UpdateMessageImpl.TYPE:
+                    return UpdateMessageImpl.decode(inner.get("content"), id);
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private static void assertRoundTrip(List<AbstractMessage> messages) {
+        BatchMessageImpl decoded = roundTrip(new BatchMessageImpl(UUID.randomUUID(), messages));
+        assertEquals(messages.size(), decoded.getMessages().size());
+
+        for (int i = 0; i < messages.size(); i++) {
+            Message expected = messages.get(i);
+            Message actual = decoded.getMessages().get(i);
+            assertEquals(expected.getClass(), actual.getClass());
+            assertEquals(expected.getId(), actual.getId());
+        }
+    }
+
+    @Test
+    public void testSmallBatch() {
+        assertRoundTrip(ImmutableList.of(
+                new UpdateMessageImpl(UUID.randomUUID()),
+                new UserUpdateMessageImpl(UUID.randomUUID(), UUID.randomUUID())
+        ));
+    }
+
+    @Test
+    public void testMessagesEncodedAsJson() {
+        List<AbstractMessage> messages = ImmutableList.of(
+                new UpdateMessageImpl(UUID.randomUUID()),
+                new UserUpdateMessageImpl(UUID.randomUUID(), UUID.randomUUID())
+        );
+
+        JsonObject json = new BatchMessageImpl(UUID.randomUUID(), messages).asJsonObject();
+        JsonArray encoded = json.getAsJsonObject("content").getAsJsonArray("messages");
+        assertEquals(messages.size(), encoded.size());
+        for (int i = 0; i < messages.size(); i++) {
+            assertEquals(messages.get(i).asJsonObject(), encoded.get(i));
+            assertEquals(messages.get(i).asEncodedString(), GsonProvider.normal().toJson(encoded.get(i)));
+        }
+    }
+
+    @Test
+    public void testCompressedBatch() {
+        List<AbstractMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            messages.add(new UserUpdateMessageImpl(UUID.randomUUID(), UUID.randomUUID()));
+        }
+
+        String encoded = new BatchMessageImpl(UUID.randomUUID(), messages).asEncodedString();
+        assertTrue(encoded.contains("\"compressed\""));
+
+        assertRoundTrip(messages);
+    }
+
+    @Test
+    public void testUnknownMessagesSkipped() {
+        BatchMessageImpl decoded = roundTrip(new BatchMessageImpl(UUID.randomUUID(), ImmutableList.of(
+                new CustomMessageImpl(UUID.randomUUID(), "channel", "payload"),
+                new UserUpdateMessageImpl(UUID.randomUUID(), UUID.randomUUID())
+        )));
+
+        assertEquals(1, decoded.getMessages().size());
+        assertInstanceOf(UserUpdateMessageImpl.class, decoded.getMessages().get(0));
+    }
+
+}
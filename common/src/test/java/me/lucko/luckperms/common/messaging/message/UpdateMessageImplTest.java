@@ -0,0 +1,112 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.messaging.message;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.gson.JsonObject;
+import me.lucko.luckperms.common.node.types.Inheritance;
+import me.lucko.luckperms.common.node.types.Permission;
+import me.lucko.luckperms.common.util.Difference;
+import me.lucko.luckperms.common.util.gson.GsonProvider;
+import net.luckperms.api.node.Node;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class UpdateMessageImplTest {
+
+    private static UpdateMessageImpl roundTrip(UpdateMessageImpl message) {
+        JsonObject json = GsonProvider.normal().fromJson(message.asEncodedString(), JsonObject.class);
+        assertEquals(UpdateMessageImpl.TYPE, json.get("type").getAsString());
+        return UpdateMessageImpl.decode(json.get("content"), message.getId());
+    }
+
+    @Test
+    public void testPlainUpdate() {
+        UpdateMessageImpl decoded = roundTrip(new UpdateMessageImpl(UUID.randomUUID()));
+        assertEquals(UpdateMessageImpl.class, decoded.getClass());
+    }
+
+    @Test
+    public void testGroupUpdate() {
+        Node added = Permission.builder().permission("test.added").build();
+        Node removed = Inheritance.builder("other").build();
+
+        Difference<Node> changes = new Difference<>();
+        changes.recordChange(Difference.ChangeType.ADD, added);
+        changes.recordChange(Difference.ChangeType.REMOVE, removed);
+
+        UpdateMessageImpl decoded = roundTrip(new GroupUpdateMessageImpl(UUID.randomUUID(), "admin", changes, 12345L, -678L));
+        GroupUpdateMessageImpl msg = assertInstanceOf(GroupUpdateMessageImpl.class, decoded);
+
+        assertEquals("admin", msg.getGroupName());
+        assertNotNull(msg.getChanges());
+        assertEquals(ImmutableSet.of(added), msg.getChanges().getAdded());
+        assertEquals(ImmutableSet.of(removed), msg.getChanges().getRemoved());
+        assertEquals(12345L, msg.getBaseHash());
+        assertEquals(-678L, msg.getHash());
+    }
+
+    @Test
+    public void testHashNodes() {
+        Node a = Permission.builder().permission("test.a").withContext("server", "survival").withContext("world", "nether").build();
+        Node b = Permission.builder().permission("test.b").value(false).build();
+        Node aReordered = Permission.builder().permission("test.a").withContext("world", "nether").withContext("server", "survival").build();
+
+        assertEquals(GroupUpdateMessageImpl.hashNodes(ImmutableList.of(a, b)), GroupUpdateMessageImpl.hashNodes(ImmutableList.of(b, aReordered)));
+        assertNotEquals(GroupUpdateMessageImpl.hashNodes(ImmutableList.of(a, b)), GroupUpdateMessageImpl.hashNodes(ImmutableList.of(a)));
+        assertNotEquals(
+                GroupUpdateMessageImpl.hashNodes(ImmutableList.of(b)),
+                GroupUpdateMessageImpl.hashNodes(ImmutableList.of(Permission.builder().permission("test.b").build()))
+        );
+    }
+
+    @Test
+    public void testGroupUpdateWithoutChanges() {
+        UpdateMessageImpl decoded = roundTrip(new GroupUpdateMessageImpl(UUID.randomUUID(), "admin"));
+        GroupUpdateMessageImpl msg = assertInstanceOf(GroupUpdateMessageImpl.class, decoded);
+
+        assertEquals("admin", msg.getGroupName());
+        assertNull(msg.getChanges());
+    }
+
+    @Test
+    public void testTrackUpdate() {
+        UpdateMessageImpl decoded = roundTrip(new TrackUpdateMessageImpl(UUID.randomUUID(), "staff", ImmutableList.of("mod", "admin")));
+        TrackUpdateMessageImpl msg = assertInstanceOf(TrackUpdateMessageImpl.class, decoded);
+
+        assertEquals("staff", msg.getTrackName());
+        assertEquals(ImmutableList.of("mod", "admin"), msg.getGroups());
+    }
+
+}
@@ -36,6 +36,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.Mockito.mock;
@@ -88,4 +89,34 @@ public class GroupManagerTest {
         assertSame(memberGroup, manager.getByDisplayName("Member"));
     }
 
+    @Test
+    public void testInheritanceVersion() {
+        StandardGroupManager manager = new StandardGroupManager(this.plugin) {
+            @Override
+            public Group apply(String name) {
+                return mock(Group.class);
+            }
+        };
+
+        long version = manager.getInheritanceVersion();
+        manager.getOrMake("default");
+        assertNotEquals(version, manager.getInheritanceVersion());
+
+        // loading an existing group doesn't change anything
+        version = manager.getInheritanceVersion();
+        manager.getOrMake("default");
+        assertEquals(version, manager.getInheritanceVersion());
+
+        // each manager keeps its own version
+        assertEquals(0, new StandardGroupManager(this.plugin).getInheritanceVersion());
+    }
+
+    @Test
+    public void testUpdateLock() {
+        StandardGroupManager manager = new StandardGroupManager(this.plugin);
+
+        assertSame(manager.getUpdateLock("default"), manager.getUpdateLock("default"));
+        assertSame(manager.getUpdateLock("default"), manager.getUpdateLock("DEFAULT"));
+    }
+
 }
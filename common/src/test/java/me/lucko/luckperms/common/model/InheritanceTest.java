@@ -29,6 +29,7 @@ import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.config.LuckPermsConfiguration;
 import me.lucko.luckperms.common.event.EventDispatcher;
 import me.lucko.luckperms.common.graph.TraversalAlgorithm;
+import me.lucko.luckperms.common.inheritance.InheritanceComparator;
 import me.lucko.luckperms.common.inheritance.InheritanceGraphFactory;
 import me.lucko.luckperms.common.model.manager.group.GroupManager;
 import me.lucko.luckperms.common.model.manager.group.StandardGroupManager;
@@ -37,16 +38,20 @@ import me.lucko.luckperms.common.node.types.Weight;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.query.QueryOptionsImpl;
 import net.luckperms.api.context.ContextSatisfyMode;
+import net.luckperms.api.model.data.DataType;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -126,6 +131,87 @@ public class InheritanceTest {
         assertEquals(expectedList, groups);
     }
 
+    @Test
+    public void testInheritanceTreeUpdatesAfterGroupChange() {
+        when(this.configuration.get(ConfigKeys.INHERITANCE_TRAVERSAL_ALGORITHM)).thenReturn(TraversalAlgorithm.DEPTH_FIRST_PRE_ORDER);
+        when(this.configuration.get(ConfigKeys.POST_TRAVERSAL_INHERITANCE_SORT)).thenReturn(false);
+
+        Group member = this.groupManager.getOrMake("member");
+        Group vip = createGroup("vip", 5, member);
+
+        PermissionHolder testHolder = this.groupManager.getOrMake("test");
+        testHolder.normalData().add(Inheritance.builder().group(vip.getName()).build());
+
+        List<String> groups = testHolder.resolveInheritanceTree(QueryOptionsImpl.DEFAULT_CONTEXTUAL)
+                .stream().map(Group::getName).collect(Collectors.toList());
+        assertEquals(Arrays.asList("vip", "member"), groups);
+
+        Group helper = this.groupManager.getOrMake("helper");
+        member.setNode(DataType.NORMAL, Inheritance.builder().group(helper.getName()).build(), false);
+
+        groups = testHolder.resolveInheritanceTree(QueryOptionsImpl.DEFAULT_CONTEXTUAL)
+                .stream().map(Group::getName).collect(Collectors.toList());
+        assertEquals(Arrays.asList("vip", "member", "helper"), groups);
+    }
+
+    @Test
+    public void testSortMatchesComparator() {
+        lenient().when(this.configuration.get(ConfigKeys.PRIMARY_GROUP_CALCULATION)).thenReturn(PrimaryGroupHolder.Stored::new);
+
+        Group member = this.groupManager.getOrMake("member");
+        List<PermissionHolder> holders = new ArrayList<>();
+        holders.add(member);
+        holders.add(createGroup("vip", 5, member));
+        holders.add(createGroup("helper", 10, member));
+        holders.add(createGroup("builder", 5, member));
+        holders.add(createGroup("negative", -3, member));
+        holders.add(this.groupManager.getOrMake("default"));
+        holders.add(createGroup("mod", 10, member));
+        holders.add(createGroup("max", Integer.MAX_VALUE, member));
+        holders.add(createGroup("min", Integer.MIN_VALUE, member));
+
+        User user = new User(UUID.randomUUID(), this.plugin);
+        holders.add(3, user);
+
+        for (String primaryGroup : new String[]{"default", "builder", "mod"}) {
+            user.getPrimaryGroup().setStoredValue(primaryGroup);
+
+            for (PermissionHolder origin : new PermissionHolder[]{user, member}) {
+                List<PermissionHolder> expected = new ArrayList<>(holders);
+                expected.sort(origin.getInheritanceComparator());
+
+                List<PermissionHolder> actual = new ArrayList<>(holders);
+                InheritanceComparator.sort(actual, origin);
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testPrimaryGroupMemoised() {
+        when(this.configuration.get(ConfigKeys.INHERITANCE_TRAVERSAL_ALGORITHM)).thenReturn(TraversalAlgorithm.DEPTH_FIRST_PRE_ORDER);
+        when(this.configuration.get(ConfigKeys.PRIMARY_GROUP_CALCULATION)).thenReturn(PrimaryGroupHolder.AllParentsByWeight::new);
+
+        Group member = this.groupManager.getOrMake("member");
+        Group vip = createGroup("vip", 5, member);
+        Group owner = createGroup("owner", 13, member);
+
+        User user = new User(UUID.randomUUID(), this.plugin);
+        user.getPrimaryGroup().setStoredValue("fallback");
+        user.setNode(DataType.NORMAL, Inheritance.builder().group(vip.getName()).build(), false);
+        assertEquals("vip", user.getCachedData().getPrimaryGroup(QueryOptionsImpl.DEFAULT_CONTEXTUAL));
+
+        user.setNode(DataType.NORMAL, Inheritance.builder().group(owner.getName()).build(), false);
+        assertEquals("owner", user.getCachedData().getPrimaryGroup(QueryOptionsImpl.DEFAULT_CONTEXTUAL));
+
+        user.unsetNode(DataType.NORMAL, Inheritance.builder().group(owner.getName()).build());
+        user.unsetNode(DataType.NORMAL, Inheritance.builder().group(vip.getName()).build());
+        assertEquals("fallback", user.getCachedData().getPrimaryGroup(QueryOptionsImpl.DEFAULT_CONTEXTUAL));
+
+        user.getPrimaryGroup().setStoredValue("other");
+        assertEquals("other", user.getCachedData().getPrimaryGroup(QueryOptionsImpl.DEFAULT_CONTEXTUAL));
+    }
+
     private Group createGroup(String name, int weight, Group parent) {
         Group group = this.groupManager.getOrMake(name);
         group.normalData().add(Inheritance.builder().group(parent.getName()).build());
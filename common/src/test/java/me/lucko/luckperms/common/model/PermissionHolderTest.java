@@ -27,6 +27,8 @@ package me.lucko.luckperms.common.model;
 
 import com.google.common.collect.ImmutableList;
 import me.lucko.luckperms.common.event.EventDispatcher;
+import me.lucko.luckperms.common.model.manager.group.GroupManager;
+import me.lucko.luckperms.common.model.manager.group.StandardGroupManager;
 import me.lucko.luckperms.common.node.types.Permission;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import net.luckperms.api.model.data.DataMutateResult;
@@ -58,6 +60,8 @@ public class PermissionHolderTest {
     @BeforeEach
     public void setupMocks() {
         when(this.plugin.getEventDispatcher()).thenReturn(mock(EventDispatcher.class));
+        //noinspection unchecked,rawtypes
+        when(this.plugin.getGroupManager()).thenReturn((GroupManager) new StandardGroupManager(this.plugin));
     }
 
     @Test
@@ -0,0 +1,75 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.model;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TemporaryNodeExpiryQueueTest {
+
+    private static final PermissionHolderIdentifier A = new PermissionHolderIdentifier(HolderType.GROUP, "a");
+    private static final PermissionHolderIdentifier B = new PermissionHolderIdentifier(HolderType.GROUP, "b");
+
+    @Test
+    public void testPollDue() {
+        TemporaryNodeExpiryQueue queue = new TemporaryNodeExpiryQueue();
+        queue.schedule(A, 100);
+        queue.schedule(B, 200);
+        assertEquals(2, queue.size());
+
+        assertEquals(ImmutableList.of(), queue.pollDue(50));
+        assertEquals(ImmutableList.of(A), queue.pollDue(150));
+        assertEquals(ImmutableList.of(B), queue.pollDue(250));
+        assertEquals(ImmutableList.of(), queue.pollDue(1000));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testOnlyEarliestKept() {
+        TemporaryNodeExpiryQueue queue = new TemporaryNodeExpiryQueue();
+        queue.schedule(A, 200);
+        queue.schedule(A, 100);
+        queue.schedule(A, 300);
+        assertEquals(1, queue.size());
+
+        // the holder is only returned once, at the earliest time
+        assertEquals(ImmutableList.of(A), queue.pollDue(150));
+        assertEquals(ImmutableList.of(), queue.pollDue(1000));
+    }
+
+    @Test
+    public void testReschedule() {
+        TemporaryNodeExpiryQueue queue = new TemporaryNodeExpiryQueue();
+        queue.schedule(A, 100);
+        assertEquals(ImmutableList.of(A), queue.pollDue(100));
+
+        queue.schedule(A, 200);
+        assertEquals(ImmutableList.of(A), queue.pollDue(200));
+    }
+
+}
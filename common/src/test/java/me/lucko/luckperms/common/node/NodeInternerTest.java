@@ -0,0 +1,102 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.node;
+
+import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
+import me.lucko.luckperms.common.node.types.Inheritance;
+import me.lucko.luckperms.common.node.types.Permission;
+import net.luckperms.api.context.ImmutableContextSet;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.node.metadata.types.InheritanceOriginMetadata;
+import net.luckperms.api.node.types.PermissionNode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+
+public class NodeInternerTest {
+
+    private static ImmutableContextSet contexts() {
+        return new ImmutableContextSetImpl.BuilderImpl()
+                .add("server", "survival")
+                .add("world", "nether")
+                .build();
+    }
+
+    @Test
+    public void testInternContexts() {
+        ImmutableContextSet first = NodeInterner.intern(contexts());
+        ImmutableContextSet second = contexts();
+
+        assertNotSame(first, second);
+        assertSame(first, NodeInterner.intern(second));
+        assertSame(ImmutableContextSetImpl.EMPTY, NodeInterner.intern(ImmutableContextSetImpl.EMPTY));
+    }
+
+    @Test
+    public void testInternNodes() {
+        PermissionNode first = NodeInterner.intern(Permission.builder().permission("test.node").context(contexts()).build());
+        PermissionNode second = Permission.builder().permission("test.node").context(contexts()).build();
+
+        assertNotSame(first, second);
+        assertSame(first, NodeInterner.intern(second));
+
+        Node group = NodeInterner.intern(Inheritance.builder("admin").build());
+        assertSame(group, NodeInterner.intern(Inheritance.builder("admin").build()));
+    }
+
+    @Test
+    public void testNodesWithMetadataNotInterned() {
+        NodeInterner.intern(Permission.builder().permission("test.metadata").build());
+
+        PermissionNode withMetadata = Permission.builder()
+                .permission("test.metadata")
+                .withMetadata(InheritanceOriginMetadata.KEY, mock(InheritanceOriginMetadata.class))
+                .build();
+        assertSame(withMetadata, NodeInterner.intern(withMetadata));
+    }
+
+    @Test
+    public void testBuilderKeepsInternedContexts() {
+        ImmutableContextSet interned = NodeInterner.intern(contexts());
+        Node node = Permission.builder().permission("test.contexts").context(interned).build();
+        assertSame(interned, node.getContexts());
+
+        Node copy = node.toBuilder().value(false).build();
+        assertSame(interned, copy.getContexts());
+    }
+
+    @Test
+    public void testLazyShorthand() {
+        Node node = Permission.builder().permission("test.(a|b)").build();
+        assertEquals(2, node.resolveShorthand().size());
+        assertSame(node.resolveShorthand(), node.resolveShorthand());
+        assertEquals(0, Inheritance.builder("admin").build().resolveShorthand().size());
+    }
+
+}
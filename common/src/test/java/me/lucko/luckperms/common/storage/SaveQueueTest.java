@@ -0,0 +1,170 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage;
+
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SaveQueueTest {
+
+    private SaveQueue queue;
+
+    @BeforeEach
+    public void setupQueue() {
+        // run async tasks immediately, but never run delayed flushes
+        SchedulerAdapter scheduler = mock(SchedulerAdapter.class);
+        when(scheduler.async()).thenReturn((Executor) Runnable::run);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(scheduler).executeAsync(any());
+        when(scheduler.asyncLater(any(), anyLong(), any())).thenReturn(null);
+
+        this.queue = new SaveQueue(scheduler, 100);
+    }
+
+    @Test
+    public void testCoalesce() {
+        Object holder = new Object();
+        AtomicInteger saves = new AtomicInteger();
+
+        CompletableFuture<Void> first = this.queue.save("user:a", holder, saves::incrementAndGet);
+        CompletableFuture<Void> second = this.queue.save("user:a", holder, saves::incrementAndGet);
+        this.queue.save("user:b", new Object(), saves::incrementAndGet);
+
+        assertSame(first, second);
+        assertEquals(2, this.queue.getPendingCount());
+        assertEquals(0, saves.get());
+        assertFalse(first.isDone());
+
+        this.queue.flush();
+
+        assertEquals(2, saves.get());
+        assertEquals(0, this.queue.getPendingCount());
+        assertTrue(first.isDone());
+    }
+
+    @Test
+    public void testDifferentInstances() {
+        List<String> saved = new ArrayList<>();
+
+        this.queue.save("user:a", new Object(), () -> saved.add("first"));
+        this.queue.save("user:a", new Object(), () -> saved.add("second"));
+        assertEquals(1, this.queue.getPendingCount());
+
+        this.queue.flush();
+        assertEquals(List.of("first", "second"), saved);
+    }
+
+    @Test
+    public void testFailure() {
+        CompletableFuture<Void> future = this.queue.save("user:a", new Object(), () -> {
+            throw new Exception("test");
+        });
+        this.queue.flush();
+
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    @Test
+    public void testFlushWhenFull() {
+        AtomicInteger saves = new AtomicInteger();
+        for (int i = 0; i < SaveQueue.MAX_PENDING; i++) {
+            this.queue.save("user:" + i, new Object(), saves::incrementAndGet);
+        }
+
+        assertEquals(SaveQueue.MAX_PENDING, saves.get());
+        assertEquals(0, this.queue.getPendingCount());
+    }
+
+    @Test
+    public void testFlushKey() {
+        List<String> saved = new ArrayList<>();
+        CompletableFuture<Void> a = this.queue.save("user:a", new Object(), () -> saved.add("a"));
+        CompletableFuture<Void> b = this.queue.save("user:b", new Object(), () -> saved.add("b"));
+
+        assertTrue(this.queue.isPending("user:a"));
+        this.queue.flush("user:a");
+
+        assertEquals(List.of("a"), saved);
+        assertTrue(a.isDone());
+        assertFalse(b.isDone());
+        assertFalse(this.queue.isPending("user:a"));
+        assertTrue(this.queue.isPending("user:b"));
+
+        // nothing pending for the key
+        this.queue.flush("user:c");
+        assertEquals(List.of("a"), saved);
+    }
+
+    @Test
+    public void testCancelKey() {
+        AtomicInteger saves = new AtomicInteger();
+        CompletableFuture<Void> future = this.queue.save("group:a", new Object(), saves::incrementAndGet);
+
+        this.queue.cancel("group:a");
+        assertTrue(future.isDone());
+        assertFalse(future.isCompletedExceptionally());
+        assertEquals(0, this.queue.getPendingCount());
+
+        // the cancelled save is never written
+        this.queue.flush();
+        assertEquals(0, saves.get());
+    }
+
+    @Test
+    public void testShutdown() {
+        AtomicInteger saves = new AtomicInteger();
+        this.queue.save("user:a", new Object(), saves::incrementAndGet);
+
+        this.queue.shutdown();
+        assertEquals(1, saves.get());
+
+        // saves after shutdown are not queued
+        CompletableFuture<Void> future = this.queue.save("user:a", new Object(), saves::incrementAndGet);
+        assertTrue(future.isDone());
+        assertEquals(2, saves.get());
+        assertEquals(0, this.queue.getPendingCount());
+    }
+
+}
@@ -25,8 +25,12 @@
 
 package me.lucko.luckperms.common.storage;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogFilter;
+import me.lucko.luckperms.common.actionlog.LogPage;
 import me.lucko.luckperms.common.actionlog.LoggedAction;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.config.LuckPermsConfiguration;
@@ -46,6 +50,9 @@ import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
 import me.lucko.luckperms.common.storage.implementation.sql.SqlStorage;
 import me.lucko.luckperms.common.storage.implementation.sql.connection.ConnectionFactory;
 import me.lucko.luckperms.common.storage.implementation.sql.connection.file.NonClosableConnection;
+import me.lucko.luckperms.common.storage.misc.StorageChanges;
+import me.lucko.luckperms.common.storage.misc.StorageRevision;
+import me.lucko.luckperms.common.storage.misc.UserLoginResult;
 import net.luckperms.api.actionlog.Action;
 import net.luckperms.api.model.PlayerSaveResult;
 import net.luckperms.api.model.PlayerSaveResult.Outcome;
@@ -62,7 +69,15 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
@@ -87,6 +102,7 @@ public class SqlStorageTest {
     @Mock private LuckPermsBootstrap bootstrap;
     @Mock private LuckPermsConfiguration configuration;
 
+    private TestH2ConnectionFactory connectionFactory;
     private SqlStorage storage;
 
     @BeforeEach
@@ -101,7 +117,8 @@ public class SqlStorageTest {
                 .then(answer((String path) -> SqlStorageTest.class.getClassLoader().getResourceAsStream(path)));
         lenient().when(this.plugin.getEventDispatcher()).thenReturn(mock(EventDispatcher.class));
 
-        this.storage = new SqlStorage(this.plugin, new TestH2ConnectionFactory(), "luckperms_");
+        this.connectionFactory = new TestH2ConnectionFactory();
+        this.storage = new SqlStorage(this.plugin, this.connectionFactory, "luckperms_");
         this.storage.init();
     }
 
@@ -128,6 +145,77 @@ public class SqlStorageTest {
         assertEquals(action, log.getContent().first());
     }
 
+    @Test
+    public void testLogPage() throws Exception {
+        UUID source = UUID.randomUUID();
+        UUID target = UUID.randomUUID();
+        Instant start = Instant.now().minus(30, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+
+        List<LoggedAction> actions = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            LoggedAction.Builder builder = LoggedAction.build()
+                    .timestamp(start.plus(i, ChronoUnit.DAYS))
+                    .source(i % 2 == 0 ? source : UUID.randomUUID())
+                    .sourceName("Source " + i);
+
+            if (i % 5 == 0) {
+                builder.targetType(Action.Target.Type.GROUP).targetName("admin");
+            } else {
+                builder.targetType(Action.Target.Type.USER).target(target).targetName("Target");
+            }
+
+            LoggedAction action = builder.description("action " + i + (i == 7 ? " 100%_done" : "")).build();
+            actions.add(action);
+            this.storage.logAction(action);
+        }
+
+        // latest page, without counting the entries
+        LogPage latest = this.storage.getLogPage(LogFilter.all(), LogPage.LATEST, 10, null, false);
+        assertFalse(latest.isTotalKnown());
+        assertEquals(1, latest.getPageNumber());
+        assertEquals(actions.subList(15, 25), latest.getContent());
+        assertEquals(10, latest.getEntries().get(0).position());
+        assertEquals(1, latest.getEntries().get(9).position());
+
+        // the next page, read on from the end of the latest page
+        LogPage second = this.storage.getLogPage(LogFilter.all(), 2, 10, latest.getNext(), true);
+        assertEquals(actions.subList(5, 15), second.getContent());
+        assertEquals(25, second.getTotalEntries());
+        assertEquals(3, second.getMaxPages());
+
+        // specific page
+        LogPage third = this.storage.getLogPage(LogFilter.all(), 3, 10, null, true);
+        assertEquals(actions.subList(0, 5), third.getContent());
+        assertEquals(25, third.getEntries().get(0).position());
+
+        // out of range
+        LogPage outOfRange = this.storage.getLogPage(LogFilter.all(), 4, 10, null, true);
+        assertEquals(25, outOfRange.getTotalEntries());
+        assertTrue(outOfRange.getContent().isEmpty());
+
+        // filters
+        assertEquals(13, this.storage.getLogPage(LogFilter.source(source), 1, 100, null, true).getTotalEntries());
+        assertEquals(20, this.storage.getLogPage(LogFilter.user(target), 1, 100, null, true).getTotalEntries());
+        assertEquals(5, this.storage.getLogPage(LogFilter.group("admin"), 1, 100, null, true).getTotalEntries());
+        assertEquals(0, this.storage.getLogPage(LogFilter.track("admin"), 1, 100, null, true).getTotalEntries());
+
+        // the cursor is combined with the filter
+        LogPage adminLatest = this.storage.getLogPage(LogFilter.group("admin"), 1, 2, null, false);
+        assertEquals(ImmutableList.of(actions.get(15), actions.get(20)), adminLatest.getContent());
+        LogPage adminNext = this.storage.getLogPage(LogFilter.group("admin"), 2, 2, adminLatest.getNext(), false);
+        assertEquals(ImmutableList.of(actions.get(5), actions.get(10)), adminNext.getContent());
+
+        // search is case-insensitive and treats wildcards literally
+        assertEquals(ImmutableList.of(actions.get(7)), this.storage.getLogPage(LogFilter.search("0%_DONE"), 1, 100, null, false).getContent());
+        assertEquals(1, this.storage.getLogPage(LogFilter.search("%"), 1, 100, null, true).getTotalEntries());
+        assertEquals(5, this.storage.getLogPage(LogFilter.search("ADMIN"), 1, 100, null, true).getTotalEntries());
+
+        // prune
+        this.storage.pruneLog(start.plus(10, ChronoUnit.DAYS));
+        LogPage pruned = this.storage.getLogPage(LogFilter.all(), 1, 100, null, false);
+        assertEquals(actions.subList(10, 25), pruned.getContent());
+    }
+
     @Test
     public void testSavePlayerData() throws Exception {
         UUID uniqueId = UUID.randomUUID();
@@ -159,6 +247,74 @@ public class SqlStorageTest {
         assertNull(r2.getPreviousUsername());
     }
 
+    @Test
+    public void testLoginUser() throws Exception {
+        StandardUserManager userManager = new StandardUserManager(this.plugin);
+
+        //noinspection unchecked,rawtypes
+        when(this.plugin.getUserManager()).thenReturn((UserManager) userManager);
+
+        UUID uniqueId = UUID.randomUUID();
+        PermissionNode examplePermission = Permission.builder().permission("test.1").build();
+        InheritanceNode defaultGroupNode = Inheritance.builder(GroupManager.DEFAULT_GROUP_NAME).build();
+
+        // first login
+        UserLoginResult r1 = this.storage.loginUser(uniqueId, "Player1");
+        assertEquals(ImmutableSet.of(Outcome.CLEAN_INSERT), r1.getPlayerSaveResult().getOutcomes());
+        assertEquals(ImmutableSet.of(defaultGroupNode), r1.getUser().normalData().asSet());
+        assertEquals(GroupManager.DEFAULT_GROUP_NAME, r1.getUser().getPrimaryGroup().getStoredValue().orElse(null));
+
+        r1.getUser().setNode(DataType.NORMAL, examplePermission, true);
+        this.storage.saveUser(r1.getUser());
+        userManager.unload(uniqueId);
+
+        // login with a changed username
+        UserLoginResult r2 = this.storage.loginUser(uniqueId, "Player2");
+        assertEquals(ImmutableSet.of(Outcome.USERNAME_UPDATED), r2.getPlayerSaveResult().getOutcomes());
+        assertEquals(ImmutableSet.of(defaultGroupNode, examplePermission), r2.getUser().normalData().asSet());
+        assertEquals("player2", r2.getUser().getUsername().orElse(null));
+
+        // another uuid logs in with the same username
+        UUID newUniqueId = UUID.randomUUID();
+        UserLoginResult r3 = this.storage.loginUser(newUniqueId, "Player2");
+        assertEquals(ImmutableSet.of(Outcome.CLEAN_INSERT, Outcome.OTHER_UNIQUE_IDS_PRESENT_FOR_USERNAME), r3.getPlayerSaveResult().getOutcomes());
+        assertEquals(ImmutableSet.of(uniqueId), r3.getPlayerSaveResult().getOtherUniqueIds());
+        assertEquals(newUniqueId, this.storage.getPlayerUniqueId("Player2"));
+    }
+
+    @Test
+    public void testLoginUserBatch() throws Exception {
+        StandardUserManager userManager = new StandardUserManager(this.plugin);
+
+        //noinspection unchecked,rawtypes
+        when(this.plugin.getUserManager()).thenReturn((UserManager) userManager);
+
+        UUID existingUniqueId = UUID.randomUUID();
+        this.storage.savePlayerData(existingUniqueId, "Player1");
+
+        // a new player takes the existing players username, and the existing player
+        // logs in with a new one, in the same batch
+        UUID newUniqueId = UUID.randomUUID();
+        Map<UUID, String> logins = new LinkedHashMap<>();
+        logins.put(newUniqueId, "Player1");
+        logins.put(existingUniqueId, "Player2");
+
+        Map<UUID, UserLoginResult> results = this.storage.loginUserBatch(logins);
+
+        UserLoginResult r1 = results.get(newUniqueId);
+        assertEquals(ImmutableSet.of(Outcome.CLEAN_INSERT, Outcome.OTHER_UNIQUE_IDS_PRESENT_FOR_USERNAME), r1.getPlayerSaveResult().getOutcomes());
+        assertEquals(ImmutableSet.of(existingUniqueId), r1.getPlayerSaveResult().getOtherUniqueIds());
+        assertEquals("player1", r1.getUser().getUsername().orElse(null));
+
+        // the existing players row was removed by the first login, so is inserted again
+        UserLoginResult r2 = results.get(existingUniqueId);
+        assertEquals(ImmutableSet.of(Outcome.CLEAN_INSERT), r2.getPlayerSaveResult().getOutcomes());
+        assertEquals(GroupManager.DEFAULT_GROUP_NAME, r2.getUser().getPrimaryGroup().getStoredValue().orElse(null));
+
+        assertEquals(newUniqueId, this.storage.getPlayerUniqueId("Player1"));
+        assertEquals(existingUniqueId, this.storage.getPlayerUniqueId("Player2"));
+    }
+
     @Test
     public void testGetPlayerUniqueIdAndName() throws Exception {
         UUID uniqueId = UUID.randomUUID();
@@ -258,6 +414,150 @@ public class SqlStorageTest {
         assertEquals(ImmutableSet.of(defaultGroupNode, examplePermission), user.normalData().asSet());
     }
 
+    @Test
+    public void testLoadUserBatch() throws Exception {
+        StandardUserManager userManager = new StandardUserManager(this.plugin);
+
+        //noinspection unchecked,rawtypes
+        when(this.plugin.getUserManager()).thenReturn((UserManager) userManager);
+
+        UUID uniqueId1 = UUID.randomUUID();
+        UUID uniqueId2 = UUID.randomUUID();
+        UUID unknownUniqueId = UUID.randomUUID();
+        PermissionNode examplePermission = Permission.builder().permission("test.1").build();
+        InheritanceNode defaultGroupNode = Inheritance.builder(GroupManager.DEFAULT_GROUP_NAME).build();
+
+        this.storage.savePlayerData(uniqueId1, "Player1");
+        User user1 = this.storage.loadUser(uniqueId1, "Player1");
+        user1.setNode(DataType.NORMAL, examplePermission, true);
+        this.storage.saveUser(user1);
+        userManager.unload(uniqueId1);
+
+        this.storage.savePlayerData(uniqueId2, "Player2");
+
+        Map<UUID, String> request = new HashMap<>();
+        request.put(uniqueId1, "Player1");
+        request.put(uniqueId2, null);
+        request.put(unknownUniqueId, "Player3");
+
+        Map<UUID, User> loaded = this.storage.loadUserBatch(request);
+        assertEquals(ImmutableSet.of(uniqueId1, uniqueId2, unknownUniqueId), loaded.keySet());
+
+        assertEquals(ImmutableSet.of(defaultGroupNode, examplePermission), loaded.get(uniqueId1).normalData().asSet());
+        assertEquals(ImmutableSet.of(defaultGroupNode), loaded.get(uniqueId2).normalData().asSet());
+        assertEquals("player2", loaded.get(uniqueId2).getUsername().orElse(null));
+        assertEquals("Player3", loaded.get(unknownUniqueId).getUsername().orElse(null));
+        assertEquals(ImmutableSet.of(defaultGroupNode), loaded.get(unknownUniqueId).normalData().asSet());
+    }
+
+    @Test
+    public void testChangesSince() throws Exception {
+        StandardGroupManager groupManager = new StandardGroupManager(this.plugin);
+        StandardUserManager userManager = new StandardUserManager(this.plugin);
+
+        //noinspection unchecked,rawtypes
+        lenient().when(this.plugin.getGroupManager()).thenReturn((GroupManager) groupManager);
+        //noinspection unchecked,rawtypes
+        lenient().when(this.plugin.getUserManager()).thenReturn((UserManager) userManager);
+
+        // with no known revision, everything needs to be loaded
+        StorageChanges initial = this.storage.getChangesSince(StorageRevision.UNKNOWN);
+        assertNotNull(initial);
+        assertTrue(initial.isEverything());
+
+        StorageRevision revision = initial.getRevision();
+        StorageChanges none = this.storage.getChangesSince(revision);
+        assertTrue(none.isEmpty());
+        assertEquals(revision, none.getRevision());
+
+        // make some changes
+        Group group = this.storage.createAndLoadGroup("test");
+        group.normalData().add(Permission.builder().permission("test.1").build());
+        this.storage.saveGroup(group);
+
+        UUID uniqueId = UUID.randomUUID();
+        User user = this.storage.loadUser(uniqueId, "Player1");
+        user.setNode(DataType.NORMAL, Permission.builder().permission("test.2").build(), true);
+        this.storage.saveUser(user);
+
+        StorageChanges changes = this.storage.getChangesSince(revision);
+        assertFalse(changes.isEverything());
+        assertEquals(ImmutableSet.of("test"), changes.getGroups());
+        assertEquals(ImmutableSet.of(uniqueId), changes.getUsers());
+        assertTrue(changes.getTracks().isEmpty());
+        assertTrue(changes.getRevision().getLatest() > revision.getLatest());
+
+        // nothing has changed since the latest revision
+        assertTrue(this.storage.getChangesSince(changes.getRevision()).isEmpty());
+
+        // a revision newer than the latest means the changes can't be trusted
+        assertTrue(this.storage.getChangesSince(StorageRevision.of(changes.getRevision().getLatest() + 100)).isEverything());
+    }
+
+    @Test
+    public void testChangesSinceTracksGaps() throws Exception {
+        long now = System.currentTimeMillis();
+        insertChange(1, now, "G", "a");
+        insertChange(3, now, "G", "b");
+
+        // id 2 may still be committed, so it is checked for again next time
+        StorageChanges changes = this.storage.getChangesSince(StorageRevision.of(0));
+        assertEquals(ImmutableSet.of("a", "b"), changes.getGroups());
+        assertEquals(3, changes.getRevision().getLatest());
+        assertEquals(ImmutableSet.of(2L), changes.getRevision().getMissing().keySet());
+
+        // only the missing entry is read again
+        insertChange(2, now, "G", "c");
+        changes = this.storage.getChangesSince(changes.getRevision());
+        assertEquals(ImmutableSet.of("c"), changes.getGroups());
+        assertEquals(3, changes.getRevision().getLatest());
+        assertTrue(changes.getRevision().getMissing().isEmpty());
+
+        // gaps which have been there for long enough are skipped
+        insertChange(4, now, "G", "d");
+        insertChange(5, now, "G", "e");
+        changes = this.storage.getChangesSince(StorageRevision.of(5, ImmutableMap.of(4L, now - TimeUnit.HOURS.toMillis(1))));
+        assertTrue(changes.isEmpty());
+        assertTrue(changes.getRevision().getMissing().isEmpty());
+    }
+
+    @Test
+    public void testChangesSinceTooManyEntries() throws Exception {
+        long now = System.currentTimeMillis();
+        insertChange(1, now, "G", "a");
+        insertChange(20000, now, "G", "b");
+
+        // reloading everything is quicker than reading this many entries
+        assertTrue(this.storage.getChangesSince(StorageRevision.of(1)).isEverything());
+    }
+
+    @Test
+    public void testChangesSincePrunedEntries() throws Exception {
+        long old = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2);
+        insertChange(1, old, "G", "a");
+        insertChange(2, old, "G", "b");
+        insertChange(3, old, "G", "c");
+        insertChange(4, System.currentTimeMillis(), "G", "d");
+
+        // entries 2 and 3 are pruned by this call, so the changes since 1 aren't known
+        StorageChanges changes = this.storage.getChangesSince(StorageRevision.of(1));
+        assertTrue(changes.isEverything());
+
+        // the latest entry is recent, so it is read again next time
+        assertEquals(3, changes.getRevision().getLatest());
+        assertEquals(ImmutableSet.of("d"), this.storage.getChangesSince(changes.getRevision()).getGroups());
+    }
+
+    private void insertChange(long id, long time, String type, String name) throws SQLException {
+        try (PreparedStatement ps = this.connectionFactory.getConnection().prepareStatement("INSERT INTO luckperms_changes (id, time, type, name) VALUES(?, ?, ?, ?)")) {
+            ps.setLong(1, id);
+            ps.setLong(2, time);
+            ps.setString(3, type);
+            ps.setString(4, name);
+            ps.execute();
+        }
+    }
+
     private static class TestH2ConnectionFactory implements ConnectionFactory {
         private final NonClosableConnection connection;
 
@@ -0,0 +1,226 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage;
+
+import com.google.common.collect.ImmutableMap;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.config.LuckPermsConfiguration;
+import me.lucko.luckperms.common.event.EventDispatcher;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.Track;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.model.manager.group.GroupManager;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.plugin.bootstrap.LuckPermsBootstrap;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
+import me.lucko.luckperms.common.storage.implementation.StorageImplementation;
+import me.lucko.luckperms.common.storage.misc.UserLoginResult;
+import net.luckperms.api.event.cause.DeletionCause;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class StorageTest {
+
+    @Mock private LuckPermsPlugin plugin;
+    @Mock private LuckPermsBootstrap bootstrap;
+    @Mock private LuckPermsConfiguration configuration;
+    @Mock private SchedulerAdapter scheduler;
+    @Mock private StorageImplementation implementation;
+
+    private Storage storage;
+
+    @BeforeEach
+    public void setupStorage() {
+        lenient().when(this.plugin.getBootstrap()).thenReturn(this.bootstrap);
+        lenient().when(this.plugin.getConfiguration()).thenReturn(this.configuration);
+        lenient().when(this.plugin.getEventDispatcher()).thenReturn(mock(EventDispatcher.class));
+        GroupManager<?> groupManager = mock(GroupManager.class);
+        lenient().when(groupManager.getUpdateLock(any())).thenAnswer(invocation -> new ReentrantLock());
+        lenient().doReturn(groupManager).when(this.plugin).getGroupManager();
+        lenient().when(this.bootstrap.getScheduler()).thenReturn(this.scheduler);
+        lenient().when(this.configuration.get(ConfigKeys.USER_LOAD_BATCH_WINDOW)).thenReturn(0);
+        lenient().when(this.configuration.get(ConfigKeys.SAVE_WRITE_BEHIND_WINDOW)).thenReturn(100);
+
+        // run async tasks immediately, but never run delayed flushes
+        lenient().when(this.scheduler.async()).thenReturn((Executor) Runnable::run);
+        lenient().doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(this.scheduler).executeAsync(any());
+        lenient().when(this.scheduler.asyncLater(any(), anyLong(), any())).thenReturn(null);
+
+        this.storage = new Storage(this.plugin, this.implementation);
+    }
+
+    private static Group group(String name) {
+        Group group = mock(Group.class);
+        when(group.getName()).thenReturn(name);
+        return group;
+    }
+
+    private static Track track(String name) {
+        Track track = mock(Track.class);
+        when(track.getName()).thenReturn(name);
+        return track;
+    }
+
+    @Test
+    public void testLoadGroupFlushesPendingSave() throws Exception {
+        Group group = group("admin");
+        when(this.implementation.loadGroup("admin")).thenReturn(Optional.of(group));
+
+        this.storage.saveGroup(group);
+        verify(this.implementation, never()).saveGroup(group);
+
+        this.storage.loadGroup("Admin").join();
+
+        // the pending save must be written before the group is read back
+        InOrder order = inOrder(this.implementation);
+        order.verify(this.implementation).saveGroup(group);
+        order.verify(this.implementation).loadGroup("admin");
+        assertEquals(0, this.storage.getPendingSaveCount());
+    }
+
+    @Test
+    public void testLoadAllGroupsFlushesPendingSaves() throws Exception {
+        Group group = group("admin");
+        this.storage.saveGroup(group);
+
+        this.storage.loadAllGroups().join();
+
+        InOrder order = inOrder(this.implementation);
+        order.verify(this.implementation).saveGroup(group);
+        order.verify(this.implementation).loadAllGroups();
+    }
+
+    @Test
+    public void testLoadUserFlushesPendingSave() throws Exception {
+        UUID uniqueId = UUID.randomUUID();
+        User user = mock(User.class);
+        when(user.getUniqueId()).thenReturn(uniqueId);
+        when(this.implementation.loadUser(uniqueId, null)).thenReturn(user);
+
+        this.storage.saveUser(user);
+        this.storage.loadUser(uniqueId, null).join();
+
+        InOrder order = inOrder(this.implementation);
+        order.verify(this.implementation).saveUser(user);
+        order.verify(this.implementation).loadUser(uniqueId, null);
+    }
+
+    @Test
+    public void testLoginUsersAreBatched() throws Exception {
+        when(this.configuration.get(ConfigKeys.USER_LOAD_BATCH_WINDOW)).thenReturn(5);
+        when(this.implementation.supportsUserBatchLoading()).thenReturn(true);
+        Storage storage = new Storage(this.plugin, this.implementation);
+
+        UUID player1 = UUID.randomUUID();
+        UUID player2 = UUID.randomUUID();
+        User user1 = mock(User.class);
+        User user2 = mock(User.class);
+
+        Map<UUID, String> expected = new LinkedHashMap<>();
+        expected.put(player1, "Player1");
+        expected.put(player2, "Player2");
+        when(this.implementation.loginUserBatch(expected)).thenReturn(ImmutableMap.of(
+                player1, new UserLoginResult(null, user1),
+                player2, new UserLoginResult(null, user2)
+        ));
+
+        CompletableFuture<UserLoginResult> login1 = storage.loginUser(player1, "Player1");
+        CompletableFuture<UserLoginResult> login2 = storage.loginUser(player2, "Player2");
+        CompletableFuture<User> load = storage.loadUser(player2, null);
+        assertFalse(login1.isDone());
+
+        // run the delayed flush
+        ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(this.scheduler).asyncLater(flush.capture(), eq(5L), eq(TimeUnit.MILLISECONDS));
+        flush.getValue().run();
+
+        assertSame(user1, login1.join().getUser());
+        assertSame(user2, login2.join().getUser());
+        assertSame(user2, load.join());
+        verify(this.implementation).loginUserBatch(expected);
+        verify(this.implementation, never()).loginUser(any(), any());
+        verify(this.implementation, never()).loadUserBatch(any());
+    }
+
+    @Test
+    public void testDeleteGroupCancelsPendingSave() throws Exception {
+        Group group = group("admin");
+
+        this.storage.saveGroup(group);
+        this.storage.deleteGroup(group, DeletionCause.COMMAND).join();
+        verify(this.implementation).deleteGroup(group);
+        assertEquals(0, this.storage.getPendingSaveCount());
+
+        // the save must not bring the group back once it has been deleted
+        this.storage.shutdown();
+        verify(this.implementation, never()).saveGroup(group);
+    }
+
+    @Test
+    public void testDeleteTrackCancelsPendingSave() throws Exception {
+        Track track = track("staff");
+
+        this.storage.saveTrack(track);
+        this.storage.deleteTrack(track, DeletionCause.COMMAND).join();
+        verify(this.implementation).deleteTrack(track);
+
+        this.storage.shutdown();
+        verify(this.implementation, never()).saveTrack(track);
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage.implementation.file;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FileNodeIndexTest {
+
+    @Test
+    public void testQuery() {
+        FileNodeIndex index = new FileNodeIndex();
+        index.update("a", 1, ImmutableList.of("test.one", "group.admin"));
+        index.update("b", 2, ImmutableList.of("test.two", "group.admin"));
+
+        assertEquals(ImmutableSet.of("a", "b"), index.getHolders(key -> key.equals("group.admin")));
+        assertEquals(ImmutableSet.of("a", "b"), index.getHolders(key -> key.startsWith("test.")));
+        assertEquals(ImmutableSet.of("b"), index.getHolders(key -> key.equals("test.two")));
+
+        // replace entry
+        index.update("b", 3, ImmutableList.of("test.three"));
+        assertEquals(ImmutableSet.of("a"), index.getHolders(key -> key.equals("group.admin")));
+        assertEquals(3, index.getLastModified("b"));
+
+        // remove entry
+        index.remove("a");
+        assertEquals(ImmutableSet.of(), index.getHolders(key -> key.equals("group.admin")));
+        assertEquals(ImmutableSet.of("b"), index.getHolders());
+        assertEquals(-1, index.getLastModified("a"));
+    }
+
+    @Test
+    public void testInvalidate() {
+        FileNodeIndex index = new FileNodeIndex();
+        index.update("a", 1, ImmutableList.of("test"));
+
+        index.invalidate("a");
+        assertEquals(-1, index.getLastModified("a"));
+        assertEquals(ImmutableSet.of("a"), index.pollStale());
+        assertEquals(ImmutableSet.of(), index.pollStale());
+    }
+
+    @Test
+    public void testSaveAndLoad(@TempDir Path directory) {
+        Path file = directory.resolve("index.json");
+
+        FileNodeIndex index = new FileNodeIndex();
+        index.update("a", 1, ImmutableList.of("test.one", "group.admin"));
+        index.update("b", 2, ImmutableList.of("test.two"));
+        index.update("c", 3, ImmutableList.of("test.three"));
+        index.invalidate("c");
+        index.save(file);
+
+        FileNodeIndex loaded = new FileNodeIndex();
+        loaded.load(file);
+
+        // stale entries are not saved
+        assertEquals(ImmutableSet.of("a", "b"), loaded.getHolders());
+        assertEquals(1, loaded.getLastModified("a"));
+        assertEquals(2, loaded.getLastModified("b"));
+        assertEquals(ImmutableSet.of("a", "b"), loaded.getHolders(key -> key.startsWith("test.")));
+    }
+
+}
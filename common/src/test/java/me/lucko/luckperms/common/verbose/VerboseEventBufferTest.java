@@ -0,0 +1,140 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.verbose;
+
+import me.lucko.luckperms.common.cacheddata.result.TristateResult;
+import me.lucko.luckperms.common.query.QueryOptionsImpl;
+import me.lucko.luckperms.common.verbose.event.CheckOrigin;
+import me.lucko.luckperms.common.verbose.event.PermissionCheckEvent;
+import me.lucko.luckperms.common.verbose.event.VerboseEvent;
+import net.luckperms.api.util.Tristate;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VerboseEventBufferTest {
+
+    private static VerboseEvent event(String permission) {
+        return new PermissionCheckEvent(
+                CheckOrigin.INTERNAL,
+                VerboseCheckTarget.of(VerboseCheckTarget.USER_TYPE, "Player1"),
+                QueryOptionsImpl.DEFAULT_CONTEXTUAL,
+                System.currentTimeMillis(),
+                "test",
+                permission,
+                TristateResult.forMonitoredResult(Tristate.TRUE)
+        );
+    }
+
+    @Test
+    public void testOfferAndPoll() {
+        VerboseEventBuffer buffer = new VerboseEventBuffer(4);
+        assertNull(buffer.poll());
+
+        // go round the buffer a few times
+        for (int i = 0; i < 10; i++) {
+            VerboseEvent first = event("test.first");
+            VerboseEvent second = event("test.second");
+
+            assertTrue(buffer.offer(first));
+            assertTrue(buffer.offer(second));
+            assertSame(first, buffer.poll());
+            assertSame(second, buffer.poll());
+            assertNull(buffer.poll());
+        }
+
+        assertEquals(0, buffer.droppedCount());
+    }
+
+    @Test
+    public void testDropsWhenFull() {
+        VerboseEventBuffer buffer = new VerboseEventBuffer(3);
+        assertEquals(4, buffer.capacity());
+
+        VerboseEvent[] events = new VerboseEvent[4];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = event("test." + i);
+            assertTrue(buffer.offer(events[i]));
+        }
+
+        assertFalse(buffer.offer(event("test.dropped")));
+        assertFalse(buffer.offer(event("test.dropped")));
+        assertEquals(2, buffer.droppedCount());
+
+        // once space is freed up, events can be added again
+        assertSame(events[0], buffer.poll());
+        VerboseEvent next = event("test.next");
+        assertTrue(buffer.offer(next));
+
+        for (int i = 1; i < events.length; i++) {
+            assertSame(events[i], buffer.poll());
+        }
+        assertSame(next, buffer.poll());
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    public void testConcurrentProducers() throws InterruptedException {
+        int producers = 4;
+        int eventsPerProducer = 1000;
+
+        VerboseEventBuffer buffer = new VerboseEventBuffer(producers * eventsPerProducer);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch latch = new CountDownLatch(producers);
+
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            executor.execute(() -> {
+                for (int i = 0; i < eventsPerProducer; i++) {
+                    buffer.offer(event("test." + producer + "." + i));
+                }
+                latch.countDown();
+            });
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        Set<String> seen = new HashSet<>();
+        for (VerboseEvent e; (e = buffer.poll()) != null; ) {
+            assertTrue(seen.add(((PermissionCheckEvent) e).getPermission()));
+        }
+        assertEquals(producers * eventsPerProducer, seen.size());
+        assertEquals(0, buffer.droppedCount());
+    }
+
+}
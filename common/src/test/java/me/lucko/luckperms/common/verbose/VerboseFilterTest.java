@@ -70,7 +70,6 @@ public class VerboseFilterTest {
                 VerboseCheckTarget.of(VerboseCheckTarget.USER_TYPE, "Player1"),
                 QueryOptionsImpl.DEFAULT_CONTEXTUAL,
                 System.currentTimeMillis(),
-                new Throwable(),
                 "test",
                 "luckperms.user.parent.info",
                 TristateResult.forMonitoredResult(Tristate.TRUE)
@@ -81,7 +80,6 @@ public class VerboseFilterTest {
                 VerboseCheckTarget.of(VerboseCheckTarget.USER_TYPE, "aaaaaaa"),
                 QueryOptionsImpl.DEFAULT_CONTEXTUAL,
                 System.currentTimeMillis(),
-                new Throwable(),
                 "test",
                 "aaaaaaaaa",
                 TristateResult.forMonitoredResult(Tristate.FALSE)
@@ -113,7 +111,6 @@ public class VerboseFilterTest {
                 VerboseCheckTarget.of(VerboseCheckTarget.USER_TYPE, "Player1"),
                 QueryOptionsImpl.DEFAULT_CONTEXTUAL,
                 System.currentTimeMillis(),
-                new Throwable(),
                 "test",
                 "nametags.nametag",
                 StringResult.of("ADMIN")
@@ -124,7 +121,6 @@ public class VerboseFilterTest {
                 VerboseCheckTarget.of(VerboseCheckTarget.USER_TYPE, "aaaaaaa"),
                 QueryOptionsImpl.DEFAULT_CONTEXTUAL,
                 System.currentTimeMillis(),
-                new Throwable(),
                 "test",
                 "aaaaaaaaa",
                 StringResult.of("aaaaaa")
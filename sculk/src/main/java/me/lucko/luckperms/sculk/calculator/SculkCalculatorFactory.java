@@ -33,6 +33,7 @@ import me.lucko.luckperms.common.calculator.processor.PermissionProcessor;
 import me.lucko.luckperms.common.calculator.processor.RegexProcessor;
 import me.lucko.luckperms.common.calculator.processor.SpongeWildcardProcessor;
 import me.lucko.luckperms.common.calculator.processor.WildcardProcessor;
+import me.lucko.luckperms.common.calculator.processor.WildcardTrieProcessor;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.sculk.LPSculkPlugin;
 import net.luckperms.api.query.QueryOptions;
@@ -54,17 +55,21 @@ public class SculkCalculatorFactory implements CalculatorFactory {
         processors.add(new DirectProcessor());
 
         if (this.plugin.getConfiguration().get(ConfigKeys.APPLYING_REGEX)) {
-            processors.add(new RegexProcessor());
+            processors.add(new RegexProcessor(this.plugin.getConfiguration().get(ConfigKeys.APPLYING_REGEX_AUTOMATON)));
         }
 
         if (this.plugin.getConfiguration().get(ConfigKeys.APPLYING_WILDCARDS)) {
-            processors.add(new WildcardProcessor());
+            if (this.plugin.getConfiguration().get(ConfigKeys.APPLYING_WILDCARDS_TRIE)) {
+                processors.add(new WildcardTrieProcessor());
+            } else {
+                processors.add(new WildcardProcessor());
+            }
         }
 
         if (this.plugin.getConfiguration().get(ConfigKeys.APPLYING_WILDCARDS_SPONGE)) {
             processors.add(new SpongeWildcardProcessor());
         }
 
-        return new PermissionCalculator(this.plugin, metadata, processors);
+        return new PermissionCalculator(this.plugin, metadata, processors, this.plugin.getConfiguration().get(ConfigKeys.PERMISSION_LOOKUP_CACHE_SIZE));
     }
 }
@@ -35,7 +35,9 @@ import me.lucko.luckperms.sculk.LPSculkPlugin;
 import net.luckperms.api.context.ImmutableContextSet;
 import net.luckperms.api.query.QueryOptions;
 
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 public class SculkContextManager extends ContextManager<Player, Player> {
@@ -44,6 +46,9 @@ public class SculkContextManager extends ContextManager<Player, Player> {
             .expireAfterAccess(1, TimeUnit.MINUTES)
             .build(key -> new QueryOptionsCache<>(key, this));
 
+    // caches for online players, held until they disconnect
+    private final Map<Player, QueryOptionsCache<Player>> onlineSubjectCaches = new ConcurrentHashMap<>();
+
     public SculkContextManager(LPSculkPlugin plugin) {
         super(plugin, Player.class, Player.class);
     }
@@ -59,12 +64,34 @@ public class SculkContextManager extends ContextManager<Player, Player> {
             throw new NullPointerException("subject");
         }
 
+        QueryOptionsCache<Player> cache = this.onlineSubjectCaches.get(subject);
+        if (cache != null) {
+            return cache;
+        }
         return this.subjectCaches.get(subject);
     }
 
+    /**
+     * Pins the query options cache for an online player, so it is retained
+     * (and can be referenced directly) until they disconnect.
+     *
+     * @param player the player
+     * @return the cache
+     */
+    public QueryOptionsCache<Player> pinCache(Player player) {
+        return this.onlineSubjectCaches.computeIfAbsent(player, this.subjectCaches::get);
+    }
+
+    public void unpinCache(Player player) {
+        this.onlineSubjectCaches.remove(player);
+    }
+
     @Override
     protected void invalidateCache(Player subject) {
-        QueryOptionsCache<Player> cache = this.subjectCaches.getIfPresent(subject);
+        QueryOptionsCache<Player> cache = this.onlineSubjectCaches.get(subject);
+        if (cache == null) {
+            cache = this.subjectCaches.getIfPresent(subject);
+        }
         if (cache != null) {
             cache.invalidate();
         }
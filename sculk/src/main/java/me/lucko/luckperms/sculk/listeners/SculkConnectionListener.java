@@ -31,6 +31,7 @@ import io.github.sculkpowered.server.event.Subscribe;
 import io.github.sculkpowered.server.event.player.PlayerDisconnectEvent;
 import io.github.sculkpowered.server.event.player.PlayerInitialEvent;
 import io.github.sculkpowered.server.event.player.PlayerJoinEvent;
+import me.lucko.luckperms.common.cacheddata.PermissionCheckHandle;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.locale.Message;
 import me.lucko.luckperms.common.locale.TranslationManager;
@@ -74,7 +75,8 @@ public class SculkConnectionListener extends AbstractConnectionListener {
         try {
             User user = loadUser(player.uniqueId(), player.name());
             recordConnection(player.uniqueId());
-            event.permissionChecker(new PermissionCheckerImpl(user, player));
+            event.permissionChecker(new PermissionCheckerImpl(user.getCachedData().newPermissionCheckHandle(
+                    this.plugin.getContextManager().pinCache(player))));
             this.plugin.getEventDispatcher().dispatchPlayerLoginProcess(player.uniqueId(), player.name(), user);
         } catch (Exception ex) {
             this.plugin.getLogger().severe("Exception occurred whilst loading data for " + player.uniqueId() + " - " + player.name(), ex);
@@ -116,24 +118,21 @@ public class SculkConnectionListener extends AbstractConnectionListener {
 
     @Subscribe(order = EventOrder.LAST)
     public void onPlayerQuit(PlayerDisconnectEvent event) {
+        this.plugin.getContextManager().unpinCache(event.player());
         handleDisconnect(event.player().uniqueId());
     }
 
-    private class PermissionCheckerImpl implements PermissionChecker {
+    private static class PermissionCheckerImpl implements PermissionChecker {
 
-        private final User user;
-        private final Player player;
+        private final PermissionCheckHandle handle;
 
-        public PermissionCheckerImpl(final User user, final Player player) {
-            this.user = user;
-            this.player = player;
+        public PermissionCheckerImpl(final PermissionCheckHandle handle) {
+            this.handle = handle;
         }
 
         @Override
         public @NotNull TriState value(@NotNull String permission) {
-            return CompatibilityUtil.convertTristate(this.user.getCachedData()
-                    .getPermissionData(SculkConnectionListener.this.plugin.getContextManager()
-                            .getCacheFor(this.player).getQueryOptions())
+            return CompatibilityUtil.convertTristate(this.handle
                     .checkPermission(permission, CheckOrigin.PLATFORM_API_HAS_PERMISSION).result());
         }
     }